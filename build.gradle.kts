@@ -38,6 +38,7 @@ dependencies {
 	implementation("software.amazon.awssdk:s3")
 	implementation("org.springframework.boot:spring-boot-starter-actuator")
 	implementation("io.micrometer:micrometer-registry-prometheus")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 	compileOnly("org.projectlombok:lombok")
 	implementation("org.mapstruct:mapstruct:1.6.3")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
@@ -64,3 +65,23 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+// Benchmarks are tagged "benchmark" and only run here, with their output on the console
+tasks.register<Test>("benchmark") {
+	description = "Runs the benchmark tests."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	testLogging {
+		showStandardStreams = true
+	}
+}
@@ -1,6 +1,7 @@
 package com.example.urbannest.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,7 +11,9 @@ import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
+// Only with the S3 storage backend, so local storage runs without AWS credentials
 @Configuration
+@ConditionalOnProperty(name = "media.storage", havingValue = "s3", matchIfMissing = true)
 public class S3Config {
     @Value("${aws.s3.access-key-id}")
     private String accessKeyId;
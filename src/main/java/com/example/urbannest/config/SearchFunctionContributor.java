@@ -0,0 +1,67 @@
+package com.example.urbannest.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+// Registers PostgreSQL full-text, geometric and facet bucketing expressions for use from JPA criteria queries.
+// Geo patterns repeat the exact expressions of the V12 GiST indexes so the planner can match them.
+// Loaded through META-INF/services/org.hibernate.boot.model.FunctionContributor
+public class SearchFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry basicTypes = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_match",
+                "(?1 @@ websearch_to_tsquery('english', ?2))",
+                basicTypes.resolve(StandardBasicTypes.BOOLEAN));
+
+        functionContributions.getFunctionRegistry().registerPattern(
+                "fts_rank",
+                "ts_rank(?1, websearch_to_tsquery('english', ?2))",
+                basicTypes.resolve(StandardBasicTypes.DOUBLE));
+
+        // (latitude, longitude, minLat, minLng, maxLat, maxLng)
+        functionContributions.getFunctionRegistry().registerPattern(
+                "geo_in_box",
+                "(point(?2, ?1) <@ box(point(?4, ?3), point(?6, ?5)))",
+                basicTypes.resolve(StandardBasicTypes.BOOLEAN));
+
+        // (latitude, longitude, polygon literal)
+        functionContributions.getFunctionRegistry().registerPattern(
+                "geo_in_polygon",
+                "(point(?2, ?1) <@ cast(?3 as polygon))",
+                basicTypes.resolve(StandardBasicTypes.BOOLEAN));
+
+        // (latitude, longitude, originLat, originLng, radiusMeters); earth_box prefilters on the index, earth_distance is exact
+        functionContributions.getFunctionRegistry().registerPattern(
+                "geo_within_radius",
+                "(earth_box(listing_earth(?3, ?4), ?5) @> listing_earth(?1, ?2)"
+                        + " and earth_distance(listing_earth(?3, ?4), listing_earth(?1, ?2)) <= ?5)",
+                basicTypes.resolve(StandardBasicTypes.BOOLEAN));
+
+        // (latitude, longitude, originLat, originLng); GiST KNN operator, usable for index-ordered scans
+        functionContributions.getFunctionRegistry().registerPattern(
+                "geo_distance",
+                "(listing_earth(?1, ?2) <-> listing_earth(?3, ?4))",
+                basicTypes.resolve(StandardBasicTypes.DOUBLE));
+
+        // Facet buckets. Parameter-free so the select and group by render the same SQL.
+        // (bedroomsCount) -> 0..4, where 4 stands for "4 or more"; null stays null
+        functionContributions.getFunctionRegistry().registerPattern(
+                "bedroom_bucket",
+                "(case when ?1 >= 4 then 4 else ?1 end)",
+                basicTypes.resolve(StandardBasicTypes.INTEGER));
+
+        // (pricing) -> lower bound of its 1-2-5 series bucket (..., 100, 200, 500, 1000, ...)
+        functionContributions.getFunctionRegistry().registerPattern(
+                "price_bucket",
+                "(case when ?1 < 1 then 0 else power(10, floor(log(?1))) * case"
+                        + " when ?1 < 2 * power(10, floor(log(?1))) then 1"
+                        + " when ?1 < 5 * power(10, floor(log(?1))) then 2 else 5 end end)",
+                basicTypes.resolve(StandardBasicTypes.BIG_DECIMAL));
+    }
+}
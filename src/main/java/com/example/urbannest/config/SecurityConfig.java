@@ -36,6 +36,9 @@ public class SecurityConfig {
                         .requestMatchers("/listings/**").permitAll()
                         .requestMatchers("/blogs/**").permitAll()
                         .requestMatchers("/health").permitAll()
+                        .requestMatchers("/media/access").permitAll()
+                        // Local storage URLs carry their own signature
+                        .requestMatchers("/media/files/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
                         .anyRequest().authenticated())
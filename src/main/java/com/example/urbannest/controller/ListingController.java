@@ -1,26 +1,41 @@
 package com.example.urbannest.controller;
 
+import com.example.urbannest.dto.Requests.EngagementSyncRequest;
 import com.example.urbannest.dto.Requests.ListingCreateRequest;
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
 import com.example.urbannest.dto.Requests.ListingUpdateRequest;
 import com.example.urbannest.dto.Responses.ApiResponse;
+import com.example.urbannest.dto.Responses.CursorPageResponse;
+import com.example.urbannest.dto.Responses.EngagementSyncResponse;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse;
 import com.example.urbannest.dto.Responses.ListingResponse;
-import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.dto.Responses.ListingSummaryResponse;
+import com.example.urbannest.dto.Responses.LocationSuggestionResponse;
+import com.example.urbannest.media.MediaSize;
+import com.example.urbannest.search.LocationSuggestIndex;
+import com.example.urbannest.service.ListingFacetService;
 import com.example.urbannest.service.ListingService;
+import com.example.urbannest.service.ListingViewCounter;
 import com.example.urbannest.util.FirebaseUtil;
 import com.google.firebase.auth.FirebaseToken;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Tag(name = "Listings", description = "Property listing CRUD, search, favorites, and saved listings")
@@ -28,9 +43,18 @@ import java.util.UUID;
 @RequestMapping("/listings")
 public class ListingController {
     private final ListingService listingService;
+    private final ListingFacetService listingFacetService;
+    private final LocationSuggestIndex locationSuggestIndex;
+    private final ListingViewCounter listingViewCounter;
 
-    public ListingController(ListingService listingService){
+    public ListingController(ListingService listingService,
+                             ListingFacetService listingFacetService,
+                             LocationSuggestIndex locationSuggestIndex,
+                             ListingViewCounter listingViewCounter){
         this.listingService = listingService;
+        this.listingFacetService = listingFacetService;
+        this.locationSuggestIndex = locationSuggestIndex;
+        this.listingViewCounter = listingViewCounter;
     }
 
     @Operation(summary = "Create a listing", description = "Creates a new property listing as draft or published. Requires authentication.")
@@ -43,12 +67,19 @@ public class ListingController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Get a listing by ID", description = "Returns full listing details including owner, property details, location, counters, and media.")
+    @Operation(summary = "Get a listing by ID", description = "Returns full listing details including owner, property details, location, counters, and media, with media URLs in the requested mediaSize. With a token, isFavorited and isSaved tell whether the caller has favorited or saved the listing; they are null otherwise. Sends an ETag, and for anonymous callers a Last-Modified; a matching If-None-Match or If-Modified-Since gets 304 Not Modified. Counts a view, once per viewer within the dedup window.")
     @GetMapping("/{id}")
     public ResponseEntity<ListingResponse> getListingById(
-            @Parameter(description = "Listing UUID") @PathVariable("id") UUID listingId){
-        ListingResponse response = listingService.getListingById(listingId);
-        return ResponseEntity.ok(response);
+            @Parameter(description = "Listing UUID") @PathVariable("id") UUID listingId,
+            @Parameter(description = "Image size to return media URLs in") @RequestParam(defaultValue = "original") MediaSize mediaSize,
+            WebRequest webRequest,
+            HttpServletRequest request){
+        Optional<ListingResponse> response = listingService.getListingById(listingId, mediaSize,
+                FirebaseUtil.findFirebaseToken(), webRequest::checkNotModified);
+        // A revalidated copy is being shown too, so 304s count as views
+        listingViewCounter.record(listingId, viewerOf(request));
+        // A null return after a matched validator is rendered as 304 with the validator headers
+        return response.map(ResponseEntity::ok).orElse(null);
     }
 
     @Operation(summary = "Update a listing", description = "Partially updates a listing. Only the owner can update. Tracks price history on price changes.")
@@ -70,20 +101,65 @@ public class ListingController {
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Search published listings", description = "Public endpoint. Returns paginated published listings with optional filters.")
+    @Operation(summary = "Search published listings", description = "Public endpoint. Returns paginated published listings with optional filters, including bounding box, radius and polygon geo filters. sort=distance orders nearest first from lat/lng. Otherwise, when q is given, results are ranked by text relevance and the sort parameter is ignored. With a token, each listing carries the caller's isFavorited and isSaved flags. Sends a page-level ETag; a matching If-None-Match gets 304 Not Modified.")
     @GetMapping
     public ResponseEntity<Page<ListingResponse>> getListings(
-            @Parameter(description = "Filter by property type") @RequestParam(required = false) PropertyType propertyType,
-            @Parameter(description = "Minimum price (inclusive)") @RequestParam(required = false) BigDecimal priceMin,
-            @Parameter(description = "Maximum price (inclusive)") @RequestParam(required = false) BigDecimal priceMax,
-            @Parameter(description = "Filter by district name") @RequestParam(required = false) String district,
-            @Parameter(description = "Minimum number of bedrooms") @RequestParam(required = false) Integer minBedrooms,
+            @ParameterObject @Valid ListingSearchRequest filters,
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest webRequest) {
+        return listingService.getListings(filters, pageable, FirebaseUtil.findFirebaseToken(), webRequest::checkNotModified)
+                .map(ResponseEntity::ok)
+                .orElse(null);
+    }
+
+    @Operation(summary = "Search published listings by cursor", description = "Public endpoint. Keyset-paginated variant of the search, selected by the cursor parameter. Pass an empty cursor for the first slice, then the returned nextCursor. No total count is computed. Slices are always ordered newest first, including when q is given.")
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPageResponse<ListingResponse>> getListingsByCursor(
+            @ParameterObject @Valid ListingSearchRequest filters,
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<ListingResponse> slice = listingService.getListingsByCursor(filters, cursor, size,
+                FirebaseUtil.findFirebaseToken());
+        return ResponseEntity.ok(slice);
+    }
+
+    @Operation(summary = "Search published listings as summaries", description = "Public endpoint, selected by view=summary. Same filters, sorting and paging as the search, but returns compact cards (cover image, price, headline specs, district) read through a projection query.")
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<Page<ListingSummaryResponse>> getListingSummaries(
+            @ParameterObject @Valid ListingSearchRequest filters,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<ListingResponse> page = listingService.getListings(
-                propertyType, priceMin, priceMax, district, minBedrooms, pageable);
+        Page<ListingSummaryResponse> page = listingService.getListingSummaries(filters, pageable,
+                FirebaseUtil.findFirebaseToken());
         return ResponseEntity.ok(page);
     }
 
+    @Operation(summary = "Search published listings as summaries by cursor", description = "Public endpoint. Keyset-paginated variant of the summary view, selected by view=summary together with cursor.")
+    @GetMapping(params = {"cursor", "view=summary"})
+    public ResponseEntity<CursorPageResponse<ListingSummaryResponse>> getListingSummariesByCursor(
+            @ParameterObject @Valid ListingSearchRequest filters,
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        CursorPageResponse<ListingSummaryResponse> slice = listingService.getListingSummariesByCursor(filters, cursor, size,
+                FirebaseUtil.findFirebaseToken());
+        return ResponseEntity.ok(slice);
+    }
+
+    @Operation(summary = "Get search facets", description = "Public endpoint. Accepts the same filters as the listing search and returns counts per property type, district and bedroom bucket plus the price range and histogram, computed in one aggregate query. Results are cached briefly per filter combination.")
+    @GetMapping("/facets")
+    public ResponseEntity<ListingFacetsResponse> getListingFacets(
+            @ParameterObject @Valid ListingSearchRequest filters) {
+        ListingFacetsResponse response = listingFacetService.getFacets(filters);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Suggest districts and areas", description = "Public endpoint for search-box autocomplete. Returns districts and areas starting with the prefix (case-insensitive), most published listings first. Served from an in-memory index; no database query per keystroke.")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<LocationSuggestionResponse>> suggestLocations(
+            @Parameter(description = "Typed prefix", example = "gul") @RequestParam String prefix,
+            @Parameter(description = "Maximum suggestions (max 20)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(locationSuggestIndex.suggest(prefix, limit));
+    }
+
     @Operation(summary = "Get my listings", description = "Returns the authenticated user's own listings (excluding deleted).")
     @GetMapping("/my")
     public ResponseEntity<Page<ListingResponse>> getMyListings(
@@ -93,6 +169,35 @@ public class ListingController {
         return ResponseEntity.ok(page);
     }
 
+    @Operation(summary = "Get my listings by cursor", description = "Keyset-paginated variant selected by the cursor parameter. Pass an empty cursor for the first slice.")
+    @GetMapping(value = "/my", params = "cursor")
+    public ResponseEntity<CursorPageResponse<ListingResponse>> getMyListingsByCursor(
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        CursorPageResponse<ListingResponse> slice = listingService.getMyListingsByCursor(token, cursor, size);
+        return ResponseEntity.ok(slice);
+    }
+
+    @Operation(summary = "Get my listings as summaries", description = "Compact card view of the authenticated user's own listings, selected by view=summary.")
+    @GetMapping(value = "/my", params = "view=summary")
+    public ResponseEntity<Page<ListingSummaryResponse>> getMyListingSummaries(
+            @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        Page<ListingSummaryResponse> page = listingService.getMyListingSummaries(token, pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    @Operation(summary = "Get my listings as summaries by cursor", description = "Keyset-paginated variant of the summary view, selected by view=summary together with cursor.")
+    @GetMapping(value = "/my", params = {"cursor", "view=summary"})
+    public ResponseEntity<CursorPageResponse<ListingSummaryResponse>> getMyListingSummariesByCursor(
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        CursorPageResponse<ListingSummaryResponse> slice = listingService.getMyListingSummariesByCursor(token, cursor, size);
+        return ResponseEntity.ok(slice);
+    }
+
     @Operation(summary = "Get my favorite listings", description = "Returns listings the authenticated user has favorited.")
     @GetMapping("/favorites")
     public ResponseEntity<Page<ListingResponse>> getMyFavorites(
@@ -102,6 +207,16 @@ public class ListingController {
         return ResponseEntity.ok(page);
     }
 
+    @Operation(summary = "Get my favorite listings by cursor", description = "Keyset-paginated variant selected by the cursor parameter. Pass an empty cursor for the first slice.")
+    @GetMapping(value = "/favorites", params = "cursor")
+    public ResponseEntity<CursorPageResponse<ListingResponse>> getMyFavoritesByCursor(
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        CursorPageResponse<ListingResponse> slice = listingService.getMyFavoritesByCursor(token, cursor, size);
+        return ResponseEntity.ok(slice);
+    }
+
     @Operation(summary = "Get my saved listings", description = "Returns listings the authenticated user has saved for later.")
     @GetMapping("/saved")
     public ResponseEntity<Page<ListingResponse>> getMySavedListings(
@@ -111,7 +226,17 @@ public class ListingController {
         return ResponseEntity.ok(page);
     }
 
-    @Operation(summary = "Favorite a listing", description = "Adds a listing to the authenticated user's favorites. Returns 409 if already favorited.")
+    @Operation(summary = "Get my saved listings by cursor", description = "Keyset-paginated variant selected by the cursor parameter. Pass an empty cursor for the first slice.")
+    @GetMapping(value = "/saved", params = "cursor")
+    public ResponseEntity<CursorPageResponse<ListingResponse>> getMySavedListingsByCursor(
+            @Parameter(description = "Opaque cursor from the previous slice (empty for the first slice)") @RequestParam String cursor,
+            @Parameter(description = "Slice size (max 100)") @RequestParam(defaultValue = "20") int size) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        CursorPageResponse<ListingResponse> slice = listingService.getMySavedListingsByCursor(token, cursor, size);
+        return ResponseEntity.ok(slice);
+    }
+
+    @Operation(summary = "Favorite a listing", description = "Adds a listing to the authenticated user's favorites. Idempotent: repeating it succeeds without changing anything.")
     @PostMapping("/{id}/favorite")
     public ResponseEntity<ApiResponse> addFavorite(
             @Parameter(description = "Listing UUID") @PathVariable("id") UUID listingId) {
@@ -129,7 +254,7 @@ public class ListingController {
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Save a listing", description = "Saves a listing for later viewing. Returns 409 if already saved.")
+    @Operation(summary = "Save a listing", description = "Saves a listing for later viewing. Idempotent: repeating it succeeds without changing anything.")
     @PostMapping("/{id}/save")
     public ResponseEntity<ApiResponse> saveListing(
             @Parameter(description = "Listing UUID") @PathVariable("id") UUID listingId) {
@@ -146,4 +271,20 @@ public class ListingController {
         ApiResponse response = listingService.unsaveListing(token, listingId);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Sync favorites and saves", description = "Applies favorite and save toggles queued by an offline client, up to 500 at once, in one transaction. Per listing, the toggle with the latest clientTimestamp wins; a removal older than the favorite or save it would remove is ignored.")
+    @PostMapping("/engagement/sync")
+    public ResponseEntity<EngagementSyncResponse> syncEngagement(@Valid @RequestBody EngagementSyncRequest request) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        return ResponseEntity.ok(listingService.syncEngagement(token, request));
+    }
+
+    // Signed-in users by account; anonymous ones by address and user agent, as there is no session
+    private static String viewerOf(HttpServletRequest request) {
+        FirebaseToken token = FirebaseUtil.findFirebaseToken();
+        if (token != null) {
+            return "user:" + token.getUid();
+        }
+        return "anonymous:" + request.getRemoteAddr() + "|" + request.getHeader(HttpHeaders.USER_AGENT);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.media.LocalMediaStorage;
+import com.example.urbannest.media.MediaUploadPolicy;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Serves and accepts files of the local storage backend through the signed URLs it hands out, standing in for
+ * presigned S3 GETs and PUTs. The signature is the credential, so the endpoints need no login.
+ * <p>
+ * Downloads honour a single byte range. Under Tomcat the file is handed to the connector's sendfile, which
+ * copies it to the socket in the kernel; elsewhere {@link FileChannel#transferTo} copies it without a heap
+ * buffer of the whole file.
+ */
+@Tag(name = "Local Media Files", description = "Signed upload and download of files kept by the local storage backend")
+@RestController
+@ConditionalOnProperty(name = "media.storage", havingValue = "local")
+@RequestMapping("/media/files")
+public class LocalMediaController {
+    // Set by Tomcat when the connector can send files itself; the other attributes hand it the file and range
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalMediaStorage localMediaStorage;
+    private final MediaUploadPolicy mediaUploadPolicy;
+
+    public LocalMediaController(LocalMediaStorage localMediaStorage, MediaUploadPolicy mediaUploadPolicy) {
+        this.localMediaStorage = localMediaStorage;
+        this.mediaUploadPolicy = mediaUploadPolicy;
+    }
+
+    @Operation(summary = "Download a file", description = "Streams a file through a signed download URL. Supports a single byte range.")
+    @GetMapping("/{*key}")
+    public void download(
+            @PathVariable String key,
+            @Parameter(description = "Expiry in epoch seconds") @RequestParam long expires,
+            @RequestParam String signature,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String objectKey = key.substring(1);
+        localMediaStorage.checkDownload(objectKey, expires, signature);
+        Path path = localMediaStorage.locate(objectKey);
+        long size = Files.size(path);
+
+        long start = 0;
+        long end = size - 1;
+        List<HttpRange> ranges = parseRanges(range);
+        // Several ranges would need a multipart body; serving the whole file instead is allowed
+        if (ranges.size() == 1) {
+            start = ranges.getFirst().getRangeStart(size);
+            end = ranges.getFirst().getRangeEnd(size);
+            // A range starting past the end comes back clamped to an empty one
+            if (start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                "private, max-age=" + Math.max(0, expires - Instant.now().getEpochSecond()));
+        response.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(length);
+        if (length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, out);
+                // The file shrank underneath us; the client sees a short body
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    @Operation(summary = "Upload a file", description = "Stores the request body through a signed upload URL. The Content-Type header must match the signed one, and the body must have the signed length and hash when they were declared.")
+    @PutMapping("/{*key}")
+    public ResponseEntity<Void> upload(
+            @PathVariable String key,
+            @Parameter(description = "Expiry in epoch seconds") @RequestParam long expires,
+            @RequestParam String signature,
+            @Parameter(description = "Declared length, when it was signed") @RequestParam(required = false) Long contentLength,
+            @Parameter(description = "Declared SHA-256, when it was signed") @RequestParam(required = false) String contentHash,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) throws IOException {
+        String objectKey = key.substring(1);
+        localMediaStorage.checkUpload(objectKey, contentType, contentLength, contentHash, expires, signature);
+        if (contentLength != null && request.getContentLengthLong() != contentLength) {
+            throw new InvalidRequestException("Body length does not match the signed length " + contentLength);
+        }
+
+        long maxBytes = contentLength != null ? contentLength : mediaUploadPolicy.maxBytes();
+        localMediaStorage.store(objectKey, request.getInputStream(), maxBytes, contentHash);
+        return ResponseEntity.ok().build();
+    }
+
+    // A malformed Range header is ignored, as if it were absent
+    private static List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.media.MediaUrlStrategy;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "Media", description = "Access to listing media served from the CDN")
+@RestController
+@RequestMapping("/media")
+public class MediaController {
+    private final MediaUrlStrategy mediaUrlStrategy;
+
+    public MediaController(MediaUrlStrategy mediaUrlStrategy) {
+        this.mediaUrlStrategy = mediaUrlStrategy;
+    }
+
+    @Operation(summary = "Get media access cookies", description = "Sets the signed cookies that let the client load listing media from the CDN. Sets nothing when media URLs need no credential.")
+    @GetMapping("/access")
+    public ResponseEntity<Void> getMediaAccess() {
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent().cacheControl(CacheControl.noStore());
+        for (ResponseCookie cookie : mediaUrlStrategy.accessCookies()) {
+            response.header(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+        return response.build();
+    }
+}
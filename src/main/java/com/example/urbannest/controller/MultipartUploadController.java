@@ -0,0 +1,74 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.dto.Requests.MultipartPartsRequest;
+import com.example.urbannest.dto.Responses.MultipartPartUrlResponse;
+import com.example.urbannest.dto.Responses.MultipartUploadResponse;
+import com.example.urbannest.service.MultipartUploadService;
+import com.example.urbannest.util.FirebaseUtil;
+import com.google.firebase.auth.FirebaseToken;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "S3 Multipart Uploads", description = "Resumable, parallel uploads of large files straight to S3")
+@RestController
+@ConditionalOnProperty(name = "media.storage", havingValue = "s3", matchIfMissing = true)
+@RequestMapping("/s3/multipart-uploads")
+public class MultipartUploadController {
+    private final MultipartUploadService multipartUploadService;
+
+    public MultipartUploadController(MultipartUploadService multipartUploadService) {
+        this.multipartUploadService = multipartUploadService;
+    }
+
+    @Operation(summary = "Start a multipart upload", description = "Starts an S3 multipart upload for a file of the given content length and returns its key, upload ID, part size and part count.")
+    @PostMapping
+    public ResponseEntity<MultipartUploadResponse> initiate(
+            @Valid @RequestBody MediaUploadRequest request) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        MultipartUploadResponse response = multipartUploadService.initiate(token, request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Get a multipart upload", description = "Returns the upload and the part numbers S3 already holds, so an interrupted upload can resume with the missing parts. Only the owner can access it.")
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<MultipartUploadResponse> getStatus(
+            @Parameter(description = "S3 multipart upload ID") @PathVariable String uploadId) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        return ResponseEntity.ok(multipartUploadService.getStatus(token, uploadId));
+    }
+
+    @Operation(summary = "Get pre-signed part URLs", description = "Returns a pre-signed PUT URL per requested part, each signed for the exact part length. Parts can be uploaded in parallel.")
+    @PostMapping("/{uploadId}/parts")
+    public ResponseEntity<List<MultipartPartUrlResponse>> presignParts(
+            @Parameter(description = "S3 multipart upload ID") @PathVariable String uploadId,
+            @Valid @RequestBody MultipartPartsRequest request) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        return ResponseEntity.ok(multipartUploadService.presignParts(token, uploadId, request.getPartNumbers()));
+    }
+
+    @Operation(summary = "Complete a multipart upload", description = "Assembles the uploaded parts into the final object. Fails with 400 while any part is missing or has the wrong size.")
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<MultipartUploadResponse> complete(
+            @Parameter(description = "S3 multipart upload ID") @PathVariable String uploadId) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        return ResponseEntity.ok(multipartUploadService.complete(token, uploadId));
+    }
+
+    @Operation(summary = "Abort a multipart upload", description = "Aborts the upload and discards its uploaded parts.")
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(
+            @Parameter(description = "S3 multipart upload ID") @PathVariable String uploadId) {
+        FirebaseToken token = FirebaseUtil.getFirebaseToken();
+        multipartUploadService.abort(token, uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.urbannest.controller;
 
+import com.example.urbannest.dto.Requests.MediaUploadBatchRequest;
 import com.example.urbannest.dto.Requests.MediaUploadRequest;
 import com.example.urbannest.dto.Responses.MediaUploadResponse;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.media.MediaUploadPolicy;
+import com.example.urbannest.service.MediaAssetService;
+import com.example.urbannest.service.MediaDeletionService;
 import com.example.urbannest.service.S3Service;
+import com.example.urbannest.util.FirebaseUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,46 +16,101 @@ import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 @Tag(name = "S3 Media", description = "Pre-signed URL generation for S3 uploads and downloads")
 @RestController
 @RequestMapping("/s3")
 public class S3Controller {
-    private final S3Service s3Service;
+    private final MediaStorage mediaStorage;
+    private final MediaUploadPolicy mediaUploadPolicy;
+    private final MediaDeletionService mediaDeletionService;
+    private final MediaAssetService mediaAssetService;
 
-    public S3Controller(S3Service s3Service) {
-        this.s3Service = s3Service;
+    public S3Controller(MediaStorage mediaStorage, MediaUploadPolicy mediaUploadPolicy,
+                        MediaDeletionService mediaDeletionService, MediaAssetService mediaAssetService) {
+        this.mediaStorage = mediaStorage;
+        this.mediaUploadPolicy = mediaUploadPolicy;
+        this.mediaDeletionService = mediaDeletionService;
+        this.mediaAssetService = mediaAssetService;
     }
 
-    @Operation(summary = "Get a pre-signed upload URL", description = "Generates a pre-signed S3 URL for uploading a file. Returns the URL and the S3 object key.")
+    @Operation(summary = "Get a pre-signed upload URL", description = "Generates a pre-signed S3 URL for uploading a file. Returns the URL and the S3 object key. With a contentHash the user already stored, returns that object's key and no URL instead.")
     @PostMapping("/upload-request")
     public ResponseEntity<MediaUploadResponse> getUploadUrl(
             @Valid @RequestBody MediaUploadRequest request) {
+        mediaUploadPolicy.validate(request);
+        return ResponseEntity.ok(prepareUploads(List.of(request),
+                targets -> targets.stream().map(mediaStorage::uploadUrl).toList()).getFirst());
+    }
 
-        String key = request.getCategory() + "/" + UUID.randomUUID() + "/" + request.getFileName();
-        String uploadUrl = s3Service.generateUploadUrl(key, request.getContentType());
-
-        MediaUploadResponse response = new MediaUploadResponse();
-        response.setUploadUrl(uploadUrl);
-        response.setKey(key);
-
-        return ResponseEntity.ok(response);
+    @Operation(summary = "Get pre-signed upload URLs for several files", description = "Generates one pre-signed S3 upload URL per item, in request order. The whole batch is rejected if any item has a disallowed content type or size, or if it has too many items. Items whose contentHash the user already stored get that object's key and no URL.")
+    @PostMapping("/upload-requests")
+    public ResponseEntity<List<MediaUploadResponse>> getUploadUrls(
+            @Valid @RequestBody MediaUploadBatchRequest request) {
+        mediaUploadPolicy.validateBatch(request.getItems());
+        return ResponseEntity.ok(prepareUploads(request.getItems(), mediaStorage::uploadUrls));
     }
 
     @Operation(summary = "Get a pre-signed download URL", description = "Generates a pre-signed S3 URL for downloading a file by its key.")
     @GetMapping("/download-url")
     public ResponseEntity<String> getDownloadUrl(
             @Parameter(description = "S3 object key") @RequestParam String key) {
-        String downloadUrl = s3Service.generateDownloadUrl(key);
+        String downloadUrl = mediaStorage.downloadUrl(key);
         return ResponseEntity.ok(downloadUrl);
     }
 
-    @Operation(summary = "Delete an S3 object", description = "Deletes a file from S3 by its key.")
+    @Operation(summary = "Delete an S3 object", description = "Queues a file for deletion by its key. The object is removed in the background, usually within a minute.")
     @DeleteMapping
     public ResponseEntity<Void> deleteObject(
             @Parameter(description = "S3 object key") @RequestParam String key) {
-        s3Service.deleteObject(key);
-        return ResponseEntity.noContent().build();
+        mediaDeletionService.enqueue(key);
+        return ResponseEntity.accepted().build();
+    }
+
+    // Content the user already stored is answered with its key; the rest is signed together, in request order
+    private List<MediaUploadResponse> prepareUploads(List<MediaUploadRequest> requests,
+                                                     Function<List<MediaStorage.UploadTarget>, List<String>> signer) {
+        List<String> hashes = requests.stream()
+                .map(MediaUploadRequest::getContentHash)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, String> storedKeys = hashes.isEmpty() ? Map.of()
+                : mediaAssetService.findStoredKeys(FirebaseUtil.getFirebaseToken().getUid(), hashes);
+
+        List<MediaUploadResponse> responses = new ArrayList<>(requests.size());
+        List<MediaStorage.UploadTarget> targets = new ArrayList<>();
+        List<MediaUploadResponse> pending = new ArrayList<>();
+        for (MediaUploadRequest request : requests) {
+            MediaUploadResponse response = new MediaUploadResponse();
+            String storedKey = request.getContentHash() == null ? null : storedKeys.get(request.getContentHash());
+            if (storedKey != null) {
+                response.setKey(storedKey);
+                response.setAlreadyStored(true);
+            } else {
+                MediaStorage.UploadTarget target = toUploadTarget(request);
+                response.setKey(target.key());
+                targets.add(target);
+                pending.add(response);
+            }
+            responses.add(response);
+        }
+
+        List<String> uploadUrls = targets.isEmpty() ? List.of() : signer.apply(targets);
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).setUploadUrl(uploadUrls.get(i));
+        }
+        return responses;
+    }
+
+    private static MediaStorage.UploadTarget toUploadTarget(MediaUploadRequest request) {
+        String key = S3Service.newObjectKey(request.getCategory(), request.getFileName());
+        return new MediaStorage.UploadTarget(key, request.getContentType(), request.getContentLength(),
+                request.getContentHash());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.example.urbannest.dto.Requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Favorite and save toggles queued by an offline client, replayed in one call")
+@Getter
+@Setter
+public class EngagementSyncRequest {
+    @Schema(description = "Operations in any order; per listing, the latest clientTimestamp wins for favorites and for saves")
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 500, message = "At most 500 operations can be synced at once")
+    private List<@NotNull @Valid Operation> operations;
+
+    public enum Action {
+        favorite, unfavorite, save, unsave
+    }
+
+    @Schema(description = "One queued toggle")
+    @Getter
+    @Setter
+    public static class Operation {
+        @NotNull(message = "Listing id is required")
+        private UUID listingId;
+
+        @NotNull(message = "Action is required")
+        private Action action;
+
+        @Schema(description = "When the user made the change on the device", example = "2026-01-15T10:30:00Z")
+        @NotNull(message = "Client timestamp is required")
+        private OffsetDateTime clientTimestamp;
+    }
+}
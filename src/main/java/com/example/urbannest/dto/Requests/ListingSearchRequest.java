@@ -0,0 +1,92 @@
+package com.example.urbannest.dto.Requests;
+
+import com.example.urbannest.media.MediaSize;
+import com.example.urbannest.model.enums.PropertyType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Query parameters for searching published listings. All filters are optional and combined with AND.")
+@Getter
+@Setter
+public class ListingSearchRequest {
+
+    @Schema(description = "Filter by property type")
+    private PropertyType propertyType;
+
+    @Schema(description = "Minimum price (inclusive)", example = "1000000")
+    private BigDecimal priceMin;
+
+    @Schema(description = "Maximum price (inclusive)", example = "9000000")
+    private BigDecimal priceMax;
+
+    @Schema(description = "Filter by district name", example = "Dhaka")
+    private String district;
+
+    @Schema(description = "Minimum number of bedrooms", example = "2")
+    private Integer minBedrooms;
+
+    @Schema(description = "Full-text query over title and description. Supports quoted phrases, OR and -exclusions.", example = "lake view -studio")
+    @Size(max = 200, message = "Search query must be at most 200 characters")
+    private String q;
+
+    @Schema(description = "Bounding box south edge (requires all four box bounds)", example = "23.70")
+    @DecimalMin("-90") @DecimalMax("90")
+    private Double minLat;
+
+    @Schema(description = "Bounding box north edge", example = "23.85")
+    @DecimalMin("-90") @DecimalMax("90")
+    private Double maxLat;
+
+    @Schema(description = "Bounding box west edge", example = "90.35")
+    @DecimalMin("-180") @DecimalMax("180")
+    private Double minLng;
+
+    @Schema(description = "Bounding box east edge", example = "90.45")
+    @DecimalMin("-180") @DecimalMax("180")
+    private Double maxLng;
+
+    @Schema(description = "Origin latitude for radius filtering and sort=distance", example = "23.78")
+    @DecimalMin("-90") @DecimalMax("90")
+    private Double lat;
+
+    @Schema(description = "Origin longitude for radius filtering and sort=distance", example = "90.42")
+    @DecimalMin("-180") @DecimalMax("180")
+    private Double lng;
+
+    @Schema(description = "Radius around lat/lng in kilometres", example = "5")
+    @Positive @DecimalMax("500")
+    private Double radiusKm;
+
+    @Schema(description = "Drawn polygon as semicolon-separated lat,lng vertices (3-100)", example = "23.80,90.40;23.80,90.43;23.77,90.43;23.77,90.40")
+    private String polygon;
+
+    @Schema(description = "Image size to return media URLs in; variants fall back to the original until generated", defaultValue = "original")
+    private MediaSize mediaSize = MediaSize.original;
+
+    public boolean hasQuery() {
+        return q != null && !q.isBlank();
+    }
+
+    public boolean hasBoundingBox() {
+        return minLat != null || maxLat != null || minLng != null || maxLng != null;
+    }
+
+    public boolean hasOrigin() {
+        return lat != null && lng != null;
+    }
+
+    public boolean hasRadius() {
+        return radiusKm != null;
+    }
+
+    public boolean hasPolygon() {
+        return polygon != null && !polygon.isBlank();
+    }
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -83,5 +84,9 @@ public class ListingUpdateRequest {
         @Schema(description = "Display order (0-based)")
         @NotNull(message = "Sort order is required")
         private Integer sortOrder;
+
+        @Schema(description = "SHA-256 of the file as lowercase hex. When the same content is already stored for this user, the listing links to that media instead of a new copy.")
+        @Pattern(regexp = "[0-9a-f]{64}", message = "Content hash must be a lowercase hex SHA-256")
+        private String contentHash;
     }
 }
\ No newline at end of file
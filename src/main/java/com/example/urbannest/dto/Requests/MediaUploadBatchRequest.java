@@ -0,0 +1,18 @@
+package com.example.urbannest.dto.Requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Schema(description = "Request body for generating several pre-signed S3 upload URLs at once")
+@Getter
+@Setter
+public class MediaUploadBatchRequest {
+    @Schema(description = "Files to upload; URLs are returned in the same order")
+    @NotEmpty(message = "At least one item is required")
+    private List<@Valid MediaUploadRequest> items;
+}
@@ -2,6 +2,9 @@ package com.example.urbannest.dto.Requests;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,4 +23,13 @@ public class MediaUploadRequest {
     @Schema(description = "Upload category (used as S3 key prefix)", example = "listings")
     @NotBlank(message = "Category is required")
     private String category;
+
+    @Schema(description = "File size in bytes. Checked against the upload limit and signed into the URL, so S3 only accepts exactly this many bytes.", example = "2048576")
+    @NotNull(message = "Content length is required")
+    @Positive(message = "Content length must be positive")
+    private Long contentLength;
+
+    @Schema(description = "SHA-256 of the file as lowercase hex. When this user already stored the same content, the response points at it and nothing needs uploading; otherwise it is signed into the URL, so storage only accepts a body with this hash.")
+    @Pattern(regexp = "[0-9a-f]{64}", message = "Content hash must be a lowercase hex SHA-256")
+    private String contentHash;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.urbannest.dto.Requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Schema(description = "Part numbers to get pre-signed upload URLs for")
+@Getter
+@Setter
+public class MultipartPartsRequest {
+    @Schema(description = "1-based part numbers, at most 100 per request", example = "[1, 2, 3]")
+    @NotEmpty(message = "At least one part number is required")
+    @Size(max = 100, message = "At most 100 parts can be requested at once")
+    private List<@NotNull @Positive Integer> partNumbers;
+}
@@ -0,0 +1,30 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Schema(description = "Keyset-paginated slice of results without a total count")
+@Getter
+@Setter
+public class CursorPageResponse<T> {
+    private List<T> content;
+
+    @Schema(description = "Opaque cursor for the next slice; null when there are no more results")
+    private String nextCursor;
+
+    @Schema(description = "Whether another slice exists after this one", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "Number of items in this slice", example = "20")
+    private int size;
+
+    public CursorPageResponse(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+        this.size = content.size();
+    }
+}
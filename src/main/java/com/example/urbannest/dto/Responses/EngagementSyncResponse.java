@@ -0,0 +1,16 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "Outcome of an engagement sync")
+@Getter
+@Setter
+public class EngagementSyncResponse {
+    @Schema(description = "Favorites and saves that were added or removed", example = "3")
+    private int applied;
+
+    @Schema(description = "Operations that changed nothing: superseded by a later one, already in effect, older than the server's state, or for an unknown listing", example = "1")
+    private int ignored;
+}
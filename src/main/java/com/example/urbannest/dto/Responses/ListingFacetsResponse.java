@@ -0,0 +1,65 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(description = "Facet counts and price distribution for the listings matching a search")
+@Getter
+@Setter
+public class ListingFacetsResponse {
+
+    @Schema(description = "Number of listings matching the filters", example = "128")
+    private long total;
+
+    @Schema(description = "Counts per property type, in enum order, including zero counts")
+    private List<FacetCount> propertyTypes;
+
+    @Schema(description = "Counts per district, most listings first")
+    private List<FacetCount> districts;
+
+    @Schema(description = "Counts per bedroom bucket: 0, 1, 2, 3 and 4+")
+    private List<FacetCount> bedrooms;
+
+    private PriceStats price;
+
+    @Schema(description = "Number of matching listings for one facet value")
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class FacetCount {
+        @Schema(example = "apartment")
+        private String value;
+        @Schema(example = "42")
+        private long count;
+    }
+
+    @Schema(description = "Price range and histogram; min and max are null when nothing matches")
+    @Getter
+    @Setter
+    public static class PriceStats {
+        @Schema(example = "850000.00")
+        private BigDecimal min;
+        @Schema(example = "12500000.00")
+        private BigDecimal max;
+        @Schema(description = "Histogram over 1-2-5 series price buckets, ascending; empty buckets are omitted")
+        private List<PriceBucket> buckets;
+    }
+
+    @Schema(description = "Listings priced in [from, to)")
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    public static class PriceBucket {
+        @Schema(example = "1000000")
+        private BigDecimal from;
+        @Schema(example = "2000000")
+        private BigDecimal to;
+        @Schema(example = "17")
+        private long count;
+    }
+}
@@ -37,6 +37,13 @@ public class ListingResponse {
     private Details details;
     private Location location;
     private Counters counters;
+
+    @Schema(description = "Whether the signed-in viewer has favorited the listing; null for anonymous requests")
+    private Boolean isFavorited;
+
+    @Schema(description = "Whether the signed-in viewer has saved the listing; null for anonymous requests")
+    private Boolean isSaved;
+
     private List<Media> media;
 
     private OffsetDateTime createdAt;
@@ -107,8 +114,10 @@ public class ListingResponse {
     @Setter
     public static class Media {
         private UUID mediaId;
-        @Schema(description = "S3 pre-signed download URL")
+        @Schema(description = "Download URL of the requested size variant, or of the original when there is none")
         private String url;
+        @Schema(description = "Tiny blurred preview as a data URI, shown while the image loads; null until generated")
+        private String placeholder;
         @Schema(description = "MIME type", example = "image/jpeg")
         private String contentType;
         @Schema(description = "Display order (0-based)")
@@ -0,0 +1,50 @@
+package com.example.urbannest.dto.Responses;
+
+import com.example.urbannest.model.enums.PropertyType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Schema(description = "Compact listing card returned by list endpoints with view=summary")
+@Getter
+@Setter
+public class ListingSummaryResponse {
+
+    @Schema(description = "Unique listing identifier", example = "550e8400-e29b-41d4-a716-446655440000")
+    private UUID listingId;
+
+    @Schema(description = "Listing title", example = "Modern 3BR Apartment in Gulshan")
+    private String title;
+
+    private PropertyType propertyType;
+
+    @Schema(description = "Asking price in BDT", example = "4500000.00")
+    private BigDecimal pricing;
+
+    private Integer bedroomsCount;
+    private Integer bathroomsCount;
+
+    @Schema(description = "Living area in sqft", example = "1450")
+    private Integer livingArea;
+
+    @Schema(example = "Dhaka")
+    private String district;
+
+    @Schema(description = "URL of the first image in the requested size; null when the listing has no images")
+    private String coverImageUrl;
+
+    @Schema(description = "Tiny blurred preview of the cover image as a data URI; null until generated")
+    private String coverPlaceholder;
+
+    @Schema(description = "Whether the signed-in viewer has favorited the listing; null for anonymous requests")
+    private Boolean isFavorited;
+
+    @Schema(description = "Whether the signed-in viewer has saved the listing; null for anonymous requests")
+    private Boolean isSaved;
+
+    private OffsetDateTime createdAt;
+}
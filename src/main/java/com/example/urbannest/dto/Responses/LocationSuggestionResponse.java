@@ -0,0 +1,25 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "District or area matching a typed prefix, weighted by published listings")
+@Getter
+@Setter
+@AllArgsConstructor
+public class LocationSuggestionResponse {
+
+    @Schema(description = "District or area name as stored on listings", example = "Gulshan")
+    private String value;
+
+    @Schema(description = "Suggestion kind", allowableValues = {"district", "area"}, example = "area")
+    private String type;
+
+    @Schema(description = "District the area belongs to; null for district suggestions", example = "Dhaka")
+    private String district;
+
+    @Schema(description = "Published listings in this district or area", example = "42")
+    private long listingCount;
+}
@@ -13,4 +13,7 @@ public class MediaUploadResponse {
 
     @Schema(description = "S3 object key to reference this file later", example = "listings/550e8400/photo.jpg")
     private String key;
+
+    @Schema(description = "True when this user already stored the same content: key is that object, uploadUrl is null and nothing needs uploading")
+    private boolean alreadyStored;
 }
\ No newline at end of file
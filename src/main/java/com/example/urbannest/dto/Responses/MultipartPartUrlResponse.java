@@ -0,0 +1,19 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "Pre-signed URL for uploading one part of a multipart upload")
+@Getter
+@Setter
+public class MultipartPartUrlResponse {
+    @Schema(description = "1-based part number", example = "1")
+    private Integer partNumber;
+
+    @Schema(description = "Pre-signed S3 URL (PUT request) for this part")
+    private String uploadUrl;
+
+    @Schema(description = "Exact number of bytes the part must contain", example = "8388608")
+    private Long contentLength;
+}
@@ -0,0 +1,27 @@
+package com.example.urbannest.dto.Responses;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Schema(description = "State of an S3 multipart upload")
+@Getter
+@Setter
+public class MultipartUploadResponse {
+    @Schema(description = "S3 object key the file is stored under once completed", example = "listings/550e8400/tour.mp4")
+    private String key;
+
+    @Schema(description = "S3 multipart upload ID")
+    private String uploadId;
+
+    @Schema(description = "Size of every part except the last, in bytes", example = "8388608")
+    private Long partSize;
+
+    @Schema(description = "Number of parts the file is split into", example = "120")
+    private Integer partCount;
+
+    @Schema(description = "Part numbers S3 already holds; a resumed upload only sends the others")
+    private List<Integer> uploadedParts;
+}
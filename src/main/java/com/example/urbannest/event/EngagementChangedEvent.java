@@ -0,0 +1,5 @@
+package com.example.urbannest.event;
+
+// Published when a user's favorites or saves change, so cached per-viewer state can be dropped after commit
+public record EngagementChangedEvent(String firebaseUid) {
+}
@@ -0,0 +1,7 @@
+package com.example.urbannest.event;
+
+import java.util.UUID;
+
+// Published inside listing write transactions; listeners react after commit
+public record ListingChangedEvent(UUID listingId) {
+}
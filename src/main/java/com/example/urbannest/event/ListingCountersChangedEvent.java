@@ -0,0 +1,7 @@
+package com.example.urbannest.event;
+
+import java.util.UUID;
+
+// Published when favorite/save counters move; unlike ListingChangedEvent it leaves the search index alone
+public record ListingCountersChangedEvent(UUID listingId) {
+}
@@ -0,0 +1,8 @@
+package com.example.urbannest.event;
+
+import java.util.List;
+import java.util.UUID;
+
+// Published when media assets are attached to a listing; derivatives are generated after commit
+public record MediaAttachedEvent(List<UUID> mediaIds) {
+}
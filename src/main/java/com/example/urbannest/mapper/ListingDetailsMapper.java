@@ -41,5 +41,7 @@ public interface ListingDetailsMapper {
 
     ListingResponse.Location toResponseLocation(ListingLocation location);
 
+    @Mapping(target = "favoriteCount", source = "favoriteTotal")
+    @Mapping(target = "saveCount", source = "saveTotal")
     ListingResponse.Counters toResponseCounters(ListingCounters counters);
 }
@@ -3,8 +3,10 @@ package com.example.urbannest.mapper;
 import com.example.urbannest.dto.Requests.ListingCreateRequest;
 import com.example.urbannest.dto.Requests.ListingUpdateRequest;
 import com.example.urbannest.dto.Responses.ListingResponse;
+import com.example.urbannest.dto.Responses.ListingSummaryResponse;
 import com.example.urbannest.model.*;
 import com.example.urbannest.model.enums.PropertyStatus;
+import com.example.urbannest.repository.ListingSummaryRepository.SummaryRow;
 import org.mapstruct.*;
 
 import java.time.OffsetDateTime;
@@ -62,10 +64,15 @@ public interface ListingMapper {
     @Mapping(target = "location", ignore = true)
     @Mapping(target = "counters", ignore = true)
     @Mapping(target = "media", ignore = true)
+    @Mapping(target = "isFavorited", ignore = true)
+    @Mapping(target = "isSaved", ignore = true)
     ListingResponse toListingResponseFromListing(Listing listing);
 
     ListingResponse.Owner toOwner(User user);
 
+    // Shallow copy, so per-viewer fields are never set on a cached instance
+    ListingResponse copyOf(ListingResponse response);
+
     default ListingResponse toListingResponse(Listing listing,
                                                ListingDetails details,
                                                ListingLocation location,
@@ -90,4 +97,10 @@ public interface ListingMapper {
 
         return response;
     }
+
+    @Mapping(target = "coverImageUrl", ignore = true)
+    @Mapping(target = "coverPlaceholder", ignore = true)
+    @Mapping(target = "isFavorited", ignore = true)
+    @Mapping(target = "isSaved", ignore = true)
+    ListingSummaryResponse toListingSummaryResponse(SummaryRow row);
 }
@@ -11,7 +11,6 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Mapper(componentModel = "spring", imports = OffsetDateTime.class)
@@ -21,6 +20,7 @@ public interface MediaAssetMapper {
     @Mapping(target = "ownerUser", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
     @Mapping(target = "metadata", ignore = true)
+    @Mapping(target = "refCount", ignore = true)
     @Mapping(target = "createdAt", expression = "java(OffsetDateTime.now())")
     MediaAsset toMediaAsset(ListingCreateRequest.MediaItem item);
 
@@ -29,6 +29,7 @@ public interface MediaAssetMapper {
     @Mapping(target = "caption", ignore = true)
     @Mapping(target = "deletedAt", ignore = true)
     @Mapping(target = "metadata", ignore = true)
+    @Mapping(target = "refCount", ignore = true)
     @Mapping(target = "byteSize", constant = "0L")
     @Mapping(target = "createdAt", expression = "java(OffsetDateTime.now())")
     MediaAsset toMediaAssetFromUpdate(ListingUpdateRequest.MediaItem item);
@@ -41,6 +42,7 @@ public interface MediaAssetMapper {
     @Mapping(target = "url", source = "mediaAsset.s3Location")
     @Mapping(target = "contentType", source = "mediaAsset.contentType")
     @Mapping(target = "sortOrder", source = "sortOrder")
+    @Mapping(target = "placeholder", ignore = true)
     ListingResponse.Media toResponseMedia(ListingMedia listingMedia);
 
     List<ListingResponse.Media> toResponseMediaList(List<ListingMedia> mediaList);
@@ -56,13 +58,4 @@ public interface MediaAssetMapper {
         listingMedia.setSortOrder(sortOrder);
         return listingMedia;
     }
-
-    default <T> List<ListingMedia> toListingMediaList(List<MediaAsset> assets, List<T> items, Listing listing,
-                                                       java.util.function.Function<T, Integer> sortOrderExtractor) {
-        List<ListingMedia> result = new ArrayList<>();
-        for (int i = 0; i < assets.size(); i++) {
-            result.add(toListingMedia(listing, assets.get(i), sortOrderExtractor.apply(items.get(i))));
-        }
-        return result;
-    }
 }
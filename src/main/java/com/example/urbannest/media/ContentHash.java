@@ -0,0 +1,73 @@
+package com.example.urbannest.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 content hashes as media assets store them: lowercase hex. Storage reports checksums as
+ * {@code sha256:<base64>} and S3 signs them as base64, so this converts between the two.
+ */
+public final class ContentHash {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final String CHECKSUM_PREFIX = "sha256:";
+    private static final int DIGEST_LENGTH = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Reads the stream to the end; closing it is left to the caller
+    public static String of(InputStream in) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hex(digest);
+    }
+
+    /**
+     * The hash behind a stored checksum, or null when the checksum is not a whole-object SHA-256. Multipart
+     * objects carry a checksum of their part checksums, suffixed with the part count, which says nothing about
+     * the bytes as a whole.
+     */
+    public static String fromChecksum(String checksum) {
+        if (checksum == null || !checksum.startsWith(CHECKSUM_PREFIX) || checksum.contains("-")) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(checksum.substring(CHECKSUM_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return bytes.length == DIGEST_LENGTH ? HexFormat.of().formatHex(bytes) : null;
+    }
+
+    public static String toBase64(String hash) {
+        return Base64.getEncoder().encodeToString(HexFormat.of().parseHex(hash));
+    }
+}
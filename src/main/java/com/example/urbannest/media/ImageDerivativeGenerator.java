@@ -0,0 +1,237 @@
+package com.example.urbannest.media;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Resizes a photo into the {@link MediaSize} variants plus a tiny blurred-up placeholder, all as JPEG.
+ * <p>
+ * The source is decoded with subsampling down to about twice the largest variant, so a 48MP phone photo never
+ * has to sit in memory at full size. EXIF orientation is applied, since the variants carry no EXIF of their own.
+ */
+public class ImageDerivativeGenerator {
+
+    static final int PLACEHOLDER_EDGE = 16;
+    private static final float VARIANT_QUALITY = 0.82f;
+    private static final float PLACEHOLDER_QUALITY = 0.5f;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    public record Rendition(MediaSize size, byte[] bytes, int width, int height) {
+    }
+
+    // Width and height are the original's, full size and upright
+    public record Result(int width, int height, List<Rendition> renditions, String placeholder) {
+    }
+
+    private record Decoded(BufferedImage image, int width, int height) {
+    }
+
+    // Null when the bytes are not an image the JDK can decode
+    public Result generate(byte[] original) {
+        Decoded decoded;
+        int orientation = exifOrientation(original);
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            decoded = decode(input);
+        } catch (IOException | RuntimeException e) {
+            // Truncated or corrupt files surface as either
+            return null;
+        }
+        if (decoded == null) {
+            return null;
+        }
+
+        BufferedImage current = orient(decoded.image(), orientation);
+        List<Rendition> renditions = new ArrayList<>();
+        MediaSize[] sizes = MediaSize.values();
+        // Largest first, each one scaled down from the previous
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            MediaSize size = sizes[i];
+            int longest = Math.max(current.getWidth(), current.getHeight());
+            if (!size.isVariant() || size.maxEdge() >= longest) {
+                continue;
+            }
+            current = scale(current, size.maxEdge());
+            renditions.add(new Rendition(size, encodeJpeg(current, VARIANT_QUALITY), current.getWidth(), current.getHeight()));
+        }
+
+        BufferedImage placeholder = scale(current, PLACEHOLDER_EDGE);
+        String placeholderUri = "data:image/jpeg;base64,"
+                + Base64.getEncoder().encodeToString(encodeJpeg(placeholder, PLACEHOLDER_QUALITY));
+        boolean swapsAxes = orientation >= 5 && orientation <= 8;
+        return new Result(swapsAxes ? decoded.height() : decoded.width(), swapsAxes ? decoded.width() : decoded.height(),
+                renditions, placeholderUri);
+    }
+
+    private static Decoded decode(ImageInputStream input) throws IOException {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            int subsampling = Math.max(1, Math.max(width, height) / (2 * MediaSize.large.maxEdge()));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return new Decoded(reader.read(0, param), width, height);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // Halving steps keep bilinear filtering from skipping pixels, which is what makes one-step downscales look jagged
+    static BufferedImage scale(BufferedImage source, int maxEdge) {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, Math.round((float) source.getWidth() * maxEdge / longest));
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * maxEdge / longest));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Also flattens onto white, since JPEG has no alpha channel
+    static BufferedImage orient(BufferedImage source, int orientation) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+        boolean swapsAxes = orientation >= 5 && orientation <= 8;
+
+        BufferedImage oriented = new BufferedImage(swapsAxes ? height : width, swapsAxes ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, oriented.getWidth(), oriented.getHeight());
+        graphics.drawImage(source, transform, null);
+        graphics.dispose();
+        return oriented;
+    }
+
+    // Progressive JPEGs render coarse-to-fine while loading
+    private static byte[] encodeJpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // Orientation tag from the first IFD of a JPEG's EXIF segment; 1 (upright) when absent or unreadable
+    static int exifOrientation(byte[] bytes) {
+        if (bytes.length < 4 || (bytes[0] & 0xFF) != 0xFF || (bytes[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int position = 2;
+        while (position + 4 <= bytes.length && (bytes[position] & 0xFF) == 0xFF) {
+            int marker = bytes[position + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                return 1;
+            }
+            int length = readUnsignedShort(bytes, position + 2, false);
+            int start = position + 4;
+            int end = position + 2 + length;
+            if (length < 2 || end > bytes.length) {
+                return 1;
+            }
+            if (marker == 0xE1 && length >= 16 && isExifHeader(bytes, start)) {
+                return tiffOrientation(bytes, start + 6, end);
+            }
+            position = end;
+        }
+        return 1;
+    }
+
+    private static boolean isExifHeader(byte[] bytes, int start) {
+        return bytes[start] == 'E' && bytes[start + 1] == 'x' && bytes[start + 2] == 'i' && bytes[start + 3] == 'f'
+                && bytes[start + 4] == 0 && bytes[start + 5] == 0;
+    }
+
+    private static int tiffOrientation(byte[] bytes, int tiff, int end) {
+        boolean littleEndian = bytes[tiff] == 'I' && bytes[tiff + 1] == 'I';
+        long ifdOffset = readUnsignedInt(bytes, tiff + 4, littleEndian);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) {
+            return 1;
+        }
+        int ifd = (int) (tiff + ifdOffset);
+        int entries = readUnsignedShort(bytes, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (readUnsignedShort(bytes, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readUnsignedShort(bytes, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readUnsignedShort(byte[] bytes, int offset, boolean littleEndian) {
+        int first = bytes[offset] & 0xFF;
+        int second = bytes[offset + 1] & 0xFF;
+        return littleEndian ? second << 8 | first : first << 8 | second;
+    }
+
+    private static long readUnsignedInt(byte[] bytes, int offset, boolean littleEndian) {
+        long high = readUnsignedShort(bytes, littleEndian ? offset + 2 : offset, littleEndian);
+        long low = readUnsignedShort(bytes, littleEndian ? offset : offset + 2, littleEndian);
+        return high << 16 | low;
+    }
+}
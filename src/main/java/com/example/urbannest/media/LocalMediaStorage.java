@@ -0,0 +1,271 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.exception.UnauthorizedAccessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keys map to files under a root directory; stands in for the bucket in development, tests and installs
+ * without AWS.
+ * <p>
+ * Clients reach the files through {@code /media/files/<key>} with URLs shaped like presigned ones: an expiry
+ * and an HMAC over the method, key and expiry, plus the content type and declared length and hash for uploads. Without
+ * {@code media.local.signing-key} a random key is used, so handed-out URLs stop working on restart.
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage", havingValue = "local")
+public class LocalMediaStorage implements MediaStorage {
+
+    public static final String FILES_PATH = "/media/files/";
+
+    // Same lifetimes as the S3 presigned URLs
+    static final Duration UPLOAD_URL_TTL = Duration.ofMinutes(15);
+    static final Duration DOWNLOAD_URL_TTL = Duration.ofMinutes(60);
+    private static final String SIGNING_ALGORITHM = "HmacSHA256";
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final Path root;
+    private final MediaBaseUrl baseUrl;
+    private final SecretKeySpec signingKey;
+
+    public LocalMediaStorage(@Value("${media.local.root:./media}") Path root,
+                             @Value("${media.local.base-url:http://localhost:8080/api}") String baseUrl,
+                             @Value("${media.local.signing-key:}") String signingKey) {
+        this.root = root.toAbsolutePath().normalize();
+        this.baseUrl = new MediaBaseUrl(baseUrl + FILES_PATH);
+        byte[] keyBytes = signingKey.isBlank() ? randomKey() : signingKey.getBytes(StandardCharsets.UTF_8);
+        this.signingKey = new SecretKeySpec(keyBytes, SIGNING_ALGORITHM);
+    }
+
+    @Override
+    public byte[] read(String key) {
+        try {
+            return Files.readAllBytes(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Files carry no checksum; computing one here would mean reading the whole file
+    @Override
+    public StoredObject stat(String key) {
+        Path path = resolve(key);
+        try {
+            return new StoredObject(Files.size(path), Files.probeContentType(path), null, null);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String contentHash(String key) {
+        try (InputStream in = Files.newInputStream(resolve(key))) {
+            return ContentHash.of(in);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Written to a sibling temp file and moved into place, so readers never see a partial object
+    @Override
+    public void write(String key, byte[] bytes, String contentType) {
+        Path target = resolve(key);
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), ".upload", null);
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams an upload body into place the same way {@link #write} does, copying with the file channel
+     * rather than through a heap buffer of the whole object. Fails once more than {@code maxBytes} arrive, or
+     * when an expected hash is given and the body does not match it.
+     */
+    public long store(String key, InputStream body, long maxBytes, String expectedHash) {
+        Path target = resolve(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".upload", null);
+            long written = 0;
+            MessageDigest digest = ContentHash.newDigest();
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(new DigestInputStream(body, digest))) {
+                long transferred;
+                // One byte past the limit is enough to tell an oversized body from an exact fit
+                while ((transferred = file.transferFrom(in, written, Math.min(TRANSFER_CHUNK, maxBytes + 1 - written))) > 0) {
+                    written += transferred;
+                    if (written > maxBytes) {
+                        throw new InvalidRequestException("Upload exceeds the " + maxBytes + " byte limit");
+                    }
+                }
+            }
+            if (expectedHash != null && !expectedHash.equals(ContentHash.hex(digest))) {
+                throw new InvalidRequestException("Upload does not match the signed content hash");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public String uploadUrl(UploadTarget target) {
+        long expires = expiry(UPLOAD_URL_TTL);
+        String signature = sign("PUT", target.key(), expires, target.contentType(), target.contentLength(),
+                target.contentHash());
+        StringBuilder url = new StringBuilder(baseUrl.resolve(target.key()))
+                .append("?expires=").append(expires)
+                .append("&signature=").append(signature);
+        if (target.contentLength() != null) {
+            url.append("&contentLength=").append(target.contentLength());
+        }
+        if (target.contentHash() != null) {
+            url.append("&contentHash=").append(target.contentHash());
+        }
+        return url.toString();
+    }
+
+    @Override
+    public String downloadUrl(String key) {
+        long expires = expiry(DOWNLOAD_URL_TTL);
+        return baseUrl.resolve(key) + "?expires=" + expires + "&signature=" + sign("GET", key, expires, null, null, null);
+    }
+
+    // Every download URL is signed fresh
+    @Override
+    public Duration downloadUrlLifetime() {
+        return DOWNLOAD_URL_TTL;
+    }
+
+    // A mismatch is reported like S3 does, as forbidden rather than as a bad request
+    public void checkDownload(String key, long expires, String signature) {
+        check(expires, signature, sign("GET", key, expires, null, null, null));
+    }
+
+    public void checkUpload(String key, String contentType, Long contentLength, String contentHash,
+                            long expires, String signature) {
+        check(expires, signature, sign("PUT", key, expires, contentType, contentLength, contentHash));
+    }
+
+    // Throws ResourceNotFoundException when nothing is stored under the key
+    public Path locate(String key) {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        }
+        return path;
+    }
+
+    @Override
+    public Map<String, String> delete(List<String> keys) {
+        Map<String, String> failed = new HashMap<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (IOException | InvalidRequestException e) {
+                failed.put(key, e.toString());
+            }
+        }
+        return failed;
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new InvalidRequestException("Invalid media key " + key);
+        }
+        return path;
+    }
+
+    private static void check(long expires, String signature, String expected) {
+        if (Instant.now().getEpochSecond() > expires) {
+            throw new UnauthorizedAccessException("Media URL has expired");
+        }
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII))) {
+            throw new UnauthorizedAccessException("Media URL signature does not match");
+        }
+    }
+
+    // Whole minutes, so a key gets the same URL for a minute and responses holding it stay byte-identical
+    private static long expiry(Duration ttl) {
+        return Instant.now().plus(ttl).truncatedTo(ChronoUnit.MINUTES).getEpochSecond();
+    }
+
+    private String sign(String method, String key, long expires, String contentType, Long contentLength,
+                        String contentHash) {
+        String canonical = String.join("\n", method, key, Long.toString(expires),
+                contentType == null ? "" : contentType,
+                contentLength == null ? "" : contentLength.toString(),
+                contentHash == null ? "" : contentHash);
+        try {
+            Mac mac = Mac.getInstance(SIGNING_ALGORITHM);
+            mac.init(signingKey);
+            byte[] digest = mac.doFinal(canonical.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign media URL", e);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // A leftover temp file is harmless; its dot-name keeps it apart from keys
+        }
+    }
+}
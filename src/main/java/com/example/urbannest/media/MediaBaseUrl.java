@@ -0,0 +1,20 @@
+package com.example.urbannest.media;
+
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+
+// Base URL of a media origin; keys are appended with their path segments percent-encoded
+record MediaBaseUrl(String value) {
+
+    MediaBaseUrl {
+        if (value == null || !(value.startsWith("https://") || value.startsWith("http://"))) {
+            throw new IllegalArgumentException("media.url.base-url must be an absolute http(s) URL");
+        }
+        value = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+    }
+
+    String resolve(String key) {
+        return value + "/" + UriUtils.encodePath(key, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.MediaAttachedEvent;
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.repository.ListingMediaRepository;
+import com.example.urbannest.repository.ListingRepository;
+import com.example.urbannest.repository.MediaAssetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.OffsetDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates resized variants and a placeholder for listing photos once they are attached, off the request path.
+ * <p>
+ * Work runs on a fixed pool with a bounded queue. When the queue is full the asset is simply left unprocessed:
+ * the backfill finds images without a derivatives entry and queues them again, which also covers work lost to
+ * a restart. Listing responses fall back to the original until variants exist.
+ * <p>
+ * Originals over {@code max-size} are recorded as {@code unsupported} without being read, since decoding needs
+ * the whole object in memory. A storage or decoding error counts against the asset under
+ * {@code metadata -> 'derivative_failures'}; after {@code max-attempts} of them it is recorded as {@code abandoned}
+ * and the backfill stops picking it up.
+ * <p>
+ * Variants are stored next to the original as {@code <dir>/derivatives/<file name>/<size>.jpg}, which keeps
+ * them under the same key prefix for signed-cookie access.
+ */
+@Component
+public class MediaDerivativePipeline {
+    private static final Logger log = LoggerFactory.getLogger(MediaDerivativePipeline.class);
+
+    private static final String DERIVATIVE_CONTENT_TYPE = "image/jpeg";
+
+    private final MediaAssetRepository mediaAssetRepository;
+    private final ListingMediaRepository listingMediaRepository;
+    private final ListingRepository listingRepository;
+    private final MediaStorage mediaStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ImageDerivativeGenerator generator = new ImageDerivativeGenerator();
+    private final long maxBytes;
+    private final int maxAttempts;
+    private final ThreadPoolExecutor executor;
+    // Queued or running assets, so the backfill does not queue them twice
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public MediaDerivativePipeline(MediaAssetRepository mediaAssetRepository,
+                                   ListingMediaRepository listingMediaRepository,
+                                   ListingRepository listingRepository,
+                                   MediaStorage mediaStorage,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${media.derivatives.workers:2}") int workers,
+                                   @Value("${media.derivatives.queue-capacity:200}") int queueCapacity,
+                                   @Value("${media.derivatives.max-size:50MB}") DataSize maxSize,
+                                   @Value("${media.derivatives.max-attempts:3}") int maxAttempts) {
+        this.mediaAssetRepository = mediaAssetRepository;
+        this.listingMediaRepository = listingMediaRepository;
+        this.listingRepository = listingRepository;
+        this.mediaStorage = mediaStorage;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.maxBytes = maxSize.toBytes();
+        this.maxAttempts = maxAttempts;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("media-derivatives-", 0).daemon(true).factory());
+        new ExecutorServiceMetrics(executor, "media.derivatives", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMediaAttached(MediaAttachedEvent event) {
+        event.mediaIds().forEach(this::submit);
+    }
+
+    // Only as much as the queue can take, oldest first; the rest waits for the next run
+    @Scheduled(fixedDelayString = "${media.derivatives.backfill-interval:10m}",
+            initialDelayString = "${media.derivatives.backfill-interval:10m}")
+    public void backfill() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<UUID> pending = mediaAssetRepository.findImageIdsWithoutDerivatives(capacity);
+        pending.forEach(this::submit);
+        if (!pending.isEmpty()) {
+            log.info("Queued {} images without derivatives", pending.size());
+        }
+    }
+
+    boolean submit(UUID mediaId) {
+        if (!inFlight.add(mediaId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(mediaId);
+                } finally {
+                    inFlight.remove(mediaId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(mediaId);
+            count("rejected");
+            return false;
+        }
+    }
+
+    void process(UUID mediaId) {
+        MediaAsset asset = mediaAssetRepository.findById(mediaId).orElse(null);
+        if (asset == null || asset.getDeletedAt() != null || !isImage(asset.getContentType())) {
+            return;
+        }
+
+        MediaDerivatives derivatives;
+        try {
+            derivatives = generate(asset.getS3Location());
+        } catch (ResourceNotFoundException e) {
+            derivatives = MediaDerivatives.of(MediaDerivatives.MISSING);
+        } catch (RuntimeException e) {
+            recordFailure(asset, e);
+            return;
+        }
+
+        mediaAssetRepository.recordDerivatives(mediaId, derivatives.toJson());
+        count(derivatives.status());
+        if (MediaDerivatives.READY.equals(derivatives.status())) {
+            republishListings(mediaId);
+        }
+    }
+
+    // Until max-attempts the asset stays pending, so the backfill retries it
+    private void recordFailure(MediaAsset asset, RuntimeException e) {
+        int failures = MediaDerivatives.failuresFromMetadata(asset.getMetadata()) + 1;
+        if (failures < maxAttempts) {
+            log.warn("Generating derivatives for media {} failed ({} of {}); retrying on the next backfill",
+                    asset.getMediaId(), failures, maxAttempts, e);
+            mediaAssetRepository.recordDerivativeFailures(asset.getMediaId(), failures);
+            count("failed");
+            return;
+        }
+        log.warn("Generating derivatives for media {} failed {} times; giving up", asset.getMediaId(), failures, e);
+        mediaAssetRepository.recordDerivatives(asset.getMediaId(), MediaDerivatives.of(MediaDerivatives.ABANDONED).toJson());
+        count(MediaDerivatives.ABANDONED);
+    }
+
+    private MediaDerivatives generate(String originalKey) {
+        if (mediaStorage.stat(originalKey).size() > maxBytes) {
+            return MediaDerivatives.of(MediaDerivatives.UNSUPPORTED);
+        }
+        ImageDerivativeGenerator.Result result = generator.generate(mediaStorage.read(originalKey));
+        if (result == null) {
+            return MediaDerivatives.of(MediaDerivatives.UNSUPPORTED);
+        }
+        Map<MediaSize, MediaDerivatives.Variant> variants = new EnumMap<>(MediaSize.class);
+        for (ImageDerivativeGenerator.Rendition rendition : result.renditions()) {
+            String key = derivativeKey(originalKey, rendition.size());
+            mediaStorage.write(key, rendition.bytes(), DERIVATIVE_CONTENT_TYPE);
+            variants.put(rendition.size(), new MediaDerivatives.Variant(
+                    key, rendition.width(), rendition.height(), rendition.bytes().length));
+        }
+        return MediaDerivatives.ready(result.width(), result.height(), result.placeholder(), variants);
+    }
+
+    // Cached details and ETags of every listing showing the asset have to pick up the new URLs
+    private void republishListings(UUID mediaId) {
+        List<UUID> listingIds = listingMediaRepository.findListingIdsByMediaId(mediaId);
+        if (listingIds.isEmpty()) {
+            return;
+        }
+        listingRepository.touchUpdatedAt(listingIds, OffsetDateTime.now());
+        listingIds.forEach(listingId -> eventPublisher.publishEvent(new ListingChangedEvent(listingId)));
+    }
+
+    static String derivativeKey(String originalKey, MediaSize size) {
+        int slash = originalKey.lastIndexOf('/');
+        return originalKey.substring(0, slash + 1) + "derivatives/" + originalKey.substring(slash + 1)
+                + "/" + size.name() + ".jpg";
+    }
+
+    private static boolean isImage(String contentType) {
+        String normalized = contentType.toLowerCase(Locale.ROOT);
+        return normalized.startsWith("image/") || normalized.equals("img");
+    }
+
+    private void count(String result) {
+        Counter.builder("media.derivatives.processed")
+                .description("Media assets handled by the derivative pipeline, by outcome")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // Queued work is dropped; the backfill picks it up after the restart
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
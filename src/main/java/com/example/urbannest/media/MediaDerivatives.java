@@ -0,0 +1,74 @@
+package com.example.urbannest.media;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Map;
+
+/**
+ * What the derivative pipeline recorded for a media asset, stored under {@code metadata -> 'derivatives'}.
+ * <p>
+ * {@code ready} carries the generated variants and placeholder, and the original's upright dimensions; {@code unsupported} (not decodable, such as HEIC
+ * or WebP, or over the size cap), {@code missing} (nothing stored under the key) and {@code abandoned} (errors on
+ * every attempt) are recorded too, so the backfill skips them. Failed attempts so far are counted beside the entry,
+ * under {@code metadata -> 'derivative_failures'}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MediaDerivatives(String status, Integer width, Integer height, String placeholder,
+                               Map<MediaSize, Variant> variants) {
+
+    public static final String METADATA_FIELD = "derivatives";
+    public static final String READY = "ready";
+    public static final String UNSUPPORTED = "unsupported";
+    public static final String MISSING = "missing";
+    public static final String ABANDONED = "abandoned";
+    public static final String FAILURES_METADATA_FIELD = "derivative_failures";
+
+    public record Variant(String key, int width, int height, long byteSize) {
+    }
+
+    public static MediaDerivatives ready(int width, int height, String placeholder, Map<MediaSize, Variant> variants) {
+        return new MediaDerivatives(READY, width, height, placeholder, variants);
+    }
+
+    public static MediaDerivatives of(String status) {
+        return new MediaDerivatives(status, null, null, null, null);
+    }
+
+    // Null when the asset has not been processed yet or the entry is unreadable
+    public static MediaDerivatives fromMetadata(String metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        try {
+            JsonNode node = JsonMapper.shared().readTree(metadata).get(METADATA_FIELD);
+            return node == null || node.isNull() ? null : JsonMapper.shared().treeToValue(node, MediaDerivatives.class);
+        } catch (JacksonException e) {
+            return null;
+        }
+    }
+
+    // 0 when nothing has failed yet or the metadata is unreadable
+    public static int failuresFromMetadata(String metadata) {
+        if (metadata == null) {
+            return 0;
+        }
+        try {
+            JsonNode node = JsonMapper.shared().readTree(metadata).get(FAILURES_METADATA_FIELD);
+            return node == null ? 0 : node.asInt(0);
+        } catch (JacksonException e) {
+            return 0;
+        }
+    }
+
+    public String toJson() {
+        return JsonMapper.shared().writeValueAsString(this);
+    }
+
+    // Variants are never upscaled, so a size without one is served by the original, which is already smaller
+    public Variant variantFor(MediaSize size) {
+        return variants == null ? null : variants.get(size);
+    }
+}
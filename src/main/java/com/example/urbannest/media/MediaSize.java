@@ -0,0 +1,23 @@
+package com.example.urbannest.media;
+
+// Display sizes clients may ask listing media in; widths are the longest edge of the generated JPEG
+public enum MediaSize {
+    small(320),
+    medium(640),
+    large(1280),
+    original(0);
+
+    private final int maxEdge;
+
+    MediaSize(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int maxEdge() {
+        return maxEdge;
+    }
+
+    public boolean isVariant() {
+        return this != original;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.urbannest.media;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to stored media objects, addressed by the same keys clients upload to, and the URLs clients use to
+ * upload and download them directly.
+ * <p>
+ * One implementation is active, chosen by {@code media.storage}: {@code s3} (default) reads and writes the
+ * bucket and hands out presigned URLs; {@code local} keeps a directory on disk and hands out signed URLs to
+ * {@code /media/files}, so development, tests and installs without AWS credentials run the whole media path.
+ */
+public interface MediaStorage {
+
+    // Throws ResourceNotFoundException when nothing is stored under the key
+    byte[] read(String key);
+
+    // Size and checksums without reading the content; throws ResourceNotFoundException like read
+    StoredObject stat(String key);
+
+    // SHA-256 of the content as lowercase hex, streamed through the whole object; prefer a stored checksum
+    String contentHash(String key);
+
+    void write(String key, byte[] bytes, String contentType);
+
+    // URL the client PUTs the object to; a declared length or hash is signed in, so any other body is rejected
+    String uploadUrl(UploadTarget target);
+
+    // Results are in target order
+    default List<String> uploadUrls(List<UploadTarget> targets) {
+        return targets.stream().map(this::uploadUrl).toList();
+    }
+
+    // Time-limited URL the client GETs the object from
+    String downloadUrl(String key);
+
+    // Least time a URL from downloadUrl stays valid after it is returned
+    Duration downloadUrlLifetime();
+
+    // Keys that could not be deleted, mapped to the reason; keys with nothing stored count as deleted
+    Map<String, String> delete(List<String> keys);
+
+    /**
+     * What the backend knows about a stored object. {@code etag} and {@code checksum} are null when the backend
+     * has none; the checksum is prefixed with its algorithm, as in {@code sha256:<base64>}.
+     */
+    record StoredObject(long size, String contentType, String etag, String checksum) {
+    }
+
+    // contentLength and contentHash are optional
+    record UploadTarget(String key, String contentType, Long contentLength, String contentHash) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// What clients may ask upload URLs for; checked before anything is signed. Requests arrive validated, so the
+// declared length is always present
+@Component
+public class MediaUploadPolicy {
+
+    private final Set<String> allowedContentTypes;
+    private final long maxBytes;
+    private final int maxBatchSize;
+    private final long multipartMaxBytes;
+
+    public MediaUploadPolicy(
+            @Value("${aws.s3.upload.allowed-content-types:image/jpeg,image/png,image/webp,image/heic,image/avif,video/mp4}")
+            List<String> allowedContentTypes,
+            @Value("${aws.s3.upload.max-size:25MB}") DataSize maxSize,
+            @Value("${aws.s3.upload.max-batch-size:30}") int maxBatchSize,
+            @Value("${aws.s3.multipart.max-size:5GB}") DataSize multipartMaxSize) {
+        this.allowedContentTypes = allowedContentTypes.stream()
+                .map(MediaUploadPolicy::normalize)
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxBytes = maxSize.toBytes();
+        this.maxBatchSize = maxBatchSize;
+        this.multipartMaxBytes = multipartMaxSize.toBytes();
+    }
+
+    public void validate(MediaUploadRequest item) {
+        if (!allowedContentTypes.contains(normalize(item.getContentType()))) {
+            throw new InvalidRequestException("Content type " + item.getContentType() + " is not allowed");
+        }
+        if (item.getContentLength() > maxBytes) {
+            throw new InvalidRequestException("File " + item.getFileName() + " exceeds the " + maxBytes + " byte limit");
+        }
+    }
+
+    public void validateBatch(List<MediaUploadRequest> items) {
+        if (items.size() > maxBatchSize) {
+            throw new InvalidRequestException("At most " + maxBatchSize + " uploads can be requested at once");
+        }
+        items.forEach(this::validate);
+    }
+
+    // Cap for a local upload whose URL carries no signed length. Every URL handed out now signs one, so
+    // LocalMediaController.upload only falls back to this for URLs signed before lengths were required
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    // Multipart uploads are checked against the larger limit
+    public void validateMultipart(MediaUploadRequest item) {
+        if (!allowedContentTypes.contains(normalize(item.getContentType()))) {
+            throw new InvalidRequestException("Content type " + item.getContentType() + " is not allowed");
+        }
+        if (item.getContentLength() > multipartMaxBytes) {
+            throw new InvalidRequestException("File " + item.getFileName() + " exceeds the " + multipartMaxBytes + " byte limit");
+        }
+    }
+
+    private static String normalize(String contentType) {
+        return contentType.strip().toLowerCase(Locale.ROOT);
+    }
+}
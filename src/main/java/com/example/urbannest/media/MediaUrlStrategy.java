@@ -0,0 +1,34 @@
+package com.example.urbannest.media;
+
+import org.springframework.http.ResponseCookie;
+
+import java.util.List;
+
+/**
+ * Turns stored media keys into the URLs handed out in listing responses.
+ * <p>
+ * One implementation is active, chosen by {@code media.url.mode}: {@code presign} (default) signs each object,
+ * {@code cdn} serves stable URLs from a public base URL, and {@code signed-cookie} serves stable URLs from a
+ * CloudFront distribution guarded by one cookie credential per client. Private downloads through
+ * {@code /s3/download-url} always stay presigned.
+ */
+public interface MediaUrlStrategy {
+
+    String urlFor(String key);
+
+    // Whether handed-out URLs stop working after a while, so bodies holding them must not be revalidated forever
+    boolean urlsExpire();
+
+    // Cookies a client needs before it can fetch the URLs; empty unless media sits behind a signed-cookie policy
+    default List<ResponseCookie> accessCookies() {
+        return List.of();
+    }
+
+    // Profile pictures are either an uploaded object key or an external URL from the identity provider
+    default String resolve(String keyOrUrl) {
+        if (keyOrUrl == null || keyOrUrl.startsWith("https://") || keyOrUrl.startsWith("http://")) {
+            return keyOrUrl;
+        }
+        return urlFor(keyOrUrl);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.urbannest.media;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+
+/**
+ * What the verifier found in storage for a media asset, stored under {@code metadata -> 'verification'}.
+ * <p>
+ * {@code verified} carries the stored content type, ETag and checksum (the size goes to {@code byte_size});
+ * {@code missing} means nothing was stored under the key when it was checked.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MediaVerification(String status, String contentType, String etag, String checksum, Instant checkedAt) {
+
+    public static final String METADATA_FIELD = "verification";
+    public static final String VERIFIED = "verified";
+    public static final String MISSING = "missing";
+
+    public static MediaVerification verified(MediaStorage.StoredObject stored, Instant checkedAt) {
+        return new MediaVerification(VERIFIED, stored.contentType(), stored.etag(), stored.checksum(), checkedAt);
+    }
+
+    public static MediaVerification missing(Instant checkedAt) {
+        return new MediaVerification(MISSING, null, null, null, checkedAt);
+    }
+
+    public String toJson() {
+        return JsonMapper.shared().writeValueAsString(this);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.repository.MediaAssetRepository;
+import com.example.urbannest.service.MediaAssetService;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Confirms that new media assets point at an object that was actually uploaded, and records what storage holds.
+ * <p>
+ * Assets are checked in batches, oldest first, once they are {@code min-age} old, which gives clients that
+ * attach media while still uploading time to finish. Each batch is checked with up to {@code concurrency}
+ * metadata requests in flight and recorded in one statement: the real size replaces the client's (or the 0 the
+ * update path stores), and the checksum and ETag go under {@code metadata -> 'verification'}. Objects that are
+ * not there are recorded as {@code missing}. Storage errors are not recorded, so the asset is checked again on
+ * the next run. Image dimensions need the pixels, so the derivative pipeline records them instead.
+ * <p>
+ * The content hash comes from the stored SHA-256 checksum when the upload carried one, and otherwise from
+ * reading objects up to {@code hash-max-size}. An asset whose content the owner already has in another live
+ * asset is recorded without a hash and merged into that asset; within a batch the oldest keeps it.
+ */
+@Component
+public class MediaVerifier {
+    private static final Logger log = LoggerFactory.getLogger(MediaVerifier.class);
+
+    private static final OffsetDateTime KEYSET_START = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final UUID KEYSET_START_ID = new UUID(0, 0);
+
+    private final MediaAssetRepository mediaAssetRepository;
+    private final MediaAssetService mediaAssetService;
+    private final MediaStorage mediaStorage;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration minAge;
+    private final long hashMaxBytes;
+    private final ThreadPoolExecutor executor;
+
+    public MediaVerifier(MediaAssetRepository mediaAssetRepository,
+                         MediaAssetService mediaAssetService,
+                         MediaStorage mediaStorage,
+                         MeterRegistry meterRegistry,
+                         @Value("${media.verification.concurrency:8}") int concurrency,
+                         @Value("${media.verification.batch-size:200}") int batchSize,
+                         @Value("${media.verification.min-age:5m}") Duration minAge,
+                         @Value("${media.verification.hash-max-size:25MB}") DataSize hashMaxSize) {
+        this.mediaAssetRepository = mediaAssetRepository;
+        this.mediaAssetService = mediaAssetService;
+        this.mediaStorage = mediaStorage;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.minAge = minAge;
+        this.hashMaxBytes = hashMaxSize.toBytes();
+        // Unbounded queue, but only the batch being checked is ever in it
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("media-verification-", 0).daemon(true).factory());
+        new ExecutorServiceMetrics(executor, "media.verification", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    // Pages past failed assets instead of fetching them again; a batch where every check failed ends the run
+    @Scheduled(fixedDelayString = "${media.verification.interval:1m}",
+            initialDelayString = "${media.verification.interval:1m}")
+    public void verifyRecent() {
+        OffsetDateTime createdBefore = OffsetDateTime.now().minus(minAge);
+        OffsetDateTime afterCreatedAt = KEYSET_START;
+        UUID afterMediaId = KEYSET_START_ID;
+        int recorded = 0;
+        while (true) {
+            List<MediaAsset> batch = mediaAssetRepository.findUnverified(
+                    createdBefore, afterCreatedAt, afterMediaId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            int batchRecorded = verify(batch);
+            recorded += batchRecorded;
+            if (batchRecorded == 0) {
+                log.warn("Every check in a batch of {} media assets failed; retrying next run", batch.size());
+                break;
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+            MediaAsset last = batch.getLast();
+            afterCreatedAt = last.getCreatedAt();
+            afterMediaId = last.getMediaId();
+        }
+        if (recorded > 0) {
+            log.info("Verified {} media assets against storage", recorded);
+        }
+    }
+
+    // Returns how many results were recorded
+    int verify(List<MediaAsset> batch) {
+        List<CompletableFuture<Result>> checks = batch.stream()
+                .map(asset -> CompletableFuture.supplyAsync(() -> check(asset), executor))
+                .toList();
+        List<Result> results = checks.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .toList();
+        if (results.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, UUID> duplicates = findDuplicates(batch, results);
+        List<Result> recorded = results.stream()
+                .map(result -> duplicates.containsKey(result.mediaId()) ? result.withoutContentHash() : result)
+                .toList();
+        mediaAssetRepository.recordVerifications(JsonMapper.shared().writeValueAsString(recorded));
+        duplicates.forEach(this::merge);
+        return results.size();
+    }
+
+    // Duplicate asset id to the asset that keeps the content; results are in batch order, so oldest first
+    private Map<UUID, UUID> findDuplicates(List<MediaAsset> batch, List<Result> results) {
+        List<String> hashes = results.stream().map(Result::contentHash).filter(Objects::nonNull).distinct().toList();
+        if (hashes.isEmpty()) {
+            return Map.of();
+        }
+        Map<OwnedHash, UUID> holders = new HashMap<>();
+        for (MediaAssetRepository.HashedAsset held : mediaAssetRepository.findLiveByContentHashes(hashes)) {
+            holders.put(new OwnedHash(held.ownerUserId(), held.contentHash()), held.mediaId());
+        }
+        Map<UUID, UUID> ownerIds = batch.stream()
+                .collect(Collectors.toMap(MediaAsset::getMediaId, asset -> asset.getOwnerUser().getUserId()));
+
+        Map<UUID, UUID> duplicates = new LinkedHashMap<>();
+        for (Result result : results) {
+            if (result.contentHash() == null) {
+                continue;
+            }
+            UUID holder = holders.putIfAbsent(
+                    new OwnedHash(ownerIds.get(result.mediaId()), result.contentHash()), result.mediaId());
+            if (holder != null && !holder.equals(result.mediaId())) {
+                duplicates.put(result.mediaId(), holder);
+            }
+        }
+        return duplicates;
+    }
+
+    // A failed merge leaves the duplicate as a verified asset of its own
+    private void merge(UUID duplicateId, UUID survivorId) {
+        try {
+            mediaAssetService.mergeDuplicate(duplicateId, survivorId);
+        } catch (RuntimeException e) {
+            log.warn("Merging duplicate media {} into {} failed", duplicateId, survivorId, e);
+        }
+    }
+
+    private Result check(MediaAsset asset) {
+        Instant checkedAt = Instant.now();
+        try {
+            MediaStorage.StoredObject stored = mediaStorage.stat(asset.getS3Location());
+            String contentHash = ContentHash.fromChecksum(stored.checksum());
+            if (contentHash == null && stored.size() <= hashMaxBytes) {
+                contentHash = mediaStorage.contentHash(asset.getS3Location());
+            }
+            count(MediaVerification.VERIFIED);
+            return new Result(asset.getMediaId(), stored.size(), contentHash,
+                    MediaVerification.verified(stored, checkedAt));
+        } catch (ResourceNotFoundException e) {
+            log.warn("Media {} has nothing stored under {}", asset.getMediaId(), asset.getS3Location());
+            count(MediaVerification.MISSING);
+            return new Result(asset.getMediaId(), null, null, MediaVerification.missing(checkedAt));
+        } catch (RuntimeException e) {
+            log.warn("Checking media {} failed: {}", asset.getMediaId(), e.toString());
+            count("failed");
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        Counter.builder("media.verification.checked")
+                .description("Media assets checked against storage by the verifier, by outcome")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Field names match the columns recordVerifications reads them into; a null size or hash keeps the stored one
+    record Result(@JsonProperty("media_id") UUID mediaId,
+                  @JsonProperty("byte_size") Long byteSize,
+                  @JsonProperty("content_hash") String contentHash,
+                  MediaVerification verification) {
+
+        Result withoutContentHash() {
+            return new Result(mediaId, byteSize, null, verification);
+        }
+    }
+
+    private record OwnedHash(UUID ownerUserId, String contentHash) {
+    }
+}
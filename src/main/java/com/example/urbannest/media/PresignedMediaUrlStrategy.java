@@ -0,0 +1,34 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.util.ETagUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Per-object signed URLs from the storage backend: presigned GETs for S3, /media/files links for local storage
+@Component
+@ConditionalOnProperty(name = "media.url.mode", havingValue = "presign", matchIfMissing = true)
+public class PresignedMediaUrlStrategy implements MediaUrlStrategy {
+
+    private final MediaStorage mediaStorage;
+
+    // Bodies holding these URLs are cached and revalidated, so the URLs have to outlast both
+    public PresignedMediaUrlStrategy(MediaStorage mediaStorage,
+                                     @Value("${listing.detail-cache.ttl:10m}") Duration detailCacheTtl) {
+        ETagUtil.requireUrlsOutlive(mediaStorage.downloadUrlLifetime(), detailCacheTtl,
+                mediaStorage.getClass().getSimpleName());
+        this.mediaStorage = mediaStorage;
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return mediaStorage.downloadUrl(key);
+    }
+
+    @Override
+    public boolean urlsExpire() {
+        return true;
+    }
+}
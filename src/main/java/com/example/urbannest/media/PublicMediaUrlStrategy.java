@@ -0,0 +1,27 @@
+package com.example.urbannest.media;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Stable URLs under a public bucket or CDN origin; nothing is signed, so browsers and the CDN can cache them
+@Component
+@ConditionalOnProperty(name = "media.url.mode", havingValue = "cdn")
+public class PublicMediaUrlStrategy implements MediaUrlStrategy {
+
+    private final MediaBaseUrl baseUrl;
+
+    public PublicMediaUrlStrategy(@Value("${media.url.base-url}") String baseUrl) {
+        this.baseUrl = new MediaBaseUrl(baseUrl);
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return baseUrl.resolve(key);
+    }
+
+    @Override
+    public boolean urlsExpire() {
+        return false;
+    }
+}
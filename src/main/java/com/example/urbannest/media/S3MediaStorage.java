@@ -0,0 +1,109 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.service.S3Service;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "media.storage", havingValue = "s3", matchIfMissing = true)
+public class S3MediaStorage implements MediaStorage {
+
+    private final S3Service s3Service;
+
+    public S3MediaStorage(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    @Override
+    public byte[] read(String key) {
+        try {
+            return s3Service.getObjectBytes(key);
+        } catch (NoSuchKeyException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        }
+    }
+
+    @Override
+    public StoredObject stat(String key) {
+        HeadObjectResponse head;
+        try {
+            head = s3Service.headObject(key);
+        } catch (NoSuchKeyException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        }
+        return new StoredObject(head.contentLength(), head.contentType(), head.eTag(), checksumOf(head));
+    }
+
+    @Override
+    public String contentHash(String key) {
+        try (InputStream in = s3Service.getObject(key)) {
+            return ContentHash.of(in);
+        } catch (NoSuchKeyException e) {
+            throw new ResourceNotFoundException("Media object " + key + " not found");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] bytes, String contentType) {
+        s3Service.putObject(key, bytes, contentType);
+    }
+
+    @Override
+    public String uploadUrl(UploadTarget target) {
+        return s3Service.generateUploadUrl(target);
+    }
+
+    // Large batches are signed in parallel
+    @Override
+    public List<String> uploadUrls(List<UploadTarget> targets) {
+        return s3Service.generateUploadUrls(targets);
+    }
+
+    // Reused per key by the S3Service cache
+    @Override
+    public String downloadUrl(String key) {
+        return s3Service.generateDownloadUrl(key);
+    }
+
+    @Override
+    public Duration downloadUrlLifetime() {
+        return s3Service.downloadUrlLifetime();
+    }
+
+    @Override
+    public Map<String, String> delete(List<String> keys) {
+        return s3Service.deleteObjects(keys);
+    }
+
+    // Strongest first; S3 only has the ones the uploader sent or, for newer objects, its default CRC64NVME
+    private static String checksumOf(HeadObjectResponse head) {
+        if (head.checksumSHA256() != null) {
+            return "sha256:" + head.checksumSHA256();
+        }
+        if (head.checksumSHA1() != null) {
+            return "sha1:" + head.checksumSHA1();
+        }
+        if (head.checksumCRC64NVME() != null) {
+            return "crc64nvme:" + head.checksumCRC64NVME();
+        }
+        if (head.checksumCRC32C() != null) {
+            return "crc32c:" + head.checksumCRC32C();
+        }
+        if (head.checksumCRC32() != null) {
+            return "crc32:" + head.checksumCRC32();
+        }
+        return null;
+    }
+}
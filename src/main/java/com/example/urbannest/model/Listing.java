@@ -78,6 +78,10 @@ public class Listing {
     @Setter
     private OffsetDateTime deletedAt;
 
+    // Generated by the database from title and description; only referenced in search predicates
+    @Column(name = "search_vector", insertable = false, updatable = false, columnDefinition = "tsvector")
+    private String searchVector;
+
     @OneToOne(mappedBy = "listing", fetch = FetchType.LAZY)
     @Getter
     private ListingDetails listingDetails;
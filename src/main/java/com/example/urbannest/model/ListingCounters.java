@@ -1,8 +1,10 @@
 package com.example.urbannest.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import java.util.UUID;
 
@@ -28,4 +30,13 @@ public class ListingCounters {
 
     @Column(name = "save_count", nullable = false)
     private Integer saveCount = 0;
+
+    // Stored counts plus shard deltas not compacted yet; what responses and validators show
+    @Formula("greatest(favorite_count + (select coalesce(sum(s.favorite_delta), 0) from listing_counter_shards s where s.listing_id = listing_id), 0)")
+    @Setter(AccessLevel.NONE)
+    private Integer favoriteTotal;
+
+    @Formula("greatest(save_count + (select coalesce(sum(s.save_delta), 0) from listing_counter_shards s where s.listing_id = listing_id), 0)")
+    @Setter(AccessLevel.NONE)
+    private Integer saveTotal;
 }
\ No newline at end of file
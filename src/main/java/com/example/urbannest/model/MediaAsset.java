@@ -41,6 +41,14 @@ public class MediaAsset {
     @Column(name = "deleted_at")
     private OffsetDateTime deletedAt;
 
+    // Set by MediaVerifier once the stored bytes are known; unique per owner among live assets (V18)
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    // Listing and blog links; maintained by MediaAssetRepository.refreshRefCounts
+    @Column(name = "ref_count", nullable = false, insertable = false, updatable = false)
+    private Integer refCount;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "metadata", columnDefinition = "jsonb")
     private String metadata;
@@ -0,0 +1,45 @@
+package com.example.urbannest.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "multipart_uploads")
+@Getter @Setter
+public class MultipartUpload {
+
+    @Id
+    @Column(name = "upload_id", updatable = false, nullable = false)
+    private String uploadId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_user_id")
+    private User ownerUser;
+
+    @Column(name = "s3_key", nullable = false)
+    private String s3Key;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "content_length", nullable = false)
+    private Long contentLength;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    public int getPartCount() {
+        return (int) ((contentLength + partSize - 1) / partSize);
+    }
+
+    // Every part is partSize bytes except the last, which holds the remainder
+    public long getPartLength(int partNumber) {
+        return partNumber < getPartCount() ? partSize : contentLength - partSize * (getPartCount() - 1);
+    }
+}
@@ -3,11 +3,19 @@ package com.example.urbannest.repository;
 import com.example.urbannest.model.FavoriteListing;
 import com.example.urbannest.model.User;
 import com.example.urbannest.model.composite.FavoriteListingId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface FavoriteListingRepository extends JpaRepository<FavoriteListing, FavoriteListingId> {
@@ -20,4 +28,108 @@ public interface FavoriteListingRepository extends JpaRepository<FavoriteListing
             "listing.listingCounters"
     })
     Page<FavoriteListing> findByUser(User user, Pageable pageable);
+
+    @EntityGraph(attributePaths = {
+            "listing",
+            "listing.user",
+            "listing.listingDetails",
+            "listing.listingLocation",
+            "listing.listingCounters"
+    })
+    @Query("""
+            select f from FavoriteListing f
+            where f.user = :user
+            order by f.createdAt desc, f.id.listingId desc
+            """)
+    List<FavoriteListing> findSliceByUser(User user, Limit limit);
+
+    @EntityGraph(attributePaths = {
+            "listing",
+            "listing.user",
+            "listing.listingDetails",
+            "listing.listingLocation",
+            "listing.listingCounters"
+    })
+    @Query("""
+            select f from FavoriteListing f
+            where f.user = :user
+              and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id.listingId < :listingId))
+            order by f.createdAt desc, f.id.listingId desc
+            """)
+    List<FavoriteListing> findSliceByUserBefore(User user, OffsetDateTime createdAt, UUID listingId, Limit limit);
+
+    // Which of the given listings the user has favorited, in one primary key lookup per listing
+    @Query("""
+            select f.id.listingId from FavoriteListing f
+            where f.user.firebaseId = :firebaseUid and f.id.listingId in :listingIds
+            """)
+    List<UUID> findListingIdsByFirebaseUidAndListingIdIn(String firebaseUid, Collection<UUID> listingIds);
+
+    @Query("""
+            select f.id.listingId from FavoriteListing f
+            where f.user.firebaseId = :firebaseUid
+            """)
+    List<UUID> findListingIdsByFirebaseUid(String firebaseUid, Limit limit);
+
+    /**
+     * Adds the favorite and counts it in one statement, on the listing's counters row when {@code shard} is 0 and
+     * on that counter shard row otherwise. Returns 0 when the favorite already exists or the user or listing does
+     * not, so repeating the call counts nothing and writes nothing.
+     */
+    @Transactional
+    @Query(value = """
+            with inserted as (
+                insert into favorite_listings (user_id, listing_id, created_at)
+                select u.user_id, l.listing_id, now()
+                from users u
+                join listings l on l.listing_id = :listingId
+                where u.firebase_uid = :firebaseUid
+                on conflict (user_id, listing_id) do nothing
+                returning listing_id
+            ), counted as (
+                update listing_counters c
+                set favorite_count = c.favorite_count + 1
+                from inserted i
+                where c.listing_id = i.listing_id and :shard = 0
+            ), sharded as (
+                insert into listing_counter_shards as s (listing_id, shard, favorite_delta)
+                select listing_id, :shard, 1 from inserted
+                where :shard > 0
+                on conflict (listing_id, shard) do update set favorite_delta = s.favorite_delta + 1
+            )
+            select count(*) from inserted
+            """, nativeQuery = true)
+    int insertCounted(String firebaseUid, UUID listingId, int shard);
+
+    /**
+     * Removes the favorite and its count in one statement, counting as {@link #insertCounted} does, and records
+     * the removal so an add queued offline before it does not bring the favorite back. Returns 0 when there was
+     * nothing to remove.
+     */
+    @Transactional
+    @Query(value = """
+            with deleted as (
+                delete from favorite_listings t
+                using users u
+                where u.user_id = t.user_id and u.firebase_uid = :firebaseUid and t.listing_id = :listingId
+                returning t.user_id, t.listing_id
+            ), removal as (
+                insert into listing_engagement_removals as r (user_id, listing_id, kind, removed_at)
+                select user_id, listing_id, 'favorite', now() from deleted
+                on conflict (user_id, listing_id, kind) do update
+                set removed_at = greatest(r.removed_at, excluded.removed_at)
+            ), counted as (
+                update listing_counters c
+                set favorite_count = greatest(c.favorite_count - 1, 0)
+                from deleted d
+                where c.listing_id = d.listing_id and :shard = 0
+            ), sharded as (
+                insert into listing_counter_shards as s (listing_id, shard, favorite_delta)
+                select listing_id, :shard, -1 from deleted
+                where :shard > 0
+                on conflict (listing_id, shard) do update set favorite_delta = s.favorite_delta - 1
+            )
+            select count(*) from deleted
+            """, nativeQuery = true)
+    int deleteCounted(String firebaseUid, UUID listingId, int shard);
 }
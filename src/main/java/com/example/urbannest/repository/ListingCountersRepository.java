@@ -2,10 +2,230 @@ package com.example.urbannest.repository;
 
 import com.example.urbannest.model.ListingCounters;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ListingCountersRepository extends JpaRepository<ListingCounters, UUID> {
+
+    // One statement per flush; views is a JSON array of {listing_id, views}
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update listing_counters lc
+            set view_count = lc.view_count + v.views
+            from jsonb_to_recordset(cast(:views as jsonb)) as v(listing_id uuid, views int)
+            where lc.listing_id = v.listing_id
+            """, nativeQuery = true)
+    int addViews(String views);
+
+    /**
+     * Folds up to {@code limit} shard rows into listing_counters and deletes them, in one statement; returns the
+     * number of shard rows folded. Rows a writer holds are skipped and left for the next run.
+     */
+    @Transactional
+    @Query(value = """
+            with drained as (
+                delete from listing_counter_shards
+                where (listing_id, shard) in (
+                    select listing_id, shard from listing_counter_shards
+                    limit :limit
+                    for update skip locked)
+                returning listing_id, favorite_delta, save_delta
+            ), folded as (
+                update listing_counters c
+                set favorite_count = greatest(c.favorite_count + d.favorite_delta, 0),
+                    save_count = greatest(c.save_count + d.save_delta, 0)
+                from (select listing_id, sum(favorite_delta) as favorite_delta, sum(save_delta) as save_delta
+                      from drained
+                      group by listing_id) d
+                where c.listing_id = d.listing_id
+            )
+            select count(*) from drained
+            """, nativeQuery = true)
+    int compactShards(int limit);
+
+    record ReconciledChunk(long scanned, long corrected, long favoriteDrift, long saveDrift,
+                           List<UUID> correctedListingIds) {
+    }
+
+    // Native queries hand uuid[] over as an array
+    record ReconciledRow(long scanned, long corrected, long favoriteDrift, long saveDrift,
+                         UUID[] correctedListingIds) {
+    }
+
+    /**
+     * Reconciles the next {@code limit} counters rows after the stored position against the favorite and save
+     * rows, in one statement, and moves the position on; it goes back to the start after the last chunk. True
+     * counts come from one grouped aggregate per table over the chunk's listing_id range and are compared with
+     * the stored count plus unfolded shard deltas. Only rows that differ are updated, by the difference, so
+     * writes and compaction committed meanwhile are kept. A stored count is not corrected below zero; what
+     * shard deltas hold beyond the true count is left for a run after compaction. Scans nothing while another
+     * run holds the position. Returns the ids of the listings it corrected.
+     */
+    @Transactional
+    @Query(value = """
+            with progress as (
+                select last_listing_id from listing_counter_reconciliation
+                where id = 1
+                for update skip locked
+            ), chunk as (
+                select c.listing_id, c.favorite_count, c.save_count
+                from listing_counters c
+                join progress p on p.last_listing_id is null or c.listing_id > p.last_listing_id
+                order by c.listing_id
+                limit :limit
+            ), bounds as (
+                select (select listing_id from chunk order by listing_id limit 1) as first_id,
+                       (select listing_id from chunk order by listing_id desc limit 1) as last_id,
+                       (select count(*) from chunk) as scanned
+            ), favorites as (
+                select f.listing_id, count(*) as total
+                from favorite_listings f
+                join bounds b on f.listing_id between b.first_id and b.last_id
+                group by f.listing_id
+            ), saves as (
+                select s.listing_id, count(*) as total
+                from saved_listings s
+                join bounds b on s.listing_id between b.first_id and b.last_id
+                group by s.listing_id
+            ), shards as (
+                select s.listing_id, sum(s.favorite_delta) as favorite_delta, sum(s.save_delta) as save_delta
+                from listing_counter_shards s
+                join bounds b on s.listing_id between b.first_id and b.last_id
+                group by s.listing_id
+            ), drift as (
+                select ch.listing_id,
+                       greatest(coalesce(f.total, 0) - coalesce(sh.favorite_delta, 0), 0) - ch.favorite_count
+                           as favorite_drift,
+                       greatest(coalesce(sv.total, 0) - coalesce(sh.save_delta, 0), 0) - ch.save_count
+                           as save_drift
+                from chunk ch
+                left join favorites f on f.listing_id = ch.listing_id
+                left join saves sv on sv.listing_id = ch.listing_id
+                left join shards sh on sh.listing_id = ch.listing_id
+            ), corrected as (
+                update listing_counters c
+                set favorite_count = greatest(c.favorite_count + d.favorite_drift, 0),
+                    save_count = greatest(c.save_count + d.save_drift, 0)
+                from drift d
+                where c.listing_id = d.listing_id and (d.favorite_drift <> 0 or d.save_drift <> 0)
+                returning d.listing_id, d.favorite_drift, d.save_drift
+            ), advanced as (
+                update listing_counter_reconciliation r
+                set last_listing_id = case when b.scanned < :limit then null else b.last_id end,
+                    updated_at = now()
+                from bounds b, progress p
+                where r.id = 1
+            )
+            select (select scanned from bounds) as scanned,
+                   count(*) as corrected,
+                   cast(coalesce(sum(abs(favorite_drift)), 0) as bigint) as favorite_drift,
+                   cast(coalesce(sum(abs(save_drift)), 0) as bigint) as save_drift,
+                   coalesce(array_agg(listing_id), cast('{}' as uuid[])) as corrected_listing_ids
+            from corrected
+            """, nativeQuery = true)
+    ReconciledRow reconcileChunkRow(int limit);
+
+    default ReconciledChunk reconcileChunk(int limit) {
+        ReconciledRow row = reconcileChunkRow(limit);
+        return new ReconciledChunk(row.scanned(), row.corrected(), row.favoriteDrift(), row.saveDrift(),
+                List.of(row.correctedListingIds()));
+    }
+
+    /**
+     * Applies a user's favorite and save changes in one statement. {@code changes} is a JSON array of
+     * {listing_id, kind, active, client_timestamp} with at most one entry per listing and kind. Timestamps are
+     * clamped to the server clock and decide in both directions: a removal only applies to a row added no later
+     * than it and is recorded in listing_engagement_removals, and an add no later than the recorded removal is
+     * skipped. A later add of an existing row only moves its changed_at; created_at, which orders the lists, is
+     * always the server time of the insert; xmax = 0 tells the inserted rows from the moved ones. Each touched
+     * listing gets one counter update, on its counters row when {@code shard} is 0 and on that counter shard row
+     * otherwise. Returns the listing of every row added or removed.
+     */
+    @Transactional
+    @Query(value = """
+            with changes as (
+                select v.listing_id, v.kind, v.active, least(v.client_timestamp, now()) as changed_at
+                from jsonb_to_recordset(cast(:changes as jsonb))
+                    as v(listing_id uuid, kind text, active boolean, client_timestamp timestamptz)
+            ), added_favorites as (
+                insert into favorite_listings as f (user_id, listing_id, created_at, changed_at)
+                select cast(:userId as uuid), c.listing_id, now(), c.changed_at
+                from changes c
+                join listings l on l.listing_id = c.listing_id
+                where c.kind = 'favorite' and c.active
+                  and not exists (
+                      select 1 from listing_engagement_removals r
+                      where r.user_id = cast(:userId as uuid) and r.listing_id = c.listing_id
+                        and r.kind = 'favorite' and r.removed_at >= c.changed_at)
+                on conflict (user_id, listing_id) do update set changed_at = excluded.changed_at
+                    where coalesce(f.changed_at, f.created_at) < excluded.changed_at
+                returning f.listing_id, f.xmax = 0 as inserted
+            ), removed_favorites as (
+                delete from favorite_listings f
+                using changes c
+                where c.kind = 'favorite' and not c.active
+                  and f.user_id = cast(:userId as uuid) and f.listing_id = c.listing_id
+                  and coalesce(f.changed_at, f.created_at) <= c.changed_at
+                returning f.listing_id
+            ), added_saves as (
+                insert into saved_listings as s (user_id, listing_id, created_at, changed_at)
+                select cast(:userId as uuid), c.listing_id, now(), c.changed_at
+                from changes c
+                join listings l on l.listing_id = c.listing_id
+                where c.kind = 'save' and c.active
+                  and not exists (
+                      select 1 from listing_engagement_removals r
+                      where r.user_id = cast(:userId as uuid) and r.listing_id = c.listing_id
+                        and r.kind = 'save' and r.removed_at >= c.changed_at)
+                on conflict (user_id, listing_id) do update set changed_at = excluded.changed_at
+                    where coalesce(s.changed_at, s.created_at) < excluded.changed_at
+                returning s.listing_id, s.xmax = 0 as inserted
+            ), removed_saves as (
+                delete from saved_listings s
+                using changes c
+                where c.kind = 'save' and not c.active
+                  and s.user_id = cast(:userId as uuid) and s.listing_id = c.listing_id
+                  and coalesce(s.changed_at, s.created_at) <= c.changed_at
+                returning s.listing_id
+            ), removals as (
+                insert into listing_engagement_removals as r (user_id, listing_id, kind, removed_at)
+                select cast(:userId as uuid), c.listing_id, c.kind, c.changed_at
+                from changes c
+                join listings l on l.listing_id = c.listing_id
+                where not c.active
+                on conflict (user_id, listing_id, kind) do update
+                set removed_at = greatest(r.removed_at, excluded.removed_at)
+            ), applied as (
+                select listing_id, 1 as favorite_delta, 0 as save_delta from added_favorites where inserted
+                union all select listing_id, -1, 0 from removed_favorites
+                union all select listing_id, 0, 1 from added_saves where inserted
+                union all select listing_id, 0, -1 from removed_saves
+            ), deltas as (
+                select listing_id, sum(favorite_delta) as favorite_delta, sum(save_delta) as save_delta
+                from applied
+                group by listing_id
+            ), counted as (
+                update listing_counters lc
+                set favorite_count = greatest(lc.favorite_count + d.favorite_delta, 0),
+                    save_count = greatest(lc.save_count + d.save_delta, 0)
+                from deltas d
+                where lc.listing_id = d.listing_id and :shard = 0
+            ), sharded as (
+                insert into listing_counter_shards as s (listing_id, shard, favorite_delta, save_delta)
+                select listing_id, :shard, favorite_delta, save_delta from deltas
+                where :shard > 0
+                on conflict (listing_id, shard) do update
+                set favorite_delta = s.favorite_delta + excluded.favorite_delta,
+                    save_delta = s.save_delta + excluded.save_delta
+            )
+            select listing_id from applied
+            """, nativeQuery = true)
+    List<UUID> syncEngagement(UUID userId, String changes, int shard);
 }
@@ -0,0 +1,23 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.enums.PropertyType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ListingFacetRepository {
+
+    // One row per (propertyType, district, bedroomBucket, priceBucket) combination present in the filtered listings
+    record FacetRow(PropertyType propertyType,
+                    String district,
+                    Integer bedroomBucket,
+                    BigDecimal priceBucket,
+                    Long count,
+                    BigDecimal minPrice,
+                    BigDecimal maxPrice) {
+    }
+
+    List<FacetRow> findFacetRows(Specification<Listing> spec);
+}
@@ -0,0 +1,52 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.ListingDetails;
+import com.example.urbannest.model.ListingLocation;
+import com.example.urbannest.specification.ListingSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Spring Data fragment of ListingRepository; all facets come from one grouped query over the filtered listings
+public class ListingFacetRepositoryImpl implements ListingFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<FacetRow> findFacetRows(Specification<Listing> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FacetRow> query = cb.createQuery(FacetRow.class);
+        Root<Listing> root = query.from(Listing.class);
+        query.where(spec.toPredicate(root, query, cb));
+
+        Join<Listing, ListingLocation> location = ListingSpecification.existingOrLeftJoin(root, "listingLocation");
+        Join<Listing, ListingDetails> details = ListingSpecification.existingOrLeftJoin(root, "listingDetails");
+
+        Path<BigDecimal> pricing = root.get("pricing");
+        Expression<Integer> bedroomBucket = cb.function("bedroom_bucket", Integer.class, details.get("bedroomsCount"));
+        Expression<BigDecimal> priceBucket = cb.function("price_bucket", BigDecimal.class, pricing);
+
+        query.select(cb.construct(FacetRow.class,
+                        root.get("propertyType"),
+                        location.get("district"),
+                        bedroomBucket,
+                        priceBucket,
+                        cb.count(root),
+                        cb.min(pricing),
+                        cb.max(pricing)))
+                .groupBy(root.get("propertyType"), location.get("district"), bedroomBucket, priceBucket);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+}
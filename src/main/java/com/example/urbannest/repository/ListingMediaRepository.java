@@ -3,6 +3,7 @@ package com.example.urbannest.repository;
 import com.example.urbannest.model.ListingMedia;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -16,4 +17,26 @@ public interface ListingMediaRepository extends JpaRepository<ListingMedia, UUID
 
     @EntityGraph(attributePaths = {"mediaAsset"})
     List<ListingMedia> findByListingListingIdInOrderBySortOrderAsc(Collection<UUID> listingIds);
+
+    @Query("select lm.id.listingId from ListingMedia lm where lm.id.mediaId = :mediaId")
+    List<UUID> findListingIdsByMediaId(UUID mediaId);
+
+    record CoverImage(UUID listingId, String s3Location, String metadata) {
+    }
+
+    // First image by sort order for each listing; 'img' is the pre-V9 content type
+    @Query("""
+            select new com.example.urbannest.repository.ListingMediaRepository$CoverImage(lm.id.listingId, ma.s3Location, ma.metadata)
+            from ListingMedia lm
+            join lm.mediaAsset ma
+            where lm.id.listingId in :listingIds
+              and (ma.contentType like 'image/%' or ma.contentType = 'img')
+              and lm.sortOrder = (
+                  select min(lm2.sortOrder)
+                  from ListingMedia lm2
+                  join lm2.mediaAsset ma2
+                  where lm2.id.listingId = lm.id.listingId
+                    and (ma2.contentType like 'image/%' or ma2.contentType = 'img'))
+            """)
+    List<CoverImage> findCoverImages(Collection<UUID> listingIds);
 }
\ No newline at end of file
@@ -2,20 +2,37 @@ package com.example.urbannest.repository;
 
 import com.example.urbannest.model.Listing;
 import com.example.urbannest.model.User;
+import com.example.urbannest.search.ListingIndexRow;
+import com.example.urbannest.search.ListingLocationRow;
 import org.jspecify.annotations.NonNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpecificationExecutor<Listing> {
+public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpecificationExecutor<Listing>,
+        ListingFacetRepository, ListingSummaryRepository {
+
+    Sort KEYSET_SORT = Sort.by(Sort.Direction.DESC, "createdAt", "listingId");
+
+    // Everything a listing's HTTP validators are derived from
+    record ListingVersion(OffsetDateTime updatedAt, Integer viewCount, Integer favoriteCount, Integer saveCount) {
+    }
 
     @EntityGraph(attributePaths = {"user", "listingDetails", "listingLocation",
             "listingCounters"})
@@ -28,4 +45,94 @@ public interface ListingRepository extends JpaRepository<Listing, UUID>, JpaSpec
     @EntityGraph(attributePaths = {"user", "listingDetails", "listingLocation",
             "listingCounters"})
     Optional<Listing> findByListingId(UUID listingId);
+
+    @Query("""
+            select new com.example.urbannest.repository.ListingRepository$ListingVersion(
+                l.updatedAt, c.viewCount, c.favoriteTotal, c.saveTotal)
+            from Listing l
+            left join l.listingCounters c
+            where l.listingId = :listingId
+            """)
+    Optional<ListingVersion> findVersion(UUID listingId);
+
+    // Moves the validators of listings whose responses changed without the listing itself being edited
+    @Modifying
+    @Transactional
+    @Query("update Listing l set l.updatedAt = :updatedAt where l.listingId in :listingIds")
+    int touchUpdatedAt(Collection<UUID> listingIds, OffsetDateTime updatedAt);
+
+    // Keyset slices: no OFFSET and no COUNT query, ordered by (createdAt, listingId) descending
+    default List<Listing> findSlice(Specification<Listing> spec, int limit) {
+        return findBy(spec, query -> query
+                .sortBy(KEYSET_SORT)
+                .limit(limit)
+                .project("user", "listingDetails", "listingLocation", "listingCounters")
+                .all());
+    }
+
+    @EntityGraph(attributePaths = {"user", "listingDetails", "listingLocation", "listingCounters"})
+    @Query("""
+            select l from Listing l
+            where l.user = :user and l.deletedAt is null
+            order by l.createdAt desc, l.listingId desc
+            """)
+    List<Listing> findSliceByUser(User user, Limit limit);
+
+    @EntityGraph(attributePaths = {"user", "listingDetails", "listingLocation", "listingCounters"})
+    @Query("""
+            select l from Listing l
+            where l.user = :user and l.deletedAt is null
+              and (l.createdAt < :createdAt or (l.createdAt = :createdAt and l.listingId < :listingId))
+            order by l.createdAt desc, l.listingId desc
+            """)
+    List<Listing> findSliceByUserBefore(User user, OffsetDateTime createdAt, UUID listingId, Limit limit);
+
+    @EntityGraph(attributePaths = {"user", "listingDetails", "listingLocation", "listingCounters"})
+    List<Listing> findByListingIdIn(Collection<UUID> listingIds);
+
+    @Query("""
+            select new com.example.urbannest.search.ListingIndexRow(
+                l.listingId, l.pricing, l.propertyType, d.bedroomsCount, loc.district, l.createdAt)
+            from Listing l
+            left join l.listingDetails d
+            left join l.listingLocation loc
+            where l.propertyStatus = 'published'
+              and l.deletedAt is null
+              and l.listingId > :after
+            order by l.listingId
+            """)
+    List<ListingIndexRow> findIndexRowsAfter(UUID after, Limit limit);
+
+    @Query("""
+            select new com.example.urbannest.search.ListingIndexRow(
+                l.listingId, l.pricing, l.propertyType, d.bedroomsCount, loc.district, l.createdAt)
+            from Listing l
+            left join l.listingDetails d
+            left join l.listingLocation loc
+            where l.propertyStatus = 'published'
+              and l.deletedAt is null
+              and l.listingId = :listingId
+            """)
+    Optional<ListingIndexRow> findIndexRow(UUID listingId);
+
+    @Query("""
+            select new com.example.urbannest.search.ListingLocationRow(l.listingId, loc.district, loc.area)
+            from Listing l
+            join l.listingLocation loc
+            where l.propertyStatus = 'published'
+              and l.deletedAt is null
+              and l.listingId > :after
+            order by l.listingId
+            """)
+    List<ListingLocationRow> findLocationRowsAfter(UUID after, Limit limit);
+
+    @Query("""
+            select new com.example.urbannest.search.ListingLocationRow(l.listingId, loc.district, loc.area)
+            from Listing l
+            join l.listingLocation loc
+            where l.propertyStatus = 'published'
+              and l.deletedAt is null
+              and l.listingId = :listingId
+            """)
+    Optional<ListingLocationRow> findLocationRow(UUID listingId);
 }
@@ -0,0 +1,29 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.enums.PropertyType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface ListingSummaryRepository {
+
+    // Scalar projection of the columns a listing card needs; rows are not managed entities
+    record SummaryRow(UUID listingId,
+                      String title,
+                      PropertyType propertyType,
+                      BigDecimal pricing,
+                      Integer bedroomsCount,
+                      Integer bathroomsCount,
+                      Integer livingArea,
+                      String district,
+                      OffsetDateTime createdAt) {
+    }
+
+    // Applies the pageable's sort, offset and size but runs no count query
+    List<SummaryRow> findSummaries(Specification<Listing> spec, Pageable pageable);
+}
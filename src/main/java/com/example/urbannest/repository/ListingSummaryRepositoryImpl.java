@@ -0,0 +1,58 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.ListingDetails;
+import com.example.urbannest.model.ListingLocation;
+import com.example.urbannest.specification.ListingSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+// Spring Data fragment of ListingRepository; selects card columns through a constructor expression
+public class ListingSummaryRepositoryImpl implements ListingSummaryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SummaryRow> findSummaries(Specification<Listing> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SummaryRow> query = cb.createQuery(SummaryRow.class);
+        Root<Listing> root = query.from(Listing.class);
+        // Specification ordering (relevance, distance) is set here and only replaced by an explicit sort
+        query.where(spec.toPredicate(root, query, cb));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        Join<Listing, ListingDetails> details = ListingSpecification.existingOrLeftJoin(root, "listingDetails");
+        Join<Listing, ListingLocation> location = ListingSpecification.existingOrLeftJoin(root, "listingLocation");
+
+        query.select(cb.construct(SummaryRow.class,
+                root.get("listingId"),
+                root.get("title"),
+                root.get("propertyType"),
+                root.get("pricing"),
+                details.get("bedroomsCount"),
+                details.get("bathroomsCount"),
+                details.get("livingArea"),
+                location.get("district"),
+                root.get("createdAt")));
+
+        TypedQuery<SummaryRow> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult(Math.toIntExact(pageable.getOffset()));
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
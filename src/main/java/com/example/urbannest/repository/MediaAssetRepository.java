@@ -1,11 +1,180 @@
 package com.example.urbannest.repository;
 
 import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface MediaAssetRepository extends JpaRepository<MediaAsset, UUID> {
+
+    // Merged in place so other metadata keys survive
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update media_assets
+            set metadata = coalesce(metadata, cast('{}' as jsonb)) || jsonb_build_object('derivatives', cast(:derivatives as jsonb))
+            where media_id = :mediaId
+            """, nativeQuery = true)
+    int recordDerivatives(UUID mediaId, String derivatives);
+
+    // Leaves the derivatives entry absent, so the asset stays pending for the backfill
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update media_assets
+            set metadata = coalesce(metadata, cast('{}' as jsonb)) || jsonb_build_object('derivative_failures', :failures)
+            where media_id = :mediaId
+            """, nativeQuery = true)
+    int recordDerivativeFailures(UUID mediaId, int failures);
+
+    // Served by idx_media_assets_pending_derivatives (V15); 'img' is the pre-V9 content type
+    @Query(value = """
+            select media_id from media_assets
+            where deleted_at is null
+              and (metadata -> 'derivatives') is null
+              and (content_type like 'image/%' or content_type = 'img')
+            order by created_at
+            limit :limit
+            """, nativeQuery = true)
+    List<UUID> findImageIdsWithoutDerivatives(int limit);
+
+    // Served by idx_media_assets_pending_verification (V17); the keyset lets one run page past assets that failed
+    @Query(value = """
+            select * from media_assets
+            where deleted_at is null
+              and (metadata -> 'verification') is null
+              and created_at < :createdBefore
+              and (created_at, media_id) > (:afterCreatedAt, :afterMediaId)
+            order by created_at, media_id
+            limit :limit
+            """, nativeQuery = true)
+    List<MediaAsset> findUnverified(OffsetDateTime createdBefore, OffsetDateTime afterCreatedAt, UUID afterMediaId,
+                                    int limit);
+
+    // One statement per batch; results is a JSON array of {media_id, byte_size, content_hash, verification}
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update media_assets ma
+            set byte_size = coalesce(v.byte_size, ma.byte_size),
+                content_hash = coalesce(v.content_hash, ma.content_hash),
+                metadata = coalesce(ma.metadata, cast('{}' as jsonb)) || jsonb_build_object('verification', v.verification)
+            from jsonb_to_recordset(cast(:results as jsonb))
+                as v(media_id uuid, byte_size bigint, content_hash varchar, verification jsonb)
+            where ma.media_id = v.media_id
+            """, nativeQuery = true)
+    int recordVerifications(String results);
+
+    // Share-locked, so the orphan sweep skips assets that are about to gain a link
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("""
+            select ma from MediaAsset ma
+            where ma.ownerUser = :owner and ma.contentHash in :contentHashes and ma.deletedAt is null
+            """)
+    List<MediaAsset> findLiveByOwnerAndContentHashes(User owner, Collection<String> contentHashes);
+
+    @Query("""
+            select ma from MediaAsset ma
+            where ma.ownerUser.firebaseId = :firebaseId and ma.contentHash in :contentHashes and ma.deletedAt is null
+            """)
+    List<MediaAsset> findLiveByOwnerFirebaseIdAndContentHashes(String firebaseId, Collection<String> contentHashes);
+
+    record HashedAsset(UUID mediaId, UUID ownerUserId, String contentHash) {
+    }
+
+    @Query("""
+            select new com.example.urbannest.repository.MediaAssetRepository$HashedAsset(ma.mediaId, ma.ownerUser.userId, ma.contentHash)
+            from MediaAsset ma
+            where ma.contentHash in :contentHashes and ma.deletedAt is null
+            """)
+    List<HashedAsset> findLiveByContentHashes(Collection<String> contentHashes);
+
+    boolean existsByS3Location(String s3Location);
+
+    boolean existsByS3LocationAndMediaIdNot(String s3Location, UUID mediaId);
+
+    /**
+     * Points the duplicate's listing and blog links at the survivor. Links to a listing or blog that already
+     * shows the survivor are left on the duplicate and go with it when it is deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            with moved_blog_links as (
+                update blog_media bm set media_id = :survivorId
+                where bm.media_id = :duplicateId
+                  and not exists (select 1 from blog_media o where o.blog_id = bm.blog_id and o.media_id = :survivorId)
+            )
+            update listing_media lm set media_id = :survivorId
+            where lm.media_id = :duplicateId
+              and not exists (select 1 from listing_media o where o.listing_id = lm.listing_id and o.media_id = :survivorId)
+            """, nativeQuery = true)
+    int moveLinks(UUID duplicateId, UUID survivorId);
+
+    // Recounted rather than incremented, so links removed by cascades are never miscounted
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update media_assets ma
+            set ref_count = (select count(*) from listing_media lm where lm.media_id = ma.media_id)
+                          + (select count(*) from blog_media bm where bm.media_id = ma.media_id)
+            where ma.media_id in (:mediaIds)
+            """, nativeQuery = true)
+    int refreshRefCounts(Collection<UUID> mediaIds);
+
+    /**
+     * Removes up to {@code limit} unused assets and queues their objects, derivatives included, for deletion.
+     * <p>
+     * An asset is unused once it was soft-deleted before the cutoff, or was created before it and is linked to
+     * neither a blog nor a listing that was live at the cutoff. Queueing and removal happen in one statement, so
+     * a crash cannot lose track of an object. Objects another asset still points
+     * at, and their derivatives, are left alone. Links go with the rows through the V2 cascades.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            with orphaned as (
+                select ma.media_id, ma.s3_location, ma.metadata
+                from media_assets ma
+                where (ma.deleted_at is not null and ma.deleted_at < :cutoff)
+                   or (ma.created_at < :cutoff
+                       and not exists (select 1 from listing_media lm
+                                       join listings l on l.listing_id = lm.listing_id
+                                       where lm.media_id = ma.media_id
+                                         and (l.deleted_at is null or l.deleted_at >= :cutoff))
+                       and not exists (select 1 from blog_media bm where bm.media_id = ma.media_id))
+                order by ma.created_at
+                limit :limit
+                for update of ma skip locked
+            ),
+            released as (
+                select o.s3_location, o.metadata from orphaned o
+                where not exists (select 1 from media_assets other
+                                  where other.s3_location = o.s3_location
+                                    and other.media_id not in (select media_id from orphaned))
+            ),
+            queued as (
+                insert into media_deletions (s3_key)
+                select r.s3_location from released r
+                union
+                select variant.value ->> 'key'
+                from released r, jsonb_each(r.metadata -> 'derivatives' -> 'variants') variant
+                on conflict do nothing
+            )
+            delete from media_assets ma
+            using orphaned o
+            where ma.media_id = o.media_id
+            """, nativeQuery = true)
+    int sweepOrphans(OffsetDateTime cutoff, int limit);
 }
@@ -0,0 +1,24 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.MediaDeletion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, String> {
+
+    // A key that is already queued keeps its place and retry state
+    @Modifying
+    @Transactional
+    @Query(value = "insert into media_deletions (s3_key) values (:key) on conflict do nothing", nativeQuery = true)
+    int enqueue(String key);
+
+    List<MediaDeletion> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(OffsetDateTime now, Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.MultipartUpload;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@Repository
+public interface MultipartUploadRepository extends JpaRepository<MultipartUpload, String> {
+
+    List<MultipartUpload> findByCreatedAtBeforeOrderByCreatedAtAsc(OffsetDateTime cutoff, Limit limit);
+}
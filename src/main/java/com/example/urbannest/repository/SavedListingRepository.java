@@ -3,11 +3,19 @@ package com.example.urbannest.repository;
 import com.example.urbannest.model.SavedListing;
 import com.example.urbannest.model.User;
 import com.example.urbannest.model.composite.SavedListingId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface SavedListingRepository extends JpaRepository<SavedListing, SavedListingId> {
@@ -20,4 +28,102 @@ public interface SavedListingRepository extends JpaRepository<SavedListing, Save
             "listing.listingCounters"
     })
     Page<SavedListing> findByUser(User user, Pageable pageable);
+
+    @EntityGraph(attributePaths = {
+            "listing",
+            "listing.user",
+            "listing.listingDetails",
+            "listing.listingLocation",
+            "listing.listingCounters"
+    })
+    @Query("""
+            select s from SavedListing s
+            where s.user = :user
+            order by s.createdAt desc, s.id.listingId desc
+            """)
+    List<SavedListing> findSliceByUser(User user, Limit limit);
+
+    @EntityGraph(attributePaths = {
+            "listing",
+            "listing.user",
+            "listing.listingDetails",
+            "listing.listingLocation",
+            "listing.listingCounters"
+    })
+    @Query("""
+            select s from SavedListing s
+            where s.user = :user
+              and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id.listingId < :listingId))
+            order by s.createdAt desc, s.id.listingId desc
+            """)
+    List<SavedListing> findSliceByUserBefore(User user, OffsetDateTime createdAt, UUID listingId, Limit limit);
+
+    // Which of the given listings the user has saved, in one primary key lookup per listing
+    @Query("""
+            select s.id.listingId from SavedListing s
+            where s.user.firebaseId = :firebaseUid and s.id.listingId in :listingIds
+            """)
+    List<UUID> findListingIdsByFirebaseUidAndListingIdIn(String firebaseUid, Collection<UUID> listingIds);
+
+    @Query("""
+            select s.id.listingId from SavedListing s
+            where s.user.firebaseId = :firebaseUid
+            """)
+    List<UUID> findListingIdsByFirebaseUid(String firebaseUid, Limit limit);
+
+    // Adds the save and counts it in one statement, as for favorites; 0 when it exists already or the user or
+    // listing does not
+    @Transactional
+    @Query(value = """
+            with inserted as (
+                insert into saved_listings (user_id, listing_id, created_at)
+                select u.user_id, l.listing_id, now()
+                from users u
+                join listings l on l.listing_id = :listingId
+                where u.firebase_uid = :firebaseUid
+                on conflict (user_id, listing_id) do nothing
+                returning listing_id
+            ), counted as (
+                update listing_counters c
+                set save_count = c.save_count + 1
+                from inserted i
+                where c.listing_id = i.listing_id and :shard = 0
+            ), sharded as (
+                insert into listing_counter_shards as s (listing_id, shard, save_delta)
+                select listing_id, :shard, 1 from inserted
+                where :shard > 0
+                on conflict (listing_id, shard) do update set save_delta = s.save_delta + 1
+            )
+            select count(*) from inserted
+            """, nativeQuery = true)
+    int insertCounted(String firebaseUid, UUID listingId, int shard);
+
+    // Removes the save and its count in one statement and records the removal, as for favorites
+    // Returns 0 when there was nothing to remove
+    @Transactional
+    @Query(value = """
+            with deleted as (
+                delete from saved_listings t
+                using users u
+                where u.user_id = t.user_id and u.firebase_uid = :firebaseUid and t.listing_id = :listingId
+                returning t.user_id, t.listing_id
+            ), removal as (
+                insert into listing_engagement_removals as r (user_id, listing_id, kind, removed_at)
+                select user_id, listing_id, 'save', now() from deleted
+                on conflict (user_id, listing_id, kind) do update
+                set removed_at = greatest(r.removed_at, excluded.removed_at)
+            ), counted as (
+                update listing_counters c
+                set save_count = greatest(c.save_count - 1, 0)
+                from deleted d
+                where c.listing_id = d.listing_id and :shard = 0
+            ), sharded as (
+                insert into listing_counter_shards as s (listing_id, shard, save_delta)
+                select listing_id, :shard, -1 from deleted
+                where :shard > 0
+                on conflict (listing_id, shard) do update set save_delta = s.save_delta - 1
+            )
+            select count(*) from deleted
+            """, nativeQuery = true)
+    int deleteCounted(String firebaseUid, UUID listingId, int shard);
 }
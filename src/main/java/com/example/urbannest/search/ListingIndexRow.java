@@ -0,0 +1,15 @@
+package com.example.urbannest.search;
+
+import com.example.urbannest.model.enums.PropertyType;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+public record ListingIndexRow(UUID listingId,
+                              BigDecimal pricing,
+                              PropertyType propertyType,
+                              Integer bedroomsCount,
+                              String district,
+                              OffsetDateTime createdAt) {
+}
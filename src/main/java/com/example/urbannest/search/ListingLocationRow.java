@@ -0,0 +1,6 @@
+package com.example.urbannest.search;
+
+import java.util.UUID;
+
+public record ListingLocationRow(UUID listingId, String district, String area) {
+}
@@ -0,0 +1,405 @@
+package com.example.urbannest.search;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.repository.ListingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process columnar index of published, non-deleted listings.
+ * <p>
+ * Each listing occupies a dense document slot. Filterable and sortable fields are held in primitive
+ * columns, equality filters have one {@link BitSet} per value, and a search intersects bitmaps, scans
+ * the range columns over the surviving documents and keeps only the requested page in a bounded heap.
+ * Only the resulting listing ids are hydrated from the database.
+ */
+@Component
+public class ListingSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ListingSearchIndex.class);
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = -1;
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final ListingRepository listingRepository;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held across a refresh's read and apply, so a row read earlier can never overwrite one read later
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean ready;
+    private final Set<UUID> changedDuringLoad = ConcurrentHashMap.newKeySet();
+
+    // Columns, indexed by document slot
+    private long[] idMostSigBits = new long[INITIAL_CAPACITY];
+    private long[] idLeastSigBits = new long[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private long[] createdAtMicros = new long[INITIAL_CAPACITY];
+    private int[] bedrooms = new int[INITIAL_CAPACITY];
+    private int[] propertyTypes = new int[INITIAL_CAPACITY];
+    private int[] districtCodes = new int[INITIAL_CAPACITY];
+
+    private final BitSet live = new BitSet();
+    private final BitSet[] byPropertyType = new BitSet[PropertyType.values().length];
+    private final List<BitSet> byDistrict = new ArrayList<>();
+    private final Map<String, Integer> districtDictionary = new HashMap<>();
+
+    private final Map<UUID, Integer> docByListing = new HashMap<>();
+    private final ArrayDeque<Integer> freeDocs = new ArrayDeque<>();
+    private int nextDoc;
+
+    public record SearchResult(List<UUID> listingIds, long total) {
+    }
+
+    public ListingSearchIndex(ListingRepository listingRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${listing.search-index.enabled:false}") boolean enabled) {
+        this.listingRepository = listingRepository;
+        this.enabled = enabled;
+        for (int i = 0; i < byPropertyType.length; i++) {
+            byPropertyType[i] = new BitSet();
+        }
+        Gauge.builder("listing.search.index.size", this, ListingSearchIndex::size)
+                .description("Published listings held by the in-memory search index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        UUID after = MIN_UUID;
+        int loaded = 0;
+        while (true) {
+            List<ListingIndexRow> rows = listingRepository.findIndexRowsAfter(after, Limit.of(LOAD_CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            lock.writeLock().lock();
+            try {
+                rows.forEach(this::upsert);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded += rows.size();
+            after = rows.get(rows.size() - 1).listingId();
+        }
+        ready = true;
+
+        // Rows read before a concurrent commit may be stale; re-read anything that changed while loading
+        for (UUID listingId : changedDuringLoad) {
+            refresh(listingId);
+        }
+        changedDuringLoad.clear();
+        log.info("Listing search index loaded {} listings in {} ms", loaded, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            changedDuringLoad.add(event.listingId());
+        }
+        refresh(event.listingId());
+    }
+
+    // Searches only wait for the apply; concurrent refreshes queue behind the read as well
+    public void refresh(UUID listingId) {
+        refreshLock.lock();
+        try {
+            ListingIndexRow row = listingRepository.findIndexRow(listingId).orElse(null);
+            lock.writeLock().lock();
+            try {
+                if (row != null) {
+                    upsert(row);
+                } else {
+                    remove(listingId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public boolean supports(ListingSearchRequest filters, Pageable pageable) {
+        if (!ready || pageable.isUnpaged()) {
+            return false;
+        }
+        if (filters.hasQuery() || filters.hasBoundingBox() || filters.hasRadius() || filters.hasPolygon()) {
+            return false;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.isEmpty()
+                || (orders.size() == 1 && sortColumnFor(orders.get(0).getProperty()) != null);
+    }
+
+    public SearchResult search(ListingSearchRequest filters, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) live.clone();
+            if (filters.getPropertyType() != null) {
+                candidates.and(byPropertyType[filters.getPropertyType().ordinal()]);
+            }
+            if (filters.getDistrict() != null) {
+                Integer code = districtDictionary.get(filters.getDistrict());
+                if (code == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+                candidates.and(byDistrict.get(code));
+            }
+
+            long minPrice = filters.getPriceMin() != null ? toCents(filters.getPriceMin(), RoundingMode.CEILING) : Long.MIN_VALUE;
+            long maxPrice = filters.getPriceMax() != null ? toCents(filters.getPriceMax(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+            int minBedrooms = filters.getMinBedrooms() != null ? filters.getMinBedrooms() : Integer.MIN_VALUE;
+            boolean bedroomFilter = filters.getMinBedrooms() != null;
+
+            Sort.Order order = pageable.getSort().isSorted()
+                    ? pageable.getSort().toList().get(0)
+                    : Sort.Order.desc("createdAt");
+            TopK topK = new TopK(
+                    (int) Math.min(pageable.getOffset() + pageable.getPageSize(), live.cardinality()),
+                    sortColumnFor(order.getProperty()),
+                    order.isDescending());
+
+            long total = 0;
+            for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+                long price = priceCents[doc];
+                if (price < minPrice || price > maxPrice) {
+                    continue;
+                }
+                if (bedroomFilter && (bedrooms[doc] == NONE || bedrooms[doc] < minBedrooms)) {
+                    continue;
+                }
+                total++;
+                topK.offer(doc);
+            }
+
+            int[] ranked = topK.drainRanked();
+            int from = (int) Math.min(pageable.getOffset(), ranked.length);
+            List<UUID> listingIds = new ArrayList<>(ranked.length - from);
+            for (int i = from; i < ranked.length; i++) {
+                listingIds.add(new UUID(idMostSigBits[ranked[i]], idLeastSigBits[ranked[i]]));
+            }
+            return new SearchResult(listingIds, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByListing.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ======================== WRITES (caller holds the write lock) ========================
+
+    private void upsert(ListingIndexRow row) {
+        Integer existing = docByListing.get(row.listingId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            clearBitmaps(doc);
+        } else {
+            doc = freeDocs.isEmpty() ? nextDoc++ : freeDocs.pop();
+            ensureCapacity(doc + 1);
+            docByListing.put(row.listingId(), doc);
+        }
+
+        idMostSigBits[doc] = row.listingId().getMostSignificantBits();
+        idLeastSigBits[doc] = row.listingId().getLeastSignificantBits();
+        priceCents[doc] = toCents(row.pricing(), RoundingMode.HALF_UP);
+        createdAtMicros[doc] = toMicros(row);
+        bedrooms[doc] = row.bedroomsCount() != null ? row.bedroomsCount() : NONE;
+        propertyTypes[doc] = row.propertyType().ordinal();
+        districtCodes[doc] = row.district() != null ? districtCode(row.district()) : NONE;
+
+        live.set(doc);
+        byPropertyType[propertyTypes[doc]].set(doc);
+        if (districtCodes[doc] != NONE) {
+            byDistrict.get(districtCodes[doc]).set(doc);
+        }
+    }
+
+    private void remove(UUID listingId) {
+        Integer doc = docByListing.remove(listingId);
+        if (doc == null) {
+            return;
+        }
+        clearBitmaps(doc);
+        live.clear(doc);
+        freeDocs.push(doc);
+    }
+
+    private void clearBitmaps(int doc) {
+        byPropertyType[propertyTypes[doc]].clear(doc);
+        if (districtCodes[doc] != NONE) {
+            byDistrict.get(districtCodes[doc]).clear(doc);
+        }
+    }
+
+    private int districtCode(String district) {
+        return districtDictionary.computeIfAbsent(district, d -> {
+            byDistrict.add(new BitSet());
+            return byDistrict.size() - 1;
+        });
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= priceCents.length) {
+            return;
+        }
+        int capacity = Math.max(required, priceCents.length * 2);
+        idMostSigBits = Arrays.copyOf(idMostSigBits, capacity);
+        idLeastSigBits = Arrays.copyOf(idLeastSigBits, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        createdAtMicros = Arrays.copyOf(createdAtMicros, capacity);
+        bedrooms = Arrays.copyOf(bedrooms, capacity);
+        propertyTypes = Arrays.copyOf(propertyTypes, capacity);
+        districtCodes = Arrays.copyOf(districtCodes, capacity);
+    }
+
+    // ======================== HELPERS ========================
+
+    private long[] sortColumnFor(String property) {
+        return switch (property) {
+            case "createdAt" -> createdAtMicros;
+            case "pricing" -> priceCents;
+            default -> null;
+        };
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(2).setScale(0, roundingMode).longValue();
+    }
+
+    private static long toMicros(ListingIndexRow row) {
+        return row.createdAt().toEpochSecond() * 1_000_000L + row.createdAt().getNano() / 1_000;
+    }
+
+    /**
+     * Keeps the best {@code k} documents seen so far in a heap whose root is the lowest-ranked one,
+     * so a page costs O(n log k) instead of sorting every match. Ties rank the higher slot first.
+     */
+    private static final class TopK {
+        private final int[] heap;
+        private final long[] keys;
+        private final boolean descending;
+        private int size;
+
+        private TopK(int k, long[] keys, boolean descending) {
+            this.heap = new int[Math.max(k, 0)];
+            this.keys = keys;
+            this.descending = descending;
+        }
+
+        void offer(int doc) {
+            if (heap.length == 0) {
+                return;
+            }
+            if (size < heap.length) {
+                heap[size] = doc;
+                siftUp(size++);
+            } else if (ranksBefore(doc, heap[0])) {
+                heap[0] = doc;
+                siftDown(0);
+            }
+        }
+
+        int[] drainRanked() {
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = heap[0];
+                heap[0] = heap[--size];
+                siftDown(0);
+            }
+            return ranked;
+        }
+
+        private boolean ranksBefore(int a, int b) {
+            long keyA = keys[a];
+            long keyB = keys[b];
+            if (keyA != keyB) {
+                return descending ? keyA > keyB : keyA < keyB;
+            }
+            return a > b;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!ranksBefore(heap[parent], heap[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                int right = left + 1;
+                int worst = i;
+                if (left < size && ranksBefore(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (right < size && ranksBefore(heap[worst], heap[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.urbannest.search;
+
+import com.example.urbannest.dto.Responses.LocationSuggestionResponse;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.repository.ListingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process prefix index of the districts and areas of published listings, for search-box autocomplete.
+ * <p>
+ * Entries sit in an array sorted by normalized name, so a prefix maps to one contiguous run found by binary
+ * search; the run is scanned for the heaviest entries by published-listing count. Counts are updated in
+ * place as listings change, and the sorted array is only rebuilt when a name appears or drops to zero.
+ */
+@Component
+public class LocationSuggestIndex {
+    private static final Logger log = LoggerFactory.getLogger(LocationSuggestIndex.class);
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+    private static final int MAX_LIMIT = 20;
+    private static final int MAX_PREFIX_LENGTH = 100;
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private static final String DISTRICT = "district";
+    private static final String AREA = "area";
+
+    // Heavier first, then alphabetical, districts before their areas
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingLong(Candidate::count).reversed()
+            .thenComparing(candidate -> candidate.entry().key)
+            .thenComparing(candidate -> AREA.equals(candidate.entry().type));
+
+    private final ListingRepository listingRepository;
+
+    // Guarded by this; readers only touch the published snapshot and the per-entry counts
+    private final Map<EntryKey, Entry> entries = new HashMap<>();
+    private final Map<UUID, Placement> placements = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Entry[0]);
+    // Held across a refresh's read and apply, so a row read earlier can never overwrite one read later
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean ready;
+    private final Set<UUID> changedDuringLoad = ConcurrentHashMap.newKeySet();
+
+    private record EntryKey(String type, String key, String district) {
+    }
+
+    private static final class Entry {
+        final EntryKey id;
+        final String type;
+        final String key;
+        final String value;
+        final String district;
+        final AtomicLong count = new AtomicLong();
+
+        Entry(EntryKey id, String value, String district) {
+            this.id = id;
+            this.type = id.type();
+            this.key = id.key();
+            this.value = value;
+            this.district = district;
+        }
+    }
+
+    private record Placement(Entry district, Entry area) {
+    }
+
+    private record Snapshot(String[] keys, Entry[] entries) {
+    }
+
+    private record Candidate(Entry entry, long count) {
+    }
+
+    public LocationSuggestIndex(ListingRepository listingRepository, MeterRegistry meterRegistry) {
+        this.listingRepository = listingRepository;
+        Gauge.builder("listing.suggest.index.entries", this, LocationSuggestIndex::size)
+                .description("Distinct districts and areas held by the location suggest index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        UUID after = MIN_UUID;
+        int loaded = 0;
+        while (true) {
+            List<ListingLocationRow> rows = listingRepository.findLocationRowsAfter(after, Limit.of(LOAD_CHUNK_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            synchronized (this) {
+                boolean namesChanged = false;
+                for (ListingLocationRow row : rows) {
+                    namesChanged |= place(row);
+                }
+                if (namesChanged) {
+                    publishSnapshot();
+                }
+            }
+            loaded += rows.size();
+            after = rows.get(rows.size() - 1).listingId();
+        }
+        ready = true;
+
+        // Rows read before a concurrent commit may be stale; re-read anything that changed while loading
+        for (UUID listingId : changedDuringLoad) {
+            refresh(listingId);
+        }
+        changedDuringLoad.clear();
+        log.info("Location suggest index loaded {} listings into {} entries in {} ms",
+                loaded, size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (!ready) {
+            changedDuringLoad.add(event.listingId());
+        }
+        refresh(event.listingId());
+    }
+
+    // Loading chunks only wait for the apply; concurrent refreshes queue behind the read as well
+    public void refresh(UUID listingId) {
+        refreshLock.lock();
+        try {
+            ListingLocationRow row = listingRepository.findLocationRow(listingId).orElse(null);
+            synchronized (this) {
+                boolean namesChanged = row != null ? place(row) : unplace(listingId);
+                if (namesChanged) {
+                    publishSnapshot();
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public List<LocationSuggestionResponse> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            throw new InvalidRequestException("prefix must not be blank");
+        }
+        if (key.length() > MAX_PREFIX_LENGTH) {
+            throw new InvalidRequestException("prefix must be at most " + MAX_PREFIX_LENGTH + " characters");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        Snapshot current = snapshot;
+        String[] keys = current.keys();
+        PriorityQueue<Candidate> top = new PriorityQueue<>(size + 1, RANKING.reversed());
+        for (int i = lowerBound(keys, key); i < keys.length && keys[i].startsWith(key); i++) {
+            Entry entry = current.entries()[i];
+            long count = entry.count.get();
+            if (count <= 0) {
+                continue;
+            }
+            top.offer(new Candidate(entry, count));
+            if (top.size() > size) {
+                top.poll();
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        return ranked.stream()
+                .map(candidate -> new LocationSuggestionResponse(candidate.entry().value, candidate.entry().type,
+                        candidate.entry().district, candidate.count()))
+                .toList();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return snapshot.keys().length;
+    }
+
+    // Returns whether an entry was created or emptied, i.e. whether the sorted snapshot is out of date
+    private boolean place(ListingLocationRow row) {
+        Placement previous = placements.get(row.listingId());
+        if (previous != null && sameNames(previous, row)) {
+            return false;
+        }
+        boolean namesChanged = previous != null && release(previous);
+
+        Entry district = acquire(DISTRICT, row.district(), null);
+        Entry area = acquire(AREA, row.area(), row.district());
+        namesChanged |= isNew(district) | isNew(area);
+        placements.put(row.listingId(), new Placement(district, area));
+        return namesChanged;
+    }
+
+    private boolean unplace(UUID listingId) {
+        Placement previous = placements.remove(listingId);
+        return previous != null && release(previous);
+    }
+
+    private boolean sameNames(Placement placement, ListingLocationRow row) {
+        return placement.district() != null && Objects.equals(placement.district().value, row.district())
+                && placement.area() != null && Objects.equals(placement.area().value, row.area())
+                && Objects.equals(placement.area().district, row.district());
+    }
+
+    private Entry acquire(String type, String value, String district) {
+        String key = normalize(value);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Entry entry = entries.computeIfAbsent(new EntryKey(type, key, district == null ? null : normalize(district)),
+                id -> new Entry(id, value.strip(), district == null ? null : district.strip()));
+        entry.count.incrementAndGet();
+        return entry;
+    }
+
+    private static boolean isNew(Entry entry) {
+        return entry != null && entry.count.get() == 1;
+    }
+
+    private boolean release(Placement placement) {
+        boolean emptied = false;
+        for (Entry entry : new Entry[]{placement.district(), placement.area()}) {
+            if (entry != null && entry.count.decrementAndGet() == 0) {
+                entries.remove(entry.id);
+                emptied = true;
+            }
+        }
+        return emptied;
+    }
+
+    private void publishSnapshot() {
+        Entry[] sorted = entries.values().toArray(new Entry[0]);
+        Arrays.sort(sorted, Comparator.comparing((Entry entry) -> entry.key));
+        String[] keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = sorted[i].key;
+        }
+        snapshot = new Snapshot(keys, sorted);
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.repository.ListingCountersRepository;
+import com.example.urbannest.repository.ListingCountersRepository.ReconciledChunk;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Brings favorite and save counts back in line with the rows they count: drift from before counts moved in the
+ * same statement as their rows, from decrements clamped at zero, or from rows changed outside the application.
+ * <p>
+ * Each run walks {@code listing_counters} in listing_id order, one chunk per statement and transaction, pausing
+ * between chunks so the walk never competes with user traffic for long. The position is stored in the database
+ * after every chunk, so a run cut short by a restart or failure carries on where it stopped, and a second
+ * instance finds it locked and skips the run. Each corrected listing publishes a
+ * {@link ListingCountersChangedEvent} once its chunk has committed, so cached details pick up the corrected counts.
+ */
+@Component
+public class ListingCounterReconciler {
+    private static final Logger log = LoggerFactory.getLogger(ListingCounterReconciler.class);
+
+    private final ListingCountersRepository listingCountersRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Counter correctedCounter;
+    private final Counter favoriteDriftCounter;
+    private final Counter saveDriftCounter;
+
+    public ListingCounterReconciler(ListingCountersRepository listingCountersRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${listing.counters.reconcile-chunk-size:1000}") int chunkSize,
+                                    @Value("${listing.counters.reconcile-pause:200ms}") Duration pause) {
+        this.listingCountersRepository = listingCountersRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.correctedCounter = Counter.builder("listing.counters.reconciled")
+                .description("Listing counters rows corrected by reconciliation")
+                .register(meterRegistry);
+        this.favoriteDriftCounter = driftCounter(meterRegistry, "favorite");
+        this.saveDriftCounter = driftCounter(meterRegistry, "save");
+    }
+
+    // Runs until the walk wraps around, another instance holds it, or the thread is interrupted
+    @Scheduled(fixedDelayString = "${listing.counters.reconcile-interval:1h}",
+            initialDelayString = "${listing.counters.reconcile-interval:1h}")
+    public void reconcile() {
+        long scanned = 0;
+        long corrected = 0;
+        while (true) {
+            // The chunk commits before reconcileChunk returns, so listeners see the corrected counts
+            ReconciledChunk chunk = listingCountersRepository.reconcileChunk(chunkSize);
+            chunk.correctedListingIds().forEach(id -> eventPublisher.publishEvent(new ListingCountersChangedEvent(id)));
+            scanned += chunk.scanned();
+            corrected += chunk.corrected();
+            correctedCounter.increment(chunk.corrected());
+            favoriteDriftCounter.increment(chunk.favoriteDrift());
+            saveDriftCounter.increment(chunk.saveDrift());
+            if (chunk.scanned() < chunkSize || !pause()) {
+                break;
+            }
+        }
+        if (corrected > 0) {
+            log.info("Corrected the favorite or save count of {} of {} listings", corrected, scanned);
+        }
+    }
+
+    // False when interrupted; the stored position lets the next run resume
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter driftCounter(MeterRegistry meterRegistry, String counter) {
+        return Counter.builder("listing.counters.drift")
+                .description("Absolute difference between stored and actual counts, corrected by reconciliation")
+                .tag("counter", counter)
+                .register(meterRegistry);
+    }
+}
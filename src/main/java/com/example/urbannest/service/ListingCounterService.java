@@ -0,0 +1,111 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.repository.FavoriteListingRepository;
+import com.example.urbannest.repository.ListingCountersRepository;
+import com.example.urbannest.repository.SavedListingRepository;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Adds and removes favorites and saves together with their counts, one statement per change, so the count
+ * moves only when the row did and concurrent writers never overwrite each other's increments.
+ * <p>
+ * By default each change updates the listing's counters row in place. With {@code listing.counters.shards}
+ * above zero, changes instead go to one of that many {@code listing_counter_shards} rows picked at random,
+ * so writers to a hot listing wait on each other only when they pick the same shard. Both modes run the same
+ * statements, which count on the counters row when given shard 0 and on that shard row otherwise. Reads add
+ * the shard rows to the stored counts, and compaction folds them back into {@code listing_counters} in the
+ * background. Compaction runs in either mode, so switching sharding off drains what is left.
+ */
+@Service
+public class ListingCounterService {
+    private static final Logger log = LoggerFactory.getLogger(ListingCounterService.class);
+
+    private final ListingCountersRepository listingCountersRepository;
+    private final FavoriteListingRepository favoriteListingRepository;
+    private final SavedListingRepository savedListingRepository;
+    private final int shards;
+    private final int compactBatchSize;
+    private final Counter compactedCounter;
+
+    // One favorite or save change of a sync; kind is "favorite" or "save", active whether it is added
+    record EngagementChange(@JsonProperty("listing_id") UUID listingId, String kind, boolean active,
+                            @JsonProperty("client_timestamp") OffsetDateTime clientTimestamp) {
+    }
+
+    public ListingCounterService(ListingCountersRepository listingCountersRepository,
+                                 FavoriteListingRepository favoriteListingRepository,
+                                 SavedListingRepository savedListingRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${listing.counters.shards:0}") int shards,
+                                 @Value("${listing.counters.compact-batch-size:5000}") int compactBatchSize) {
+        this.listingCountersRepository = listingCountersRepository;
+        this.favoriteListingRepository = favoriteListingRepository;
+        this.savedListingRepository = savedListingRepository;
+        this.shards = Math.max(shards, 0);
+        this.compactBatchSize = compactBatchSize;
+        this.compactedCounter = Counter.builder("listing.counters.compacted")
+                .description("Counter shard rows folded back into listing_counters")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Favorites the listing for the user and counts it, in one statement. False when nothing changed: the
+     * favorite already existed, or the user or listing does not exist.
+     */
+    public boolean addFavorite(String firebaseUid, UUID listingId) {
+        return favoriteListingRepository.insertCounted(firebaseUid, listingId, counterShard()) > 0;
+    }
+
+    // False when the listing was not a favorite of the user
+    public boolean removeFavorite(String firebaseUid, UUID listingId) {
+        return favoriteListingRepository.deleteCounted(firebaseUid, listingId, counterShard()) > 0;
+    }
+
+    public boolean addSave(String firebaseUid, UUID listingId) {
+        return savedListingRepository.insertCounted(firebaseUid, listingId, counterShard()) > 0;
+    }
+
+    public boolean removeSave(String firebaseUid, UUID listingId) {
+        return savedListingRepository.deleteCounted(firebaseUid, listingId, counterShard()) > 0;
+    }
+
+    // Applies all changes and their counts in one statement; returns the listing of every row added or removed
+    public List<UUID> syncEngagement(UUID userId, List<EngagementChange> changes) {
+        return listingCountersRepository.syncEngagement(userId, JsonMapper.shared().writeValueAsString(changes),
+                counterShard());
+    }
+
+    // Keeps going while batches come back full; each batch commits on its own
+    @Scheduled(fixedDelayString = "${listing.counters.compact-interval:30s}",
+            initialDelayString = "${listing.counters.compact-interval:30s}")
+    public void compact() {
+        int compacted = 0;
+        int batch;
+        do {
+            batch = listingCountersRepository.compactShards(compactBatchSize);
+            compacted += batch;
+        } while (batch == compactBatchSize);
+        if (compacted > 0) {
+            compactedCounter.increment(compacted);
+            log.debug("Compacted {} listing counter shard rows", compacted);
+        }
+    }
+
+    // 0 counts on the listing's counters row; shards are numbered from 1
+    private int counterShard() {
+        return shards == 0 ? 0 : 1 + ThreadLocalRandom.current().nextInt(shards);
+    }
+}
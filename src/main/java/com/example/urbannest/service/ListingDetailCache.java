@@ -0,0 +1,78 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Responses.ListingResponse;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.media.MediaSize;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of assembled listing details, media URLs already resolved.
+ * <p>
+ * Entries are dropped after the writing transaction commits, so a concurrent reader cannot re-cache the
+ * pre-commit state. With presigned media the TTL plus the ETag window has to fit in the URL lifetime, which
+ * {@link com.example.urbannest.media.PresignedMediaUrlStrategy} checks at startup; the TTL also bounds how long
+ * owner name and picture changes take to show up, since those are not tracked.
+ * <p>
+ * Each requested media size is cached on its own; changes drop all sizes of the listing.
+ */
+@Component
+public class ListingDetailCache {
+
+    private final Cache<Key, ListingResponse> cache;
+
+    private record Key(UUID listingId, MediaSize mediaSize) {
+    }
+
+    public ListingDetailCache(MeterRegistry meterRegistry,
+                              @Value("${listing.detail-cache.ttl:10m}") Duration ttl,
+                              @Value("${listing.detail-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "listing.detail");
+    }
+
+    public ListingResponse get(UUID listingId, MediaSize mediaSize, Function<UUID, ListingResponse> loader) {
+        return cache.get(new Key(listingId, mediaSize), key -> loader.apply(key.listingId()));
+    }
+
+    // Lookup that leaves the hit/miss stats to the read that follows; any size carries the listing's validators
+    public Optional<ListingResponse> peek(UUID listingId) {
+        return Arrays.stream(MediaSize.values())
+                .map(mediaSize -> cache.asMap().get(new Key(listingId, mediaSize)))
+                .filter(Objects::nonNull)
+                .findFirst();
+    }
+
+    public void invalidate(UUID listingId) {
+        cache.invalidateAll(Arrays.stream(MediaSize.values())
+                .map(mediaSize -> new Key(listingId, mediaSize))
+                .toList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        invalidate(event.listingId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCountersChanged(ListingCountersChangedEvent event) {
+        invalidate(event.listingId());
+    }
+}
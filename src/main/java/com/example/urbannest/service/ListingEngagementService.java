@@ -0,0 +1,127 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.EngagementChangedEvent;
+import com.example.urbannest.repository.FavoriteListingRepository;
+import com.example.urbannest.repository.SavedListingRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tells whether the viewer has favorited or saved the listings of a response, with one query per table for
+ * the whole page.
+ * <p>
+ * With the membership cache enabled, a viewer's complete favorite and save sets are loaded on their first
+ * page and later pages need no query. Viewers with more than {@code max-listings} of either keep the per-page
+ * queries, and {@code max-entries} bounds the listing ids held across all viewers. An entry is dropped after
+ * the viewer's own changes commit; changes made through another instance show up when it expires.
+ */
+@Service
+public class ListingEngagementService {
+
+    private final FavoriteListingRepository favoriteListingRepository;
+    private final SavedListingRepository savedListingRepository;
+    private final int maxListings;
+    // Null when the membership cache is disabled
+    private final Cache<String, Membership> memberships;
+
+    // Null sets mark a viewer with too many favorites or saves to hold
+    private record Membership(Set<UUID> favorited, Set<UUID> saved) {
+        static final Membership OVERSIZED = new Membership(null, null);
+
+        int weight() {
+            return this == OVERSIZED ? 1 : 1 + favorited.size() + saved.size();
+        }
+    }
+
+    /**
+     * The looked-up listings the viewer has favorited and saved; the sets may hold other listings too. Anonymous
+     * viewers get null flags rather than false.
+     */
+    public record ViewerEngagement(Set<UUID> favorited, Set<UUID> saved) {
+        public static final ViewerEngagement ANONYMOUS = new ViewerEngagement(null, null);
+
+        public Boolean isFavorited(UUID listingId) {
+            return favorited == null ? null : favorited.contains(listingId);
+        }
+
+        public Boolean isSaved(UUID listingId) {
+            return saved == null ? null : saved.contains(listingId);
+        }
+    }
+
+    public ListingEngagementService(FavoriteListingRepository favoriteListingRepository,
+                                    SavedListingRepository savedListingRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${listing.engagement.membership-cache.enabled:false}") boolean cacheEnabled,
+                                    @Value("${listing.engagement.membership-cache.ttl:5m}") Duration ttl,
+                                    @Value("${listing.engagement.membership-cache.max-listings:2000}") int maxListings,
+                                    @Value("${listing.engagement.membership-cache.max-entries:1000000}") long maxEntries) {
+        this.favoriteListingRepository = favoriteListingRepository;
+        this.savedListingRepository = savedListingRepository;
+        this.maxListings = maxListings;
+        if (cacheEnabled) {
+            this.memberships = Caffeine.newBuilder()
+                    .expireAfterWrite(ttl)
+                    .maximumWeight(maxEntries)
+                    .<String, Membership>weigher((uid, membership) -> membership.weight())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, memberships, "listing.engagement");
+        } else {
+            this.memberships = null;
+        }
+    }
+
+    // A null uid is an anonymous viewer
+    public ViewerEngagement lookup(String firebaseUid, Collection<UUID> listingIds) {
+        if (firebaseUid == null) {
+            return ViewerEngagement.ANONYMOUS;
+        }
+        if (listingIds.isEmpty()) {
+            return new ViewerEngagement(Collections.emptySet(), Collections.emptySet());
+        }
+        if (memberships != null) {
+            Membership membership = memberships.get(firebaseUid, this::loadMembership);
+            if (membership != Membership.OVERSIZED) {
+                return new ViewerEngagement(membership.favorited(), membership.saved());
+            }
+        }
+        return new ViewerEngagement(
+                new HashSet<>(favoriteListingRepository.findListingIdsByFirebaseUidAndListingIdIn(firebaseUid, listingIds)),
+                new HashSet<>(savedListingRepository.findListingIdsByFirebaseUidAndListingIdIn(firebaseUid, listingIds)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEngagementChanged(EngagementChangedEvent event) {
+        if (memberships != null) {
+            memberships.invalidate(event.firebaseUid());
+        }
+    }
+
+    // One row past the cap is enough to tell the viewer is over it
+    private Membership loadMembership(String firebaseUid) {
+        List<UUID> favorited = favoriteListingRepository.findListingIdsByFirebaseUid(firebaseUid, Limit.of(maxListings + 1));
+        if (favorited.size() > maxListings) {
+            return Membership.OVERSIZED;
+        }
+        List<UUID> saved = savedListingRepository.findListingIdsByFirebaseUid(firebaseUid, Limit.of(maxListings + 1));
+        if (saved.size() > maxListings) {
+            return Membership.OVERSIZED;
+        }
+        return new Membership(new HashSet<>(favorited), new HashSet<>(saved));
+    }
+}
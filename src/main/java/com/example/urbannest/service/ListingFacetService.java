@@ -0,0 +1,155 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse.FacetCount;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse.PriceBucket;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.repository.ListingFacetRepository.FacetRow;
+import com.example.urbannest.repository.ListingRepository;
+import com.example.urbannest.specification.ListingSpecification;
+import com.example.urbannest.util.GeoUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class ListingFacetService {
+    private static final int BEDROOM_BUCKETS = 5;
+
+    private final ListingRepository listingRepository;
+    private final Cache<FacetKey, ListingFacetsResponse> facetCache;
+
+    public ListingFacetService(ListingRepository listingRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${listing.facets.cache-ttl:30s}") Duration cacheTtl,
+                               @Value("${listing.facets.cache-max-size:1000}") long cacheMaxSize) {
+        this.listingRepository = listingRepository;
+        this.facetCache = Caffeine.newBuilder()
+                .expireAfterWrite(cacheTtl)
+                .maximumSize(cacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, facetCache, "listing.facets");
+    }
+
+    public ListingFacetsResponse getFacets(ListingSearchRequest filters) {
+        GeoUtil.validateSearchFilters(filters);
+        return facetCache.get(FacetKey.of(filters), key -> computeFacets(filters));
+    }
+
+    private ListingFacetsResponse computeFacets(ListingSearchRequest filters) {
+        List<FacetRow> rows = listingRepository.findFacetRows(ListingSpecification.withFilters(filters));
+
+        long total = 0;
+        Map<PropertyType, Long> byType = new EnumMap<>(PropertyType.class);
+        Map<String, Long> byDistrict = new HashMap<>();
+        long[] byBedrooms = new long[BEDROOM_BUCKETS];
+        TreeMap<BigDecimal, Long> byPrice = new TreeMap<>();
+        BigDecimal minPrice = null;
+        BigDecimal maxPrice = null;
+
+        for (FacetRow row : rows) {
+            long count = row.count();
+            total += count;
+            byType.merge(row.propertyType(), count, Long::sum);
+            if (row.district() != null) {
+                byDistrict.merge(row.district(), count, Long::sum);
+            }
+            if (row.bedroomBucket() != null) {
+                byBedrooms[row.bedroomBucket()] += count;
+            }
+            byPrice.merge(row.priceBucket().stripTrailingZeros(), count, Long::sum);
+            minPrice = minPrice == null || row.minPrice().compareTo(minPrice) < 0 ? row.minPrice() : minPrice;
+            maxPrice = maxPrice == null || row.maxPrice().compareTo(maxPrice) > 0 ? row.maxPrice() : maxPrice;
+        }
+
+        ListingFacetsResponse response = new ListingFacetsResponse();
+        response.setTotal(total);
+
+        List<FacetCount> types = new ArrayList<>();
+        for (PropertyType type : PropertyType.values()) {
+            types.add(new FacetCount(type.name(), byType.getOrDefault(type, 0L)));
+        }
+        response.setPropertyTypes(types);
+
+        response.setDistricts(byDistrict.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> new FacetCount(entry.getKey(), entry.getValue()))
+                .toList());
+
+        List<FacetCount> bedrooms = new ArrayList<>();
+        for (int bucket = 0; bucket < BEDROOM_BUCKETS; bucket++) {
+            String label = bucket == BEDROOM_BUCKETS - 1 ? bucket + "+" : String.valueOf(bucket);
+            bedrooms.add(new FacetCount(label, byBedrooms[bucket]));
+        }
+        response.setBedrooms(bedrooms);
+
+        ListingFacetsResponse.PriceStats price = new ListingFacetsResponse.PriceStats();
+        price.setMin(minPrice);
+        price.setMax(maxPrice);
+        price.setBuckets(byPrice.entrySet().stream()
+                .map(entry -> new PriceBucket(
+                        entry.getKey().setScale(0), nextBucketBound(entry.getKey()).setScale(0), entry.getValue()))
+                .toList());
+        response.setPrice(price);
+
+        return response;
+    }
+
+    // 1-2-5 series: 0 -> 1, 1eN -> 2eN, 2eN -> 5eN, 5eN -> 1e(N+1)
+    static BigDecimal nextBucketBound(BigDecimal from) {
+        if (from.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal normalized = from.stripTrailingZeros();
+        int leadingDigit = normalized.unscaledValue().intValueExact();
+        int nextDigit = switch (leadingDigit) {
+            case 1 -> 2;
+            case 2 -> 5;
+            default -> 10;
+        };
+        return BigDecimal.valueOf(nextDigit).scaleByPowerOfTen(-normalized.scale());
+    }
+
+    // Normalized filter tuple; parameters that do not change the matched set are dropped so equivalent requests share an entry
+    private record FacetKey(PropertyType propertyType,
+                            BigDecimal priceMin,
+                            BigDecimal priceMax,
+                            String district,
+                            Integer minBedrooms,
+                            String q,
+                            List<Double> boundingBox,
+                            List<Double> radius,
+                            String polygon) {
+
+        static FacetKey of(ListingSearchRequest filters) {
+            return new FacetKey(
+                    filters.getPropertyType(),
+                    filters.getPriceMin() != null ? filters.getPriceMin().stripTrailingZeros() : null,
+                    filters.getPriceMax() != null ? filters.getPriceMax().stripTrailingZeros() : null,
+                    filters.getDistrict(),
+                    filters.getMinBedrooms(),
+                    filters.hasQuery() ? filters.getQ().trim() : null,
+                    filters.hasBoundingBox()
+                            ? List.of(filters.getMinLat(), filters.getMinLng(), filters.getMaxLat(), filters.getMaxLng())
+                            : null,
+                    filters.hasRadius() ? List.of(filters.getLat(), filters.getLng(), filters.getRadiusKm()) : null,
+                    filters.hasPolygon() ? filters.getPolygon() : null);
+        }
+    }
+}
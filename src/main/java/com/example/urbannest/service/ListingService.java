@@ -1,82 +1,127 @@
 package com.example.urbannest.service;
 
+import com.example.urbannest.dto.Requests.EngagementSyncRequest;
 import com.example.urbannest.dto.Requests.ListingCreateRequest;
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
 import com.example.urbannest.dto.Requests.ListingUpdateRequest;
 import com.example.urbannest.dto.Responses.ApiResponse;
+import com.example.urbannest.dto.Responses.CursorPageResponse;
+import com.example.urbannest.dto.Responses.EngagementSyncResponse;
 import com.example.urbannest.dto.Responses.ListingResponse;
-import com.example.urbannest.exception.ResourceAlreadyExistsException;
+import com.example.urbannest.dto.Responses.ListingSummaryResponse;
+import com.example.urbannest.event.EngagementChangedEvent;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.event.MediaAttachedEvent;
+import com.example.urbannest.exception.InvalidRequestException;
 import com.example.urbannest.exception.ResourceNotFoundException;
 import com.example.urbannest.exception.UnauthorizedAccessException;
 import com.example.urbannest.mapper.ListingDetailsMapper;
 import com.example.urbannest.mapper.ListingMapper;
 import com.example.urbannest.mapper.MediaAssetMapper;
+import com.example.urbannest.media.MediaDerivatives;
+import com.example.urbannest.media.MediaSize;
+import com.example.urbannest.media.MediaUrlStrategy;
 import com.example.urbannest.model.*;
-import com.example.urbannest.model.composite.FavoriteListingId;
-import com.example.urbannest.model.composite.SavedListingId;
 import com.example.urbannest.model.enums.PropertyStatus;
-import com.example.urbannest.model.enums.PropertyType;
 import com.example.urbannest.repository.*;
+import com.example.urbannest.repository.ListingRepository.ListingVersion;
+import com.example.urbannest.repository.ListingSummaryRepository.SummaryRow;
+import com.example.urbannest.search.ListingSearchIndex;
+import com.example.urbannest.service.ListingEngagementService.ViewerEngagement;
 import com.example.urbannest.specification.ListingSpecification;
+import com.example.urbannest.util.CursorUtil;
+import com.example.urbannest.util.ETagUtil;
+import com.example.urbannest.util.GeoUtil;
 import com.google.firebase.auth.FirebaseToken;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class ListingService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String DISTANCE_SORT = "distance";
+
     private final ListingRepository listingRepository;
     private final ListingDetailsRepository listingDetailsRepository;
     private final ListingLocationRepository listingLocationRepository;
     private final ListingCountersRepository listingCountersRepository;
+    private final ListingCounterService listingCounterService;
     private final ListingMediaRepository listingMediaRepository;
     private final ListingPriceHistoryRepository listingPriceHistoryRepository;
-    private final MediaAssetRepository mediaAssetRepository;
+    private final MediaAssetService mediaAssetService;
     private final FavoriteListingRepository favoriteListingRepository;
     private final SavedListingRepository savedListingRepository;
     private final UserRepository userRepository;
-    private final S3Service s3Service;
+    private final MediaUrlStrategy mediaUrlStrategy;
     private final ListingMapper listingMapper;
     private final ListingDetailsMapper listingDetailsMapper;
     private final MediaAssetMapper mediaAssetMapper;
+    private final ListingSearchIndex listingSearchIndex;
+    private final ListingDetailCache listingDetailCache;
+    private final ListingEngagementService listingEngagementService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ListingService(ListingRepository listingRepository,
                           ListingDetailsRepository listingDetailsRepository,
                           ListingLocationRepository listingLocationRepository,
                           ListingCountersRepository listingCountersRepository,
+                          ListingCounterService listingCounterService,
                           ListingMediaRepository listingMediaRepository,
                           ListingPriceHistoryRepository listingPriceHistoryRepository,
-                          MediaAssetRepository mediaAssetRepository,
+                          MediaAssetService mediaAssetService,
                           FavoriteListingRepository favoriteListingRepository,
                           SavedListingRepository savedListingRepository,
                           UserRepository userRepository,
-                          S3Service s3Service,
+                          MediaUrlStrategy mediaUrlStrategy,
                           ListingMapper listingMapper,
                           ListingDetailsMapper listingDetailsMapper,
-                          MediaAssetMapper mediaAssetMapper) {
+                          MediaAssetMapper mediaAssetMapper,
+                          ListingSearchIndex listingSearchIndex,
+                          ListingDetailCache listingDetailCache,
+                          ListingEngagementService listingEngagementService,
+                          ApplicationEventPublisher eventPublisher) {
         this.listingRepository = listingRepository;
         this.listingDetailsRepository = listingDetailsRepository;
         this.listingLocationRepository = listingLocationRepository;
         this.listingCountersRepository = listingCountersRepository;
+        this.listingCounterService = listingCounterService;
         this.listingMediaRepository = listingMediaRepository;
         this.listingPriceHistoryRepository = listingPriceHistoryRepository;
-        this.mediaAssetRepository = mediaAssetRepository;
+        this.mediaAssetService = mediaAssetService;
         this.favoriteListingRepository = favoriteListingRepository;
         this.savedListingRepository = savedListingRepository;
         this.userRepository = userRepository;
-        this.s3Service = s3Service;
+        this.mediaUrlStrategy = mediaUrlStrategy;
         this.listingMapper = listingMapper;
         this.listingDetailsMapper = listingDetailsMapper;
         this.mediaAssetMapper = mediaAssetMapper;
+        this.listingSearchIndex = listingSearchIndex;
+        this.listingDetailCache = listingDetailCache;
+        this.listingEngagementService = listingEngagementService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -100,24 +145,49 @@ public class ListingService {
         listingCountersRepository.save(counters);
 
         if (request.getMedias() != null && !request.getMedias().isEmpty()) {
-            List<MediaAsset> assets = mediaAssetMapper.toMediaAssetList(request.getMedias());
-            for (MediaAsset mediaAsset : assets) {
-                mediaAsset.setOwnerUser(user);
+            List<UUID> created = mediaAssetService.attachToListing(user, listing,
+                    mediaAssetMapper.toMediaAssetList(request.getMedias()),
+                    request.getMedias().stream().map(ListingCreateRequest.MediaItem::getSortOrder).toList());
+            if (!created.isEmpty()) {
+                eventPublisher.publishEvent(new MediaAttachedEvent(created));
             }
-            mediaAssetRepository.saveAll(assets);
-
-            List<ListingMedia> listingMediaList = mediaAssetMapper.toListingMediaList(
-                    assets, request.getMedias(), listing, ListingCreateRequest.MediaItem::getSortOrder);
-            listingMediaRepository.saveAll(listingMediaList);
         }
 
+        eventPublisher.publishEvent(new ListingChangedEvent(listing.getListingId()));
         return new ApiResponse(true, "Listing created successfully");
     }
 
-    public ListingResponse getListingById(UUID listingId) {
+    public ListingResponse getListingById(UUID listingId, MediaSize mediaSize) {
+        return listingDetailCache.get(listingId, mediaSize, id -> loadListingDetail(id, mediaSize));
+    }
+
+    /**
+     * Validators come from the cached detail or a single-row version query; empty means the client's copy is
+     * current. A signed-in viewer's flags are part of the ETag, and as they change without updatedAt moving,
+     * such viewers get no Last-Modified. The cached detail is shared, so the flags are set on a copy.
+     */
+    public Optional<ListingResponse> getListingById(UUID listingId, MediaSize mediaSize, FirebaseToken viewer,
+                                                    BiPredicate<String, Long> notModified) {
+        ListingVersion version = listingDetailCache.peek(listingId)
+                .map(ListingService::versionOf)
+                .orElseGet(() -> listingRepository.findVersion(listingId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Listing with id " + listingId + " not found")));
+        ViewerEngagement engagement = engagementOf(viewer, List.of(listingId));
+        Instant now = validatorClock();
+        String eTag = ETagUtil.strongETag(now, version.updatedAt(),
+                version.viewCount(), version.favoriteCount(), version.saveCount(), mediaSize,
+                engagement.isFavorited(listingId), engagement.isSaved(listingId));
+        if (notModified.test(eTag, viewer == null ? ETagUtil.lastModified(version.updatedAt(), now) : -1)) {
+            return Optional.empty();
+        }
+        ListingResponse response = getListingById(listingId, mediaSize);
+        return Optional.of(viewer == null ? response : withEngagement(listingMapper.copyOf(response), engagement));
+    }
+
+    private ListingResponse loadListingDetail(UUID listingId, MediaSize mediaSize) {
         Listing listing = listingRepository.findByListingId(listingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Listing with id " + listingId + " not found"));
-        return buildListingResponse(listing);
+        return buildListingResponse(listing, mediaSize);
     }
 
     @Transactional
@@ -152,19 +222,15 @@ public class ListingService {
         }
 
         if (request.getMediaItems() != null && !request.getMediaItems().isEmpty()) {
-            List<MediaAsset> assets = mediaAssetMapper.toMediaAssetListFromUpdate(request.getMediaItems());
-            for (MediaAsset asset : assets) {
-                asset.setOwnerUser(user);
-            }
-            mediaAssetRepository.saveAll(assets);
-
-            List<ListingUpdateRequest.MediaItem> items = request.getMediaItems();
-            for (int i = 0; i < assets.size(); i++) {
-                ListingMedia listingMedia = mediaAssetMapper.toListingMedia(listing, assets.get(i), items.get(i).getSortOrder());
-                listingMediaRepository.save(listingMedia);
+            List<UUID> created = mediaAssetService.attachToListing(user, listing,
+                    mediaAssetMapper.toMediaAssetListFromUpdate(request.getMediaItems()),
+                    request.getMediaItems().stream().map(ListingUpdateRequest.MediaItem::getSortOrder).toList());
+            if (!created.isEmpty()) {
+                eventPublisher.publishEvent(new MediaAttachedEvent(created));
             }
         }
 
+        eventPublisher.publishEvent(new ListingChangedEvent(listingId));
         return new ApiResponse(true, "Listing updated successfully");
     }
 
@@ -172,79 +238,130 @@ public class ListingService {
     public ApiResponse deleteListing(FirebaseToken token, UUID listingId) {
         Listing listing = resolveListing(listingId);
         verifyOwnership(listing, token);
+        OffsetDateTime now = OffsetDateTime.now();
         listing.setPropertyStatus(PropertyStatus.archived);
-        listing.setDeletedAt(OffsetDateTime.now());
+        listing.setDeletedAt(now);
+        listing.setUpdatedAt(now);
         listingRepository.save(listing);
+        eventPublisher.publishEvent(new ListingChangedEvent(listingId));
         return new ApiResponse(true, "Listing deleted successfully");
     }
 
-    public Page<ListingResponse> getListings(PropertyType propertyType,
-                                             BigDecimal priceMin,
-                                             BigDecimal priceMax,
-                                             String district,
-                                             Integer minBedrooms,
-                                             Pageable pageable) {
-        Specification<Listing> spec = ListingSpecification.withFilters(
-                propertyType, priceMin, priceMax, district, minBedrooms);
-        Page<Listing> page = listingRepository.findAll(spec, pageable);
-        return buildListingResponsePage(page);
+    public Page<ListingResponse> getListings(ListingSearchRequest filters, Pageable pageable) {
+        return getListings(filters, pageable, null, eTag -> false).orElseThrow();
+    }
+
+    // The page ETag is checked before media is fetched and presigned; empty means the client's copy is current
+    public Optional<Page<ListingResponse>> getListings(ListingSearchRequest filters, Pageable pageable,
+                                                       FirebaseToken viewer, Predicate<String> notModified) {
+        GeoUtil.validateSearchFilters(filters);
+        Page<Listing> page;
+        if (listingSearchIndex.supports(filters, pageable)) {
+            page = loadListingsFromIndex(filters, pageable);
+        } else {
+            SearchQuery search = buildSearchQuery(filters, pageable);
+            page = listingRepository.findAll(search.spec(), search.pageable());
+        }
+        MediaSize mediaSize = mediaSizeOf(filters);
+        ViewerEngagement engagement = engagementOf(viewer, page.map(Listing::getListingId).getContent());
+        if (notModified.test(pageETag(page, mediaSize, engagement))) {
+            return Optional.empty();
+        }
+        return Optional.of(buildListingResponsePage(page, mediaSize, engagement));
+    }
+
+    public Page<ListingSummaryResponse> getListingSummaries(ListingSearchRequest filters, Pageable pageable,
+                                                            FirebaseToken viewer) {
+        GeoUtil.validateSearchFilters(filters);
+        if (listingSearchIndex.supports(filters, pageable)) {
+            ListingSearchIndex.SearchResult result = listingSearchIndex.search(filters, pageable);
+            List<SummaryRow> rows = listingRepository.findSummaries(
+                    ListingSpecification.idIn(result.listingIds()), Pageable.unpaged());
+            Map<UUID, SummaryRow> byId = rows.stream()
+                    .collect(Collectors.toMap(SummaryRow::listingId, Function.identity()));
+            List<SummaryRow> ordered = result.listingIds().stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            return buildSummaryPage(new PageImpl<>(ordered, pageable, result.total()), mediaSizeOf(filters), viewer);
+        }
+        SearchQuery search = buildSearchQuery(filters, pageable);
+        List<SummaryRow> rows = listingRepository.findSummaries(search.spec(), search.pageable());
+        return buildSummaryPage(PageableExecutionUtils.getPage(
+                rows, search.pageable(), () -> listingRepository.count(search.spec())), mediaSizeOf(filters), viewer);
+    }
+
+    public CursorPageResponse<ListingResponse> getListingsByCursor(ListingSearchRequest filters, String cursor, int size,
+                                                                   FirebaseToken viewer) {
+        GeoUtil.validateSearchFilters(filters);
+        int limit = clampCursorPageSize(size);
+        List<Listing> rows = listingRepository.findSlice(buildCursorSpec(filters, cursor), limit + 1);
+        return buildCursorPage(rows, limit, Function.identity(), Listing::getCreatedAt, mediaSizeOf(filters), viewer);
+    }
+
+    public CursorPageResponse<ListingSummaryResponse> getListingSummariesByCursor(ListingSearchRequest filters, String cursor,
+                                                                                  int size, FirebaseToken viewer) {
+        GeoUtil.validateSearchFilters(filters);
+        return buildSummaryCursorPage(buildCursorSpec(filters, cursor), clampCursorPageSize(size), mediaSizeOf(filters),
+                viewer);
     }
 
     public Page<ListingResponse> getMyListings(FirebaseToken token, Pageable pageable) {
         User user = resolveUser(token);
         Page<Listing> page = listingRepository.findByUserAndDeletedAtIsNull(user, pageable);
-        return buildListingResponsePage(page);
+        return buildListingResponsePage(page, MediaSize.original,
+                engagementOf(token, page.map(Listing::getListingId).getContent()));
     }
 
-    @Transactional
-    public ApiResponse addFavorite(FirebaseToken token, UUID listingId) {
+    public Page<ListingSummaryResponse> getMyListingSummaries(FirebaseToken token, Pageable pageable) {
         User user = resolveUser(token);
-        Listing listing = resolveListing(listingId);
-
-        FavoriteListingId id = new FavoriteListingId();
-        id.setUserId(user.getUserId());
-        id.setListingId(listingId);
+        Specification<Listing> spec = ListingSpecification.ownedBy(user);
+        List<SummaryRow> rows = listingRepository.findSummaries(spec, pageable);
+        return buildSummaryPage(PageableExecutionUtils.getPage(rows, pageable, () -> listingRepository.count(spec)),
+                MediaSize.original, token);
+    }
 
-        if (favoriteListingRepository.existsById(id)) {
-            throw new ResourceAlreadyExistsException("Listing is already in favorites");
+    public CursorPageResponse<ListingSummaryResponse> getMyListingSummariesByCursor(FirebaseToken token, String cursor, int size) {
+        User user = resolveUser(token);
+        Specification<Listing> spec = ListingSpecification.ownedBy(user);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        if (position != null) {
+            spec = spec.and(ListingSpecification.createdBefore(position.createdAt(), position.id()));
         }
+        return buildSummaryCursorPage(spec, clampCursorPageSize(size), MediaSize.original, token);
+    }
 
-        FavoriteListing favorite = new FavoriteListing();
-        favorite.setId(id);
-        favorite.setUser(user);
-        favorite.setListing(listing);
-        favorite.setCreatedAt(OffsetDateTime.now());
-        favoriteListingRepository.save(favorite);
-
-        ListingCounters counters = listingCountersRepository.findById(listingId).orElse(null);
-        if (counters != null) {
-            counters.setFavoriteCount(counters.getFavoriteCount() + 1);
-            listingCountersRepository.save(counters);
-        }
+    public CursorPageResponse<ListingResponse> getMyListingsByCursor(FirebaseToken token, String cursor, int size) {
+        User user = resolveUser(token);
+        int limit = clampCursorPageSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        List<Listing> rows = position == null
+                ? listingRepository.findSliceByUser(user, Limit.of(limit + 1))
+                : listingRepository.findSliceByUserBefore(user, position.createdAt(), position.id(), Limit.of(limit + 1));
+        return buildCursorPage(rows, limit, Function.identity(), Listing::getCreatedAt, MediaSize.original, token);
+    }
 
+    // Idempotent; the user and listing are only looked up when nothing was added, to tell a repeat from a 404
+    @Transactional
+    public ApiResponse addFavorite(FirebaseToken token, UUID listingId) {
+        if (!listingCounterService.addFavorite(token.getUid(), listingId)) {
+            resolveUser(token);
+            resolveListing(listingId);
+            return new ApiResponse(true, "Listing is already in favorites");
+        }
+        eventPublisher.publishEvent(new ListingCountersChangedEvent(listingId));
+        eventPublisher.publishEvent(new EngagementChangedEvent(token.getUid()));
         return new ApiResponse(true, "Listing added to favorites");
     }
 
     @Transactional
     public ApiResponse removeFavorite(FirebaseToken token, UUID listingId) {
-        User user = resolveUser(token);
-
-        FavoriteListingId id = new FavoriteListingId();
-        id.setUserId(user.getUserId());
-        id.setListingId(listingId);
-
-        if (!favoriteListingRepository.existsById(id)) {
+        if (!listingCounterService.removeFavorite(token.getUid(), listingId)) {
+            resolveUser(token);
             throw new ResourceNotFoundException("Listing is not in favorites");
         }
-
-        favoriteListingRepository.deleteById(id);
-
-        ListingCounters counters = listingCountersRepository.findById(listingId).orElse(null);
-        if (counters != null) {
-            counters.setFavoriteCount(Math.max(0, counters.getFavoriteCount() - 1));
-            listingCountersRepository.save(counters);
-        }
-
+        eventPublisher.publishEvent(new ListingCountersChangedEvent(listingId));
+        eventPublisher.publishEvent(new EngagementChangedEvent(token.getUid()));
         return new ApiResponse(true, "Listing removed from favorites");
     }
 
@@ -257,60 +374,78 @@ public class ListingService {
                 .toList();
 
         Map<UUID, List<ListingMedia>> mediaByListing = batchFetchMedia(listingIds);
+        ViewerEngagement engagement = engagementOf(token, listingIds);
 
-        return favoritePage.map(fav -> buildListingResponseFromLoaded(fav.getListing(), mediaByListing));
+        return favoritePage.map(fav -> withEngagement(
+                buildListingResponseFromLoaded(fav.getListing(), mediaByListing, MediaSize.original), engagement));
     }
 
-    @Transactional
-    public ApiResponse saveListing(FirebaseToken token, UUID listingId) {
+    public CursorPageResponse<ListingResponse> getMyFavoritesByCursor(FirebaseToken token, String cursor, int size) {
         User user = resolveUser(token);
-        Listing listing = resolveListing(listingId);
-
-        SavedListingId id = new SavedListingId();
-        id.setUserId(user.getUserId());
-        id.setListingId(listingId);
-
-        if (savedListingRepository.existsById(id)) {
-            throw new ResourceAlreadyExistsException("Listing is already saved");
-        }
+        int limit = clampCursorPageSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        List<FavoriteListing> rows = position == null
+                ? favoriteListingRepository.findSliceByUser(user, Limit.of(limit + 1))
+                : favoriteListingRepository.findSliceByUserBefore(user, position.createdAt(), position.id(), Limit.of(limit + 1));
+        return buildCursorPage(rows, limit, FavoriteListing::getListing, FavoriteListing::getCreatedAt, MediaSize.original,
+                token);
+    }
 
-        SavedListing saved = new SavedListing();
-        saved.setId(id);
-        saved.setUser(user);
-        saved.setListing(listing);
-        saved.setCreatedAt(OffsetDateTime.now());
-        savedListingRepository.save(saved);
-
-        ListingCounters counters = listingCountersRepository.findById(listingId).orElse(null);
-        if (counters != null) {
-            counters.setSaveCount(counters.getSaveCount() + 1);
-            listingCountersRepository.save(counters);
+    // Idempotent, like addFavorite
+    @Transactional
+    public ApiResponse saveListing(FirebaseToken token, UUID listingId) {
+        if (!listingCounterService.addSave(token.getUid(), listingId)) {
+            resolveUser(token);
+            resolveListing(listingId);
+            return new ApiResponse(true, "Listing is already saved");
         }
-
+        eventPublisher.publishEvent(new ListingCountersChangedEvent(listingId));
+        eventPublisher.publishEvent(new EngagementChangedEvent(token.getUid()));
         return new ApiResponse(true, "Listing saved successfully");
     }
 
     @Transactional
     public ApiResponse unsaveListing(FirebaseToken token, UUID listingId) {
-        User user = resolveUser(token);
-
-        SavedListingId id = new SavedListingId();
-        id.setUserId(user.getUserId());
-        id.setListingId(listingId);
-
-        if (!savedListingRepository.existsById(id)) {
+        if (!listingCounterService.removeSave(token.getUid(), listingId)) {
+            resolveUser(token);
             throw new ResourceNotFoundException("Listing is not saved");
         }
+        eventPublisher.publishEvent(new ListingCountersChangedEvent(listingId));
+        eventPublisher.publishEvent(new EngagementChangedEvent(token.getUid()));
+        return new ApiResponse(true, "Listing unsaved successfully");
+    }
 
-        savedListingRepository.deleteById(id);
+    /**
+     * Replays an offline client's favorite and save toggles in one transaction and one statement. Per listing,
+     * only the latest favorite toggle and the latest save toggle are applied, later ones in the list winning
+     * ties; a removal older than the row's latest add is ignored, and so is an add older than a recorded removal.
+     */
+    @Transactional
+    public EngagementSyncResponse syncEngagement(FirebaseToken token, EngagementSyncRequest request) {
+        User user = resolveUser(token);
 
-        ListingCounters counters = listingCountersRepository.findById(listingId).orElse(null);
-        if (counters != null) {
-            counters.setSaveCount(Math.max(0, counters.getSaveCount() - 1));
-            listingCountersRepository.save(counters);
+        Map<String, ListingCounterService.EngagementChange> latest = new HashMap<>();
+        for (EngagementSyncRequest.Operation operation : request.getOperations()) {
+            ListingCounterService.EngagementChange change = switch (operation.getAction()) {
+                case favorite -> engagementChange(operation, "favorite", true);
+                case unfavorite -> engagementChange(operation, "favorite", false);
+                case save -> engagementChange(operation, "save", true);
+                case unsave -> engagementChange(operation, "save", false);
+            };
+            latest.merge(change.kind() + ":" + change.listingId(), change, (earlier, later) ->
+                    later.clientTimestamp().isBefore(earlier.clientTimestamp()) ? earlier : later);
         }
 
-        return new ApiResponse(true, "Listing unsaved successfully");
+        List<UUID> changed = listingCounterService.syncEngagement(user.getUserId(), List.copyOf(latest.values()));
+        changed.stream().distinct().forEach(id -> eventPublisher.publishEvent(new ListingCountersChangedEvent(id)));
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new EngagementChangedEvent(token.getUid()));
+        }
+
+        EngagementSyncResponse response = new EngagementSyncResponse();
+        response.setApplied(changed.size());
+        response.setIgnored(request.getOperations().size() - changed.size());
+        return response;
     }
 
     public Page<ListingResponse> getMySavedListings(FirebaseToken token, Pageable pageable) {
@@ -322,33 +457,222 @@ public class ListingService {
                 .toList();
 
         Map<UUID, List<ListingMedia>> mediaByListing = batchFetchMedia(listingIds);
+        ViewerEngagement engagement = engagementOf(token, listingIds);
+
+        return savedPage.map(saved -> withEngagement(
+                buildListingResponseFromLoaded(saved.getListing(), mediaByListing, MediaSize.original), engagement));
+    }
 
-        return savedPage.map(saved -> buildListingResponseFromLoaded(saved.getListing(), mediaByListing));
+    public CursorPageResponse<ListingResponse> getMySavedListingsByCursor(FirebaseToken token, String cursor, int size) {
+        User user = resolveUser(token);
+        int limit = clampCursorPageSize(size);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        List<SavedListing> rows = position == null
+                ? savedListingRepository.findSliceByUser(user, Limit.of(limit + 1))
+                : savedListingRepository.findSliceByUserBefore(user, position.createdAt(), position.id(), Limit.of(limit + 1));
+        return buildCursorPage(rows, limit, SavedListing::getListing, SavedListing::getCreatedAt, MediaSize.original,
+                token);
     }
 
     // ======================== HELPERS ========================
 
-    private ListingResponse buildListingResponse(Listing listing) {
+    private ListingResponse buildListingResponse(Listing listing, MediaSize mediaSize) {
         List<ListingMedia> mediaList = listingMediaRepository.findByListingListingIdOrderBySortOrderAsc(listing.getListingId());
-        return mapListingToResponse(listing, mediaList);
+        return mapListingToResponse(listing, mediaList, mediaSize);
     }
 
-    private Page<ListingResponse> buildListingResponsePage(Page<Listing> page) {
+    private Page<ListingResponse> buildListingResponsePage(Page<Listing> page, MediaSize mediaSize,
+                                                           ViewerEngagement engagement) {
         List<UUID> listingIds = page.getContent().stream()
                 .map(Listing::getListingId)
                 .toList();
 
         Map<UUID, List<ListingMedia>> mediaByListing = batchFetchMedia(listingIds);
 
-        return page.map(listing -> buildListingResponseFromLoaded(listing, mediaByListing));
+        return page.map(listing -> withEngagement(
+                buildListingResponseFromLoaded(listing, mediaByListing, mediaSize), engagement));
+    }
+
+    // The index resolves filtering, ordering and the total; only the page's listings are loaded from the database
+    private Page<Listing> loadListingsFromIndex(ListingSearchRequest filters, Pageable pageable) {
+        ListingSearchIndex.SearchResult result = listingSearchIndex.search(filters, pageable);
+        Map<UUID, Listing> loaded = listingRepository.findByListingIdIn(result.listingIds()).stream()
+                .collect(Collectors.toMap(Listing::getListingId, Function.identity()));
+        List<Listing> ordered = result.listingIds().stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(ordered, pageable, result.total());
+    }
+
+    private String pageETag(Page<Listing> page, MediaSize mediaSize, ViewerEngagement engagement) {
+        List<Object> parts = new ArrayList<>();
+        parts.add(page.getTotalElements());
+        parts.add(mediaSize);
+        for (Listing listing : page.getContent()) {
+            ListingCounters counters = listing.getListingCounters();
+            parts.add(listing.getListingId());
+            parts.add(listing.getUpdatedAt());
+            if (counters != null) {
+                parts.add(counters.getViewCount() + "/" + counters.getFavoriteTotal() + "/" + counters.getSaveTotal());
+            }
+            parts.add(engagement.isFavorited(listing.getListingId()) + "/" + engagement.isSaved(listing.getListingId()));
+        }
+        return ETagUtil.strongETag(validatorClock(), parts.toArray());
+    }
+
+    // Validators only need to roll over while the bodies they cover hold expiring media URLs
+    private Instant validatorClock() {
+        return mediaUrlStrategy.urlsExpire() ? Instant.now() : Instant.EPOCH;
+    }
+
+    private static ListingVersion versionOf(ListingResponse response) {
+        ListingResponse.Counters counters = response.getCounters();
+        return counters == null
+                ? new ListingVersion(response.getUpdatedAt(), null, null, null)
+                : new ListingVersion(response.getUpdatedAt(),
+                        counters.getViewCount(), counters.getFavoriteCount(), counters.getSaveCount());
+    }
+
+    private CursorPageResponse<ListingSummaryResponse> buildSummaryCursorPage(Specification<Listing> spec, int limit,
+                                                                              MediaSize mediaSize, FirebaseToken viewer) {
+        List<SummaryRow> rows = listingRepository.findSummaries(
+                spec, PageRequest.of(0, limit + 1, ListingRepository.KEYSET_SORT));
+        boolean hasNext = rows.size() > limit;
+        List<SummaryRow> slice = hasNext ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            SummaryRow last = slice.get(slice.size() - 1);
+            nextCursor = CursorUtil.encode(last.createdAt(), last.listingId());
+        }
+        return new CursorPageResponse<>(buildSummaries(slice, mediaSize, viewer), nextCursor);
+    }
+
+    private Page<ListingSummaryResponse> buildSummaryPage(Page<SummaryRow> page, MediaSize mediaSize,
+                                                          FirebaseToken viewer) {
+        return new PageImpl<>(buildSummaries(page.getContent(), mediaSize, viewer), page.getPageable(),
+                page.getTotalElements());
+    }
+
+    // Cards carry a single cover image, fetched for the whole page in one query
+    private List<ListingSummaryResponse> buildSummaries(List<SummaryRow> rows, MediaSize mediaSize,
+                                                        FirebaseToken viewer) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> listingIds = rows.stream().map(SummaryRow::listingId).toList();
+        ViewerEngagement engagement = engagementOf(viewer, listingIds);
+        Map<UUID, ListingMediaRepository.CoverImage> coverByListing = listingMediaRepository.findCoverImages(listingIds)
+                .stream()
+                .collect(Collectors.toMap(
+                        ListingMediaRepository.CoverImage::listingId,
+                        Function.identity(),
+                        (first, second) -> first));
+
+        return rows.stream()
+                .map(row -> {
+                    ListingSummaryResponse summary = listingMapper.toListingSummaryResponse(row);
+                    ListingMediaRepository.CoverImage cover = coverByListing.get(row.listingId());
+                    if (cover != null) {
+                        MediaDerivatives derivatives = MediaDerivatives.fromMetadata(cover.metadata());
+                        summary.setCoverImageUrl(mediaUrlStrategy.urlFor(variantKey(cover.s3Location(), derivatives, mediaSize)));
+                        summary.setCoverPlaceholder(derivatives == null ? null : derivatives.placeholder());
+                    }
+                    summary.setIsFavorited(engagement.isFavorited(row.listingId()));
+                    summary.setIsSaved(engagement.isSaved(row.listingId()));
+                    return summary;
+                })
+                .toList();
+    }
+
+    // Until derivatives exist, or when the original is already smaller than the size, the original is served
+    private static String variantKey(String originalKey, MediaDerivatives derivatives, MediaSize mediaSize) {
+        MediaDerivatives.Variant variant = derivatives == null ? null : derivatives.variantFor(mediaSize);
+        return variant == null ? originalKey : variant.key();
     }
 
-    private ListingResponse buildListingResponseFromLoaded(Listing listing, Map<UUID, List<ListingMedia>> mediaByListing) {
+    private static MediaSize mediaSizeOf(ListingSearchRequest filters) {
+        return Objects.requireNonNullElse(filters.getMediaSize(), MediaSize.original);
+    }
+
+    // Distance and relevance ordering come from the specification; an unsorted page keeps them from being overridden
+    private SearchQuery buildSearchQuery(ListingSearchRequest filters, Pageable pageable) {
+        Specification<Listing> spec = ListingSpecification.withFilters(filters);
+        if (pageable.getSort().getOrderFor(DISTANCE_SORT) != null) {
+            if (!filters.hasOrigin()) {
+                throw new InvalidRequestException("sort=distance requires lat and lng");
+            }
+            spec = spec.and(ListingSpecification.orderedByDistance(filters.getLat(), filters.getLng()));
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        } else if (filters.hasQuery()) {
+            spec = spec.and(ListingSpecification.orderedByRelevance(filters.getQ()));
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        }
+        return new SearchQuery(spec, pageable);
+    }
+
+    private Specification<Listing> buildCursorSpec(ListingSearchRequest filters, String cursor) {
+        Specification<Listing> spec = ListingSpecification.withFilters(filters);
+        CursorUtil.Cursor position = CursorUtil.decode(cursor);
+        if (position != null) {
+            spec = spec.and(ListingSpecification.createdBefore(position.createdAt(), position.id()));
+        }
+        return spec;
+    }
+
+    private record SearchQuery(Specification<Listing> spec, Pageable pageable) {
+    }
+
+    // Rows are fetched with one extra element; its presence means another slice exists
+    private <T> CursorPageResponse<ListingResponse> buildCursorPage(List<T> rows,
+                                                                    int limit,
+                                                                    Function<T, Listing> listingOf,
+                                                                    Function<T, OffsetDateTime> createdAtOf,
+                                                                    MediaSize mediaSize,
+                                                                    FirebaseToken viewer) {
+        boolean hasNext = rows.size() > limit;
+        List<T> slice = hasNext ? rows.subList(0, limit) : rows;
+
+        List<Listing> listings = slice.stream().map(listingOf).toList();
+        List<UUID> listingIds = listings.stream().map(Listing::getListingId).toList();
+        Map<UUID, List<ListingMedia>> mediaByListing = batchFetchMedia(listingIds);
+        ViewerEngagement engagement = engagementOf(viewer, listingIds);
+        List<ListingResponse> content = listings.stream()
+                .map(listing -> withEngagement(
+                        buildListingResponseFromLoaded(listing, mediaByListing, mediaSize), engagement))
+                .toList();
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = slice.get(slice.size() - 1);
+            nextCursor = CursorUtil.encode(createdAtOf.apply(last), listingOf.apply(last).getListingId());
+        }
+        return new CursorPageResponse<>(content, nextCursor);
+    }
+
+    // One lookup per table for the whole page; a null viewer gets null flags without a query
+    private ViewerEngagement engagementOf(FirebaseToken viewer, List<UUID> listingIds) {
+        return listingEngagementService.lookup(viewer == null ? null : viewer.getUid(), listingIds);
+    }
+
+    private static ListingResponse withEngagement(ListingResponse response, ViewerEngagement engagement) {
+        response.setIsFavorited(engagement.isFavorited(response.getListingId()));
+        response.setIsSaved(engagement.isSaved(response.getListingId()));
+        return response;
+    }
+
+    private int clampCursorPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    private ListingResponse buildListingResponseFromLoaded(Listing listing, Map<UUID, List<ListingMedia>> mediaByListing,
+                                                           MediaSize mediaSize) {
         List<ListingMedia> mediaList = mediaByListing.getOrDefault(listing.getListingId(), List.of());
-        return mapListingToResponse(listing, mediaList);
+        return mapListingToResponse(listing, mediaList, mediaSize);
     }
 
-    private ListingResponse mapListingToResponse(Listing listing, List<ListingMedia> mediaList) {
+    private ListingResponse mapListingToResponse(Listing listing, List<ListingMedia> mediaList, MediaSize mediaSize) {
         ListingResponse response = listingMapper.toListingResponse(
                 listing,
                 listing.getListingDetails(),
@@ -358,8 +682,20 @@ public class ListingService {
                 listingDetailsMapper,
                 mediaAssetMapper);
 
-        response.getMedia().forEach(media ->
-                media.setUrl(s3Service.generateDownloadUrl(media.getUrl())));
+        Map<UUID, MediaDerivatives> derivativesByMedia = new HashMap<>();
+        for (ListingMedia listingMedia : mediaList) {
+            MediaAsset asset = listingMedia.getMediaAsset();
+            derivativesByMedia.put(asset.getMediaId(), MediaDerivatives.fromMetadata(asset.getMetadata()));
+        }
+        response.getMedia().forEach(media -> {
+            MediaDerivatives derivatives = derivativesByMedia.get(media.getMediaId());
+            media.setUrl(mediaUrlStrategy.urlFor(variantKey(media.getUrl(), derivatives, mediaSize)));
+            media.setPlaceholder(derivatives == null ? null : derivatives.placeholder());
+        });
+        if (response.getOwner() != null) {
+            response.getOwner().setProfilePictureUrl(
+                    mediaUrlStrategy.resolve(response.getOwner().getProfilePictureUrl()));
+        }
 
         return response;
     }
@@ -373,6 +709,12 @@ public class ListingService {
                 .collect(Collectors.groupingBy(m -> m.getListing().getListingId()));
     }
 
+    private static ListingCounterService.EngagementChange engagementChange(EngagementSyncRequest.Operation operation,
+                                                                          String kind, boolean active) {
+        return new ListingCounterService.EngagementChange(operation.getListingId(), kind, active,
+                operation.getClientTimestamp());
+    }
+
     private User resolveUser(FirebaseToken token) {
         return userRepository.findByFirebaseId(token.getUid())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
@@ -0,0 +1,129 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.repository.ListingCountersRepository;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts listing detail views in memory and adds them to {@code listing_counters.view_count} in batches, so a
+ * popular listing costs one row update per flush instead of one per request.
+ * <p>
+ * Each listing has a {@link LongAdder}. Views are added inside {@code pending.compute}, and a flush only removes
+ * an emptied adder inside {@code compute} too, so a view can never go to an adder that has already left the map.
+ * Every flush sums and resets the adders and writes all listings in one statement per chunk. A failed write puts
+ * its views back for the next flush, and shutdown flushes what is left.
+ * <p>
+ * A viewer counts once per listing within the dedup window. Flushed views reach the detail cache and its
+ * ETags when the cached entry expires; evicting it on every flush would defeat the cache for the listings
+ * people actually look at.
+ */
+@Component
+public class ListingViewCounter {
+    private static final Logger log = LoggerFactory.getLogger(ListingViewCounter.class);
+
+    private final ListingCountersRepository listingCountersRepository;
+    private final int batchSize;
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Cache<ViewKey, Boolean> recentViews;
+    private final Counter countedCounter;
+    private final Counter duplicateCounter;
+
+    private record ViewKey(UUID listingId, String viewer) {
+    }
+
+    record Views(@JsonProperty("listing_id") UUID listingId, long views) {
+    }
+
+    public ListingViewCounter(ListingCountersRepository listingCountersRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${listing.views.dedup-window:30m}") Duration dedupWindow,
+                              @Value("${listing.views.dedup-max-size:200000}") long dedupMaxSize,
+                              @Value("${listing.views.flush-batch-size:1000}") int batchSize) {
+        this.listingCountersRepository = listingCountersRepository;
+        this.batchSize = batchSize;
+        this.recentViews = Caffeine.newBuilder()
+                .expireAfterWrite(dedupWindow)
+                .maximumSize(dedupMaxSize)
+                .build();
+        this.countedCounter = viewCounter(meterRegistry, "counted");
+        this.duplicateCounter = viewCounter(meterRegistry, "duplicate");
+    }
+
+    // A null viewer is always counted
+    public void record(UUID listingId, String viewer) {
+        if (viewer != null && recentViews.asMap().putIfAbsent(new ViewKey(listingId, viewer), Boolean.TRUE) != null) {
+            duplicateCounter.increment();
+            return;
+        }
+        add(listingId, 1);
+        countedCounter.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${listing.views.flush-interval:10s}",
+            initialDelayString = "${listing.views.flush-interval:10s}")
+    public synchronized void flush() {
+        List<Views> drained = drain();
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<Views> chunk = drained.subList(from, Math.min(drained.size(), from + batchSize));
+            try {
+                listingCountersRepository.addViews(JsonMapper.shared().writeValueAsString(chunk));
+            } catch (RuntimeException e) {
+                log.warn("Recording views for {} listings failed; retrying on the next flush", chunk.size(), e);
+                chunk.forEach(views -> add(views.listingId(), views.views()));
+            }
+        }
+    }
+
+    private void add(UUID listingId, long views) {
+        pending.compute(listingId, (id, adder) -> {
+            LongAdder counted = adder == null ? new LongAdder() : adder;
+            counted.add(views);
+            return counted;
+        });
+    }
+
+    // Listings without new views are dropped from the map, so it only holds recently viewed ones
+    private List<Views> drain() {
+        List<Views> drained = new ArrayList<>();
+        for (Map.Entry<UUID, LongAdder> entry : pending.entrySet()) {
+            long views = entry.getValue().sumThenReset();
+            if (views > 0) {
+                drained.add(new Views(entry.getKey(), views));
+            } else {
+                // Under the key's lock, so no view can be added between the check and the removal
+                pending.computeIfPresent(entry.getKey(), (id, adder) -> adder.sum() == 0 ? null : adder);
+            }
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private static Counter viewCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("listing.views")
+                .description("Listing detail views, by whether they were counted or repeated within the dedup window")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
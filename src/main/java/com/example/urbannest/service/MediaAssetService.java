@@ -0,0 +1,197 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.mapper.MediaAssetMapper;
+import com.example.urbannest.media.ContentHash;
+import com.example.urbannest.media.MediaDerivatives;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.ListingMedia;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.model.User;
+import com.example.urbannest.repository.ListingMediaRepository;
+import com.example.urbannest.repository.ListingRepository;
+import com.example.urbannest.repository.MediaAssetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps one media asset per owner and content, so photos an agent reuses across listings are stored and
+ * served once.
+ * <p>
+ * Duplicates are caught at three points: the upload endpoints point a client at content it already stored, so
+ * the bytes are never sent; attaching media with a {@code contentHash} links the existing asset; and the
+ * verifier, which learns the hash of every new asset, folds any duplicate that slipped through into the
+ * original. Hashes are only stored once storage has vouched for them, so a wrong claim can never take over an
+ * asset. {@code ref_count} counts each asset's listing and blog links.
+ */
+@Service
+public class MediaAssetService {
+
+    private final MediaAssetRepository mediaAssetRepository;
+    private final ListingMediaRepository listingMediaRepository;
+    private final ListingRepository listingRepository;
+    private final MediaStorage mediaStorage;
+    private final MediaDeletionService mediaDeletionService;
+    private final MediaAssetMapper mediaAssetMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    public MediaAssetService(MediaAssetRepository mediaAssetRepository,
+                             ListingMediaRepository listingMediaRepository,
+                             ListingRepository listingRepository,
+                             MediaStorage mediaStorage,
+                             MediaDeletionService mediaDeletionService,
+                             MediaAssetMapper mediaAssetMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             MeterRegistry meterRegistry) {
+        this.mediaAssetRepository = mediaAssetRepository;
+        this.listingMediaRepository = listingMediaRepository;
+        this.listingRepository = listingRepository;
+        this.mediaStorage = mediaStorage;
+        this.mediaDeletionService = mediaDeletionService;
+        this.mediaAssetMapper = mediaAssetMapper;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Stored keys by content hash, among the given hashes the user already has live assets for
+    public Map<String, String> findStoredKeys(String firebaseId, Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> keys = mediaAssetRepository.findLiveByOwnerFirebaseIdAndContentHashes(firebaseId, contentHashes)
+                .stream()
+                .collect(Collectors.toMap(MediaAsset::getContentHash, MediaAsset::getS3Location));
+        count("upload", keys.size());
+        return keys;
+    }
+
+    /**
+     * Links the requested media to the listing and returns the ids of the assets created for it.
+     * <p>
+     * An item whose {@code contentHash} matches a live asset of the owner links to that asset. If the item names
+     * a different key, storage must report the same SHA-256 for it; that object is then redundant and queued for
+     * deletion. Any other item becomes a new asset without a hash, which the verifier fills in.
+     */
+    @Transactional
+    public List<UUID> attachToListing(User owner, Listing listing, List<MediaAsset> requested, List<Integer> sortOrders) {
+        Set<String> claimedHashes = requested.stream()
+                .map(MediaAsset::getContentHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, MediaAsset> existing = claimedHashes.isEmpty() ? Map.of()
+                : mediaAssetRepository.findLiveByOwnerAndContentHashes(owner, claimedHashes).stream()
+                        .collect(Collectors.toMap(MediaAsset::getContentHash, Function.identity()));
+
+        List<MediaAsset> resolved = new ArrayList<>(requested.size());
+        List<MediaAsset> created = new ArrayList<>();
+        for (MediaAsset asset : requested) {
+            MediaAsset match = asset.getContentHash() == null ? null : existing.get(asset.getContentHash());
+            if (match != null && holdsSameContent(asset.getS3Location(), match)) {
+                resolved.add(match);
+                count("attach", 1);
+                continue;
+            }
+            asset.setContentHash(null);
+            asset.setOwnerUser(owner);
+            resolved.add(asset);
+            created.add(asset);
+        }
+        mediaAssetRepository.saveAll(created);
+
+        // Content requested twice is shown once, at its first position
+        Set<UUID> linked = new LinkedHashSet<>();
+        List<ListingMedia> links = new ArrayList<>();
+        for (int i = 0; i < resolved.size(); i++) {
+            MediaAsset asset = resolved.get(i);
+            if (linked.add(asset.getMediaId())) {
+                links.add(mediaAssetMapper.toListingMedia(listing, asset, sortOrders.get(i)));
+            }
+        }
+        listingMediaRepository.saveAllAndFlush(links);
+        mediaAssetRepository.refreshRefCounts(linked);
+
+        return created.stream().map(MediaAsset::getMediaId).toList();
+    }
+
+    /**
+     * Folds a duplicate into the asset that already holds its content: links move to the survivor, the
+     * duplicate's row is removed, and its object and variants are queued for deletion unless another asset
+     * uses the same key. Listings that showed the duplicate are republished with the survivor's URLs.
+     */
+    @Transactional
+    public void mergeDuplicate(UUID duplicateId, UUID survivorId) {
+        MediaAsset duplicate = mediaAssetRepository.findById(duplicateId).orElse(null);
+        if (duplicate == null) {
+            return;
+        }
+        List<UUID> listingIds = listingMediaRepository.findListingIdsByMediaId(duplicateId);
+        mediaAssetRepository.moveLinks(duplicateId, survivorId);
+
+        if (!mediaAssetRepository.existsByS3LocationAndMediaIdNot(duplicate.getS3Location(), duplicateId)) {
+            mediaDeletionService.enqueue(duplicate.getS3Location());
+            MediaDerivatives derivatives = MediaDerivatives.fromMetadata(duplicate.getMetadata());
+            if (derivatives != null && derivatives.variants() != null) {
+                derivatives.variants().values().forEach(variant -> mediaDeletionService.enqueue(variant.key()));
+            }
+        }
+        // Links left behind point at listings that already show the survivor; they cascade with the row
+        mediaAssetRepository.delete(duplicate);
+        mediaAssetRepository.flush();
+        mediaAssetRepository.refreshRefCounts(List.of(survivorId));
+        count("verification", 1);
+
+        if (!listingIds.isEmpty()) {
+            listingRepository.touchUpdatedAt(listingIds, OffsetDateTime.now());
+            listingIds.forEach(listingId -> eventPublisher.publishEvent(new ListingChangedEvent(listingId)));
+        }
+    }
+
+    // A second copy under a new key only counts once storage reports its SHA-256; the copy is then dropped
+    private boolean holdsSameContent(String key, MediaAsset match) {
+        if (key.equals(match.getS3Location())) {
+            return true;
+        }
+        String storedHash;
+        try {
+            storedHash = ContentHash.fromChecksum(mediaStorage.stat(key).checksum());
+        } catch (RuntimeException e) {
+            // Missing or unreachable; the new asset is checked again by the verifier
+            return false;
+        }
+        if (!match.getContentHash().equals(storedHash)) {
+            return false;
+        }
+        if (!mediaAssetRepository.existsByS3Location(key)) {
+            mediaDeletionService.enqueue(key);
+        }
+        return true;
+    }
+
+    private void count(String stage, int amount) {
+        if (amount == 0) {
+            return;
+        }
+        Counter.builder("media.duplicates")
+                .description("Media resolved to content the owner had already stored, by where the duplicate was caught")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.model.MediaDeletion;
+import com.example.urbannest.repository.MediaAssetRepository;
+import com.example.urbannest.repository.MediaDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes stored media in the background. Keys are queued in {@code media_deletions} and drained in batches,
+ * one DeleteObjects call per batch, so clearing a listing's photos and their variants costs one request
+ * instead of one per object and never holds up the caller.
+ * <p>
+ * A key that fails stays queued and is retried with exponential backoff up to {@code max-backoff}, so an
+ * outage only delays deletions. The orphan sweep feeds the queue with assets nothing uses anymore: soft-deleted
+ * ones, uploads never attached, and photos of listings deleted longer than the grace period ago.
+ */
+@Service
+public class MediaDeletionService {
+    private static final Logger log = LoggerFactory.getLogger(MediaDeletionService.class);
+
+    private static final int SWEEP_BATCH_SIZE = 500;
+    // Backoff stops doubling well before the Duration could overflow
+    private static final int MAX_BACKOFF_DOUBLINGS = 20;
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final MediaAssetRepository mediaAssetRepository;
+    private final MediaStorage mediaStorage;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration orphanGrace;
+    private final Counter orphansCounter;
+
+    public MediaDeletionService(MediaDeletionRepository mediaDeletionRepository,
+                                MediaAssetRepository mediaAssetRepository,
+                                MediaStorage mediaStorage,
+                                MeterRegistry meterRegistry,
+                                @Value("${media.deletion.batch-size:1000}") int batchSize,
+                                @Value("${media.deletion.initial-backoff:1m}") Duration initialBackoff,
+                                @Value("${media.deletion.max-backoff:6h}") Duration maxBackoff,
+                                @Value("${media.deletion.orphan-grace:7d}") Duration orphanGrace) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.mediaAssetRepository = mediaAssetRepository;
+        this.mediaStorage = mediaStorage;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.min(batchSize, S3Service.MAX_DELETE_BATCH);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.orphanGrace = orphanGrace;
+        this.orphansCounter = Counter.builder("media.orphans.swept")
+                .description("Unused media assets removed by the orphan sweep")
+                .register(meterRegistry);
+    }
+
+    public void enqueue(String key) {
+        mediaDeletionRepository.enqueue(key);
+    }
+
+    // Keeps going while batches come back full; a batch where nothing succeeded ends the run
+    @Scheduled(fixedDelayString = "${media.deletion.drain-interval:1m}",
+            initialDelayString = "${media.deletion.drain-interval:1m}")
+    public void drain() {
+        int deleted = 0;
+        while (true) {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<MediaDeletion> due = mediaDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                    now, Limit.of(batchSize));
+            if (due.isEmpty()) {
+                break;
+            }
+
+            Map<String, String> failures = deleteObjects(due.stream().map(MediaDeletion::getS3Key).toList());
+            List<String> succeeded = due.stream()
+                    .map(MediaDeletion::getS3Key)
+                    .filter(key -> !failures.containsKey(key))
+                    .toList();
+            List<MediaDeletion> failed = due.stream()
+                    .filter(deletion -> failures.containsKey(deletion.getS3Key()))
+                    .toList();
+            for (MediaDeletion deletion : failed) {
+                deletion.setAttempts(deletion.getAttempts() + 1);
+                deletion.setNextAttemptAt(now.plus(backoff(deletion.getAttempts())));
+                deletion.setLastError(failures.get(deletion.getS3Key()));
+            }
+
+            mediaDeletionRepository.deleteAllByIdInBatch(succeeded);
+            mediaDeletionRepository.saveAll(failed);
+            count("deleted", succeeded.size());
+            count("failed", failed.size());
+            deleted += succeeded.size();
+
+            if (succeeded.isEmpty() || due.size() < batchSize) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} queued media objects", deleted);
+        }
+    }
+
+    // Each chunk commits on its own, so a failure part way keeps what was already swept
+    @Scheduled(fixedDelayString = "${media.deletion.sweep-interval:1h}",
+            initialDelayString = "${media.deletion.sweep-interval:1h}")
+    public void sweepOrphans() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(orphanGrace);
+        int swept = 0;
+        while (true) {
+            int removed = mediaAssetRepository.sweepOrphans(cutoff, SWEEP_BATCH_SIZE);
+            orphansCounter.increment(removed);
+            swept += removed;
+            if (removed < SWEEP_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (swept > 0) {
+            log.info("Removed {} unused media assets and queued their objects for deletion", swept);
+        }
+    }
+
+    // A failed call fails every key in it; they are retried together after the backoff
+    private Map<String, String> deleteObjects(List<String> keys) {
+        try {
+            return mediaStorage.delete(keys);
+        } catch (RuntimeException e) {
+            log.warn("Deleting {} media objects failed; retrying after backoff", keys.size(), e);
+            String reason = String.valueOf(e.getMessage());
+            return keys.stream().collect(Collectors.toMap(Function.identity(), key -> reason));
+        }
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private void count(String result, int amount) {
+        if (amount == 0) {
+            return;
+        }
+        Counter.builder("media.deletions")
+                .description("Queued media objects handled by the deletion drain, by outcome")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.dto.Responses.MultipartPartUrlResponse;
+import com.example.urbannest.dto.Responses.MultipartUploadResponse;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.exception.UnauthorizedAccessException;
+import com.example.urbannest.media.MediaUploadPolicy;
+import com.example.urbannest.model.MultipartUpload;
+import com.example.urbannest.model.User;
+import com.example.urbannest.repository.MultipartUploadRepository;
+import com.example.urbannest.repository.UserRepository;
+import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Large files are uploaded straight to S3 in parts: the client initiates, asks for part URLs, PUTs the parts
+ * in parallel and completes. S3 keeps uploaded parts, so an interrupted upload resumes by asking which parts
+ * are there and sending only the rest.
+ * <p>
+ * Every upload is recorded until it is completed or aborted; the sweeper aborts the ones left behind, since
+ * S3 bills for their parts indefinitely otherwise.
+ */
+@Service
+@ConditionalOnProperty(name = "media.storage", havingValue = "s3", matchIfMissing = true)
+public class MultipartUploadService {
+    private static final Logger log = LoggerFactory.getLogger(MultipartUploadService.class);
+
+    // S3 allows at most 10000 parts of at least 5 MiB each (the last part excepted)
+    static final long MIN_PART_SIZE = 8L * 1024 * 1024;
+    static final int MAX_PARTS = 10_000;
+    private static final long PART_SIZE_STEP = 1024 * 1024;
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final int MAX_REPORTED_PARTS = 20;
+
+    private final MultipartUploadRepository multipartUploadRepository;
+    private final UserRepository userRepository;
+    private final S3Service s3Service;
+    private final MediaUploadPolicy mediaUploadPolicy;
+    private final Duration abandonAfter;
+    private final Counter abandonedCounter;
+
+    public MultipartUploadService(MultipartUploadRepository multipartUploadRepository,
+                                  UserRepository userRepository,
+                                  S3Service s3Service,
+                                  MediaUploadPolicy mediaUploadPolicy,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${aws.s3.multipart.abandon-after:24h}") Duration abandonAfter) {
+        this.multipartUploadRepository = multipartUploadRepository;
+        this.userRepository = userRepository;
+        this.s3Service = s3Service;
+        this.mediaUploadPolicy = mediaUploadPolicy;
+        this.abandonAfter = abandonAfter;
+        this.abandonedCounter = Counter.builder("s3.multipart.abandoned")
+                .description("Multipart uploads aborted by the sweeper after being left unfinished")
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    public MultipartUploadResponse initiate(FirebaseToken token, MediaUploadRequest request) {
+        mediaUploadPolicy.validateMultipart(request);
+        User user = userRepository.findByFirebaseId(token.getUid())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        String key = S3Service.newObjectKey(request.getCategory(), request.getFileName());
+        String uploadId = s3Service.createMultipartUpload(key, request.getContentType());
+
+        MultipartUpload upload = new MultipartUpload();
+        upload.setUploadId(uploadId);
+        upload.setOwnerUser(user);
+        upload.setS3Key(key);
+        upload.setContentType(request.getContentType());
+        upload.setContentLength(request.getContentLength());
+        upload.setPartSize(partSizeFor(request.getContentLength()));
+        upload.setCreatedAt(OffsetDateTime.now());
+        try {
+            multipartUploadRepository.saveAndFlush(upload);
+        } catch (RuntimeException e) {
+            // An untracked upload would never be swept
+            s3Service.abortMultipartUpload(key, uploadId);
+            throw e;
+        }
+
+        return toResponse(upload, List.of());
+    }
+
+    public List<MultipartPartUrlResponse> presignParts(FirebaseToken token, String uploadId, List<Integer> partNumbers) {
+        MultipartUpload upload = resolveOwnedUpload(token, uploadId);
+        for (Integer partNumber : partNumbers) {
+            if (partNumber > upload.getPartCount()) {
+                throw new InvalidRequestException("Part " + partNumber + " is beyond the last part " + upload.getPartCount());
+            }
+        }
+
+        return partNumbers.stream()
+                .map(partNumber -> {
+                    long length = upload.getPartLength(partNumber);
+                    MultipartPartUrlResponse part = new MultipartPartUrlResponse();
+                    part.setPartNumber(partNumber);
+                    part.setContentLength(length);
+                    part.setUploadUrl(s3Service.generateUploadPartUrl(upload.getS3Key(), uploadId, partNumber, length));
+                    return part;
+                })
+                .toList();
+    }
+
+    public MultipartUploadResponse getStatus(FirebaseToken token, String uploadId) {
+        MultipartUpload upload = resolveOwnedUpload(token, uploadId);
+        List<Integer> uploaded = s3Service.listUploadedParts(upload.getS3Key(), uploadId).stream()
+                .map(S3Service.UploadedPart::partNumber)
+                .sorted()
+                .toList();
+        return toResponse(upload, uploaded);
+    }
+
+    // S3 is the source of truth for which parts arrived, so clients need not track part ETags
+    @Transactional
+    public MultipartUploadResponse complete(FirebaseToken token, String uploadId) {
+        MultipartUpload upload = resolveOwnedUpload(token, uploadId);
+        Map<Integer, S3Service.UploadedPart> uploaded = s3Service.listUploadedParts(upload.getS3Key(), uploadId).stream()
+                .collect(Collectors.toMap(S3Service.UploadedPart::partNumber, Function.identity()));
+
+        List<Integer> missing = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= upload.getPartCount(); partNumber++) {
+            S3Service.UploadedPart part = uploaded.get(partNumber);
+            if (part == null || part.size() != upload.getPartLength(partNumber)) {
+                missing.add(partNumber);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new InvalidRequestException(missing.size() + " parts are missing or incomplete: "
+                    + missing.subList(0, Math.min(missing.size(), MAX_REPORTED_PARTS)));
+        }
+
+        List<S3Service.UploadedPart> parts = uploaded.values().stream()
+                .filter(part -> part.partNumber() <= upload.getPartCount())
+                .toList();
+        s3Service.completeMultipartUpload(upload.getS3Key(), uploadId, parts);
+        multipartUploadRepository.delete(upload);
+
+        return toResponse(upload, parts.stream().map(S3Service.UploadedPart::partNumber).sorted().toList());
+    }
+
+    @Transactional
+    public void abort(FirebaseToken token, String uploadId) {
+        MultipartUpload upload = resolveOwnedUpload(token, uploadId);
+        s3Service.abortMultipartUpload(upload.getS3Key(), uploadId);
+        multipartUploadRepository.delete(upload);
+    }
+
+    // Stops at the first S3 failure; whatever is left is picked up by the next run
+    @Scheduled(fixedDelayString = "${aws.s3.multipart.sweep-interval:1h}",
+            initialDelayString = "${aws.s3.multipart.sweep-interval:1h}")
+    public void sweepAbandoned() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(abandonAfter);
+        int swept = 0;
+        while (true) {
+            List<MultipartUpload> abandoned = multipartUploadRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(
+                    cutoff, Limit.of(SWEEP_BATCH_SIZE));
+            for (MultipartUpload upload : abandoned) {
+                try {
+                    s3Service.abortMultipartUpload(upload.getS3Key(), upload.getUploadId());
+                } catch (SdkException e) {
+                    log.warn("Aborting abandoned multipart upload {} failed; retrying next run", upload.getUploadId(), e);
+                    return;
+                }
+                multipartUploadRepository.delete(upload);
+                abandonedCounter.increment();
+                swept++;
+            }
+            if (abandoned.size() < SWEEP_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (swept > 0) {
+            log.info("Aborted {} abandoned multipart uploads", swept);
+        }
+    }
+
+    // Parts of at least 8 MiB in whole MiB, grown as needed to stay within the part limit
+    static long partSizeFor(long contentLength) {
+        long needed = Math.max(MIN_PART_SIZE, (contentLength + MAX_PARTS - 1) / MAX_PARTS);
+        return (needed + PART_SIZE_STEP - 1) / PART_SIZE_STEP * PART_SIZE_STEP;
+    }
+
+    private MultipartUpload resolveOwnedUpload(FirebaseToken token, String uploadId) {
+        MultipartUpload upload = multipartUploadRepository.findById(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundException("Multipart upload " + uploadId + " not found"));
+        if (upload.getOwnerUser() == null || !Objects.equals(upload.getOwnerUser().getFirebaseId(), token.getUid())) {
+            throw new UnauthorizedAccessException("You do not own this upload");
+        }
+        return upload;
+    }
+
+    private static MultipartUploadResponse toResponse(MultipartUpload upload, List<Integer> uploadedParts) {
+        MultipartUploadResponse response = new MultipartUploadResponse();
+        response.setKey(upload.getS3Key());
+        response.setUploadId(upload.getUploadId());
+        response.setPartSize(upload.getPartSize());
+        response.setPartCount(upload.getPartCount());
+        response.setUploadedParts(uploadedParts);
+        return response;
+    }
+}
@@ -1,37 +1,121 @@
 package com.example.urbannest.service;
 
+import com.example.urbannest.media.ContentHash;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.util.ETagUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
+@ConditionalOnProperty(name = "media.storage", havingValue = "s3", matchIfMissing = true)
 public class S3Service {
+    static final Duration DOWNLOAD_URL_TTL = Duration.ofMinutes(60);
+    static final Duration UPLOAD_PART_URL_TTL = Duration.ofMinutes(60);
+    private static final int PARALLEL_SIGNING_THRESHOLD = 8;
+    // DeleteObjects accepts at most this many keys per call
+    static final int MAX_DELETE_BATCH = 1000;
+
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
+    // Presigned GET URLs by object key, handed out again until the safety margin before they expire
+    private final Cache<String, String> downloadUrlCache;
+    private final Duration safetyMargin;
 
     @Value("${aws.s3.bucket-name}")
     private String s3Bucket;
 
-    public S3Service(S3Client s3Client, S3Presigner s3Presigner) {
+    public record UploadedPart(int partNumber, String eTag, long size) {
+    }
+
+    public S3Service(S3Client s3Client,
+                     S3Presigner s3Presigner,
+                     MeterRegistry meterRegistry,
+                     @Value("${aws.s3.presign-cache.safety-margin:40m}") Duration safetyMargin,
+                     @Value("${listing.detail-cache.ttl:10m}") Duration detailCacheTtl,
+                     @Value("${aws.s3.presign-cache.max-size:50000}") long maxSize) {
+        if (safetyMargin.isNegative() || safetyMargin.compareTo(DOWNLOAD_URL_TTL) >= 0) {
+            throw new IllegalArgumentException("aws.s3.presign-cache.safety-margin must be between 0 and " + DOWNLOAD_URL_TTL);
+        }
+        // Cached URLs reach clients through the detail cache and revalidated bodies in every media URL mode
+        ETagUtil.requireUrlsOutlive(safetyMargin, detailCacheTtl, "aws.s3.presign-cache.safety-margin");
         this.s3Client = s3Client;
         this.s3Presigner = s3Presigner;
+        this.safetyMargin = safetyMargin;
+        this.downloadUrlCache = Caffeine.newBuilder()
+                .expireAfterWrite(DOWNLOAD_URL_TTL.minus(safetyMargin))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, downloadUrlCache, "s3.download-urls");
+    }
+
+    // A random segment keeps uploads of equally named files apart
+    public static String newObjectKey(String category, String fileName) {
+        return category + "/" + UUID.randomUUID() + "/" + fileName;
+    }
+
+    public String generateUploadUrl(String key, String contentType, Long contentLength){
+        return generateUploadUrl(new MediaStorage.UploadTarget(key, contentType, contentLength, null));
+    }
+
+    // Signing is pure CPU, so larger batches are spread over the common pool; results keep the input order
+    public List<String> generateUploadUrls(List<MediaStorage.UploadTarget> targets) {
+        Stream<MediaStorage.UploadTarget> stream = targets.size() >= PARALLEL_SIGNING_THRESHOLD
+                ? targets.parallelStream()
+                : targets.stream();
+        return stream.map(this::generateUploadUrl).toList();
     }
 
-    public String generateUploadUrl(String key, String contentType){
+    // A declared length is signed into the URL, so S3 rejects an upload of any other size. A declared hash is
+    // signed in as the x-amz-checksum-sha256 header: S3 rejects a body that does not match it and keeps it as
+    // the object's checksum
+    public String generateUploadUrl(MediaStorage.UploadTarget target) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(s3Bucket)
-                .key(key)
-                .contentType(contentType)
+                .key(target.key())
+                .contentType(target.contentType())
+                .contentLength(target.contentLength())
+                .checksumSHA256(target.contentHash() == null ? null : ContentHash.toBase64(target.contentHash()))
                 .build();
 
         PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
@@ -44,14 +128,94 @@ public class S3Service {
         return presignedPutObjectRequest.url().toString();
     }
 
+    public String createMultipartUpload(String key, String contentType) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+
+        return s3Client.createMultipartUpload(request).uploadId();
+    }
+
+    // Parts of a large file can take a while, so part URLs live as long as download URLs; the length is signed in
+    public String generateUploadPartUrl(String key, String uploadId, int partNumber, long contentLength) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(contentLength)
+                .build();
+
+        UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                .signatureDuration(UPLOAD_PART_URL_TTL)
+                .uploadPartRequest(uploadPartRequest)
+                .build();
+
+        return s3Presigner.presignUploadPart(presignRequest).url().toString();
+    }
+
+    public List<UploadedPart> listUploadedParts(String key, String uploadId) {
+        ListPartsRequest request = ListPartsRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+
+        return s3Client.listPartsPaginator(request).parts().stream()
+                .map(part -> new UploadedPart(part.partNumber(), part.eTag(), part.size()))
+                .toList();
+    }
+
+    public void completeMultipartUpload(String key, String uploadId, List<UploadedPart> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+                .sorted(Comparator.comparingInt(UploadedPart::partNumber))
+                .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+                .toList();
+
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                .build();
+
+        s3Client.completeMultipartUpload(request);
+    }
+
+    // Aborting frees the stored parts; an upload S3 no longer knows about is already gone
+    public void abortMultipartUpload(String key, String uploadId) {
+        AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .build();
+
+        try {
+            s3Client.abortMultipartUpload(request);
+        } catch (NoSuchUploadException e) {
+            // Completed, aborted or expired by a bucket lifecycle rule
+        }
+    }
+
     public String generateDownloadUrl(String key){
+        return downloadUrlCache.get(key, this::presignDownloadUrl);
+    }
+
+    // A cached URL is handed out until the safety margin before it expires
+    public Duration downloadUrlLifetime() {
+        return safetyMargin;
+    }
+
+    private String presignDownloadUrl(String key) {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(s3Bucket)
                 .key(key)
                 .build();
 
         GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(Duration.ofMinutes(60))
+                .signatureDuration(DOWNLOAD_URL_TTL)
                 .getObjectRequest(getObjectRequest)
                 .build();
 
@@ -60,6 +224,47 @@ public class S3Service {
         return presignedGetObjectRequest.url().toString();
     }
 
+    public byte[] getObjectBytes(String key) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .build();
+
+        return s3Client.getObjectAsBytes(request).asByteArray();
+    }
+
+    // Streams the object; the caller closes the stream
+    public ResponseInputStream<GetObjectResponse> getObject(String key) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .build();
+
+        return s3Client.getObject(request);
+    }
+
+    // Checksum mode makes S3 include the checksums stored with the object, if it has any
+    public HeadObjectResponse headObject(String key) {
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .checksumMode(ChecksumMode.ENABLED)
+                .build();
+
+        return s3Client.headObject(request);
+    }
+
+    public void putObject(String key, byte[] bytes, String contentType) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(s3Bucket)
+                .key(key)
+                .contentType(contentType)
+                .build();
+
+        s3Client.putObject(request, RequestBody.fromBytes(bytes));
+        downloadUrlCache.invalidate(key);
+    }
+
     public void deleteObject(String key) {
         DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                 .bucket(s3Bucket)
@@ -67,5 +272,31 @@ public class S3Service {
                 .build();
 
         s3Client.deleteObject(deleteObjectRequest);
+        downloadUrlCache.invalidate(key);
+    }
+
+    /**
+     * Deletes the keys with one DeleteObjects call per {@value #MAX_DELETE_BATCH} keys.
+     * <p>
+     * Quiet mode makes S3 report only the keys it failed on, which are returned with their error codes; missing
+     * keys are not errors. A failed call throws and leaves any later chunks untouched.
+     */
+    public Map<String, String> deleteObjects(List<String> keys) {
+        Map<String, String> failed = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_BATCH) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_DELETE_BATCH, keys.size()));
+            DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                    .bucket(s3Bucket)
+                    .delete(Delete.builder()
+                            .objects(chunk.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+                            .quiet(true)
+                            .build())
+                    .build();
+
+            s3Client.deleteObjects(request).errors()
+                    .forEach(error -> failed.put(error.key(), error.code()));
+            chunk.forEach(downloadUrlCache::invalidate);
+        }
+        return failed;
     }
 }
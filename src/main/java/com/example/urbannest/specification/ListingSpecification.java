@@ -1,21 +1,51 @@
 package com.example.urbannest.specification;
 
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
 import com.example.urbannest.model.Listing;
 import com.example.urbannest.model.ListingDetails;
 import com.example.urbannest.model.ListingLocation;
+import com.example.urbannest.model.User;
 import com.example.urbannest.model.enums.PropertyStatus;
 import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.util.GeoUtil;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 public class ListingSpecification {
 
+    public static Specification<Listing> withFilters(ListingSearchRequest filters) {
+        Specification<Listing> spec = withFilters(
+                filters.getPropertyType(),
+                filters.getPriceMin(),
+                filters.getPriceMax(),
+                filters.getDistrict(),
+                filters.getMinBedrooms());
+        if (filters.hasQuery()) {
+            spec = spec.and(matchingText(filters.getQ()));
+        }
+        if (filters.hasBoundingBox()) {
+            spec = spec.and(withinBoundingBox(
+                    filters.getMinLat(), filters.getMinLng(), filters.getMaxLat(), filters.getMaxLng()));
+        }
+        if (filters.hasRadius()) {
+            spec = spec.and(withinRadius(filters.getLat(), filters.getLng(), filters.getRadiusKm()));
+        }
+        if (filters.hasPolygon()) {
+            spec = spec.and(withinPolygon(GeoUtil.toPolygonLiteral(filters.getPolygon())));
+        }
+        return spec;
+    }
+
     public static Specification<Listing> withFilters(PropertyType propertyType,
                                                      BigDecimal priceMin,
                                                      BigDecimal priceMax,
@@ -24,7 +54,8 @@ public class ListingSpecification {
         return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            predicates.add(cb.equal(root.get("propertyStatus"), PropertyStatus.published));
+            // Rendered as a literal: a generic plan cannot match a bound status to the partial indexes' predicate
+            predicates.add(cb.equal(root.get("propertyStatus"), cb.literal(PropertyStatus.published.name())));
             predicates.add(cb.isNull(root.get("deletedAt")));
 
             if (propertyType != null) {
@@ -37,8 +68,7 @@ public class ListingSpecification {
                 predicates.add(cb.lessThanOrEqualTo(root.get("pricing"), priceMax));
             }
             if (district != null) {
-                Join<Listing, ListingLocation> locationJoin = root.join("listingLocation", JoinType.INNER);
-                predicates.add(cb.equal(locationJoin.get("district"), district));
+                predicates.add(cb.equal(locationJoin(root).get("district"), district));
             }
             if (minBedrooms != null) {
                 Join<Listing, ListingDetails> detailsJoin = root.join("listingDetails", JoinType.INNER);
@@ -48,4 +78,102 @@ public class ListingSpecification {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<Listing> ownedBy(User user) {
+        return (root, query, cb) -> cb.and(
+                cb.equal(root.get("user"), user),
+                cb.isNull(root.get("deletedAt")));
+    }
+
+    public static Specification<Listing> idIn(Collection<UUID> listingIds) {
+        return (root, query, cb) -> root.get("listingId").in(listingIds);
+    }
+
+    public static Specification<Listing> createdBefore(OffsetDateTime createdAt, UUID listingId) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<OffsetDateTime>get("createdAt"), createdAt),
+                cb.and(
+                        cb.equal(root.get("createdAt"), createdAt),
+                        cb.lessThan(root.<UUID>get("listingId"), listingId)));
+    }
+
+    public static Specification<Listing> matchingText(String q) {
+        return (root, query, cb) -> cb.isTrue(
+                cb.function("fts_match", Boolean.class, root.get("searchVector"), cb.literal(q.trim())));
+    }
+
+    // Orders by ts_rank, newest first on ties. Skipped for count queries, which cannot carry an ORDER BY
+    public static Specification<Listing> orderedByRelevance(String q) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                query.orderBy(
+                        cb.desc(cb.function("fts_rank", Double.class, root.get("searchVector"), cb.literal(q.trim()))),
+                        cb.desc(root.get("createdAt")),
+                        cb.desc(root.get("listingId")));
+            }
+            return cb.conjunction();
+        };
+    }
+
+    public static Specification<Listing> withinBoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        return (root, query, cb) -> {
+            Join<Listing, ListingLocation> location = locationJoin(root);
+            return cb.isTrue(cb.function("geo_in_box", Boolean.class,
+                    location.get("latitude"), location.get("longitude"),
+                    cb.literal(minLat), cb.literal(minLng), cb.literal(maxLat), cb.literal(maxLng)));
+        };
+    }
+
+    public static Specification<Listing> withinRadius(double lat, double lng, double radiusKm) {
+        return (root, query, cb) -> {
+            Join<Listing, ListingLocation> location = locationJoin(root);
+            return cb.isTrue(cb.function("geo_within_radius", Boolean.class,
+                    location.get("latitude"), location.get("longitude"),
+                    cb.literal(lat), cb.literal(lng), cb.literal(radiusKm * 1000)));
+        };
+    }
+
+    public static Specification<Listing> withinPolygon(String polygonLiteral) {
+        return (root, query, cb) -> {
+            Join<Listing, ListingLocation> location = locationJoin(root);
+            return cb.isTrue(cb.function("geo_in_polygon", Boolean.class,
+                    location.get("latitude"), location.get("longitude"), cb.literal(polygonLiteral)));
+        };
+    }
+
+    // Nearest first from (lat, lng). Skipped for count queries, like orderedByRelevance
+    public static Specification<Listing> orderedByDistance(double lat, double lng) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                Join<Listing, ListingLocation> location = locationJoin(root);
+                query.orderBy(
+                        cb.asc(cb.function("geo_distance", Double.class,
+                                location.get("latitude"), location.get("longitude"), cb.literal(lat), cb.literal(lng))),
+                        cb.desc(root.get("listingId")));
+            }
+            return cb.conjunction();
+        };
+    }
+
+    // Reuses whatever join the filters already added, otherwise left joins so rows without the association are kept
+    @SuppressWarnings("unchecked")
+    public static <Y> Join<Listing, Y> existingOrLeftJoin(Root<Listing> root, String attribute) {
+        for (Join<Listing, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return (Join<Listing, Y>) join;
+            }
+        }
+        return root.join(attribute, JoinType.LEFT);
+    }
+
+    // Reuses an existing inner join so several location filters share a single join
+    @SuppressWarnings("unchecked")
+    private static Join<Listing, ListingLocation> locationJoin(Root<Listing> root) {
+        for (Join<Listing, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("listingLocation") && join.getJoinType() == JoinType.INNER) {
+                return (Join<Listing, ListingLocation>) join;
+            }
+        }
+        return root.join("listingLocation", JoinType.INNER);
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.urbannest.util;
+
+import com.example.urbannest.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+public class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+
+    public record Cursor(OffsetDateTime createdAt, UUID id) {
+    }
+
+    public static String encode(OffsetDateTime createdAt, UUID id) {
+        String raw = createdAt.toInstant() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            Instant createdAt = Instant.parse(raw.substring(0, separator));
+            UUID id = UUID.fromString(raw.substring(separator + 1));
+            return new Cursor(OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
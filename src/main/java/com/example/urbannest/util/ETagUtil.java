@@ -0,0 +1,60 @@
+package com.example.urbannest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+public class ETagUtil {
+
+    // Validators roll over this often while bodies hold expiring media URLs, so a revalidating client keeps a body
+    // at most this long; requireUrlsOutlive checks the URLs last that long past the detail cache
+    public static final Duration URL_WINDOW = Duration.ofMinutes(30);
+
+    private static final int TAG_BYTES = 16;
+
+    public static String strongETag(Instant now, Object... parts) {
+        StringBuilder raw = new StringBuilder().append(windowStart(now).getEpochSecond());
+        for (Object part : parts) {
+            raw.append('|').append(part);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.toString().getBytes(StandardCharsets.UTF_8));
+            byte[] tag = new byte[TAG_BYTES];
+            System.arraycopy(hash, 0, tag, 0, TAG_BYTES);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(tag);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // HTTP dates have second precision; the window start stands in for re-signed media URLs
+    public static long lastModified(OffsetDateTime updatedAt, Instant now) {
+        Instant modified = updatedAt.toInstant().truncatedTo(ChronoUnit.SECONDS);
+        Instant window = windowStart(now);
+        return (modified.isAfter(window) ? modified : window).toEpochMilli();
+    }
+
+    /**
+     * Fails unless media URLs, still valid for {@code urlLifetime} when handed out, outlive a body that sits in
+     * the detail cache for {@code detailCacheTtl} and is then revalidated for up to {@link #URL_WINDOW}. Called at
+     * startup by whatever hands out expiring URLs; {@code source} names where the lifetime comes from.
+     */
+    public static void requireUrlsOutlive(Duration urlLifetime, Duration detailCacheTtl, String source) {
+        Duration needed = detailCacheTtl.plus(URL_WINDOW);
+        if (urlLifetime.compareTo(needed) < 0) {
+            throw new IllegalArgumentException("Media URLs are valid for " + urlLifetime + " when handed out ("
+                    + source + "), less than listing.detail-cache.ttl plus the " + URL_WINDOW + " validator window ("
+                    + needed + ")");
+        }
+    }
+
+    private static Instant windowStart(Instant now) {
+        long window = URL_WINDOW.toSeconds();
+        return Instant.ofEpochSecond(now.getEpochSecond() / window * window);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.urbannest.util;
 
 import com.google.firebase.auth.FirebaseToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Objects;
@@ -9,4 +10,10 @@ public class FirebaseUtil {
     public static FirebaseToken getFirebaseToken() {
         return (FirebaseToken) Objects.requireNonNull(SecurityContextHolder.getContext().getAuthentication()).getPrincipal();
     }
+
+    // Null when a public endpoint is called without a token
+    public static FirebaseToken findFirebaseToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof FirebaseToken token ? token : null;
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.urbannest.util;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.exception.InvalidRequestException;
+
+import java.util.StringJoiner;
+
+public class GeoUtil {
+
+    private static final int MAX_POLYGON_VERTICES = 100;
+
+    // Cross-field checks that bean validation cannot express on its own
+    public static void validateSearchFilters(ListingSearchRequest filters) {
+        if (filters.hasBoundingBox()) {
+            if (filters.getMinLat() == null || filters.getMaxLat() == null
+                    || filters.getMinLng() == null || filters.getMaxLng() == null) {
+                throw new InvalidRequestException("Bounding box requires minLat, maxLat, minLng and maxLng");
+            }
+            if (filters.getMinLat() > filters.getMaxLat() || filters.getMinLng() > filters.getMaxLng()) {
+                throw new InvalidRequestException("Bounding box minimums must not exceed maximums");
+            }
+        }
+        if (filters.hasRadius() && !filters.hasOrigin()) {
+            throw new InvalidRequestException("radiusKm requires lat and lng");
+        }
+    }
+
+    // Converts "lat,lng;lat,lng;..." into a PostgreSQL polygon literal, which is ordered (x = lng, y = lat)
+    public static String toPolygonLiteral(String vertices) {
+        String[] points = vertices.split(";");
+        if (points.length < 3 || points.length > MAX_POLYGON_VERTICES) {
+            throw new InvalidRequestException("Polygon must have between 3 and " + MAX_POLYGON_VERTICES + " vertices");
+        }
+
+        StringJoiner polygon = new StringJoiner(",", "(", ")");
+        for (String point : points) {
+            String[] coordinates = point.trim().split(",");
+            if (coordinates.length != 2) {
+                throw new InvalidRequestException("Polygon vertices must be formatted as lat,lng");
+            }
+            double lat = parseCoordinate(coordinates[0], 90);
+            double lng = parseCoordinate(coordinates[1], 180);
+            polygon.add("(" + lng + "," + lat + ")");
+        }
+        return polygon.toString();
+    }
+
+    private static double parseCoordinate(String value, double bound) {
+        try {
+            double coordinate = Double.parseDouble(value.trim());
+            if (Double.isNaN(coordinate) || Math.abs(coordinate) > bound) {
+                throw new InvalidRequestException("Polygon coordinate out of range: " + value.trim());
+            }
+            return coordinate;
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Polygon coordinate is not a number: " + value.trim());
+        }
+    }
+}
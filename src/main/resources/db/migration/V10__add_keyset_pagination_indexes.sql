@@ -0,0 +1,12 @@
+-- Composite indexes backing cursor (keyset) pagination on (created_at, listing_id)
+-- Each feed is read newest first, so the indexes match the ORDER BY direction
+
+CREATE INDEX "idx_listings_published_keyset" ON "listings" ("created_at" DESC, "listing_id" DESC)
+  WHERE "property_status" = 'published' AND "deleted_at" IS NULL;
+
+CREATE INDEX "idx_listings_user_keyset" ON "listings" ("user_id", "created_at" DESC, "listing_id" DESC)
+  WHERE "deleted_at" IS NULL;
+
+CREATE INDEX "idx_favorite_listings_user_keyset" ON "favorite_listings" ("user_id", "created_at" DESC, "listing_id" DESC);
+
+CREATE INDEX "idx_saved_listings_user_keyset" ON "saved_listings" ("user_id", "created_at" DESC, "listing_id" DESC);
@@ -0,0 +1,10 @@
+-- Full-text search over listing title and description
+-- The generated column keeps the tsvector in sync on every insert/update; title matches rank above description matches
+
+ALTER TABLE "listings" ADD COLUMN "search_vector" tsvector
+  GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce("title", '')), 'A') ||
+    setweight(to_tsvector('english', coalesce("description", '')), 'B')
+  ) STORED;
+
+CREATE INDEX "idx_listings_search_vector" ON "listings" USING GIN ("search_vector");
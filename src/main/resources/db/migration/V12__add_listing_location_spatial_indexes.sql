@@ -0,0 +1,24 @@
+-- Spatial indexes on listing_locations
+-- point(longitude, latitude) backs bounding-box and polygon containment
+-- listing_earth(latitude, longitude) backs radius search and nearest-first (KNN) ordering
+
+CREATE EXTENSION IF NOT EXISTS cube;
+CREATE EXTENSION IF NOT EXISTS earthdistance;
+
+-- ll_to_earth refers to cube and earth without a schema, which index builds cannot resolve on PostgreSQL 17:
+-- they run with a restricted search_path. listing_earth pins its own search_path to wherever the extensions
+-- live, so the index and the geo search functions both go through it instead of calling ll_to_earth directly.
+DO $$
+BEGIN
+    EXECUTE format(
+            'CREATE FUNCTION listing_earth(latitude float8, longitude float8) RETURNS %1$I.earth'
+                || ' LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE SET search_path = %1$I, %2$I'
+                || ' AS ''SELECT ll_to_earth(latitude, longitude)''',
+            (SELECT n.nspname FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace WHERE e.extname = 'earthdistance'),
+            (SELECT n.nspname FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace WHERE e.extname = 'cube'));
+END
+$$;
+
+CREATE INDEX "idx_listing_locations_point" ON "listing_locations" USING GIST (point("longitude", "latitude"));
+
+CREATE INDEX "idx_listing_locations_earth" ON "listing_locations" USING GIST (listing_earth("latitude", "longitude"));
@@ -0,0 +1,20 @@
+-- Partial and composite indexes for the ListingSpecification filter paths
+-- Every public search is scoped to published, non-deleted listings, so the listings indexes share that predicate
+-- The default created_at DESC ordering without a type filter is served by idx_listings_published_keyset (V10)
+
+CREATE INDEX "idx_listings_published_type_created" ON "listings" ("property_type", "created_at" DESC, "listing_id" DESC)
+  WHERE "property_status" = 'published' AND "deleted_at" IS NULL;
+
+CREATE INDEX "idx_listings_published_pricing" ON "listings" ("pricing", "listing_id")
+  WHERE "property_status" = 'published' AND "deleted_at" IS NULL;
+
+CREATE INDEX "idx_listings_published_type_pricing" ON "listings" ("property_type", "pricing", "listing_id")
+  WHERE "property_status" = 'published' AND "deleted_at" IS NULL;
+
+-- Owner feeds use idx_listings_user_keyset (V10); this one covers ownership lookups and cascading user deletes
+CREATE INDEX "idx_listings_user_id" ON "listings" ("user_id");
+
+-- Join-side filters; listing_id is carried so the join back to listings needs no heap visit
+CREATE INDEX "idx_listing_locations_district" ON "listing_locations" ("district", "listing_id");
+
+CREATE INDEX "idx_listing_details_bedrooms" ON "listing_details" ("bedrooms_count", "listing_id");
@@ -0,0 +1,18 @@
+-- In-progress S3 multipart uploads; a row lives from initiation until the upload is completed or aborted
+-- Rows older than aws.s3.multipart.abandon-after are aborted by the sweeper, which frees the stored parts
+-- The owner is kept nullable so uploads of deleted users are still swept
+
+CREATE TABLE "multipart_uploads" (
+  "upload_id" varchar PRIMARY KEY NOT NULL,
+  "owner_user_id" uuid,
+  "s3_key" varchar NOT NULL,
+  "content_type" varchar NOT NULL,
+  "content_length" bigint NOT NULL,
+  "part_size" bigint NOT NULL,
+  "created_at" timestamptz NOT NULL DEFAULT now()
+);
+
+ALTER TABLE "multipart_uploads" ADD FOREIGN KEY ("owner_user_id")
+  REFERENCES "users" ("user_id") ON UPDATE CASCADE ON DELETE SET NULL;
+
+CREATE INDEX "idx_multipart_uploads_created_at" ON "multipart_uploads" ("created_at");
@@ -0,0 +1,5 @@
+-- Images still waiting for derivatives, oldest first, for the backfill in MediaDerivativePipeline
+-- Processed assets carry metadata -> 'derivatives' (ready, unsupported or missing) and drop out of the index
+
+CREATE INDEX "idx_media_assets_pending_derivatives" ON "media_assets" ("created_at")
+  WHERE "deleted_at" IS NULL AND ("metadata" -> 'derivatives') IS NULL;
@@ -0,0 +1,19 @@
+-- Storage keys waiting to be deleted; drained in batches by MediaDeletionService
+-- A failed key stays queued with next_attempt_at pushed back, so nothing is lost to a restart or an outage
+-- The orphan sweep queues the keys of unused media assets and removes their rows in one statement;
+-- the partial index finds the soft-deleted ones without scanning live assets
+
+CREATE TABLE "media_deletions" (
+  "s3_key" varchar PRIMARY KEY NOT NULL,
+  "attempts" integer NOT NULL DEFAULT 0,
+  "next_attempt_at" timestamptz NOT NULL DEFAULT now(),
+  "last_error" varchar,
+  "created_at" timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX "idx_media_deletions_next_attempt_at" ON "media_deletions" ("next_attempt_at");
+
+CREATE INDEX "idx_media_assets_deleted_at" ON "media_assets" ("deleted_at") WHERE "deleted_at" IS NOT NULL;
+
+-- Keys still used by another asset are never queued
+CREATE INDEX "idx_media_assets_s3_location" ON "media_assets" ("s3_location");
@@ -0,0 +1,5 @@
+-- Assets not yet checked against storage, in keyset order, for MediaVerifier
+-- Checked assets carry metadata -> 'verification' (verified or missing) and drop out of the index
+
+CREATE INDEX "idx_media_assets_pending_verification" ON "media_assets" ("created_at", "media_id")
+  WHERE "deleted_at" IS NULL AND ("metadata" -> 'verification') IS NULL;
@@ -0,0 +1,20 @@
+-- SHA-256 of the stored bytes (lowercase hex), set once MediaVerifier has confirmed it
+-- An owner has at most one live asset per hash; identical uploads resolve to that asset
+-- ref_count is the number of listing and blog links, kept current wherever links are added or moved
+
+ALTER TABLE "media_assets" ADD COLUMN "content_hash" varchar(64);
+ALTER TABLE "media_assets" ADD COLUMN "ref_count" integer NOT NULL DEFAULT 0;
+
+UPDATE "media_assets" ma
+SET "ref_count" = (SELECT count(*) FROM "listing_media" lm WHERE lm."media_id" = ma."media_id")
+                + (SELECT count(*) FROM "blog_media" bm WHERE bm."media_id" = ma."media_id");
+
+CREATE UNIQUE INDEX "uq_media_assets_owner_content_hash" ON "media_assets" ("owner_user_id", "content_hash")
+  WHERE "deleted_at" IS NULL;
+
+-- A shared asset is linked from several listings and blogs, so media_id alone is no longer unique
+DROP INDEX "listing_media_media_id_idx";
+CREATE INDEX "idx_listing_media_media_id" ON "listing_media" ("media_id");
+
+DROP INDEX "blog_media_media_id_idx";
+CREATE INDEX "idx_blog_media_media_id" ON "blog_media" ("media_id");
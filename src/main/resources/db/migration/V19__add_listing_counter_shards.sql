@@ -0,0 +1,13 @@
+-- Optional sharded favorite/save counters, for listings hot enough that one listing_counters row serializes writers
+-- Writes add to one of N shard rows per listing; ListingCounterService folds the deltas back into listing_counters
+-- Reads add the deltas not folded yet, so either mode returns the same totals
+
+CREATE TABLE "listing_counter_shards" (
+  "listing_id" uuid NOT NULL,
+  "shard" smallint NOT NULL,
+  "favorite_delta" integer NOT NULL DEFAULT 0,
+  "save_delta" integer NOT NULL DEFAULT 0,
+  PRIMARY KEY ("listing_id", "shard")
+);
+
+ALTER TABLE "listing_counter_shards" ADD FOREIGN KEY ("listing_id") REFERENCES "listings" ("listing_id") ON DELETE CASCADE;
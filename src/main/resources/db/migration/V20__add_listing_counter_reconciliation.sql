@@ -0,0 +1,11 @@
+-- Progress of the favorite/save count reconciliation, which walks listing_counters in listing_id order
+-- A single row: last_listing_id is where the next chunk starts (null for the beginning), and locking it
+-- keeps a second instance from walking at the same time
+
+CREATE TABLE "listing_counter_reconciliation" (
+  "id" smallint PRIMARY KEY DEFAULT 1 CHECK ("id" = 1),
+  "last_listing_id" uuid,
+  "updated_at" timestamptz NOT NULL DEFAULT now()
+);
+
+INSERT INTO "listing_counter_reconciliation" ("id") VALUES (1);
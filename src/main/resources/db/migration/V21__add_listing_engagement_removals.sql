@@ -0,0 +1,21 @@
+-- Last-writer-wins for favorites and saves synced by offline clients, in both directions
+-- changed_at is the (clamped) client time of the latest synced add; null means the row was added online at created_at
+-- listing_engagement_removals keeps the latest removal per user, listing and kind, so an add queued before it is skipped
+
+ALTER TABLE "favorite_listings" ADD COLUMN "changed_at" timestamptz;
+
+ALTER TABLE "saved_listings" ADD COLUMN "changed_at" timestamptz;
+
+CREATE TABLE "listing_engagement_removals" (
+  "user_id" uuid NOT NULL,
+  "listing_id" uuid NOT NULL,
+  "kind" text NOT NULL CHECK ("kind" IN ('favorite', 'save')),
+  "removed_at" timestamptz NOT NULL,
+  PRIMARY KEY ("user_id", "listing_id", "kind")
+);
+
+ALTER TABLE "listing_engagement_removals" ADD FOREIGN KEY ("user_id")
+  REFERENCES "users" ("user_id") ON UPDATE CASCADE ON DELETE CASCADE;
+
+ALTER TABLE "listing_engagement_removals" ADD FOREIGN KEY ("listing_id")
+  REFERENCES "listings" ("listing_id") ON UPDATE CASCADE ON DELETE CASCADE;
@@ -1,13 +1,23 @@
 package com.example.urbannest.controller;
 
+import com.example.urbannest.dto.Requests.EngagementSyncRequest;
 import com.example.urbannest.dto.Requests.ListingCreateRequest;
 import com.example.urbannest.dto.Responses.ApiResponse;
+import com.example.urbannest.dto.Responses.CursorPageResponse;
+import com.example.urbannest.dto.Responses.EngagementSyncResponse;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse;
 import com.example.urbannest.dto.Responses.ListingResponse;
-import com.example.urbannest.exception.ResourceAlreadyExistsException;
+import com.example.urbannest.dto.Responses.ListingSummaryResponse;
+import com.example.urbannest.dto.Responses.LocationSuggestionResponse;
+import com.example.urbannest.exception.InvalidRequestException;
 import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.media.MediaSize;
 import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.search.LocationSuggestIndex;
 import com.example.urbannest.security.FirebaseAuthFilter;
+import com.example.urbannest.service.ListingFacetService;
 import com.example.urbannest.service.ListingService;
+import com.example.urbannest.service.ListingViewCounter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.firebase.auth.FirebaseToken;
 import org.junit.jupiter.api.AfterEach;
@@ -26,10 +36,19 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,6 +65,15 @@ class ListingControllerTest {
     @MockitoBean
     private ListingService listingService;
 
+    @MockitoBean
+    private ListingFacetService listingFacetService;
+
+    @MockitoBean
+    private LocationSuggestIndex locationSuggestIndex;
+
+    @MockitoBean
+    private ListingViewCounter listingViewCounter;
+
     @MockitoBean
     private FirebaseAuthFilter firebaseAuthFilter;
 
@@ -67,8 +95,8 @@ class ListingControllerTest {
     @Test
     void getListings_returns200WithPage() throws Exception {
         Page<ListingResponse> page = new PageImpl<>(List.of());
-        when(listingService.getListings(any(), any(), any(), any(), any(), any()))
-                .thenReturn(page);
+        when(listingService.getListings(any(), any(), any(), any()))
+                .thenReturn(Optional.of(page));
 
         mockMvc.perform(get("/listings"))
                 .andExpect(status().isOk())
@@ -77,8 +105,8 @@ class ListingControllerTest {
 
     @Test
     void getListings_withFilters_passes200() throws Exception {
-        when(listingService.getListings(any(), any(), any(), any(), any(), any()))
-                .thenReturn(new PageImpl<>(List.of()));
+        when(listingService.getListings(any(), any(), any(), any()))
+                .thenReturn(Optional.of(new PageImpl<>(List.of())));
 
         mockMvc.perform(get("/listings")
                         .param("propertyType", "apartment")
@@ -89,6 +117,149 @@ class ListingControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void getListings_withTextQuery_bindsQIntoFilters() throws Exception {
+        when(listingService.getListings(any(), any(), any(), any()))
+                .thenReturn(Optional.of(new PageImpl<>(List.of())));
+
+        mockMvc.perform(get("/listings")
+                        .param("q", "lake view")
+                        .param("district", "Dhaka"))
+                .andExpect(status().isOk());
+
+        verify(listingService).getListings(
+                argThat(filters -> "lake view".equals(filters.getQ()) && "Dhaka".equals(filters.getDistrict())),
+                any(), any(), any());
+    }
+
+    @Test
+    void getListings_withGeoFilters_bindsCoordinates() throws Exception {
+        when(listingService.getListings(any(), any(), any(), any()))
+                .thenReturn(Optional.of(new PageImpl<>(List.of())));
+
+        mockMvc.perform(get("/listings")
+                        .param("lat", "23.78")
+                        .param("lng", "90.42")
+                        .param("radiusKm", "5")
+                        .param("sort", "distance"))
+                .andExpect(status().isOk());
+
+        verify(listingService).getListings(
+                argThat(filters -> filters.hasOrigin() && filters.getRadiusKm() == 5.0),
+                argThat(pageable -> pageable.getSort().getOrderFor("distance") != null), any(), any());
+    }
+
+    @Test
+    void getListings_matchingPageETag_returns304() throws Exception {
+        when(listingService.getListings(any(), any(), any(), any())).thenAnswer(inv ->
+                inv.<Predicate<String>>getArgument(3).test("page-1")
+                        ? Optional.empty()
+                        : Optional.of(new PageImpl<>(List.of())));
+
+        mockMvc.perform(get("/listings").header("If-None-Match", "\"page-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"page-1\""));
+    }
+
+    @Test
+    void getListings_withOutOfRangeLatitude_returns400() throws Exception {
+        mockMvc.perform(get("/listings").param("lat", "123").param("lng", "90"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getListings_withTooLongQuery_returns400() throws Exception {
+        mockMvc.perform(get("/listings").param("q", "x".repeat(201)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getListings_withCursorParam_returnsSliceWithoutTotals() throws Exception {
+        when(listingService.getListingsByCursor(any(), eq(""), anyInt(), any()))
+                .thenReturn(new CursorPageResponse<>(List.of(), "next-token"));
+
+        mockMvc.perform(get("/listings").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    void getListings_withInvalidCursor_returns400() throws Exception {
+        when(listingService.getListingsByCursor(any(), eq("bogus"), anyInt(), any()))
+                .thenThrow(new InvalidRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/listings").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void getListings_withSummaryView_returnsSummaryPage() throws Exception {
+        ListingSummaryResponse summary = new ListingSummaryResponse();
+        summary.setTitle("Test Listing");
+        summary.setCoverImageUrl("https://s3/cover.jpg");
+        when(listingService.getListingSummaries(any(), any(), any())).thenReturn(new PageImpl<>(List.of(summary)));
+
+        mockMvc.perform(get("/listings").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].coverImageUrl").value("https://s3/cover.jpg"))
+                .andExpect(jsonPath("$.content[0].media").doesNotExist());
+    }
+
+    @Test
+    void getListings_withSummaryViewAndCursor_returnsSummarySlice() throws Exception {
+        when(listingService.getListingSummariesByCursor(any(), eq(""), anyInt(), any()))
+                .thenReturn(new CursorPageResponse<>(List.of(), null));
+
+        mockMvc.perform(get("/listings").param("view", "summary").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    // ========== GET /listings/suggest (public) ==========
+
+    @Test
+    void suggestLocations_returns200WithSuggestions() throws Exception {
+        when(locationSuggestIndex.suggest("gul", 10)).thenReturn(List.of(
+                new LocationSuggestionResponse("Gulshan", "area", "Dhaka", 12)));
+
+        mockMvc.perform(get("/listings/suggest").param("prefix", "gul"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value("Gulshan"))
+                .andExpect(jsonPath("$[0].district").value("Dhaka"))
+                .andExpect(jsonPath("$[0].listingCount").value(12));
+    }
+
+    @Test
+    void suggestLocations_missingPrefix_returns400() throws Exception {
+        mockMvc.perform(get("/listings/suggest"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ========== GET /listings/facets (public) ==========
+
+    @Test
+    void getListingFacets_returns200WithCounts() throws Exception {
+        ListingFacetsResponse facets = new ListingFacetsResponse();
+        facets.setTotal(3);
+        facets.setDistricts(List.of(new ListingFacetsResponse.FacetCount("Dhaka", 3)));
+        when(listingFacetService.getFacets(argThat(f -> "Dhaka".equals(f.getDistrict())))).thenReturn(facets);
+
+        mockMvc.perform(get("/listings/facets").param("district", "Dhaka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.districts[0].value").value("Dhaka"))
+                .andExpect(jsonPath("$.districts[0].count").value(3));
+    }
+
+    @Test
+    void getListingFacets_invalidFilter_returns400() throws Exception {
+        mockMvc.perform(get("/listings/facets").param("radiusKm", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
     // ========== GET /listings/{id} (public) ==========
 
     @Test
@@ -97,22 +268,102 @@ class ListingControllerTest {
         ListingResponse response = new ListingResponse();
         response.setListingId(id);
         response.setTitle("Test Listing");
-        when(listingService.getListingById(id)).thenReturn(response);
+        when(listingService.getListingById(eq(id), eq(MediaSize.original), any(), any())).thenReturn(Optional.of(response));
 
         mockMvc.perform(get("/listings/{id}", id))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Test Listing"));
+
+        verify(listingViewCounter).record(id, "user:test-uid");
+    }
+
+    @Test
+    void getListingById_signedIn_passesTokenAndReturnsViewerFlags() throws Exception {
+        UUID id = UUID.randomUUID();
+        ListingResponse response = new ListingResponse();
+        response.setIsFavorited(true);
+        response.setIsSaved(false);
+        when(listingService.getListingById(eq(id), any(), argThat(token -> "test-uid".equals(token.getUid())), any()))
+                .thenReturn(Optional.of(response));
+
+        mockMvc.perform(get("/listings/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isFavorited").value(true))
+                .andExpect(jsonPath("$.isSaved").value(false));
+    }
+
+    @Test
+    void getListingById_anonymous_countsViewByAddressAndAgent() throws Exception {
+        SecurityContextHolder.clearContext();
+        UUID id = UUID.randomUUID();
+        when(listingService.getListingById(eq(id), any(), any(), any())).thenReturn(Optional.of(new ListingResponse()));
+
+        mockMvc.perform(get("/listings/{id}", id)
+                        .header("User-Agent", "test-agent")
+                        .with(request -> {
+                            request.setRemoteAddr("203.0.113.7");
+                            return request;
+                        }))
+                .andExpect(status().isOk());
+
+        verify(listingViewCounter).record(id, "anonymous:203.0.113.7|test-agent");
+        verify(listingService).getListingById(eq(id), any(), isNull(), any());
+    }
+
+    @Test
+    void getListingById_mediaSize_passedToService() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(listingService.getListingById(eq(id), eq(MediaSize.small), any(), any()))
+                .thenReturn(Optional.of(new ListingResponse()));
+
+        mockMvc.perform(get("/listings/{id}", id).param("mediaSize", "small"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getListingById_matchingETag_returns304WithValidators() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(listingService.getListingById(eq(id), any(), any(), any())).thenAnswer(inv ->
+                inv.<BiPredicate<String, Long>>getArgument(3).test("v1", 1_700_000_000_000L)
+                        ? Optional.empty()
+                        : Optional.of(new ListingResponse()));
+
+        mockMvc.perform(get("/listings/{id}", id).header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().string(""));
+
+        verify(listingViewCounter).record(eq(id), any());
+    }
+
+    @Test
+    void getListingById_staleETag_returns200WithNewETag() throws Exception {
+        UUID id = UUID.randomUUID();
+        ListingResponse response = new ListingResponse();
+        response.setTitle("Test Listing");
+        when(listingService.getListingById(eq(id), any(), any(), any())).thenAnswer(inv ->
+                inv.<BiPredicate<String, Long>>getArgument(3).test("v2", 1_700_000_000_000L)
+                        ? Optional.empty()
+                        : Optional.of(response));
+
+        mockMvc.perform(get("/listings/{id}", id).header("If-None-Match", "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v2\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(jsonPath("$.title").value("Test Listing"));
     }
 
     @Test
     void getListingById_notFound_returns404() throws Exception {
         UUID id = UUID.randomUUID();
-        when(listingService.getListingById(id))
+        when(listingService.getListingById(eq(id), any(), any(), any()))
                 .thenThrow(new ResourceNotFoundException("Listing not found"));
 
         mockMvc.perform(get("/listings/{id}", id))
                 .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.success").value(false));
+
+        verifyNoInteractions(listingViewCounter);
     }
 
     // ========== POST /listings (authenticated) ==========
@@ -166,14 +417,49 @@ class ListingControllerTest {
     }
 
     @Test
-    void addFavorite_alreadyFavorited_returns409() throws Exception {
+    void addFavorite_alreadyFavorited_succeeds() throws Exception {
         UUID id = UUID.randomUUID();
         when(listingService.addFavorite(any(), any()))
-                .thenThrow(new ResourceAlreadyExistsException("Already favorited"));
+                .thenReturn(new ApiResponse(true, "Listing is already in favorites"));
 
         mockMvc.perform(post("/listings/{id}/favorite", id))
-                .andExpect(status().isConflict())
-                .andExpect(jsonPath("$.success").value(false));
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+
+    // ========== POST /listings/engagement/sync (authenticated) ==========
+
+    @Test
+    void syncEngagement_returnsOutcome() throws Exception {
+        EngagementSyncResponse outcome = new EngagementSyncResponse();
+        outcome.setApplied(1);
+        outcome.setIgnored(1);
+        when(listingService.syncEngagement(any(), any())).thenReturn(outcome);
+
+        mockMvc.perform(post("/listings/engagement/sync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"operations": [
+                                  {"listingId": "%s", "action": "favorite", "clientTimestamp": "2026-01-15T10:30:00Z"},
+                                  {"listingId": "%<s", "action": "unfavorite", "clientTimestamp": "2026-01-15T10:31:00Z"}
+                                ]}""".formatted(UUID.randomUUID())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.ignored").value(1));
+
+        verify(listingService).syncEngagement(any(), argThat(request -> request.getOperations().size() == 2
+                && request.getOperations().get(1).getAction() == EngagementSyncRequest.Action.unfavorite));
+    }
+
+    @Test
+    void syncEngagement_missingTimestamp_returns400() throws Exception {
+        mockMvc.perform(post("/listings/engagement/sync")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"operations": [{"listingId": "%s", "action": "save"}]}""".formatted(UUID.randomUUID())))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(listingService);
     }
 
     // ========== Helper ==========
@@ -0,0 +1,124 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.media.LocalMediaStorage;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.media.MediaUploadPolicy;
+import com.example.urbannest.security.FirebaseAuthFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = LocalMediaController.class, properties = "media.storage=local")
+@Import({LocalMediaStorage.class, MediaUploadPolicy.class})
+@AutoConfigureMockMvc(addFilters = false)
+class LocalMediaControllerTest {
+
+    private static final byte[] PHOTO = "0123456789".getBytes();
+
+    @TempDir
+    static Path root;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("media.local.root", root::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LocalMediaStorage storage;
+
+    @MockitoBean
+    private FirebaseAuthFilter firebaseAuthFilter;
+
+    @Test
+    void upload_thenDownload_roundTripsThroughSignedUrls() throws Exception {
+        upload("listings/a/photo.jpg");
+
+        mockMvc.perform(get(URI.create(storage.downloadUrl("listings/a/photo.jpg"))).contextPath("/api"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "10"))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(PHOTO));
+    }
+
+    @Test
+    void download_singleRange_returns206WithSlice() throws Exception {
+        upload("listings/b/photo.jpg");
+
+        mockMvc.perform(get(URI.create(storage.downloadUrl("listings/b/photo.jpg"))).contextPath("/api")
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().bytes("2345".getBytes()));
+    }
+
+    @Test
+    void download_rangePastEnd_returns416() throws Exception {
+        upload("listings/c/photo.jpg");
+
+        mockMvc.perform(get(URI.create(storage.downloadUrl("listings/c/photo.jpg"))).contextPath("/api")
+                        .header(HttpHeaders.RANGE, "bytes=50-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void download_sendfileSupported_handsFileToConnector() throws Exception {
+        upload("listings/d/photo.jpg");
+
+        mockMvc.perform(get(URI.create(storage.downloadUrl("listings/d/photo.jpg"))).contextPath("/api")
+                        .requestAttr(LocalMediaController.SENDFILE_SUPPORT, true)
+                        .header(HttpHeaders.RANGE, "bytes=-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(request().attribute(LocalMediaController.SENDFILE_START, 6L))
+                .andExpect(request().attribute(LocalMediaController.SENDFILE_END, 10L))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void upload_wrongContentTypeOrLength_isRejected() throws Exception {
+        URI url = URI.create(storage.uploadUrl(
+                new MediaStorage.UploadTarget("listings/e/photo.jpg", "image/jpeg", (long) PHOTO.length, null)));
+
+        mockMvc.perform(put(url).contextPath("/api").contentType("image/png").content(PHOTO))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put(url).contextPath("/api").contentType("image/jpeg").content(new byte[4]))
+                .andExpect(status().isBadRequest());
+        assertThat(root.resolve("listings/e/photo.jpg")).doesNotExist();
+    }
+
+    @Test
+    void download_badSignature_returns403() throws Exception {
+        upload("listings/f/photo.jpg");
+        String url = storage.downloadUrl("listings/f/photo.jpg").replaceAll("signature=[^&]+", "signature=forged");
+
+        mockMvc.perform(get(URI.create(url)).contextPath("/api"))
+                .andExpect(status().isForbidden());
+    }
+
+    private void upload(String key) throws Exception {
+        URI url = URI.create(storage.uploadUrl(new MediaStorage.UploadTarget(key, "image/jpeg", (long) PHOTO.length, null)));
+        mockMvc.perform(put(url).contextPath("/api").contentType("image/jpeg").content(PHOTO))
+                .andExpect(status().isOk());
+        assertThat(root.resolve(key)).hasBinaryContent(PHOTO);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.media.MediaUrlStrategy;
+import com.example.urbannest.security.FirebaseAuthFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.ResponseCookie;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(MediaController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class MediaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private MediaUrlStrategy mediaUrlStrategy;
+
+    @MockitoBean
+    private FirebaseAuthFilter firebaseAuthFilter;
+
+    @Test
+    void getMediaAccess_signedCookieMode_setsCookies() throws Exception {
+        when(mediaUrlStrategy.accessCookies()).thenReturn(List.of(
+                ResponseCookie.from("CloudFront-Policy", "policy").maxAge(Duration.ofHours(24)).build(),
+                ResponseCookie.from("CloudFront-Signature", "signature").maxAge(Duration.ofHours(24)).build()));
+
+        mockMvc.perform(get("/media/access"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(cookie().value("CloudFront-Policy", "policy"))
+                .andExpect(cookie().value("CloudFront-Signature", "signature"));
+    }
+
+    @Test
+    void getMediaAccess_noCredentialNeeded_setsNothing() throws Exception {
+        when(mediaUrlStrategy.accessCookies()).thenReturn(List.of());
+
+        mockMvc.perform(get("/media/access"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().doesNotExist("Set-Cookie"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.urbannest.controller;
+
+import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.dto.Requests.MultipartPartsRequest;
+import com.example.urbannest.dto.Responses.MultipartPartUrlResponse;
+import com.example.urbannest.dto.Responses.MultipartUploadResponse;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.security.FirebaseAuthFilter;
+import com.example.urbannest.service.MultipartUploadService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.auth.FirebaseToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(MultipartUploadController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class MultipartUploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @MockitoBean
+    private MultipartUploadService multipartUploadService;
+
+    @MockitoBean
+    private FirebaseAuthFilter firebaseAuthFilter;
+
+    @BeforeEach
+    void setUp() {
+        FirebaseToken mockToken = mock(FirebaseToken.class);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(mockToken, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void initiate_returns201WithPartLayout() throws Exception {
+        MultipartUploadResponse response = new MultipartUploadResponse();
+        response.setKey("listings/x/tour.mp4");
+        response.setUploadId("upload-1");
+        response.setPartSize(8_388_608L);
+        response.setPartCount(3);
+        response.setUploadedParts(List.of());
+        when(multipartUploadService.initiate(any(), any())).thenReturn(response);
+
+        MediaUploadRequest request = new MediaUploadRequest();
+        request.setFileName("tour.mp4");
+        request.setContentType("video/mp4");
+        request.setCategory("listings");
+        request.setContentLength(20_000_000L);
+
+        mockMvc.perform(post("/s3/multipart-uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.uploadId").value("upload-1"))
+                .andExpect(jsonPath("$.partCount").value(3));
+    }
+
+    @Test
+    void initiate_withoutContentLength_returns400() throws Exception {
+        MediaUploadRequest request = new MediaUploadRequest();
+        request.setFileName("tour.mp4");
+        request.setContentType("video/mp4");
+        request.setCategory("listings");
+
+        mockMvc.perform(post("/s3/multipart-uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(multipartUploadService);
+    }
+
+    @Test
+    void presignParts_returnsUrlPerPart() throws Exception {
+        MultipartPartUrlResponse part = new MultipartPartUrlResponse();
+        part.setPartNumber(2);
+        part.setUploadUrl("https://s3/part/2");
+        part.setContentLength(8_388_608L);
+        when(multipartUploadService.presignParts(any(), eq("upload-1"), eq(List.of(2)))).thenReturn(List.of(part));
+
+        MultipartPartsRequest request = new MultipartPartsRequest();
+        request.setPartNumbers(List.of(2));
+
+        mockMvc.perform(post("/s3/multipart-uploads/upload-1/parts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uploadUrl").value("https://s3/part/2"));
+    }
+
+    @Test
+    void presignParts_invalidPartNumbers_returns400() throws Exception {
+        MultipartPartsRequest request = new MultipartPartsRequest();
+        request.setPartNumbers(List.of(0));
+
+        mockMvc.perform(post("/s3/multipart-uploads/upload-1/parts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(multipartUploadService);
+    }
+
+    @Test
+    void complete_missingParts_returns400() throws Exception {
+        when(multipartUploadService.complete(any(), eq("upload-1")))
+                .thenThrow(new InvalidRequestException("1 parts are missing or incomplete: [3]"));
+
+        mockMvc.perform(post("/s3/multipart-uploads/upload-1/complete"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("1 parts are missing or incomplete: [3]"));
+    }
+
+    @Test
+    void abort_returns204() throws Exception {
+        mockMvc.perform(delete("/s3/multipart-uploads/upload-1"))
+                .andExpect(status().isNoContent());
+
+        verify(multipartUploadService).abort(any(), eq("upload-1"));
+    }
+}
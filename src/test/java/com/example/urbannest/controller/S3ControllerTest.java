@@ -1,24 +1,45 @@
 package com.example.urbannest.controller;
 
+import com.example.urbannest.dto.Requests.MediaUploadBatchRequest;
 import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.media.MediaUploadPolicy;
 import com.example.urbannest.security.FirebaseAuthFilter;
-import com.example.urbannest.service.S3Service;
+import com.example.urbannest.service.MediaAssetService;
+import com.example.urbannest.service.MediaDeletionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.auth.FirebaseToken;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
-import static org.mockito.ArgumentMatchers.anyString;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(S3Controller.class)
+@Import(MediaUploadPolicy.class)
 @AutoConfigureMockMvc(addFilters = false)
 class S3ControllerTest {
 
@@ -28,20 +49,27 @@ class S3ControllerTest {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @MockitoBean
-    private S3Service s3Service;
+    private MediaStorage mediaStorage;
+
+    @MockitoBean
+    private MediaDeletionService mediaDeletionService;
+
+    @MockitoBean
+    private MediaAssetService mediaAssetService;
 
     @MockitoBean
     private FirebaseAuthFilter firebaseAuthFilter;
 
     @Test
     void getUploadUrl_validRequest_returns200() throws Exception {
-        when(s3Service.generateUploadUrl(anyString(), anyString()))
+        when(mediaStorage.uploadUrl(any()))
                 .thenReturn("https://s3.presigned/upload");
 
         MediaUploadRequest request = new MediaUploadRequest();
         request.setFileName("photo.jpg");
         request.setContentType("image/jpeg");
         request.setCategory("listings");
+        request.setContentLength(2_000_000L);
 
         mockMvc.perform(post("/s3/upload-request")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -61,9 +89,157 @@ class S3ControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void getUploadUrl_disallowedContentType_returns400() throws Exception {
+        MediaUploadRequest request = uploadRequest("script.sh", "application/x-sh", 1_000L);
+
+        mockMvc.perform(post("/s3/upload-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mediaStorage);
+    }
+
+    @Test
+    void getUploadUrls_validBatch_returnsUrlsInOrder() throws Exception {
+        when(mediaStorage.uploadUrls(anyList())).thenAnswer(invocation -> {
+            List<MediaStorage.UploadTarget> targets = invocation.getArgument(0);
+            return targets.stream().map(target -> "https://s3.presigned/" + target.key()).toList();
+        });
+
+        MediaUploadBatchRequest request = new MediaUploadBatchRequest();
+        request.setItems(List.of(
+                uploadRequest("front.jpg", "image/jpeg", 2_000_000L),
+                uploadRequest("kitchen.webp", "image/webp", 1_500_000L)));
+
+        mockMvc.perform(post("/s3/upload-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value(matchesPattern("listings/[0-9a-f-]{36}/front\\.jpg")))
+                .andExpect(jsonPath("$[1].key").value(endsWith("/kitchen.webp")))
+                .andExpect(jsonPath("$[1].uploadUrl").value(startsWith("https://s3.presigned/listings/")));
+    }
+
+    @Test
+    void getUploadUrls_contentAlreadyStored_returnsStoredKeyWithoutUrl() throws Exception {
+        String stored = "ab".repeat(32);
+        FirebaseToken token = mock(FirebaseToken.class);
+        when(token.getUid()).thenReturn("test-firebase-uid");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(token, null, List.of()));
+        when(mediaAssetService.findStoredKeys("test-firebase-uid", List.of(stored, "cd".repeat(32))))
+                .thenReturn(Map.of(stored, "listings/old/front.jpg"));
+        when(mediaStorage.uploadUrls(anyList())).thenReturn(List.of("https://s3.presigned/kitchen"));
+
+        MediaUploadRequest known = uploadRequest("front.jpg", "image/jpeg", 2_000_000L);
+        known.setContentHash(stored);
+        MediaUploadRequest fresh = uploadRequest("kitchen.jpg", "image/jpeg", 1_000_000L);
+        fresh.setContentHash("cd".repeat(32));
+        MediaUploadBatchRequest request = new MediaUploadBatchRequest();
+        request.setItems(List.of(known, fresh));
+
+        try {
+            mockMvc.perform(post("/s3/upload-requests")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].key").value("listings/old/front.jpg"))
+                    .andExpect(jsonPath("$[0].alreadyStored").value(true))
+                    .andExpect(jsonPath("$[0].uploadUrl").doesNotExist())
+                    .andExpect(jsonPath("$[1].alreadyStored").value(false))
+                    .andExpect(jsonPath("$[1].uploadUrl").value("https://s3.presigned/kitchen"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        ArgumentCaptor<List<MediaStorage.UploadTarget>> targets = ArgumentCaptor.captor();
+        verify(mediaStorage).uploadUrls(targets.capture());
+        assertThat(targets.getValue()).singleElement()
+                .satisfies(target -> assertThat(target.contentHash()).isEqualTo("cd".repeat(32)));
+    }
+
+    @Test
+    void getUploadUrl_malformedContentHash_returns400() throws Exception {
+        MediaUploadRequest request = uploadRequest("front.jpg", "image/jpeg", 1_000L);
+        request.setContentHash("not-a-hash");
+
+        mockMvc.perform(post("/s3/upload-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mediaStorage, mediaAssetService);
+    }
+
+    @Test
+    void getUploadUrls_oversizedItem_rejectsWholeBatch() throws Exception {
+        MediaUploadBatchRequest request = new MediaUploadBatchRequest();
+        request.setItems(List.of(
+                uploadRequest("front.jpg", "image/jpeg", 1_000L),
+                uploadRequest("tour.mp4", "video/mp4", 500L * 1024 * 1024)));
+
+        mockMvc.perform(post("/s3/upload-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mediaStorage);
+    }
+
+    @Test
+    void getUploadUrls_itemWithoutContentLength_rejectsWholeBatch() throws Exception {
+        MediaUploadBatchRequest request = new MediaUploadBatchRequest();
+        request.setItems(List.of(
+                uploadRequest("front.jpg", "image/jpeg", 1_000L),
+                uploadRequest("kitchen.jpg", "image/jpeg", null)));
+
+        mockMvc.perform(post("/s3/upload-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/s3/upload-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(uploadRequest("front.jpg", "image/jpeg", null))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mediaStorage);
+    }
+
+    @Test
+    void getUploadUrls_overCap_returns400() throws Exception {
+        MediaUploadBatchRequest request = new MediaUploadBatchRequest();
+        request.setItems(IntStream.range(0, 31)
+                .mapToObj(i -> uploadRequest(i + ".jpg", "image/jpeg", 1_000L))
+                .toList());
+
+        mockMvc.perform(post("/s3/upload-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mediaStorage);
+    }
+
+    @Test
+    void getUploadUrls_emptyOrInvalidItems_returns400() throws Exception {
+        MediaUploadBatchRequest empty = new MediaUploadBatchRequest();
+        empty.setItems(List.of());
+        MediaUploadBatchRequest blankName = new MediaUploadBatchRequest();
+        blankName.setItems(List.of(uploadRequest("", "image/jpeg", 1_000L)));
+
+        for (MediaUploadBatchRequest request : List.of(empty, blankName)) {
+            mockMvc.perform(post("/s3/upload-requests")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Test
     void getDownloadUrl_returns200() throws Exception {
-        when(s3Service.generateDownloadUrl("listings/photo.jpg"))
+        when(mediaStorage.downloadUrl("listings/photo.jpg"))
                 .thenReturn("https://s3.presigned/download");
 
         mockMvc.perform(get("/s3/download-url")
@@ -73,11 +249,21 @@ class S3ControllerTest {
     }
 
     @Test
-    void deleteObject_returns204() throws Exception {
+    void deleteObject_queuesKeyAndReturns202() throws Exception {
         mockMvc.perform(delete("/s3")
                         .param("key", "listings/photo.jpg"))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isAccepted());
 
-        verify(s3Service).deleteObject("listings/photo.jpg");
+        verify(mediaDeletionService).enqueue("listings/photo.jpg");
+        verifyNoInteractions(mediaStorage);
+    }
+
+    private static MediaUploadRequest uploadRequest(String fileName, String contentType, Long contentLength) {
+        MediaUploadRequest request = new MediaUploadRequest();
+        request.setFileName(fileName);
+        request.setContentType(contentType);
+        request.setCategory("listings");
+        request.setContentLength(contentLength);
+        return request;
     }
 }
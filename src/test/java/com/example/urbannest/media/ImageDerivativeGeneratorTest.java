@@ -0,0 +1,122 @@
+package com.example.urbannest.media;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativeGeneratorTest {
+
+    private final ImageDerivativeGenerator generator = new ImageDerivativeGenerator();
+
+    @Test
+    void generate_largePhoto_producesEverySizeWithinItsEdge() throws IOException {
+        ImageDerivativeGenerator.Result result = generator.generate(jpeg(3000, 2000));
+
+        assertThat(result.width()).isEqualTo(3000);
+        assertThat(result.height()).isEqualTo(2000);
+        assertThat(result.renditions())
+                .extracting(ImageDerivativeGenerator.Rendition::size)
+                .containsExactly(MediaSize.large, MediaSize.medium, MediaSize.small);
+        ImageDerivativeGenerator.Rendition large = result.renditions().get(0);
+        assertThat(large.width()).isEqualTo(1280);
+        assertThat(large.height()).isEqualTo(853);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(large.bytes()));
+        assertThat(decoded.getWidth()).isEqualTo(1280);
+    }
+
+    @Test
+    void generate_smallPhoto_isNeverUpscaled() throws IOException {
+        ImageDerivativeGenerator.Result result = generator.generate(jpeg(500, 400));
+
+        assertThat(result.renditions())
+                .extracting(ImageDerivativeGenerator.Rendition::size)
+                .containsExactly(MediaSize.small);
+    }
+
+    @Test
+    void generate_placeholderIsTinyJpegDataUri() throws IOException {
+        String placeholder = generator.generate(jpeg(800, 600)).placeholder();
+
+        assertThat(placeholder).startsWith("data:image/jpeg;base64,");
+        byte[] bytes = Base64.getDecoder().decode(placeholder.substring(placeholder.indexOf(',') + 1));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertThat(decoded.getWidth()).isEqualTo(ImageDerivativeGenerator.PLACEHOLDER_EDGE);
+        assertThat(decoded.getHeight()).isEqualTo(12);
+    }
+
+    @Test
+    void generate_exifRotatedPhoto_variantsAreUpright() throws IOException {
+        byte[] rotated = withExifOrientation(jpeg(400, 200), 6);
+
+        ImageDerivativeGenerator.Result result = generator.generate(rotated);
+
+        assertThat(result.width()).isEqualTo(200);
+        assertThat(result.height()).isEqualTo(400);
+        ImageDerivativeGenerator.Rendition small = result.renditions().get(0);
+        assertThat(small.width()).isEqualTo(160);
+        assertThat(small.height()).isEqualTo(320);
+    }
+
+    @Test
+    void generate_notDecodable_returnsNull() {
+        assertThat(generator.generate("ftypheic not an image".getBytes(StandardCharsets.US_ASCII))).isNull();
+    }
+
+    @Test
+    void exifOrientation_readsTagOrDefaultsToUpright() throws IOException {
+        byte[] plain = jpeg(10, 10);
+
+        assertThat(ImageDerivativeGenerator.exifOrientation(plain)).isEqualTo(1);
+        assertThat(ImageDerivativeGenerator.exifOrientation(withExifOrientation(plain, 8))).isEqualTo(8);
+        assertThat(ImageDerivativeGenerator.exifOrientation(new byte[]{1, 2, 3})).isEqualTo(1);
+    }
+
+    @Test
+    void orient_rotateClockwise_movesTopLeftToTopRight() {
+        BufferedImage source = new BufferedImage(4, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, Color.RED.getRGB());
+
+        BufferedImage oriented = ImageDerivativeGenerator.orient(source, 6);
+
+        assertThat(oriented.getWidth()).isEqualTo(2);
+        assertThat(oriented.getHeight()).isEqualTo(4);
+        assertThat(oriented.getRGB(1, 0)).isEqualTo(Color.RED.getRGB());
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", bytes);
+        return bytes.toByteArray();
+    }
+
+    // Big-endian TIFF with a single IFD entry, spliced in right after SOI as phones do
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] segment = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+        byte[] result = new byte[jpeg.length + segment.length];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(segment, 0, result, 2, segment.length);
+        System.arraycopy(jpeg, 2, result, 2 + segment.length, jpeg.length - 2);
+        return result;
+    }
+}
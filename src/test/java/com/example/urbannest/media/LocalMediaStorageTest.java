@@ -0,0 +1,116 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.exception.UnauthorizedAccessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalMediaStorageTest {
+
+    @TempDir Path root;
+
+    private LocalMediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalMediaStorage(root, "http://localhost:8080/api", "test-key");
+    }
+
+    @Test
+    void uploadUrl_signsKeyTypeAndLength() {
+        UriComponents url = UriComponentsBuilder.fromUriString(storage.uploadUrl(
+                new MediaStorage.UploadTarget("listings/a/photo.jpg", "image/jpeg", 1234L, null))).build();
+
+        assertThat(url.getPath()).isEqualTo("/api/media/files/listings/a/photo.jpg");
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+        assertThat(url.getQueryParams().getFirst("contentLength")).isEqualTo("1234");
+
+        assertThatCode(() -> storage.checkUpload("listings/a/photo.jpg", "image/jpeg", 1234L, null, expires, signature))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> storage.checkUpload("listings/a/photo.jpg", "image/png", 1234L, null, expires, signature))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        assertThatThrownBy(() -> storage.checkUpload("listings/a/photo.jpg", "image/jpeg", 9999L, null, expires, signature))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        // An upload signature is not a download signature
+        assertThatThrownBy(() -> storage.checkDownload("listings/a/photo.jpg", expires, signature))
+                .isInstanceOf(UnauthorizedAccessException.class);
+    }
+
+    @Test
+    void checkDownload_expiredOrForeignSignature_throws403() {
+        long past = Instant.now().minusSeconds(60).getEpochSecond();
+        UriComponents url = UriComponentsBuilder.fromUriString(storage.downloadUrl("listings/a/photo.jpg")).build();
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+        LocalMediaStorage other = new LocalMediaStorage(root, "http://localhost:8080/api", "other-key");
+
+        assertThatCode(() -> storage.checkDownload("listings/a/photo.jpg", expires, signature))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> other.checkDownload("listings/a/photo.jpg", expires, signature))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        assertThatThrownBy(() -> storage.checkDownload("listings/a/photo.jpg", past, signature))
+                .isInstanceOf(UnauthorizedAccessException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void store_writesBodyAndRejectsOversizedOnes() throws Exception {
+        long written = storage.store("listings/a/photo.jpg", new ByteArrayInputStream(new byte[100]), 100, null);
+
+        assertThat(written).isEqualTo(100);
+        assertThat(storage.stat("listings/a/photo.jpg").size()).isEqualTo(100);
+        assertThatThrownBy(() -> storage.store("listings/a/big.jpg", new ByteArrayInputStream(new byte[101]), 100, null))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(root.resolve("listings/a/big.jpg")).doesNotExist();
+        try (var files = Files.list(root.resolve("listings/a"))) {
+            assertThat(files).containsExactly(root.resolve("listings/a/photo.jpg"));
+        }
+    }
+
+    @Test
+    void store_withExpectedHash_keepsOnlyMatchingBodies() throws Exception {
+        byte[] body = {1, 2, 3};
+        String hash = ContentHash.of(new ByteArrayInputStream(body));
+
+        storage.store("listings/a/photo.jpg", new ByteArrayInputStream(body), 100, hash);
+
+        assertThat(storage.contentHash("listings/a/photo.jpg")).isEqualTo(hash);
+        assertThatThrownBy(() -> storage.store("listings/a/other.jpg", new ByteArrayInputStream(new byte[]{9}), 100, hash))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThat(root.resolve("listings/a/other.jpg")).doesNotExist();
+    }
+
+    @Test
+    void resolve_keyOutsideRoot_throws400() {
+        assertThatThrownBy(() -> storage.locate("../outside.jpg"))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> storage.locate("listings/missing.jpg"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void delete_missingKeysAreNotFailures() {
+        storage.write("listings/a/photo.jpg", new byte[]{1, 2, 3}, "image/jpeg");
+
+        Map<String, String> failed = storage.delete(List.of("listings/a/photo.jpg", "listings/a/gone.jpg", "../x"));
+
+        assertThat(failed).containsOnlyKeys("../x");
+        assertThat(root.resolve("listings/a/photo.jpg")).doesNotExist();
+    }
+}
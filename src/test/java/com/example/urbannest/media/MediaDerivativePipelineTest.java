@@ -0,0 +1,208 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.MediaAttachedEvent;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.repository.ListingMediaRepository;
+import com.example.urbannest.repository.ListingRepository;
+import com.example.urbannest.repository.MediaAssetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDerivativePipelineTest {
+
+    @TempDir Path root;
+
+    @Mock private MediaAssetRepository mediaAssetRepository;
+    @Mock private ListingMediaRepository listingMediaRepository;
+    @Mock private ListingRepository listingRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LocalMediaStorage storage;
+    private MediaDerivativePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        storage = new LocalMediaStorage(root, "http://localhost:8080/api", "test-key");
+        pipeline = new MediaDerivativePipeline(mediaAssetRepository, listingMediaRepository, listingRepository,
+                storage, eventPublisher, meterRegistry, 1, 2, DataSize.ofMegabytes(50), 3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void process_storesVariantsAndRecordsThemOnTheAsset() throws IOException {
+        MediaAsset asset = givenAsset("listings/abc/photo.jpg", "image/jpeg");
+        storage.write("listings/abc/photo.jpg", jpeg(1000, 750), "image/jpeg");
+        UUID listingId = UUID.randomUUID();
+        when(listingMediaRepository.findListingIdsByMediaId(asset.getMediaId())).thenReturn(List.of(listingId));
+
+        pipeline.process(asset.getMediaId());
+
+        assertThat(root.resolve("listings/abc/derivatives/photo.jpg/small.jpg")).exists();
+        assertThat(root.resolve("listings/abc/derivatives/photo.jpg/medium.jpg")).exists();
+        assertThat(root.resolve("listings/abc/derivatives/photo.jpg/large.jpg")).doesNotExist();
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(mediaAssetRepository).recordDerivatives(eq(asset.getMediaId()), json.capture());
+        MediaDerivatives recorded = MediaDerivatives.fromMetadata("{\"derivatives\":" + json.getValue() + "}");
+        assertThat(recorded.status()).isEqualTo(MediaDerivatives.READY);
+        assertThat(recorded.width()).isEqualTo(1000);
+        assertThat(recorded.height()).isEqualTo(750);
+        assertThat(recorded.placeholder()).startsWith("data:image/jpeg;base64,");
+        assertThat(recorded.variantFor(MediaSize.small).key()).isEqualTo("listings/abc/derivatives/photo.jpg/small.jpg");
+        assertThat(recorded.variantFor(MediaSize.small).width()).isEqualTo(320);
+        assertThat(recorded.variantFor(MediaSize.small).byteSize())
+                .isEqualTo(Files.size(root.resolve("listings/abc/derivatives/photo.jpg/small.jpg")));
+
+        verify(listingRepository).touchUpdatedAt(eq(List.of(listingId)), any(OffsetDateTime.class));
+        verify(eventPublisher).publishEvent(new ListingChangedEvent(listingId));
+        assertThat(meterRegistry.get("media.derivatives.processed").tag("result", "ready").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void process_missingOriginal_recordsMissing() {
+        MediaAsset asset = givenAsset("listings/abc/gone.jpg", "image/jpeg");
+
+        pipeline.process(asset.getMediaId());
+
+        verify(mediaAssetRepository).recordDerivatives(asset.getMediaId(), "{\"status\":\"missing\"}");
+        verifyNoInteractions(listingRepository, eventPublisher);
+    }
+
+    @Test
+    void process_undecodableImage_recordsUnsupported() {
+        MediaAsset asset = givenAsset("listings/abc/photo.heic", "image/heic");
+        storage.write("listings/abc/photo.heic", new byte[]{0, 0, 0, 24, 'f', 't', 'y', 'p'}, "image/heic");
+
+        pipeline.process(asset.getMediaId());
+
+        verify(mediaAssetRepository).recordDerivatives(asset.getMediaId(), "{\"status\":\"unsupported\"}");
+    }
+
+    @Test
+    void process_originalOverMaxSize_recordsUnsupportedWithoutDecoding() throws Exception {
+        MediaDerivativePipeline capped = new MediaDerivativePipeline(mediaAssetRepository, listingMediaRepository,
+                listingRepository, storage, eventPublisher, meterRegistry, 1, 2, DataSize.ofBytes(100), 3);
+        MediaAsset asset = givenAsset("listings/abc/huge.jpg", "image/jpeg");
+        storage.write("listings/abc/huge.jpg", jpeg(1000, 750), "image/jpeg");
+
+        try {
+            capped.process(asset.getMediaId());
+        } finally {
+            capped.shutdown();
+        }
+
+        verify(mediaAssetRepository).recordDerivatives(asset.getMediaId(), "{\"status\":\"unsupported\"}");
+        assertThat(root.resolve("listings/abc/derivatives")).doesNotExist();
+    }
+
+    @Test
+    void process_storageError_countsTheFailureAndLeavesTheAssetPending() throws IOException {
+        MediaAsset asset = givenAsset("listings/abc/broken.jpg", "image/jpeg");
+        Files.createDirectories(root.resolve("listings/abc/broken.jpg"));
+
+        pipeline.process(asset.getMediaId());
+
+        verify(mediaAssetRepository).recordDerivativeFailures(asset.getMediaId(), 1);
+        verify(mediaAssetRepository, never()).recordDerivatives(any(), anyString());
+        assertThat(meterRegistry.get("media.derivatives.processed").tag("result", "failed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void process_storageErrorOnTheLastAttempt_recordsAbandoned() throws IOException {
+        MediaAsset asset = givenAsset("listings/abc/broken.jpg", "image/jpeg");
+        asset.setMetadata("{\"derivative_failures\": 2}");
+        Files.createDirectories(root.resolve("listings/abc/broken.jpg"));
+
+        pipeline.process(asset.getMediaId());
+
+        verify(mediaAssetRepository).recordDerivatives(asset.getMediaId(), "{\"status\":\"abandoned\"}");
+        verify(mediaAssetRepository, never()).recordDerivativeFailures(any(), anyInt());
+    }
+
+    @Test
+    void process_video_isSkipped() {
+        MediaAsset asset = givenAsset("listings/abc/tour.mp4", "video/mp4");
+
+        pipeline.process(asset.getMediaId());
+
+        verify(mediaAssetRepository, never()).recordDerivatives(any(), anyString());
+    }
+
+    @Test
+    void onMediaAttached_generatesOnTheWorkerPool() {
+        MediaAsset asset = givenAsset("listings/abc/gone.jpg", "image/jpeg");
+
+        pipeline.onMediaAttached(new MediaAttachedEvent(List.of(asset.getMediaId())));
+
+        verify(mediaAssetRepository, timeout(5000)).recordDerivatives(eq(asset.getMediaId()), anyString());
+    }
+
+    @Test
+    void backfill_asksOnlyForWhatTheQueueCanTake() {
+        when(mediaAssetRepository.findImageIdsWithoutDerivatives(anyInt())).thenReturn(List.of());
+
+        pipeline.backfill();
+
+        verify(mediaAssetRepository).findImageIdsWithoutDerivatives(2);
+    }
+
+    @Test
+    void derivativeKey_nestsUnderTheOriginalsDirectory() {
+        assertThat(MediaDerivativePipeline.derivativeKey("listings/abc/photo.jpg", MediaSize.medium))
+                .isEqualTo("listings/abc/derivatives/photo.jpg/medium.jpg");
+        assertThat(MediaDerivativePipeline.derivativeKey("photo.jpg", MediaSize.small))
+                .isEqualTo("derivatives/photo.jpg/small.jpg");
+    }
+
+    private MediaAsset givenAsset(String key, String contentType) {
+        MediaAsset asset = new MediaAsset();
+        asset.setMediaId(UUID.randomUUID());
+        asset.setS3Location(key);
+        asset.setContentType(contentType);
+        when(mediaAssetRepository.findById(asset.getMediaId())).thenReturn(Optional.of(asset));
+        return asset;
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpeg", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.urbannest.media;
+
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.model.User;
+import com.example.urbannest.repository.MediaAssetRepository;
+import com.example.urbannest.service.MediaAssetService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaVerifierTest {
+
+    @Mock private MediaAssetRepository mediaAssetRepository;
+    @Mock private MediaStorage mediaStorage;
+    @Mock private MediaAssetService mediaAssetService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifier = new MediaVerifier(mediaAssetRepository, mediaAssetService, mediaStorage, meterRegistry, 2, 2,
+                Duration.ofMinutes(5), DataSize.ofMegabytes(25));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        verifier.shutdown();
+    }
+
+    @Test
+    void verify_recordsStoredSizeAndChecksumAndFlagsMissingObjects() {
+        MediaAsset uploaded = asset("listings/a.jpg", 1);
+        MediaAsset gone = asset("listings/gone.jpg", 2);
+        when(mediaStorage.stat("listings/a.jpg"))
+                .thenReturn(new MediaStorage.StoredObject(4242, "image/jpeg", "\"etag\"", "sha256:abc"));
+        when(mediaStorage.stat("listings/gone.jpg")).thenThrow(new ResourceNotFoundException("gone"));
+
+        assertThat(verifier.verify(List.of(uploaded, gone))).isEqualTo(2);
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(mediaAssetRepository).recordVerifications(json.capture());
+        JsonNode results = JsonMapper.shared().readTree(json.getValue());
+        assertThat(results.get(0).get("media_id").asString()).isEqualTo(uploaded.getMediaId().toString());
+        assertThat(results.get(0).get("byte_size").asLong()).isEqualTo(4242);
+        assertThat(results.get(0).get("verification").get("status").asString()).isEqualTo("verified");
+        assertThat(results.get(0).get("verification").get("checksum").asString()).isEqualTo("sha256:abc");
+        assertThat(results.get(1).get("byte_size").isNull()).isTrue();
+        assertThat(results.get(1).get("verification").get("status").asString()).isEqualTo("missing");
+        assertThat(meterRegistry.get("media.verification.checked").tag("result", "verified").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("media.verification.checked").tag("result", "missing").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void verify_storageError_leavesAssetForTheNextRun() {
+        MediaAsset uploaded = asset("listings/a.jpg", 1);
+        MediaAsset unreachable = asset("listings/b.jpg", 2);
+        when(mediaStorage.stat("listings/a.jpg"))
+                .thenReturn(new MediaStorage.StoredObject(10, "image/jpeg", null, null));
+        when(mediaStorage.stat("listings/b.jpg")).thenThrow(SdkClientException.create("unreachable"));
+
+        assertThat(verifier.verify(List.of(uploaded, unreachable))).isEqualTo(1);
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(mediaAssetRepository).recordVerifications(json.capture());
+        assertThat(json.getValue()).contains(uploaded.getMediaId().toString())
+                .doesNotContain(unreachable.getMediaId().toString());
+        assertThat(meterRegistry.get("media.verification.checked").tag("result", "failed").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void verify_duplicateContent_isRecordedWithoutHashAndMergedIntoTheHolder() {
+        User owner = new User();
+        owner.setUserId(UUID.randomUUID());
+        MediaAsset first = asset("listings/1.jpg", 30);
+        MediaAsset copy = asset("listings/2.jpg", 20);
+        MediaAsset reupload = asset("listings/3.jpg", 10);
+        MediaAsset video = asset("listings/tour.mp4", 5);
+        List.of(first, copy, reupload, video).forEach(asset -> asset.setOwnerUser(owner));
+        String photo = "ab".repeat(32);
+        String older = "cd".repeat(32);
+        UUID holder = UUID.randomUUID();
+        MediaStorage.StoredObject hashed = new MediaStorage.StoredObject(10, "image/jpeg", null,
+                "sha256:" + ContentHash.toBase64(photo));
+        when(mediaStorage.stat("listings/1.jpg")).thenReturn(hashed);
+        when(mediaStorage.stat("listings/2.jpg")).thenReturn(hashed);
+        when(mediaStorage.stat("listings/3.jpg")).thenReturn(new MediaStorage.StoredObject(10, "image/jpeg", null, null));
+        when(mediaStorage.contentHash("listings/3.jpg")).thenReturn(older);
+        when(mediaStorage.stat("listings/tour.mp4"))
+                .thenReturn(new MediaStorage.StoredObject(DataSize.ofMegabytes(200).toBytes(), "video/mp4", null, null));
+        when(mediaAssetRepository.findLiveByContentHashes(any()))
+                .thenReturn(List.of(new MediaAssetRepository.HashedAsset(holder, owner.getUserId(), older)));
+
+        assertThat(verifier.verify(List.of(first, copy, reupload, video))).isEqualTo(4);
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(mediaAssetRepository).recordVerifications(json.capture());
+        JsonNode results = JsonMapper.shared().readTree(json.getValue());
+        assertThat(results.get(0).get("content_hash").asString()).isEqualTo(photo);
+        assertThat(results.get(1).get("content_hash").isNull()).isTrue();
+        assertThat(results.get(2).get("content_hash").isNull()).isTrue();
+        assertThat(results.get(3).get("content_hash").isNull()).isTrue();
+        verify(mediaAssetService).mergeDuplicate(copy.getMediaId(), first.getMediaId());
+        verify(mediaAssetService).mergeDuplicate(reupload.getMediaId(), holder);
+        verifyNoMoreInteractions(mediaAssetService);
+        verify(mediaStorage, never()).contentHash("listings/tour.mp4");
+    }
+
+    @Test
+    void verifyRecent_pagesOnFromTheLastAssetOfAFullBatch() {
+        MediaAsset first = asset("listings/1.jpg", 30);
+        MediaAsset second = asset("listings/2.jpg", 20);
+        when(mediaAssetRepository.findUnverified(any(), any(), any(), anyInt()))
+                .thenReturn(List.of(first, second), List.of(asset("listings/3.jpg", 10)));
+        when(mediaStorage.stat(anyString())).thenReturn(new MediaStorage.StoredObject(10, "image/jpeg", null, null));
+
+        verifier.verifyRecent();
+
+        verify(mediaAssetRepository).findUnverified(any(), eq(second.getCreatedAt()), eq(second.getMediaId()), eq(2));
+        verify(mediaAssetRepository, times(2)).findUnverified(any(), any(), any(), anyInt());
+        verify(mediaAssetRepository, times(2)).recordVerifications(anyString());
+    }
+
+    @Test
+    void verifyRecent_everyCheckFailing_endsTheRun() {
+        when(mediaAssetRepository.findUnverified(any(), any(), any(), anyInt()))
+                .thenReturn(List.of(asset("listings/1.jpg", 30), asset("listings/2.jpg", 20)));
+        when(mediaStorage.stat(anyString())).thenThrow(SdkClientException.create("unreachable"));
+
+        verifier.verifyRecent();
+
+        verify(mediaAssetRepository, times(1)).findUnverified(any(), any(), any(), anyInt());
+        verify(mediaAssetRepository, never()).recordVerifications(anyString());
+    }
+
+    private static MediaAsset asset(String key, int minutesAgo) {
+        MediaAsset asset = new MediaAsset();
+        asset.setMediaId(UUID.randomUUID());
+        asset.setS3Location(key);
+        asset.setContentType("image/jpeg");
+        asset.setCreatedAt(OffsetDateTime.now().minusMinutes(minutesAgo));
+        return asset;
+    }
+}
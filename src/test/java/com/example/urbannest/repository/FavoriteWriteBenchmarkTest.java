@@ -0,0 +1,164 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.FavoriteListing;
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.User;
+import com.example.urbannest.model.composite.FavoriteListingId;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark for favoriting a listing: the read-check-insert-update path the service used to run, against the
+ * single {@code insertCounted} statement that replaced it. Each favorite goes to a listing of its own, and the
+ * old path flushes and clears after each one, as a request would. Prepared statements are counted through
+ * Hibernate {@link Statistics}; commits are left out of both. Tagged {@code benchmark}, so it only runs through
+ * {@code ./gradlew benchmark}, which prints the results.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FavoriteWriteBenchmarkTest {
+
+    private static final String FIREBASE_UID = "benchmark-user";
+    private static final int WARMUP = 200;
+    private static final int MEASURED = 1000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    @Autowired
+    private FavoriteListingRepository favoriteListingRepository;
+
+    private Statistics statistics;
+
+    record Result(double statementsPerFavorite, double millisPerFavorite) {
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.execute("""
+                INSERT INTO users (user_id, firebase_uid, name, email, nid_hash, role_name)
+                VALUES (gen_random_uuid(), 'benchmark-user', 'Benchmark User', 'benchmark@example.com', 'benchmark-nid', 'USER')
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO listings (listing_id, user_id, property_type, property_status, title, pricing,
+                                      created_at, updated_at)
+                SELECT gen_random_uuid(), (SELECT user_id FROM users WHERE firebase_uid = 'benchmark-user'),
+                       'apartment', 'published', 'Listing ' || i, 500000, now(), now()
+                FROM generate_series(1, ?) AS i
+                """, 2 * (WARMUP + MEASURED));
+        jdbcTemplate.execute("""
+                INSERT INTO listing_details (listing_id, year_built, listing_condition, bedrooms_count, bathrooms_count,
+                                             balconies_count, living_area)
+                SELECT listing_id, 2020, 'used', 3, 2, 1, 1200 FROM listings
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO listing_locations (listing_id, address_line, area, district, zip_code, latitude, longitude)
+                SELECT listing_id, 'House 12', 'Gulshan', 'Dhaka', '1212', 23.78, 90.42 FROM listings
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO listing_counters (listing_id, view_count, favorite_count, save_count)
+                SELECT listing_id, 0, 0, 0 FROM listings
+                """);
+        jdbcTemplate.execute("ANALYZE listings, listing_details, listing_locations, listing_counters");
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void favorite_singleStatementAgainstReadCheckInsertUpdate() {
+        List<UUID> listingIds = jdbcTemplate.queryForList("SELECT listing_id FROM listings ORDER BY listing_id", UUID.class);
+        List<UUID> before = listingIds.subList(0, WARMUP + MEASURED);
+        List<UUID> after = listingIds.subList(WARMUP + MEASURED, listingIds.size());
+
+        run(before.subList(0, WARMUP), this::favoriteReadCheckInsertUpdate);
+        run(after.subList(0, WARMUP), this::favoriteInsertCounted);
+        Result readCheckInsertUpdate = run(before.subList(WARMUP, before.size()), this::favoriteReadCheckInsertUpdate);
+        Result insertCounted = run(after.subList(WARMUP, after.size()), this::favoriteInsertCounted);
+
+        System.out.printf("before (read, check, insert, update): %.1f statements, %.2f ms per favorite%n",
+                readCheckInsertUpdate.statementsPerFavorite(), readCheckInsertUpdate.millisPerFavorite());
+        System.out.printf("after (insertCounted): %.1f statements, %.2f ms per favorite%n",
+                insertCounted.statementsPerFavorite(), insertCounted.millisPerFavorite());
+        assertThat(insertCounted.statementsPerFavorite()).isEqualTo(1.0);
+        assertThat(readCheckInsertUpdate.statementsPerFavorite()).isGreaterThan(insertCounted.statementsPerFavorite());
+        assertThat(jdbcTemplate.queryForObject("SELECT sum(favorite_count) FROM listing_counters", Long.class))
+                .isEqualTo(listingIds.size());
+    }
+
+    private Result run(List<UUID> listingIds, Consumer<UUID> favorite) {
+        entityManager.clear();
+        statistics.clear();
+        long start = System.nanoTime();
+        listingIds.forEach(favorite);
+        long elapsed = System.nanoTime() - start;
+        return new Result((double) statistics.getPrepareStatementCount() / listingIds.size(),
+                elapsed / 1_000_000.0 / listingIds.size());
+    }
+
+    private void favoriteInsertCounted(UUID listingId) {
+        favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 0);
+    }
+
+    // What ListingService.addFavorite ran before insertCounted, with the counter update it called
+    private void favoriteReadCheckInsertUpdate(UUID listingId) {
+        User user = userRepository.findByFirebaseId(FIREBASE_UID).orElseThrow();
+        Listing listing = listingRepository.findById(listingId).orElseThrow();
+
+        FavoriteListingId id = new FavoriteListingId();
+        id.setUserId(user.getUserId());
+        id.setListingId(listingId);
+        if (favoriteListingRepository.existsById(id)) {
+            throw new IllegalStateException("Listing " + listingId + " is already a favorite");
+        }
+
+        FavoriteListing favorite = new FavoriteListing();
+        favorite.setId(id);
+        favorite.setUser(user);
+        favorite.setListing(listing);
+        favorite.setCreatedAt(OffsetDateTime.now());
+        favoriteListingRepository.save(favorite);
+
+        entityManager.createNativeQuery("""
+                        update listing_counters set favorite_count = greatest(favorite_count + 1, 0)
+                        where listing_id = :listingId
+                        returning favorite_count
+                        """)
+                .setParameter("listingId", listingId)
+                .getResultList();
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,413 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.ListingCounters;
+import com.example.urbannest.model.User;
+import com.example.urbannest.model.enums.PropertyStatus;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.repository.ListingCountersRepository.ReconciledChunk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The counter statements against real rows: drift, shard deltas, the stored position and per-listing aggregation
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ListingCountersRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    private static final String FIREBASE_UID = "test-uid-counters";
+
+    @Autowired
+    private ListingCountersRepository listingCountersRepository;
+
+    @Autowired
+    private FavoriteListingRepository favoriteListingRepository;
+
+    @Autowired
+    private SavedListingRepository savedListingRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private User user;
+    // In Postgres uuid order, the order reconcileChunk walks them in; UUID.compareTo compares signed halves
+    private List<UUID> listingIds;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setFirebaseId(FIREBASE_UID);
+        user.setName("Counter User");
+        user.setEmail("counters@example.com");
+        user.setNidHash("unique-hash-counters");
+        user.setRoleName("USER");
+        user.setCreatedAt(OffsetDateTime.now());
+        user.setUpdatedAt(OffsetDateTime.now());
+        entityManager.persistAndFlush(user);
+
+        listingIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            listingIds.add(persistListingWithCounters().getListingId());
+        }
+        listingIds.sort(Comparator.comparing(UUID::toString));
+        entityManager.clear();
+    }
+
+    // ========== reconcileChunk ==========
+
+    @Test
+    void reconcileChunk_correctsDriftedCountsAndStoresThePosition() {
+        addFavoriteRow(listingIds.get(0));
+        setCounts(listingIds.get(0), 1, 0);
+        setCounts(listingIds.get(1), 4, 0);
+        addSaveRow(listingIds.get(3));
+
+        ReconciledChunk first = listingCountersRepository.reconcileChunk(2);
+
+        assertThat(first).isEqualTo(new ReconciledChunk(2, 1, 4, 0, List.of(listingIds.get(1))));
+        assertThat(storedPosition()).isEqualTo(listingIds.get(1));
+        assertThat(counts(listingIds.get(0))).containsExactly(1, 0);
+        assertThat(counts(listingIds.get(1))).containsExactly(0, 0);
+        assertThat(counts(listingIds.get(3))).containsExactly(0, 0);
+
+        ReconciledChunk second = listingCountersRepository.reconcileChunk(2);
+
+        assertThat(second).isEqualTo(new ReconciledChunk(2, 1, 0, 1, List.of(listingIds.get(3))));
+        assertThat(storedPosition()).isEqualTo(listingIds.get(3));
+        assertThat(counts(listingIds.get(3))).containsExactly(0, 1);
+    }
+
+    @Test
+    void reconcileChunk_shortChunk_goesBackToTheStart() {
+        setCounts(listingIds.get(2), 0, 2);
+
+        ReconciledChunk chunk = listingCountersRepository.reconcileChunk(10);
+
+        assertThat(chunk).isEqualTo(new ReconciledChunk(4, 1, 0, 2, List.of(listingIds.get(2))));
+        assertThat(storedPosition()).isNull();
+        assertThat(counts(listingIds.get(2))).containsExactly(0, 0);
+    }
+
+    @Test
+    void reconcileChunk_countsUnfoldedShardDeltas() {
+        // One favorite row, counted by a shard delta not folded yet: in sync
+        addFavoriteRow(listingIds.get(0));
+        addShardDelta(listingIds.get(0), 2, 1, 0);
+        // Shard deltas beyond the rows: the stored count is not taken below zero, compaction settles it
+        addShardDelta(listingIds.get(1), 1, 3, 0);
+        // One save row, stored as 1 with a shard delta of +1 still to fold: one too many
+        addSaveRow(listingIds.get(2));
+        setCounts(listingIds.get(2), 0, 1);
+        addShardDelta(listingIds.get(2), 0, 0, 1);
+
+        ReconciledChunk chunk = listingCountersRepository.reconcileChunk(10);
+
+        assertThat(chunk).isEqualTo(new ReconciledChunk(4, 1, 0, 1, List.of(listingIds.get(2))));
+        assertThat(counts(listingIds.get(0))).containsExactly(0, 0);
+        assertThat(counts(listingIds.get(1))).containsExactly(0, 0);
+        assertThat(counts(listingIds.get(2))).containsExactly(0, 0);
+    }
+
+    // ========== compactShards ==========
+
+    @Test
+    void compactShards_foldsDeltasPerListingAndDeletesTheRows() {
+        setCounts(listingIds.get(0), 1, 1);
+        addShardDelta(listingIds.get(0), 0, 2, 0);
+        addShardDelta(listingIds.get(0), 3, 1, -1);
+        addShardDelta(listingIds.get(1), 0, -2, 1);
+
+        int folded = listingCountersRepository.compactShards(10);
+
+        assertThat(folded).isEqualTo(3);
+        assertThat(counts(listingIds.get(0))).containsExactly(4, 0);
+        assertThat(counts(listingIds.get(1))).containsExactly(0, 1);
+        assertThat(shardRows()).isZero();
+    }
+
+    @Test
+    void compactShards_takesAtMostTheLimit() {
+        addShardDelta(listingIds.get(0), 0, 1, 0);
+        addShardDelta(listingIds.get(0), 1, 1, 0);
+        addShardDelta(listingIds.get(1), 0, 1, 0);
+
+        assertThat(listingCountersRepository.compactShards(2)).isEqualTo(2);
+        assertThat(shardRows()).isEqualTo(1);
+        assertThat(listingCountersRepository.compactShards(2)).isEqualTo(1);
+        assertThat(shardRows()).isZero();
+        assertThat(counts(listingIds.get(0))[0] + counts(listingIds.get(1))[0]).isEqualTo(3);
+    }
+
+    // ========== insertCounted / deleteCounted ==========
+
+    @Test
+    void insertCounted_addsTheRowAndCountsItOnce() {
+        UUID listingId = listingIds.get(0);
+
+        assertThat(favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 0)).isEqualTo(1);
+        jdbc.update("update favorite_listings set created_at = created_at - interval '1 hour' where listing_id = ?",
+                listingId);
+        String version = favoriteRowVersion(listingId);
+        assertThat(favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 0)).isZero();
+        // Repeating a later add leaves the row unwritten
+        assertThat(favoriteRowVersion(listingId)).isEqualTo(version);
+        assertThat(favoriteListingRepository.insertCounted("unknown-uid", listingId, 0)).isZero();
+        assertThat(favoriteListingRepository.insertCounted(FIREBASE_UID, UUID.randomUUID(), 0)).isZero();
+
+        assertThat(favoriteRows(listingId)).isEqualTo(1);
+        assertThat(counts(listingId)).containsExactly(1, 0);
+        assertThat(shardRows()).isZero();
+    }
+
+    @Test
+    void deleteCounted_removesTheRowAndItsCountOnce() {
+        UUID listingId = listingIds.get(0);
+        savedListingRepository.insertCounted(FIREBASE_UID, listingId, 0);
+
+        assertThat(savedListingRepository.deleteCounted(FIREBASE_UID, listingId, 0)).isEqualTo(1);
+        assertThat(savedListingRepository.deleteCounted(FIREBASE_UID, listingId, 0)).isZero();
+
+        assertThat(saveRows(listingId)).isZero();
+        assertThat(counts(listingId)).containsExactly(0, 0);
+    }
+
+    @Test
+    void countedToShard_leavesTheStoredCountAlone() {
+        UUID listingId = listingIds.get(0);
+
+        assertThat(favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 3)).isEqualTo(1);
+        assertThat(savedListingRepository.insertCounted(FIREBASE_UID, listingId, 3)).isEqualTo(1);
+        assertThat(savedListingRepository.deleteCounted(FIREBASE_UID, listingId, 3)).isEqualTo(1);
+        assertThat(savedListingRepository.deleteCounted(FIREBASE_UID, listingId, 3)).isZero();
+
+        assertThat(counts(listingId)).containsExactly(0, 0);
+        assertThat(jdbc.queryForList(
+                "select favorite_delta, save_delta from listing_counter_shards where listing_id = ? and shard = 3",
+                listingId)).containsExactly(Map.of("favorite_delta", 1, "save_delta", 0));
+    }
+
+    // ========== syncEngagement ==========
+
+    @Test
+    void syncEngagement_appliesChangesAndCountsOncePerListing() {
+        OffsetDateTime now = OffsetDateTime.now();
+        addFavoriteRow(listingIds.get(2), now.minusDays(1));
+        setCounts(listingIds.get(2), 1, 0);
+        addSaveRow(listingIds.get(3), now);
+        setCounts(listingIds.get(3), 0, 1);
+        String changes = changes(
+                change(listingIds.get(0), "favorite", true, now.minusHours(1)),
+                change(listingIds.get(0), "save", true, now.minusHours(1)),
+                change(listingIds.get(1), "favorite", true, now.minusHours(1)),
+                change(listingIds.get(2), "favorite", false, now.minusHours(1)),
+                // Older than the row it would remove
+                change(listingIds.get(3), "save", false, now.minusHours(1)),
+                change(UUID.randomUUID(), "favorite", true, now.minusHours(1)));
+
+        List<UUID> applied = listingCountersRepository.syncEngagement(user.getUserId(), changes, 0);
+
+        assertThat(applied).containsExactlyInAnyOrder(
+                listingIds.get(0), listingIds.get(0), listingIds.get(1), listingIds.get(2));
+        assertThat(counts(listingIds.get(0))).containsExactly(1, 1);
+        assertThat(counts(listingIds.get(1))).containsExactly(1, 0);
+        assertThat(counts(listingIds.get(2))).containsExactly(0, 0);
+        assertThat(counts(listingIds.get(3))).containsExactly(0, 1);
+        assertThat(favoriteRows(listingIds.get(2))).isZero();
+        assertThat(saveRows(listingIds.get(3))).isEqualTo(1);
+        assertThat(shardRows()).isZero();
+    }
+
+    @Test
+    void syncEngagement_sharded_aggregatesEachListingIntoOneShardRow() {
+        OffsetDateTime now = OffsetDateTime.now();
+        addFavoriteRow(listingIds.get(1), now.minusDays(1));
+        String changes = changes(
+                change(listingIds.get(0), "favorite", true, now),
+                change(listingIds.get(0), "save", true, now),
+                change(listingIds.get(1), "favorite", false, now));
+
+        List<UUID> applied = listingCountersRepository.syncEngagement(user.getUserId(), changes, 5);
+
+        assertThat(applied).hasSize(3);
+        assertThat(counts(listingIds.get(0))).containsExactly(0, 0);
+        assertThat(jdbc.queryForList(
+                "select listing_id, favorite_delta, save_delta from listing_counter_shards where shard = 5"))
+                .containsExactlyInAnyOrder(
+                        Map.of("listing_id", listingIds.get(0), "favorite_delta", 1, "save_delta", 1),
+                        Map.of("listing_id", listingIds.get(1), "favorite_delta", -1, "save_delta", 0));
+    }
+
+    @Test
+    void syncEngagement_addOlderThanARecordedRemoval_isSkipped() {
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID listingId = listingIds.get(0);
+        // One device removes a favorite the user has not synced yet; the other device's earlier add arrives later
+        listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "favorite", false, now.minusMinutes(10))), 0);
+
+        List<UUID> stale = listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "favorite", true, now.minusMinutes(20))), 0);
+        List<UUID> later = listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "save", true, now.minusMinutes(20)),
+                        change(listingId, "favorite", true, now.minusMinutes(5))), 0);
+
+        assertThat(stale).isEmpty();
+        assertThat(later).containsExactly(listingId, listingId);
+        assertThat(counts(listingId)).containsExactly(1, 1);
+    }
+
+    @Test
+    void syncEngagement_addOlderThanAnOnlineRemoval_isSkipped() {
+        UUID listingId = listingIds.get(0);
+        favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 0);
+        favoriteListingRepository.deleteCounted(FIREBASE_UID, listingId, 0);
+
+        List<UUID> applied = listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "favorite", true, OffsetDateTime.now().minusHours(1))), 0);
+
+        assertThat(applied).isEmpty();
+        assertThat(favoriteRows(listingId)).isZero();
+        assertThat(counts(listingId)).containsExactly(0, 0);
+    }
+
+    @Test
+    void syncEngagement_laterAddOfAnExistingRow_outlivesAnOlderRemoval() {
+        OffsetDateTime now = OffsetDateTime.now();
+        UUID listingId = listingIds.get(0);
+        listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "save", true, now.minusMinutes(30))), 0);
+
+        List<UUID> readded = listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "save", true, now.minusMinutes(10))), 0);
+        List<UUID> removed = listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "save", false, now.minusMinutes(20))), 0);
+
+        assertThat(readded).isEmpty();
+        assertThat(removed).isEmpty();
+        assertThat(saveRows(listingId)).isEqualTo(1);
+        assertThat(counts(listingId)).containsExactly(0, 1);
+    }
+
+    @Test
+    void syncEngagement_storesServerTimeAsCreatedAt() {
+        OffsetDateTime before = OffsetDateTime.now().minusMinutes(1);
+        UUID listingId = listingIds.get(0);
+
+        listingCountersRepository.syncEngagement(user.getUserId(),
+                changes(change(listingId, "favorite", true, OffsetDateTime.now().minusDays(30))), 0);
+
+        OffsetDateTime createdAt = jdbc.queryForObject(
+                "select created_at from favorite_listings where listing_id = ?", OffsetDateTime.class, listingId);
+        assertThat(createdAt).isAfter(before);
+    }
+
+    // ========== Helpers ==========
+
+    private Listing persistListingWithCounters() {
+        Listing listing = new Listing();
+        listing.setUser(user);
+        listing.setPropertyType(PropertyType.apartment);
+        listing.setPropertyStatus(PropertyStatus.published);
+        listing.setTitle("Counted Listing");
+        listing.setPricing(new BigDecimal("500000"));
+        listing.setCreatedAt(OffsetDateTime.now());
+        listing.setUpdatedAt(OffsetDateTime.now());
+        entityManager.persistAndFlush(listing);
+
+        ListingCounters counters = new ListingCounters();
+        counters.setListing(listing);
+        entityManager.persistAndFlush(counters);
+        return listing;
+    }
+
+    private void addFavoriteRow(UUID listingId) {
+        addFavoriteRow(listingId, OffsetDateTime.now());
+    }
+
+    private void addFavoriteRow(UUID listingId, OffsetDateTime createdAt) {
+        jdbc.update("insert into favorite_listings (user_id, listing_id, created_at) values (?, ?, ?)",
+                user.getUserId(), listingId, createdAt);
+    }
+
+    private void addSaveRow(UUID listingId) {
+        addSaveRow(listingId, OffsetDateTime.now());
+    }
+
+    private void addSaveRow(UUID listingId, OffsetDateTime createdAt) {
+        jdbc.update("insert into saved_listings (user_id, listing_id, created_at) values (?, ?, ?)",
+                user.getUserId(), listingId, createdAt);
+    }
+
+    private void setCounts(UUID listingId, int favorites, int saves) {
+        jdbc.update("update listing_counters set favorite_count = ?, save_count = ? where listing_id = ?",
+                favorites, saves, listingId);
+    }
+
+    private void addShardDelta(UUID listingId, int shard, int favoriteDelta, int saveDelta) {
+        jdbc.update("insert into listing_counter_shards (listing_id, shard, favorite_delta, save_delta) values (?, ?, ?, ?)",
+                listingId, shard, favoriteDelta, saveDelta);
+    }
+
+    private int[] counts(UUID listingId) {
+        return jdbc.queryForObject("select favorite_count, save_count from listing_counters where listing_id = ?",
+                (rs, row) -> new int[]{rs.getInt(1), rs.getInt(2)}, listingId);
+    }
+
+    private int favoriteRows(UUID listingId) {
+        return jdbc.queryForObject("select count(*) from favorite_listings where listing_id = ?", Integer.class, listingId);
+    }
+
+    // An update writes a new tuple, so the ctid moves even within the test's transaction
+    private String favoriteRowVersion(UUID listingId) {
+        return jdbc.queryForObject("select ctid::text from favorite_listings where listing_id = ?", String.class,
+                listingId);
+    }
+
+    private int saveRows(UUID listingId) {
+        return jdbc.queryForObject("select count(*) from saved_listings where listing_id = ?", Integer.class, listingId);
+    }
+
+    private int shardRows() {
+        return jdbc.queryForObject("select count(*) from listing_counter_shards", Integer.class);
+    }
+
+    private UUID storedPosition() {
+        return jdbc.queryForObject("select last_listing_id from listing_counter_reconciliation where id = 1", UUID.class);
+    }
+
+    private static String change(UUID listingId, String kind, boolean active, OffsetDateTime clientTimestamp) {
+        return """
+                {"listing_id": "%s", "kind": "%s", "active": %s, "client_timestamp": "%s"}"""
+                .formatted(listingId, kind, active, clientTimestamp);
+    }
+
+    private static String changes(String... changes) {
+        return "[" + String.join(", ", changes) + "]";
+    }
+}
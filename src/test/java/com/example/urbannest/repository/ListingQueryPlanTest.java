@@ -0,0 +1,329 @@
+package com.example.urbannest.repository;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.specification.ListingSpecification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite for the public listing search.
+ * <p>
+ * Seeds enough listings for the planner to prefer indexes, runs each search through {@code ListingRepository}
+ * for every filter combination and sort, and captures the SQL Hibernate sends. That SQL is explained with
+ * {@code EXPLAIN (GENERIC_PLAN)}, the plan PgJDBC's server-prepared statements end up reusing, where bound
+ * values are unknown. The suite fails when a relation that must be index-driven shows up as a sequential scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.urbannest.repository.ListingQueryPlanTest$CapturingStatementInspector")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListingQueryPlanTest {
+
+    private static final int SEEDED_LISTINGS = 100_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+    // EXPLAIN (GENERIC_PLAN) takes $n placeholders, which only the simple query protocol passes through unbound
+    private Connection explainConnection;
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    enum Filter { PROPERTY_TYPE, PRICE_RANGE, DISTRICT, MIN_BEDROOMS }
+
+    enum SortOrder {
+        CREATED_AT_DESC(Sort.by(Sort.Direction.DESC, "createdAt")),
+        PRICING_ASC(Sort.by(Sort.Direction.ASC, "pricing")),
+        PRICING_DESC(Sort.by(Sort.Direction.DESC, "pricing"));
+
+        private final Sort sort;
+
+        SortOrder(Sort sort) {
+            this.sort = sort;
+        }
+    }
+
+    // Both ways the service runs a search: full listings and summary cards
+    enum View { LISTINGS, SUMMARIES }
+
+    record SearchShape(String name, ListingSearchRequest filters, Pageable pageable, View view,
+                       Set<String> indexOnlyRelations) {
+        @Override
+        public String toString() {
+            return name + " / " + view.name();
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                INSERT INTO users (user_id, firebase_uid, name, email, nid_hash, role_name)
+                SELECT gen_random_uuid(), 'plan-user-' || u, 'Plan User ' || u, 'plan' || u || '@example.com', 'plan-nid-' || u, 'USER'
+                FROM generate_series(1, 2000) AS u
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO listings (listing_id, user_id, property_type, property_status, title, description, pricing,
+                                      created_at, updated_at, deleted_at)
+                SELECT gen_random_uuid(),
+                       owners.ids[1 + i % array_length(owners.ids, 1)],
+                       (ARRAY['house', 'apartment', 'studio', 'condo', 'penthouse']::property_type[])[1 + i % 5],
+                       (CASE i % 10 WHEN 0 THEN 'draft' WHEN 1 THEN 'sold' ELSE 'published' END)::property_status,
+                       'Listing ' || i,
+                       'Seeded listing ' || i || CASE WHEN i % 1000 = 0 THEN ' with a rooftop garden' ELSE '' END,
+                       100000 + (i * 7919) % 20000000,
+                       now() - i * interval '1 minute',
+                       now(),
+                       CASE WHEN i % 25 = 0 THEN now() END
+                FROM generate_series(1, ?) AS i, (SELECT array_agg(user_id) AS ids FROM users) AS owners
+                """, SEEDED_LISTINGS);
+        jdbcTemplate.execute("""
+                INSERT INTO listing_details (listing_id, year_built, listing_condition, bedrooms_count, bathrooms_count,
+                                             balconies_count, living_area)
+                SELECT listing_id, 2000 + n % 25, 'used', 1 + n % 6, 1, 1, 900
+                FROM (SELECT listing_id, row_number() OVER () AS n FROM listings) AS numbered
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO listing_locations (listing_id, address_line, area, district, zip_code, latitude, longitude)
+                SELECT listing_id, 'Road ' || n, 'Area ' || n % 300, 'District ' || n % 64, '1200',
+                       20.6 + n % 500 * 0.01, 88.0 + n % 400 * 0.01
+                FROM (SELECT listing_id, row_number() OVER () AS n FROM listings) AS numbered
+                """);
+        jdbcTemplate.execute("ANALYZE listings, listing_details, listing_locations");
+    }
+
+    @BeforeAll
+    void openExplainConnection() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        Properties properties = new Properties();
+        properties.setProperty("preferQueryMode", "simple");
+        if (hikari.getUsername() != null) {
+            properties.setProperty("user", hikari.getUsername());
+        }
+        if (hikari.getPassword() != null) {
+            properties.setProperty("password", hikari.getPassword());
+        }
+        explainConnection = DriverManager.getConnection(hikari.getJdbcUrl(), properties);
+    }
+
+    @AfterAll
+    void closeExplainConnection() throws SQLException {
+        explainConnection.close();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource({"filterCombinations", "textAndGeoSearches"})
+    void search_neverSequentiallyScansIndexedRelations(SearchShape shape) throws Exception {
+        String sql = capturedSearchSql(shape);
+        JsonNode plan = objectMapper.readTree(explainGenericPlan(sql, shape.pageable())).get(0).get("Plan");
+
+        List<String> seqScanned = new ArrayList<>();
+        collectSeqScans(plan, seqScanned);
+
+        assertThat(seqScanned)
+                .as("Sequential scans in plan for %s:%n%s%n%s", shape, sql, plan.toPrettyString())
+                .doesNotContainAnyElementsOf(shape.indexOnlyRelations());
+    }
+
+    // Every subset of the Specification filters, under each supported sort
+    static Stream<SearchShape> filterCombinations() {
+        List<SearchShape> shapes = new ArrayList<>();
+        Filter[] filters = Filter.values();
+        for (int mask = 0; mask < 1 << filters.length; mask++) {
+            EnumSet<Filter> applied = EnumSet.noneOf(Filter.class);
+            for (int i = 0; i < filters.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    applied.add(filters[i]);
+                }
+            }
+            for (SortOrder sort : SortOrder.values()) {
+                for (View view : View.values()) {
+                    shapes.add(shapeFor(applied, sort, view));
+                }
+            }
+        }
+        return shapes.stream();
+    }
+
+    static Stream<SearchShape> textAndGeoSearches() {
+        Set<String> withLocation = Set.of("listings", "listing_locations");
+        return Stream.of(View.values()).flatMap(view -> Stream.of(
+                // A word the statistics know is rare; an unseen token gets a flat estimate the joins outweigh
+                new SearchShape("q", filters(f -> f.setQ("garden")),
+                        PageRequest.of(0, 20), view, Set.of("listings")),
+                new SearchShape("boundingBox", filters(f -> {
+                    f.setMinLat(22.9);
+                    f.setMaxLat(23.1);
+                    f.setMinLng(89.9);
+                    f.setMaxLng(90.1);
+                }), PageRequest.of(0, 20, SortOrder.CREATED_AT_DESC.sort), view, withLocation),
+                new SearchShape("radius", filters(f -> {
+                    f.setLat(23.0);
+                    f.setLng(90.0);
+                    f.setRadiusKm(5.0);
+                }), PageRequest.of(0, 20, SortOrder.CREATED_AT_DESC.sort), view, withLocation),
+                new SearchShape("sort=distance", filters(f -> {
+                    f.setLat(23.0);
+                    f.setLng(90.0);
+                }), PageRequest.of(0, 20, Sort.by("distance")), view, withLocation)));
+    }
+
+    private static SearchShape shapeFor(Set<Filter> applied, SortOrder sort, View view) {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        // listings is always index-driven; a joined table must be too whenever it holds the narrowest filter.
+        // Once a district has narrowed the set, hashing a wide bedroom range against listing_details is a fair plan.
+        Set<String> indexOnly = new HashSet<>(Set.of("listings"));
+
+        if (applied.contains(Filter.DISTRICT)) {
+            filters.setDistrict("District 7");
+            indexOnly.add("listing_locations");
+        }
+        if (applied.contains(Filter.MIN_BEDROOMS)) {
+            filters.setMinBedrooms(5);
+            if (!applied.contains(Filter.DISTRICT)) {
+                indexOnly.add("listing_details");
+            }
+        }
+        if (applied.contains(Filter.PROPERTY_TYPE)) {
+            filters.setPropertyType(PropertyType.apartment);
+        }
+        if (applied.contains(Filter.PRICE_RANGE)) {
+            filters.setPriceMin(new BigDecimal("1000000"));
+            filters.setPriceMax(new BigDecimal("2000000"));
+        }
+
+        String name = (applied.isEmpty() ? "no filters" : applied.stream()
+                .map(Filter::name)
+                .collect(Collectors.joining("+"))) + " / " + sort.name();
+        return new SearchShape(name, filters, PageRequest.of(0, 20, sort.sort), view, indexOnly);
+    }
+
+    // Builds the query as ListingService does: relevance and distance ordering come from the specification
+    private String capturedSearchSql(SearchShape shape) {
+        ListingSearchRequest filters = shape.filters();
+        Pageable pageable = shape.pageable();
+        Specification<Listing> spec = ListingSpecification.withFilters(filters);
+        if (pageable.getSort().getOrderFor("distance") != null) {
+            spec = spec.and(ListingSpecification.orderedByDistance(filters.getLat(), filters.getLng()));
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        } else if (filters.hasQuery()) {
+            spec = spec.and(ListingSpecification.orderedByRelevance(filters.getQ()));
+        }
+
+        CapturingStatementInspector.statements.clear();
+        if (shape.view() == View.LISTINGS) {
+            listingRepository.findAll(spec, pageable);
+        } else {
+            listingRepository.findSummaries(spec, pageable);
+        }
+        return CapturingStatementInspector.statements.get(0);
+    }
+
+    // Only the filter values stay unknown. A generic plan prices an unknown LIMIT as a tenth of the rows, far above
+    // the custom plans of a page, so PostgreSQL never switches a search to the plan it would produce
+    private String explainGenericPlan(String sql, Pageable pageable) throws SQLException {
+        String paged = sql.replace("offset ? rows fetch first ? rows only",
+                "offset " + pageable.getOffset() + " rows fetch first " + pageable.getPageSize() + " rows only");
+        assertThat(paged).as("Page bounds of %s", sql).isNotEqualTo(sql);
+        try (Statement statement = explainConnection.createStatement();
+             ResultSet result = statement.executeQuery("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numberParameters(paged))) {
+            result.next();
+            return result.getString(1);
+        }
+    }
+
+    private static ListingSearchRequest filters(Consumer<ListingSearchRequest> customizer) {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        customizer.accept(filters);
+        return filters;
+    }
+
+    // JDBC placeholders become $n, which EXPLAIN (GENERIC_PLAN) plans without values
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean quoted = false;
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> relations) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, relations);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.urbannest.search;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ListingSearchIndexTest {
+
+    private static final OffsetDateTime BASE_TIME = OffsetDateTime.parse("2025-01-01T00:00:00Z");
+
+    @Mock private ListingRepository listingRepository;
+
+    private ListingSearchIndex index;
+
+    private final UUID cheapFlat = new UUID(0, 1);
+    private final UUID midFlat = new UUID(0, 2);
+    private final UUID house = new UUID(0, 3);
+    private final UUID bigFlat = new UUID(0, 4);
+
+    @BeforeEach
+    void setUp() {
+        index = new ListingSearchIndex(listingRepository, new SimpleMeterRegistry(), true);
+        List<ListingIndexRow> rows = List.of(
+                row(cheapFlat, "100000.00", PropertyType.apartment, 1, "Dhaka", 1),
+                row(midFlat, "250000.50", PropertyType.apartment, 2, "Dhaka", 2),
+                row(house, "400000.00", PropertyType.house, 4, "Chittagong", 3),
+                row(bigFlat, "320000.00", PropertyType.apartment, 3, "Chittagong", 4));
+        when(listingRepository.findIndexRowsAfter(eq(new UUID(0, 0)), any(Limit.class))).thenReturn(rows);
+        when(listingRepository.findIndexRowsAfter(eq(bigFlat), any(Limit.class))).thenReturn(List.of());
+        index.load();
+    }
+
+    @Test
+    void load_marksIndexReadyWithAllRows() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void search_defaultsToNewestFirst() {
+        ListingSearchIndex.SearchResult result = index.search(new ListingSearchRequest(), PageRequest.of(0, 10));
+
+        assertThat(result.listingIds()).containsExactly(bigFlat, house, midFlat, cheapFlat);
+        assertThat(result.total()).isEqualTo(4);
+    }
+
+    @Test
+    void search_combinesEqualityAndRangeFilters() {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setPropertyType(PropertyType.apartment);
+        filters.setPriceMin(new BigDecimal("250000.50"));
+        filters.setMinBedrooms(2);
+
+        ListingSearchIndex.SearchResult result = index.search(filters, PageRequest.of(0, 10, Sort.by("pricing")));
+
+        assertThat(result.listingIds()).containsExactly(midFlat, bigFlat);
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void search_unknownDistrict_returnsEmpty() {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setDistrict("Sylhet");
+
+        ListingSearchIndex.SearchResult result = index.search(filters, PageRequest.of(0, 10));
+
+        assertThat(result.listingIds()).isEmpty();
+        assertThat(result.total()).isZero();
+    }
+
+    @Test
+    void search_secondPage_skipsOffsetButCountsAllMatches() {
+        ListingSearchIndex.SearchResult result = index.search(
+                new ListingSearchRequest(), PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "pricing")));
+
+        assertThat(result.listingIds()).containsExactly(cheapFlat);
+        assertThat(result.total()).isEqualTo(4);
+    }
+
+    @Test
+    void onListingChanged_unpublishedListing_isRemovedAndSlotReused() {
+        when(listingRepository.findIndexRow(house)).thenReturn(Optional.empty());
+        index.onListingChanged(new ListingChangedEvent(house));
+
+        UUID newListing = new UUID(0, 5);
+        when(listingRepository.findIndexRow(newListing))
+                .thenReturn(Optional.of(row(newListing, "90000.00", PropertyType.house, 2, "Dhaka", 5)));
+        index.onListingChanged(new ListingChangedEvent(newListing));
+
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setPropertyType(PropertyType.house);
+        ListingSearchIndex.SearchResult result = index.search(filters, PageRequest.of(0, 10));
+
+        assertThat(result.listingIds()).containsExactly(newListing);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void onListingChanged_updatedDistrict_movesBetweenBitmaps() {
+        when(listingRepository.findIndexRow(cheapFlat))
+                .thenReturn(Optional.of(row(cheapFlat, "100000.00", PropertyType.apartment, 1, "Chittagong", 1)));
+        index.onListingChanged(new ListingChangedEvent(cheapFlat));
+
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setDistrict("Dhaka");
+
+        assertThat(index.search(filters, PageRequest.of(0, 10)).listingIds()).containsExactly(midFlat);
+    }
+
+    @Test
+    void refresh_concurrentRefreshesOfOneListing_keepTheLaterRead() throws InterruptedException {
+        CountDownLatch firstReadStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstRead = new CountDownLatch(1);
+        when(listingRepository.findIndexRow(cheapFlat))
+                .thenAnswer(invocation -> {
+                    firstReadStarted.countDown();
+                    releaseFirstRead.await();
+                    return Optional.of(row(cheapFlat, "100000.00", PropertyType.apartment, 1, "Dhaka", 1));
+                })
+                .thenReturn(Optional.of(row(cheapFlat, "100000.00", PropertyType.apartment, 1, "Chittagong", 1)));
+
+        Thread first = new Thread(() -> index.refresh(cheapFlat));
+        first.start();
+        firstReadStarted.await();
+        Thread second = new Thread(() -> index.refresh(cheapFlat));
+        second.start();
+        second.join(200);
+        releaseFirstRead.countDown();
+        first.join();
+        second.join();
+
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setDistrict("Dhaka");
+
+        assertThat(index.search(filters, PageRequest.of(0, 10)).listingIds()).containsExactly(midFlat);
+    }
+
+    @Test
+    void supports_rejectsTextGeoAndUnindexedSorts() {
+        ListingSearchRequest text = new ListingSearchRequest();
+        text.setQ("garden");
+        ListingSearchRequest radius = new ListingSearchRequest();
+        radius.setLat(23.7);
+        radius.setLng(90.4);
+        radius.setRadiusKm(2.0);
+
+        assertThat(index.supports(new ListingSearchRequest(), PageRequest.of(0, 20))).isTrue();
+        assertThat(index.supports(text, PageRequest.of(0, 20))).isFalse();
+        assertThat(index.supports(radius, PageRequest.of(0, 20))).isFalse();
+        assertThat(index.supports(new ListingSearchRequest(), PageRequest.of(0, 20, Sort.by("title")))).isFalse();
+    }
+
+    private static ListingIndexRow row(UUID id, String price, PropertyType type, Integer bedrooms,
+                                       String district, int ageRank) {
+        return new ListingIndexRow(id, new BigDecimal(price), type, bedrooms, district, BASE_TIME.plusHours(ageRank));
+    }
+}
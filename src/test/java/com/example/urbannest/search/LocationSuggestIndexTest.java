@@ -0,0 +1,144 @@
+package com.example.urbannest.search;
+
+import com.example.urbannest.dto.Responses.LocationSuggestionResponse;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LocationSuggestIndexTest {
+
+    @Mock private ListingRepository listingRepository;
+
+    private LocationSuggestIndex index;
+
+    private final UUID gulshanOne = new UUID(0, 1);
+    private final UUID gulshanTwo = new UUID(0, 2);
+    private final UUID gulistan = new UUID(0, 3);
+    private final UUID zindabazar = new UUID(0, 4);
+
+    @BeforeEach
+    void setUp() {
+        index = new LocationSuggestIndex(listingRepository, new SimpleMeterRegistry());
+        when(listingRepository.findLocationRowsAfter(eq(new UUID(0, 0)), any(Limit.class))).thenReturn(List.of(
+                new ListingLocationRow(gulshanOne, "Dhaka", "Gulshan"),
+                new ListingLocationRow(gulshanTwo, "Dhaka", "gulshan "),
+                new ListingLocationRow(gulistan, "Dhaka", "Gulistan"),
+                new ListingLocationRow(zindabazar, "Sylhet", "Zindabazar")));
+        when(listingRepository.findLocationRowsAfter(eq(zindabazar), any(Limit.class))).thenReturn(List.of());
+        index.load();
+    }
+
+    @Test
+    void load_groupsCaseAndWhitespaceVariants() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    void suggest_matchesPrefixCaseInsensitivelyHeaviestFirst() {
+        assertThat(index.suggest("GUL", 10))
+                .extracting(LocationSuggestionResponse::getValue, LocationSuggestionResponse::getType,
+                        LocationSuggestionResponse::getDistrict, LocationSuggestionResponse::getListingCount)
+                .containsExactly(
+                        tuple("Gulshan", "area", "Dhaka", 2L),
+                        tuple("Gulistan", "area", "Dhaka", 1L));
+    }
+
+    @Test
+    void suggest_returnsDistrictsAndAreasTogether() {
+        assertThat(index.suggest("d", 10))
+                .extracting(LocationSuggestionResponse::getValue, LocationSuggestionResponse::getType)
+                .containsExactly(tuple("Dhaka", "district"));
+        assertThat(index.suggest("s", 10)).extracting(LocationSuggestionResponse::getValue).containsExactly("Sylhet");
+    }
+
+    @Test
+    void suggest_limitKeepsTheHeaviestEntries() {
+        assertThat(index.suggest("g", 1)).extracting(LocationSuggestionResponse::getValue).containsExactly("Gulshan");
+    }
+
+    @Test
+    void suggest_blankPrefix_throws400() {
+        assertThatThrownBy(() -> index.suggest("  ", 10)).isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void onListingChanged_archivedListing_decrementsAndDropsEmptyEntries() {
+        when(listingRepository.findLocationRow(zindabazar)).thenReturn(Optional.empty());
+        when(listingRepository.findLocationRow(gulshanTwo)).thenReturn(Optional.empty());
+
+        index.onListingChanged(new ListingChangedEvent(zindabazar));
+        index.onListingChanged(new ListingChangedEvent(gulshanTwo));
+
+        assertThat(index.suggest("s", 10)).isEmpty();
+        assertThat(index.suggest("z", 10)).isEmpty();
+        assertThat(index.suggest("gulshan", 10))
+                .extracting(LocationSuggestionResponse::getListingCount).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void onListingChanged_newAndMovedListings_updateCounts() {
+        UUID banani = new UUID(0, 5);
+        when(listingRepository.findLocationRow(banani))
+                .thenReturn(Optional.of(new ListingLocationRow(banani, "Dhaka", "Banani")));
+        when(listingRepository.findLocationRow(gulistan))
+                .thenReturn(Optional.of(new ListingLocationRow(gulistan, "Dhaka", "Banani")));
+
+        index.onListingChanged(new ListingChangedEvent(banani));
+        index.onListingChanged(new ListingChangedEvent(gulistan));
+
+        assertThat(index.suggest("ban", 10))
+                .extracting(LocationSuggestionResponse::getValue, LocationSuggestionResponse::getListingCount)
+                .containsExactly(tuple("Banani", 2L));
+        assertThat(index.suggest("gulis", 10)).isEmpty();
+        assertThat(index.suggest("dha", 10))
+                .extracting(LocationSuggestionResponse::getListingCount).containsExactly(4L);
+    }
+
+    @Test
+    void refresh_concurrentRefreshesOfOneListing_keepTheLaterRead() throws InterruptedException {
+        CountDownLatch firstReadStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstRead = new CountDownLatch(1);
+        when(listingRepository.findLocationRow(gulistan))
+                .thenAnswer(invocation -> {
+                    firstReadStarted.countDown();
+                    releaseFirstRead.await();
+                    return Optional.of(new ListingLocationRow(gulistan, "Dhaka", "Gulistan"));
+                })
+                .thenReturn(Optional.of(new ListingLocationRow(gulistan, "Dhaka", "Banani")));
+
+        Thread first = new Thread(() -> index.refresh(gulistan));
+        first.start();
+        firstReadStarted.await();
+        Thread second = new Thread(() -> index.refresh(gulistan));
+        second.start();
+        second.join(200);
+        releaseFirstRead.countDown();
+        first.join();
+        second.join();
+
+        assertThat(index.suggest("gulis", 10)).isEmpty();
+        assertThat(index.suggest("ban", 10)).extracting(LocationSuggestionResponse::getValue).containsExactly("Banani");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.repository.ListingCountersRepository;
+import com.example.urbannest.repository.ListingCountersRepository.ReconciledChunk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCounterReconcilerTest {
+
+    @Mock private ListingCountersRepository listingCountersRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ListingCounterReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reconciler = new ListingCounterReconciler(listingCountersRepository, eventPublisher, meterRegistry, 100,
+                Duration.ZERO);
+    }
+
+    @Test
+    void reconcile_walksChunksUntilOneComesBackShort() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        when(listingCountersRepository.reconcileChunk(100)).thenReturn(
+                new ReconciledChunk(100, 2, 5, 0, List.of(first, second)),
+                new ReconciledChunk(100, 0, 0, 0, List.of()),
+                new ReconciledChunk(40, 1, 1, 3, List.of(third)));
+
+        reconciler.reconcile();
+
+        verify(listingCountersRepository, times(3)).reconcileChunk(100);
+        assertThat(meterRegistry.get("listing.counters.reconciled").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("listing.counters.drift").tag("counter", "favorite").counter().count()).isEqualTo(6);
+        assertThat(meterRegistry.get("listing.counters.drift").tag("counter", "save").counter().count()).isEqualTo(3);
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(first));
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(second));
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(third));
+        verifyNoMoreInteractions(eventPublisher);
+    }
+
+    @Test
+    void reconcile_positionHeldByAnotherInstance_stopsAfterOneCall() {
+        when(listingCountersRepository.reconcileChunk(100)).thenReturn(new ReconciledChunk(0, 0, 0, 0, List.of()));
+
+        reconciler.reconcile();
+
+        verify(listingCountersRepository, times(1)).reconcileChunk(100);
+        assertThat(meterRegistry.get("listing.counters.reconciled").counter().count()).isZero();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reconcile_interrupted_stopsBetweenChunks() {
+        when(listingCountersRepository.reconcileChunk(100)).thenReturn(new ReconciledChunk(100, 0, 0, 0, List.of()));
+        ListingCounterReconciler throttled = new ListingCounterReconciler(
+                listingCountersRepository, eventPublisher, meterRegistry, 100, Duration.ofMinutes(1));
+
+        Thread.currentThread().interrupt();
+        try {
+            throttled.reconcile();
+        } finally {
+            assertThat(Thread.interrupted()).isTrue();
+        }
+
+        verify(listingCountersRepository, times(1)).reconcileChunk(100);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.repository.FavoriteListingRepository;
+import com.example.urbannest.repository.ListingCountersRepository;
+import com.example.urbannest.repository.SavedListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingCounterServiceTest {
+
+    private static final String FIREBASE_UID = "uid";
+
+    @Mock private ListingCountersRepository listingCountersRepository;
+    @Mock private FavoriteListingRepository favoriteListingRepository;
+    @Mock private SavedListingRepository savedListingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UUID listingId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listingId = UUID.randomUUID();
+    }
+
+    @Test
+    void addFavorite_unsharded_countsOnCountersRow() {
+        when(favoriteListingRepository.insertCounted(FIREBASE_UID, listingId, 0)).thenReturn(1, 0);
+        ListingCounterService unsharded = service(0);
+
+        assertThat(unsharded.addFavorite(FIREBASE_UID, listingId)).isTrue();
+        assertThat(unsharded.addFavorite(FIREBASE_UID, listingId)).isFalse();
+        verify(favoriteListingRepository, times(2)).insertCounted(FIREBASE_UID, listingId, 0);
+    }
+
+    @Test
+    void removeSave_unsharded_nothingRemoved_returnsFalse() {
+        when(savedListingRepository.deleteCounted(FIREBASE_UID, listingId, 0)).thenReturn(0);
+
+        assertThat(service(0).removeSave(FIREBASE_UID, listingId)).isFalse();
+    }
+
+    @Test
+    void addSave_sharded_countsOnAShardInRange() {
+        when(savedListingRepository.insertCounted(eq(FIREBASE_UID), eq(listingId), anyInt())).thenReturn(1);
+        ListingCounterService sharded = service(8);
+
+        for (int i = 0; i < 50; i++) {
+            assertThat(sharded.addSave(FIREBASE_UID, listingId)).isTrue();
+        }
+
+        ArgumentCaptor<Integer> shards = ArgumentCaptor.forClass(Integer.class);
+        verify(savedListingRepository, times(50)).insertCounted(eq(FIREBASE_UID), eq(listingId), shards.capture());
+        // Shard 0 is the counters row itself
+        assertThat(shards.getAllValues()).allSatisfy(shard -> assertThat(shard).isBetween(1, 8));
+    }
+
+    @Test
+    void removeFavorite_sharded_uncountsOnAShard() {
+        when(favoriteListingRepository.deleteCounted(eq(FIREBASE_UID), eq(listingId), anyInt())).thenReturn(1);
+
+        assertThat(service(4).removeFavorite(FIREBASE_UID, listingId)).isTrue();
+        verify(favoriteListingRepository, never()).deleteCounted(anyString(), any(), eq(0));
+    }
+
+    @Test
+    void syncEngagement_sendsChangesAsOneJsonArray() {
+        UUID userId = UUID.randomUUID();
+        OffsetDateTime at = OffsetDateTime.parse("2026-01-15T10:30:00Z");
+        when(listingCountersRepository.syncEngagement(eq(userId), anyString(), eq(0))).thenReturn(List.of(listingId));
+
+        List<UUID> changed = service(0).syncEngagement(userId,
+                List.of(new ListingCounterService.EngagementChange(listingId, "favorite", true, at)));
+
+        assertThat(changed).containsExactly(listingId);
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(listingCountersRepository).syncEngagement(eq(userId), json.capture(), eq(0));
+        JsonNode change = JsonMapper.shared().readTree(json.getValue()).get(0);
+        assertThat(change.get("listing_id").asString()).isEqualTo(listingId.toString());
+        assertThat(change.get("kind").asString()).isEqualTo("favorite");
+        assertThat(change.get("active").asBoolean()).isTrue();
+        assertThat(OffsetDateTime.parse(change.get("client_timestamp").asString())).isEqualTo(at);
+    }
+
+    @Test
+    void compact_repeatsWhileBatchesAreFull() {
+        when(listingCountersRepository.compactShards(100)).thenReturn(100, 100, 7);
+
+        service(8).compact();
+
+        verify(listingCountersRepository, times(3)).compactShards(100);
+        assertThat(meterRegistry.get("listing.counters.compacted").counter().count()).isEqualTo(207);
+    }
+
+    private ListingCounterService service(int shards) {
+        return new ListingCounterService(listingCountersRepository, favoriteListingRepository, savedListingRepository,
+                meterRegistry, shards, 100);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Responses.ListingResponse;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.exception.ResourceNotFoundException;
+import com.example.urbannest.media.MediaSize;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ListingDetailCacheTest {
+
+    private final UUID listingId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<UUID, ListingResponse> loader = id -> {
+        loads.incrementAndGet();
+        ListingResponse response = new ListingResponse();
+        response.setListingId(id);
+        return response;
+    };
+
+    private SimpleMeterRegistry meterRegistry;
+    private ListingDetailCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ListingDetailCache(meterRegistry, Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void get_repeatedReads_loadOnce() {
+        cache.get(listingId, MediaSize.original, loader);
+        ListingResponse second = cache.get(listingId, MediaSize.original, loader);
+
+        assertThat(second.getListingId()).isEqualTo(listingId);
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "listing.detail").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void onListingChanged_evictsOnlyThatListing() {
+        UUID other = UUID.randomUUID();
+        cache.get(listingId, MediaSize.original, loader);
+        cache.get(other, MediaSize.original, loader);
+
+        cache.onListingChanged(new ListingChangedEvent(listingId));
+        cache.get(listingId, MediaSize.original, loader);
+        cache.get(other, MediaSize.original, loader);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void mediaSizes_areCachedApartAndEvictedTogether() {
+        cache.get(listingId, MediaSize.original, loader);
+        cache.get(listingId, MediaSize.small, loader);
+        cache.get(listingId, MediaSize.small, loader);
+
+        cache.onListingChanged(new ListingChangedEvent(listingId));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.peek(listingId)).isEmpty();
+        cache.get(listingId, MediaSize.small, loader);
+        assertThat(cache.peek(listingId)).isPresent();
+    }
+
+    @Test
+    void onCountersChanged_evictsEntry() {
+        cache.get(listingId, MediaSize.original, loader);
+
+        cache.onCountersChanged(new ListingCountersChangedEvent(listingId));
+        cache.get(listingId, MediaSize.original, loader);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_loaderThrows_nothingIsCached() {
+        assertThatThrownBy(() -> cache.get(listingId, MediaSize.original, id -> {
+            throw new ResourceNotFoundException("Listing with id " + id + " not found");
+        })).isInstanceOf(ResourceNotFoundException.class);
+
+        cache.get(listingId, MediaSize.original, loader);
+
+        assertThat(loads).hasValue(1);
+    }
+}
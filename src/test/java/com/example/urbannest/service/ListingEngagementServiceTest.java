@@ -0,0 +1,105 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.EngagementChangedEvent;
+import com.example.urbannest.repository.FavoriteListingRepository;
+import com.example.urbannest.repository.SavedListingRepository;
+import com.example.urbannest.service.ListingEngagementService.ViewerEngagement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingEngagementServiceTest {
+
+    private static final String FIREBASE_UID = "uid";
+
+    @Mock private FavoriteListingRepository favoriteListingRepository;
+    @Mock private SavedListingRepository savedListingRepository;
+
+    private UUID favorited;
+    private UUID saved;
+    private UUID other;
+
+    @BeforeEach
+    void setUp() {
+        favorited = UUID.randomUUID();
+        saved = UUID.randomUUID();
+        other = UUID.randomUUID();
+    }
+
+    @Test
+    void lookup_anonymous_returnsNullFlagsWithoutQuerying() {
+        ViewerEngagement engagement = service(false, 10).lookup(null, List.of(favorited));
+
+        assertThat(engagement.isFavorited(favorited)).isNull();
+        assertThat(engagement.isSaved(favorited)).isNull();
+        verifyNoInteractions(favoriteListingRepository, savedListingRepository);
+    }
+
+    @Test
+    void lookup_cacheDisabled_queriesThePageOncePerTable() {
+        List<UUID> page = List.of(favorited, saved, other);
+        when(favoriteListingRepository.findListingIdsByFirebaseUidAndListingIdIn(FIREBASE_UID, page))
+                .thenReturn(List.of(favorited));
+        when(savedListingRepository.findListingIdsByFirebaseUidAndListingIdIn(FIREBASE_UID, page))
+                .thenReturn(List.of(saved));
+
+        ViewerEngagement engagement = service(false, 10).lookup(FIREBASE_UID, page);
+
+        assertThat(engagement.isFavorited(favorited)).isTrue();
+        assertThat(engagement.isFavorited(saved)).isFalse();
+        assertThat(engagement.isSaved(saved)).isTrue();
+        assertThat(engagement.isSaved(other)).isFalse();
+        verify(favoriteListingRepository, never()).findListingIdsByFirebaseUid(anyString(), any());
+    }
+
+    @Test
+    void lookup_cacheEnabled_loadsMembershipOnceUntilTheViewerChangesSomething() {
+        when(favoriteListingRepository.findListingIdsByFirebaseUid(FIREBASE_UID, Limit.of(11)))
+                .thenReturn(List.of(favorited), List.of());
+        when(savedListingRepository.findListingIdsByFirebaseUid(FIREBASE_UID, Limit.of(11)))
+                .thenReturn(List.of(saved));
+        ListingEngagementService cached = service(true, 10);
+
+        assertThat(cached.lookup(FIREBASE_UID, List.of(favorited)).isFavorited(favorited)).isTrue();
+        assertThat(cached.lookup(FIREBASE_UID, List.of(saved)).isSaved(saved)).isTrue();
+        cached.onEngagementChanged(new EngagementChangedEvent(FIREBASE_UID));
+        assertThat(cached.lookup(FIREBASE_UID, List.of(favorited)).isFavorited(favorited)).isFalse();
+
+        verify(favoriteListingRepository, times(2)).findListingIdsByFirebaseUid(FIREBASE_UID, Limit.of(11));
+        verify(favoriteListingRepository, never()).findListingIdsByFirebaseUidAndListingIdIn(anyString(), any());
+    }
+
+    @Test
+    void lookup_cacheEnabled_viewerOverTheCap_fallsBackToPageQueries() {
+        List<UUID> many = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        when(favoriteListingRepository.findListingIdsByFirebaseUid(FIREBASE_UID, Limit.of(3))).thenReturn(many);
+        when(favoriteListingRepository.findListingIdsByFirebaseUidAndListingIdIn(FIREBASE_UID, List.of(favorited)))
+                .thenReturn(List.of(favorited));
+        ListingEngagementService cached = service(true, 2);
+
+        assertThat(cached.lookup(FIREBASE_UID, List.of(favorited)).isFavorited(favorited)).isTrue();
+        assertThat(cached.lookup(FIREBASE_UID, List.of(favorited)).isFavorited(favorited)).isTrue();
+
+        verify(favoriteListingRepository, times(1)).findListingIdsByFirebaseUid(anyString(), any());
+        verify(favoriteListingRepository, times(2)).findListingIdsByFirebaseUidAndListingIdIn(FIREBASE_UID, List.of(favorited));
+        verify(savedListingRepository, never()).findListingIdsByFirebaseUid(anyString(), any());
+    }
+
+    private ListingEngagementService service(boolean cacheEnabled, int maxListings) {
+        return new ListingEngagementService(favoriteListingRepository, savedListingRepository,
+                new SimpleMeterRegistry(), cacheEnabled, Duration.ofMinutes(5), maxListings, 1000);
+    }
+}
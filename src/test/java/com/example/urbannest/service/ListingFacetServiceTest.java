@@ -0,0 +1,140 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
+import com.example.urbannest.dto.Responses.ListingFacetsResponse;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.model.enums.PropertyType;
+import com.example.urbannest.repository.ListingFacetRepository.FacetRow;
+import com.example.urbannest.repository.ListingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingFacetServiceTest {
+
+    @Mock private ListingRepository listingRepository;
+
+    private ListingFacetService listingFacetService;
+
+    @BeforeEach
+    void setUp() {
+        listingFacetService = new ListingFacetService(
+                listingRepository, new SimpleMeterRegistry(), Duration.ofSeconds(30), 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacets_rollsGroupedRowsUpIntoFacets() {
+        when(listingRepository.findFacetRows(any(Specification.class))).thenReturn(List.of(
+                new FacetRow(PropertyType.apartment, "Dhaka", 2, new BigDecimal("1000000.0000"), 3L,
+                        new BigDecimal("1200000.00"), new BigDecimal("1900000.00")),
+                new FacetRow(PropertyType.apartment, "Chittagong", 4, new BigDecimal("2000000"), 1L,
+                        new BigDecimal("2500000.00"), new BigDecimal("2500000.00")),
+                new FacetRow(PropertyType.house, "Dhaka", null, new BigDecimal("5000000"), 2L,
+                        new BigDecimal("5000000.00"), new BigDecimal("7000000.00"))));
+
+        ListingFacetsResponse facets = listingFacetService.getFacets(new ListingSearchRequest());
+
+        assertThat(facets.getTotal()).isEqualTo(6);
+        assertThat(facets.getPropertyTypes())
+                .extracting(ListingFacetsResponse.FacetCount::getValue, ListingFacetsResponse.FacetCount::getCount)
+                .startsWith(tuple("house", 2L), tuple("apartment", 4L));
+        assertThat(facets.getDistricts())
+                .extracting(ListingFacetsResponse.FacetCount::getValue, ListingFacetsResponse.FacetCount::getCount)
+                .containsExactly(tuple("Dhaka", 5L), tuple("Chittagong", 1L));
+        assertThat(facets.getBedrooms())
+                .extracting(ListingFacetsResponse.FacetCount::getValue, ListingFacetsResponse.FacetCount::getCount)
+                .containsExactly(tuple("0", 0L), tuple("1", 0L), tuple("2", 3L), tuple("3", 0L), tuple("4+", 1L));
+        assertThat(facets.getPrice().getMin()).isEqualByComparingTo("1200000");
+        assertThat(facets.getPrice().getMax()).isEqualByComparingTo("7000000");
+        assertThat(facets.getPrice().getBuckets())
+                .extracting(b -> b.getFrom().toPlainString(), b -> b.getTo().toPlainString(),
+                        ListingFacetsResponse.PriceBucket::getCount)
+                .containsExactly(
+                        tuple("1000000", "2000000", 3L),
+                        tuple("2000000", "5000000", 1L),
+                        tuple("5000000", "10000000", 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacets_noMatches_returnsZeroCountsAndNullRange() {
+        when(listingRepository.findFacetRows(any(Specification.class))).thenReturn(List.of());
+
+        ListingFacetsResponse facets = listingFacetService.getFacets(new ListingSearchRequest());
+
+        assertThat(facets.getTotal()).isZero();
+        assertThat(facets.getPropertyTypes()).hasSize(PropertyType.values().length);
+        assertThat(facets.getDistricts()).isEmpty();
+        assertThat(facets.getPrice().getMin()).isNull();
+        assertThat(facets.getPrice().getBuckets()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacets_equivalentFilters_shareCacheEntry() {
+        when(listingRepository.findFacetRows(any(Specification.class))).thenReturn(List.of());
+
+        ListingSearchRequest first = new ListingSearchRequest();
+        first.setPriceMin(new BigDecimal("100000"));
+        first.setQ("lake view ");
+        first.setLat(23.7);
+        ListingSearchRequest second = new ListingSearchRequest();
+        second.setPriceMin(new BigDecimal("100000.00"));
+        second.setQ("lake view");
+
+        listingFacetService.getFacets(first);
+        listingFacetService.getFacets(second);
+
+        verify(listingRepository, times(1)).findFacetRows(any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getFacets_differentFilters_queryAgain() {
+        when(listingRepository.findFacetRows(any(Specification.class))).thenReturn(List.of());
+
+        ListingSearchRequest dhaka = new ListingSearchRequest();
+        dhaka.setDistrict("Dhaka");
+        ListingSearchRequest sylhet = new ListingSearchRequest();
+        sylhet.setDistrict("Sylhet");
+
+        listingFacetService.getFacets(dhaka);
+        listingFacetService.getFacets(sylhet);
+
+        verify(listingRepository, times(2)).findFacetRows(any(Specification.class));
+    }
+
+    @Test
+    void getFacets_radiusWithoutOrigin_throws400() {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setRadiusKm(3.0);
+
+        assertThatThrownBy(() -> listingFacetService.getFacets(filters))
+                .isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(listingRepository);
+    }
+
+    @Test
+    void nextBucketBound_followsOneTwoFiveSeries() {
+        assertThat(ListingFacetService.nextBucketBound(BigDecimal.ZERO)).isEqualByComparingTo("1");
+        assertThat(ListingFacetService.nextBucketBound(new BigDecimal("100.0000"))).isEqualByComparingTo("200");
+        assertThat(ListingFacetService.nextBucketBound(new BigDecimal("2E+5"))).isEqualByComparingTo("500000");
+        assertThat(ListingFacetService.nextBucketBound(new BigDecimal("5000"))).isEqualByComparingTo("10000");
+    }
+}
@@ -1,21 +1,33 @@
 package com.example.urbannest.service;
 
+import com.example.urbannest.dto.Requests.EngagementSyncRequest;
 import com.example.urbannest.dto.Requests.ListingCreateRequest;
+import com.example.urbannest.dto.Requests.ListingSearchRequest;
 import com.example.urbannest.dto.Requests.ListingUpdateRequest;
 import com.example.urbannest.dto.Responses.ApiResponse;
+import com.example.urbannest.dto.Responses.CursorPageResponse;
+import com.example.urbannest.dto.Responses.EngagementSyncResponse;
 import com.example.urbannest.dto.Responses.ListingResponse;
-import com.example.urbannest.exception.ResourceAlreadyExistsException;
+import com.example.urbannest.dto.Responses.ListingSummaryResponse;
+import com.example.urbannest.event.EngagementChangedEvent;
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.event.ListingCountersChangedEvent;
+import com.example.urbannest.exception.InvalidRequestException;
 import com.example.urbannest.exception.ResourceNotFoundException;
 import com.example.urbannest.exception.UnauthorizedAccessException;
 import com.example.urbannest.mapper.ListingDetailsMapper;
 import com.example.urbannest.mapper.ListingMapper;
 import com.example.urbannest.mapper.MediaAssetMapper;
+import com.example.urbannest.media.MediaSize;
+import com.example.urbannest.media.MediaUrlStrategy;
 import com.example.urbannest.model.*;
-import com.example.urbannest.model.composite.FavoriteListingId;
-import com.example.urbannest.model.composite.SavedListingId;
 import com.example.urbannest.model.enums.PropertyStatus;
 import com.example.urbannest.model.enums.PropertyType;
 import com.example.urbannest.repository.*;
+import com.example.urbannest.repository.ListingSummaryRepository.SummaryRow;
+import com.example.urbannest.search.ListingSearchIndex;
+import com.example.urbannest.service.ListingEngagementService.ViewerEngagement;
+import com.example.urbannest.util.CursorUtil;
 import com.google.firebase.auth.FirebaseToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,22 +35,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,16 +73,21 @@ class ListingServiceTest {
     @Mock private ListingDetailsRepository listingDetailsRepository;
     @Mock private ListingLocationRepository listingLocationRepository;
     @Mock private ListingCountersRepository listingCountersRepository;
+    @Mock private ListingCounterService listingCounterService;
     @Mock private ListingMediaRepository listingMediaRepository;
     @Mock private ListingPriceHistoryRepository listingPriceHistoryRepository;
-    @Mock private MediaAssetRepository mediaAssetRepository;
+    @Mock private MediaAssetService mediaAssetService;
     @Mock private FavoriteListingRepository favoriteListingRepository;
     @Mock private SavedListingRepository savedListingRepository;
     @Mock private UserRepository userRepository;
-    @Mock private S3Service s3Service;
+    @Mock private MediaUrlStrategy mediaUrlStrategy;
     @Mock private ListingMapper listingMapper;
     @Mock private ListingDetailsMapper listingDetailsMapper;
     @Mock private MediaAssetMapper mediaAssetMapper;
+    @Mock private ListingSearchIndex listingSearchIndex;
+    @Mock private ListingDetailCache listingDetailCache;
+    @Mock private ListingEngagementService listingEngagementService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ListingService listingService;
@@ -78,6 +106,11 @@ class ListingServiceTest {
         testUser.setFirebaseId(FIREBASE_UID);
 
         testListingId = UUID.randomUUID();
+
+        // Pass detail reads straight through to the loader
+        lenient().when(listingDetailCache.get(any(), any(), any())).thenAnswer(inv ->
+                inv.<Function<UUID, ListingResponse>>getArgument(2).apply(inv.getArgument(0)));
+        lenient().when(listingEngagementService.lookup(isNull(), any())).thenReturn(ViewerEngagement.ANONYMOUS);
     }
 
     // ========== createListing ==========
@@ -102,7 +135,7 @@ class ListingServiceTest {
         verify(listingDetailsRepository).save(any(ListingDetails.class));
         verify(listingLocationRepository).save(any(ListingLocation.class));
         verify(listingCountersRepository).save(any(ListingCounters.class));
-        verify(mediaAssetRepository, never()).saveAll(anyList());
+        verifyNoInteractions(mediaAssetService);
     }
 
     @Test
@@ -130,19 +163,146 @@ class ListingServiceTest {
 
         when(listingMapper.toListingResponse(any(), any(), any(), any(), anyList(), any(), any()))
                 .thenReturn(expectedResponse);
-        when(s3Service.generateDownloadUrl("listings/photo.jpg"))
+        when(mediaUrlStrategy.urlFor("listings/photo.jpg"))
                 .thenReturn("https://s3.presigned/listings/photo.jpg");
 
-        ListingResponse result = listingService.getListingById(testListingId);
+        ListingResponse result = listingService.getListingById(testListingId, MediaSize.original);
 
         assertThat(result.getMedia().get(0).getUrl()).isEqualTo("https://s3.presigned/listings/photo.jpg");
     }
 
+    @Test
+    void getListingById_requestedSize_servesVariantAndPlaceholder() {
+        Listing listing = buildListingWithRelations();
+        MediaAsset processed = new MediaAsset();
+        processed.setMediaId(UUID.randomUUID());
+        processed.setMetadata("""
+                {"derivatives": {"status": "ready", "placeholder": "data:image/jpeg;base64,AAAA",
+                  "variants": {"small": {"key": "listings/d/small.jpg", "width": 320, "height": 240, "byteSize": 9000}}}}
+                """);
+        MediaAsset pending = new MediaAsset();
+        pending.setMediaId(UUID.randomUUID());
+        ListingMedia first = new ListingMedia();
+        first.setMediaAsset(processed);
+        ListingMedia second = new ListingMedia();
+        second.setMediaAsset(pending);
+        when(listingRepository.findByListingId(testListingId)).thenReturn(Optional.of(listing));
+        when(listingMediaRepository.findByListingListingIdOrderBySortOrderAsc(testListingId))
+                .thenReturn(List.of(first, second));
+
+        ListingResponse.Media processedMedia = new ListingResponse.Media();
+        processedMedia.setMediaId(processed.getMediaId());
+        processedMedia.setUrl("listings/photo.jpg");
+        ListingResponse.Media pendingMedia = new ListingResponse.Media();
+        pendingMedia.setMediaId(pending.getMediaId());
+        pendingMedia.setUrl("listings/new.jpg");
+        ListingResponse mapped = new ListingResponse();
+        mapped.setMedia(List.of(processedMedia, pendingMedia));
+        when(listingMapper.toListingResponse(any(), any(), any(), any(), anyList(), any(), any())).thenReturn(mapped);
+        when(mediaUrlStrategy.urlFor(any())).thenAnswer(inv -> "https://cdn/" + inv.getArgument(0));
+
+        ListingResponse result = listingService.getListingById(testListingId, MediaSize.small);
+
+        assertThat(result.getMedia()).extracting(ListingResponse.Media::getUrl)
+                .containsExactly("https://cdn/listings/d/small.jpg", "https://cdn/listings/new.jpg");
+        assertThat(result.getMedia()).extracting(ListingResponse.Media::getPlaceholder)
+                .containsExactly("data:image/jpeg;base64,AAAA", null);
+        verify(listingDetailCache).get(eq(testListingId), eq(MediaSize.small), any());
+    }
+
     @Test
     void getListingById_notFound_throws404() {
         when(listingRepository.findByListingId(testListingId)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> listingService.getListingById(testListingId))
+        assertThatThrownBy(() -> listingService.getListingById(testListingId, MediaSize.original))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void getListingByIdConditional_validatorMatches_skipsAssembly() {
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.empty());
+        when(listingRepository.findVersion(testListingId)).thenReturn(Optional.of(
+                new ListingRepository.ListingVersion(OffsetDateTime.now(), 10, 2, 1)));
+
+        Optional<ListingResponse> result = listingService.getListingById(testListingId, MediaSize.original, null, (eTag, lastModified) -> true);
+
+        assertThat(result).isEmpty();
+        verify(listingRepository, never()).findByListingId(any());
+        verify(mediaUrlStrategy, never()).urlFor(any());
+    }
+
+    @Test
+    void getListingByIdConditional_stableMediaUrls_lastModifiedIsUpdatedAt() {
+        OffsetDateTime updatedAt = OffsetDateTime.parse("2026-01-01T10:15:30.500Z");
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.empty());
+        when(listingRepository.findVersion(testListingId)).thenReturn(Optional.of(
+                new ListingRepository.ListingVersion(updatedAt, 10, 2, 1)));
+        when(mediaUrlStrategy.urlsExpire()).thenReturn(false);
+        List<Long> lastModified = new ArrayList<>();
+
+        listingService.getListingById(testListingId, MediaSize.original, null, (eTag, modified) -> lastModified.add(modified));
+
+        assertThat(lastModified).containsExactly(updatedAt.toInstant().getEpochSecond() * 1000);
+    }
+
+    @Test
+    void getListingByIdConditional_cachedDetail_sameETagAsVersionQuery() {
+        OffsetDateTime updatedAt = OffsetDateTime.now();
+        ListingResponse cached = new ListingResponse();
+        cached.setUpdatedAt(updatedAt);
+        ListingResponse.Counters counters = new ListingResponse.Counters();
+        counters.setViewCount(10);
+        counters.setFavoriteCount(2);
+        counters.setSaveCount(1);
+        cached.setCounters(counters);
+        List<String> eTags = new ArrayList<>();
+
+        BiPredicate<String, Long> recordAndMatch = (eTag, lastModified) -> {
+            eTags.add(eTag);
+            return true;
+        };
+
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.of(cached));
+        listingService.getListingById(testListingId, MediaSize.original, null, recordAndMatch);
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.empty());
+        when(listingRepository.findVersion(testListingId)).thenReturn(Optional.of(
+                new ListingRepository.ListingVersion(updatedAt, 10, 2, 1)));
+        listingService.getListingById(testListingId, MediaSize.original, null, recordAndMatch);
+
+        assertThat(eTags).hasSize(2);
+        assertThat(eTags.get(0)).isEqualTo(eTags.get(1));
+    }
+
+    @Test
+    void getListingByIdConditional_signedIn_flagsACopyAndSkipsLastModified() {
+        ListingResponse cached = new ListingResponse();
+        cached.setListingId(testListingId);
+        cached.setUpdatedAt(OffsetDateTime.now());
+        ListingResponse copy = new ListingResponse();
+        copy.setListingId(testListingId);
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.of(cached));
+        doReturn(cached).when(listingDetailCache).get(eq(testListingId), eq(MediaSize.original), any());
+        when(listingMapper.copyOf(cached)).thenReturn(copy);
+        when(listingEngagementService.lookup(FIREBASE_UID, List.of(testListingId)))
+                .thenReturn(new ViewerEngagement(Set.of(testListingId), Set.of()));
+        List<Long> lastModified = new ArrayList<>();
+
+        Optional<ListingResponse> result = listingService.getListingById(testListingId, MediaSize.original, mockToken,
+                (eTag, modified) -> !lastModified.add(modified));
+
+        assertThat(result).containsSame(copy);
+        assertThat(copy.getIsFavorited()).isTrue();
+        assertThat(copy.getIsSaved()).isFalse();
+        assertThat(cached.getIsFavorited()).isNull();
+        assertThat(lastModified).containsExactly(-1L);
+    }
+
+    @Test
+    void getListingByIdConditional_unknownListing_throws404() {
+        when(listingDetailCache.peek(testListingId)).thenReturn(Optional.empty());
+        when(listingRepository.findVersion(testListingId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> listingService.getListingById(testListingId, MediaSize.original, null, (eTag, lastModified) -> false))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
@@ -210,6 +370,7 @@ class ListingServiceTest {
         verify(listingRepository).save(argThat(l ->
                 l.getPropertyStatus() == PropertyStatus.archived && l.getDeletedAt() != null
         ));
+        verify(eventPublisher).publishEvent(new ListingChangedEvent(testListingId));
     }
 
     @Test
@@ -234,95 +395,416 @@ class ListingServiceTest {
         when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
                 .thenReturn(emptyPage);
 
-        Page<ListingResponse> result = listingService.getListings(
-                PropertyType.apartment, null, null, null, null, PageRequest.of(0, 20));
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setPropertyType(PropertyType.apartment);
+
+        Page<ListingResponse> result = listingService.getListings(filters, PageRequest.of(0, 20));
 
         assertThat(result.getContent()).isEmpty();
     }
 
-    // ========== addFavorite / removeFavorite ==========
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListings_withTextQuery_dropsRequestSortSoRelevanceOrderingApplies() {
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setQ("lake view");
+
+        listingService.getListings(filters, PageRequest.of(2, 20, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        verify(listingRepository).findAll(any(Specification.class), eq(PageRequest.of(2, 20)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListings_sortByDistance_usesUnsortedPageForSpecificationOrdering() {
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setLat(23.78);
+        filters.setLng(90.42);
+        filters.setRadiusKm(5.0);
+
+        listingService.getListings(filters, PageRequest.of(0, 20, Sort.by("distance")));
+
+        verify(listingRepository).findAll(any(Specification.class), eq(PageRequest.of(0, 20)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListings_servedByIndex_hydratesIdsInIndexOrder() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        Listing firstListing = new Listing();
+        firstListing.setListingId(first);
+        Listing secondListing = new Listing();
+        secondListing.setListingId(second);
+        ListingSearchRequest filters = new ListingSearchRequest();
+        Pageable pageable = PageRequest.of(1, 2, Sort.by("pricing"));
+
+        when(listingSearchIndex.supports(filters, pageable)).thenReturn(true);
+        when(listingSearchIndex.search(filters, pageable))
+                .thenReturn(new ListingSearchIndex.SearchResult(List.of(first, second), 7));
+        when(listingRepository.findByListingIdIn(List.of(first, second)))
+                .thenReturn(List.of(secondListing, firstListing));
+        when(listingMapper.toListingResponse(any(), any(), any(), any(), anyList(), any(), any())).thenAnswer(inv -> {
+            ListingResponse response = new ListingResponse();
+            response.setListingId(inv.<Listing>getArgument(0).getListingId());
+            response.setMedia(List.of());
+            return response;
+        });
+
+        Page<ListingResponse> result = listingService.getListings(filters, pageable);
+
+        assertThat(result.getContent()).extracting(ListingResponse::getListingId).containsExactly(first, second);
+        assertThat(result.getTotalElements()).isEqualTo(7);
+        verify(listingRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingsConditional_pageETagMatches_skipsMediaAndPresigning() {
+        Listing listing = buildListingAt(OffsetDateTime.now());
+        listing.setUpdatedAt(OffsetDateTime.now());
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(listing)));
+
+        Optional<Page<ListingResponse>> result = listingService.getListings(
+                new ListingSearchRequest(), PageRequest.of(0, 20), null, eTag -> true);
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(listingMediaRepository, listingMapper);
+        verify(mediaUrlStrategy, never()).urlFor(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListings_signedIn_flagsThePageFromOneLookup() {
+        Listing favorited = buildListingAt(OffsetDateTime.now());
+        Listing saved = buildListingAt(OffsetDateTime.now().minusMinutes(1));
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(favorited, saved)));
+        when(listingEngagementService.lookup(FIREBASE_UID, List.of(favorited.getListingId(), saved.getListingId())))
+                .thenReturn(new ViewerEngagement(Set.of(favorited.getListingId()), Set.of(saved.getListingId())));
+        when(listingMapper.toListingResponse(any(), any(), any(), any(), anyList(), any(), any())).thenAnswer(inv -> {
+            ListingResponse response = emptyResponse();
+            response.setListingId(inv.<Listing>getArgument(0).getListingId());
+            return response;
+        });
+
+        Page<ListingResponse> result = listingService.getListings(
+                new ListingSearchRequest(), PageRequest.of(0, 20), mockToken, eTag -> false).orElseThrow();
+
+        assertThat(result.getContent()).extracting(ListingResponse::getIsFavorited).containsExactly(true, false);
+        assertThat(result.getContent()).extracting(ListingResponse::getIsSaved).containsExactly(false, true);
+        verify(listingEngagementService, times(1)).lookup(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingsConditional_viewerFlagsArePartOfThePageETag() {
+        Listing listing = buildListingAt(OffsetDateTime.now());
+        when(listingRepository.findAll(any(Specification.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(listing)));
+        when(listingEngagementService.lookup(FIREBASE_UID, List.of(listing.getListingId())))
+                .thenReturn(new ViewerEngagement(Set.of(), Set.of()),
+                        new ViewerEngagement(Set.of(listing.getListingId()), Set.of()));
+        List<String> eTags = new ArrayList<>();
+
+        listingService.getListings(new ListingSearchRequest(), PageRequest.of(0, 20), mockToken, eTags::add);
+        listingService.getListings(new ListingSearchRequest(), PageRequest.of(0, 20), mockToken, eTags::add);
+
+        assertThat(eTags).hasSize(2).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void getListings_sortByDistanceWithoutOrigin_throws400() {
+        assertThatThrownBy(() -> listingService.getListings(
+                new ListingSearchRequest(), PageRequest.of(0, 20, Sort.by("distance"))))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void getListings_partialBoundingBox_throws400() {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setMinLat(23.7);
+        filters.setMaxLat(23.9);
+
+        assertThatThrownBy(() -> listingService.getListings(filters, PageRequest.of(0, 20)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
 
     @Test
-    void addFavorite_incrementsCounter() {
+    void getListings_radiusWithoutOrigin_throws400() {
+        ListingSearchRequest filters = new ListingSearchRequest();
+        filters.setRadiusKm(3.0);
+
+        assertThatThrownBy(() -> listingService.getListings(filters, PageRequest.of(0, 20)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    // ========== summary view ==========
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingSummaries_presignsOnlyTheCoverImage() {
+        SummaryRow withCover = summaryRow(OffsetDateTime.now());
+        SummaryRow withoutCover = summaryRow(OffsetDateTime.now().minusMinutes(1));
+        Pageable pageable = PageRequest.of(0, 2);
+        when(listingRepository.findSummaries(any(Specification.class), eq(pageable)))
+                .thenReturn(List.of(withCover, withoutCover));
+        when(listingRepository.count(any(Specification.class))).thenReturn(5L);
+        when(listingMediaRepository.findCoverImages(List.of(withCover.listingId(), withoutCover.listingId())))
+                .thenReturn(List.of(new ListingMediaRepository.CoverImage(withCover.listingId(), "listings/cover.jpg", null)));
+        when(listingMapper.toListingSummaryResponse(any(SummaryRow.class))).thenAnswer(inv -> {
+            ListingSummaryResponse summary = new ListingSummaryResponse();
+            summary.setListingId(inv.<SummaryRow>getArgument(0).listingId());
+            return summary;
+        });
+        when(mediaUrlStrategy.urlFor("listings/cover.jpg")).thenReturn("https://s3/cover.jpg");
+
+        Page<ListingSummaryResponse> result = listingService.getListingSummaries(new ListingSearchRequest(), pageable, null);
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent())
+                .extracting(ListingSummaryResponse::getCoverImageUrl)
+                .containsExactly("https://s3/cover.jpg", null);
+        verify(mediaUrlStrategy, times(1)).urlFor(any());
+        verify(listingRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingSummaries_servedByIndex_keepsIndexOrder() {
+        SummaryRow first = summaryRow(OffsetDateTime.now());
+        SummaryRow second = summaryRow(OffsetDateTime.now().minusMinutes(1));
+        ListingSearchRequest filters = new ListingSearchRequest();
+        Pageable pageable = PageRequest.of(0, 2);
+
+        when(listingSearchIndex.supports(filters, pageable)).thenReturn(true);
+        when(listingSearchIndex.search(filters, pageable))
+                .thenReturn(new ListingSearchIndex.SearchResult(List.of(first.listingId(), second.listingId()), 9));
+        when(listingRepository.findSummaries(any(Specification.class), eq(Pageable.unpaged())))
+                .thenReturn(List.of(second, first));
+        when(listingMapper.toListingSummaryResponse(any(SummaryRow.class))).thenAnswer(inv -> {
+            ListingSummaryResponse summary = new ListingSummaryResponse();
+            summary.setListingId(inv.<SummaryRow>getArgument(0).listingId());
+            return summary;
+        });
+
+        Page<ListingSummaryResponse> result = listingService.getListingSummaries(filters, pageable, null);
+
+        assertThat(result.getContent()).extracting(ListingSummaryResponse::getListingId)
+                .containsExactly(first.listingId(), second.listingId());
+        assertThat(result.getTotalElements()).isEqualTo(9);
+        verify(listingRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingSummariesByCursor_fetchesOneExtraRowInKeysetOrder() {
+        SummaryRow first = summaryRow(OffsetDateTime.now());
+        SummaryRow second = summaryRow(OffsetDateTime.now().minusMinutes(1));
+        SummaryRow extra = summaryRow(OffsetDateTime.now().minusMinutes(2));
+        when(listingRepository.findSummaries(any(Specification.class),
+                eq(PageRequest.of(0, 3, ListingRepository.KEYSET_SORT))))
+                .thenReturn(List.of(first, second, extra));
+        when(listingMapper.toListingSummaryResponse(any(SummaryRow.class))).thenReturn(new ListingSummaryResponse());
+
+        CursorPageResponse<ListingSummaryResponse> result = listingService.getListingSummariesByCursor(
+                new ListingSearchRequest(), null, 2, null);
+
+        assertThat(result.getContent()).hasSize(2);
+        CursorUtil.Cursor next = CursorUtil.decode(result.getNextCursor());
+        assertThat(next.id()).isEqualTo(second.listingId());
+    }
+
+    // ========== cursor pagination ==========
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingsByCursor_moreRowsThanLimit_returnsNextCursorFromLastItem() {
+        Listing first = buildListingAt(OffsetDateTime.now());
+        Listing second = buildListingAt(OffsetDateTime.now().minusMinutes(1));
+        Listing extra = buildListingAt(OffsetDateTime.now().minusMinutes(2));
+        when(listingRepository.findSlice(any(Specification.class), eq(3)))
+                .thenReturn(List.of(first, second, extra));
+        when(listingMapper.toListingResponse(any(), any(), any(), any(), anyList(), any(), any()))
+                .thenAnswer(inv -> emptyResponse());
+
+        CursorPageResponse<ListingResponse> result = listingService.getListingsByCursor(
+                new ListingSearchRequest(), "", 2, null);
+
+        assertThat(result.getContent()).hasSize(2);
+        assertThat(result.isHasNext()).isTrue();
+        CursorUtil.Cursor next = CursorUtil.decode(result.getNextCursor());
+        assertThat(next.id()).isEqualTo(second.getListingId());
+        assertThat(next.createdAt().isEqual(second.getCreatedAt())).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getListingsByCursor_lastSlice_hasNoNextCursor() {
+        when(listingRepository.findSlice(any(Specification.class), anyInt()))
+                .thenReturn(List.of());
+
+        CursorPageResponse<ListingResponse> result = listingService.getListingsByCursor(
+                new ListingSearchRequest(), CursorUtil.encode(OffsetDateTime.now(), UUID.randomUUID()), 20, null);
+
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.isHasNext()).isFalse();
+        assertThat(result.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getMyFavoritesByCursor_withCursor_queriesKeysetBeforePosition() {
         when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
-        Listing listing = buildOwnedListing();
-        when(listingRepository.findById(testListingId)).thenReturn(Optional.of(listing));
-        when(favoriteListingRepository.existsById(any(FavoriteListingId.class))).thenReturn(false);
+        OffsetDateTime createdAt = OffsetDateTime.now();
+        UUID lastId = UUID.randomUUID();
+        when(favoriteListingRepository.findSliceByUserBefore(eq(testUser), any(OffsetDateTime.class), eq(lastId), eq(Limit.of(21))))
+                .thenReturn(List.of());
 
-        ListingCounters counters = new ListingCounters();
-        counters.setFavoriteCount(5);
-        when(listingCountersRepository.findById(testListingId)).thenReturn(Optional.of(counters));
+        CursorPageResponse<ListingResponse> result = listingService.getMyFavoritesByCursor(
+                mockToken, CursorUtil.encode(createdAt, lastId), 20);
+
+        assertThat(result.getContent()).isEmpty();
+        verify(favoriteListingRepository, never()).findSliceByUser(any(), any());
+    }
+
+    // ========== addFavorite / removeFavorite ==========
+
+    @Test
+    void addFavorite_addsAndCountsInOneCall() {
+        when(listingCounterService.addFavorite(FIREBASE_UID, testListingId)).thenReturn(true);
 
         ApiResponse response = listingService.addFavorite(mockToken, testListingId);
 
         assertThat(response.isSuccess()).isTrue();
-        verify(favoriteListingRepository).save(any(FavoriteListing.class));
-        verify(listingCountersRepository).save(argThat(c -> c.getFavoriteCount() == 6));
+        assertThat(response.getMessage()).isEqualTo("Listing added to favorites");
+        verifyNoInteractions(userRepository, listingRepository, favoriteListingRepository);
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(testListingId));
+        verify(eventPublisher).publishEvent(new EngagementChangedEvent(FIREBASE_UID));
     }
 
     @Test
-    void addFavorite_alreadyFavorited_throws409() {
+    void addFavorite_alreadyFavorited_succeedsWithoutEvent() {
+        when(listingCounterService.addFavorite(FIREBASE_UID, testListingId)).thenReturn(false);
         when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
         when(listingRepository.findById(testListingId)).thenReturn(Optional.of(buildOwnedListing()));
-        when(favoriteListingRepository.existsById(any(FavoriteListingId.class))).thenReturn(true);
 
-        assertThatThrownBy(() -> listingService.addFavorite(mockToken, testListingId))
-                .isInstanceOf(ResourceAlreadyExistsException.class);
+        ApiResponse response = listingService.addFavorite(mockToken, testListingId);
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(response.getMessage()).isEqualTo("Listing is already in favorites");
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
-    void removeFavorite_decrementsCounterMinZero() {
+    void addFavorite_unknownListing_throws404() {
+        when(listingCounterService.addFavorite(FIREBASE_UID, testListingId)).thenReturn(false);
         when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
-        when(favoriteListingRepository.existsById(any(FavoriteListingId.class))).thenReturn(true);
+        when(listingRepository.findById(testListingId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> listingService.addFavorite(mockToken, testListingId))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
 
-        ListingCounters counters = new ListingCounters();
-        counters.setFavoriteCount(0);
-        when(listingCountersRepository.findById(testListingId)).thenReturn(Optional.of(counters));
+    @Test
+    void removeFavorite_removesAndUncountsInOneCall() {
+        when(listingCounterService.removeFavorite(FIREBASE_UID, testListingId)).thenReturn(true);
 
         listingService.removeFavorite(mockToken, testListingId);
 
-        verify(favoriteListingRepository).deleteById(any(FavoriteListingId.class));
-        verify(listingCountersRepository).save(argThat(c -> c.getFavoriteCount() == 0));
+        verifyNoInteractions(userRepository, favoriteListingRepository);
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(testListingId));
     }
 
     @Test
     void removeFavorite_notFavorited_throws404() {
+        when(listingCounterService.removeFavorite(FIREBASE_UID, testListingId)).thenReturn(false);
         when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
-        when(favoriteListingRepository.existsById(any(FavoriteListingId.class))).thenReturn(false);
 
         assertThatThrownBy(() -> listingService.removeFavorite(mockToken, testListingId))
-                .isInstanceOf(ResourceNotFoundException.class);
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Listing is not in favorites");
     }
 
     // ========== saveListing / unsaveListing ==========
 
     @Test
-    void saveListing_incrementsCounter() {
-        when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
-        when(listingRepository.findById(testListingId)).thenReturn(Optional.of(buildOwnedListing()));
-        when(savedListingRepository.existsById(any(SavedListingId.class))).thenReturn(false);
-
-        ListingCounters counters = new ListingCounters();
-        counters.setSaveCount(3);
-        when(listingCountersRepository.findById(testListingId)).thenReturn(Optional.of(counters));
+    void saveListing_addsAndCountsInOneCall() {
+        when(listingCounterService.addSave(FIREBASE_UID, testListingId)).thenReturn(true);
 
         ApiResponse response = listingService.saveListing(mockToken, testListingId);
 
         assertThat(response.isSuccess()).isTrue();
-        verify(listingCountersRepository).save(argThat(c -> c.getSaveCount() == 4));
+        verifyNoInteractions(userRepository, listingRepository, savedListingRepository);
+        verify(eventPublisher).publishEvent(new ListingCountersChangedEvent(testListingId));
+    }
+
+    @Test
+    void saveListing_alreadySaved_succeeds() {
+        when(listingCounterService.addSave(FIREBASE_UID, testListingId)).thenReturn(false);
+        when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
+        when(listingRepository.findById(testListingId)).thenReturn(Optional.of(buildOwnedListing()));
+
+        assertThat(listingService.saveListing(mockToken, testListingId).getMessage())
+                .isEqualTo("Listing is already saved");
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void unsaveListing_notSaved_throws404() {
+        when(listingCounterService.removeSave(FIREBASE_UID, testListingId)).thenReturn(false);
         when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
-        when(savedListingRepository.existsById(any(SavedListingId.class))).thenReturn(false);
 
         assertThatThrownBy(() -> listingService.unsaveListing(mockToken, testListingId))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
+    // ========== syncEngagement ==========
+
+    @Test
+    void syncEngagement_appliesLatestChangePerListingAndKind() {
+        when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(testUser));
+        UUID other = UUID.randomUUID();
+        OffsetDateTime base = OffsetDateTime.parse("2026-01-15T10:00:00Z");
+        EngagementSyncRequest request = new EngagementSyncRequest();
+        request.setOperations(List.of(
+                syncOperation(testListingId, EngagementSyncRequest.Action.favorite, base.plusMinutes(2)),
+                syncOperation(testListingId, EngagementSyncRequest.Action.unfavorite, base.plusMinutes(1)),
+                syncOperation(testListingId, EngagementSyncRequest.Action.save, base),
+                syncOperation(other, EngagementSyncRequest.Action.save, base),
+                syncOperation(other, EngagementSyncRequest.Action.unsave, base)));
+        when(listingCounterService.syncEngagement(eq(testUser.getUserId()), anyList()))
+                .thenReturn(List.of(testListingId, testListingId));
+
+        EngagementSyncResponse response = listingService.syncEngagement(mockToken, request);
+
+        verify(listingCounterService).syncEngagement(eq(testUser.getUserId()), argThat(changes ->
+                changes.size() == 3 && changes.containsAll(List.of(
+                        new ListingCounterService.EngagementChange(testListingId, "favorite", true, base.plusMinutes(2)),
+                        new ListingCounterService.EngagementChange(testListingId, "save", true, base),
+                        new ListingCounterService.EngagementChange(other, "save", false, base)))));
+        assertThat(response.getApplied()).isEqualTo(2);
+        assertThat(response.getIgnored()).isEqualTo(3);
+        verify(eventPublisher, times(1)).publishEvent(new ListingCountersChangedEvent(testListingId));
+    }
+
     // ========== Helpers ==========
 
+    private static EngagementSyncRequest.Operation syncOperation(UUID listingId, EngagementSyncRequest.Action action,
+                                                                 OffsetDateTime clientTimestamp) {
+        EngagementSyncRequest.Operation operation = new EngagementSyncRequest.Operation();
+        operation.setListingId(listingId);
+        operation.setAction(action);
+        operation.setClientTimestamp(clientTimestamp);
+        return operation;
+    }
+
     private ListingCreateRequest buildCreateRequest(boolean withMedia) {
         ListingCreateRequest request = new ListingCreateRequest();
         request.setTitle("Test Listing");
@@ -367,6 +849,25 @@ class ListingServiceTest {
         return listing;
     }
 
+    private Listing buildListingAt(OffsetDateTime createdAt) {
+        Listing listing = new Listing();
+        listing.setListingId(UUID.randomUUID());
+        listing.setUser(testUser);
+        listing.setCreatedAt(createdAt);
+        return listing;
+    }
+
+    private SummaryRow summaryRow(OffsetDateTime createdAt) {
+        return new SummaryRow(UUID.randomUUID(), "Test Listing", PropertyType.apartment, new BigDecimal("500000"),
+                3, 2, 1200, "Dhaka", createdAt);
+    }
+
+    private ListingResponse emptyResponse() {
+        ListingResponse response = new ListingResponse();
+        response.setMedia(List.of());
+        return response;
+    }
+
     private Listing buildListingWithRelations() {
         Listing listing = buildOwnedListing();
         ReflectionTestUtils.setField(listing, "listingDetails", new ListingDetails());
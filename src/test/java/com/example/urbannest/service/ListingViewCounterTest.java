@@ -0,0 +1,142 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.repository.ListingCountersRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListingViewCounterTest {
+
+    @Mock private ListingCountersRepository listingCountersRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ListingViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        counter = new ListingViewCounter(listingCountersRepository, meterRegistry, Duration.ofMinutes(30), 1000, 2);
+    }
+
+    @Test
+    void flush_writesAggregatedViewsOncePerListing() {
+        UUID popular = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        IntStream.range(0, 5).forEach(i -> counter.record(popular, "user:" + i));
+        counter.record(quiet, null);
+
+        counter.flush();
+
+        assertThat(flushedViews()).isEqualTo(Map.of(popular, 5L, quiet, 1L));
+        counter.flush();
+        verifyNoMoreInteractions(listingCountersRepository);
+    }
+
+    @Test
+    void record_repeatViewWithinWindow_isNotCounted() {
+        UUID listing = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        counter.record(listing, "user:a");
+        counter.record(listing, "user:a");
+        counter.record(other, "user:a");
+        counter.record(listing, null);
+        counter.record(listing, null);
+
+        counter.flush();
+
+        assertThat(flushedViews()).isEqualTo(Map.of(listing, 3L, other, 1L));
+        assertThat(meterRegistry.get("listing.views").tag("result", "duplicate").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("listing.views").tag("result", "counted").counter().count()).isEqualTo(4);
+    }
+
+    @Test
+    void flush_splitsIntoBatchesAndRetriesFailedOnes() {
+        List<UUID> listings = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        listings.forEach(listing -> counter.record(listing, null));
+        when(listingCountersRepository.addViews(anyString()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+
+        counter.flush();
+        reset(listingCountersRepository);
+        counter.flush();
+
+        assertThat(flushedViews().keySet()).hasSize(2).isSubsetOf(listings);
+    }
+
+    @Test
+    void concurrentViews_areAllFlushed() throws InterruptedException {
+        UUID listing = UUID.randomUUID();
+        ExecutorService viewers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            viewers.execute(() -> {
+                for (int view = 0; view < 1000; view++) {
+                    counter.record(listing, null);
+                }
+            });
+        }
+        viewers.shutdown();
+        assertThat(viewers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        counter.shutdown();
+
+        assertThat(flushedViews()).isEqualTo(Map.of(listing, 8000L));
+    }
+
+    @Test
+    void viewsRecordedWhileFlushing_areAllFlushed() throws InterruptedException {
+        // Many listings with a view each per pass, so the flusher keeps finding adders empty and removing them
+        List<UUID> listings = IntStream.range(0, 50).mapToObj(i -> UUID.randomUUID()).toList();
+        ExecutorService viewers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            viewers.execute(() -> {
+                for (int pass = 0; pass < 2000; pass++) {
+                    listings.forEach(listing -> counter.record(listing, null));
+                }
+            });
+        }
+        viewers.shutdown();
+        while (!viewers.isTerminated()) {
+            counter.flush();
+        }
+
+        counter.shutdown();
+
+        Map<UUID, Long> expected = new HashMap<>();
+        listings.forEach(listing -> expected.put(listing, 16_000L));
+        assertThat(flushedViews()).isEqualTo(expected);
+    }
+
+    private Map<UUID, Long> flushedViews() {
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(listingCountersRepository, atLeastOnce()).addViews(json.capture());
+        Map<UUID, Long> views = new HashMap<>();
+        for (String batch : json.getAllValues()) {
+            for (JsonNode row : JsonMapper.shared().readTree(batch)) {
+                views.merge(UUID.fromString(row.get("listing_id").asString()), row.get("views").asLong(), Long::sum);
+            }
+        }
+        return views;
+    }
+}
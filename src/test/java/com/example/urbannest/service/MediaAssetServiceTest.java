@@ -0,0 +1,201 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.event.ListingChangedEvent;
+import com.example.urbannest.mapper.MediaAssetMapper;
+import com.example.urbannest.media.ContentHash;
+import com.example.urbannest.media.MediaDerivatives;
+import com.example.urbannest.media.MediaSize;
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.model.Listing;
+import com.example.urbannest.model.ListingMedia;
+import com.example.urbannest.model.MediaAsset;
+import com.example.urbannest.model.User;
+import com.example.urbannest.repository.ListingMediaRepository;
+import com.example.urbannest.repository.ListingRepository;
+import com.example.urbannest.repository.MediaAssetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaAssetServiceTest {
+
+    private static final String PHOTO_HASH = "ab".repeat(32);
+
+    @Mock private MediaAssetRepository mediaAssetRepository;
+    @Mock private ListingMediaRepository listingMediaRepository;
+    @Mock private ListingRepository listingRepository;
+    @Mock private MediaStorage mediaStorage;
+    @Mock private MediaDeletionService mediaDeletionService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaAssetService mediaAssetService;
+    private User owner;
+    private Listing listing;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        mediaAssetService = new MediaAssetService(mediaAssetRepository, listingMediaRepository, listingRepository,
+                mediaStorage, mediaDeletionService, Mappers.getMapper(MediaAssetMapper.class), eventPublisher,
+                meterRegistry);
+        owner = new User();
+        owner.setUserId(UUID.randomUUID());
+        listing = new Listing();
+        listing.setListingId(UUID.randomUUID());
+    }
+
+    @Test
+    void attachToListing_sameKeyAndHash_linksExistingAsset() {
+        MediaAsset stored = stored("listings/old/front.jpg");
+        when(mediaAssetRepository.findLiveByOwnerAndContentHashes(owner, Set.of(PHOTO_HASH)))
+                .thenReturn(List.of(stored));
+
+        List<UUID> created = mediaAssetService.attachToListing(owner, listing,
+                List.of(requested("listings/old/front.jpg", PHOTO_HASH)), List.of(0));
+
+        assertThat(created).isEmpty();
+        assertThat(linkedMediaIds()).containsExactly(stored.getMediaId());
+        verify(mediaAssetRepository).refreshRefCounts(Set.of(stored.getMediaId()));
+        verifyNoInteractions(mediaStorage, mediaDeletionService);
+        assertThat(meterRegistry.get("media.duplicates").tag("stage", "attach").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void attachToListing_copyUnderNewKeyWithMatchingChecksum_linksExistingAndDropsCopy() {
+        MediaAsset stored = stored("listings/old/front.jpg");
+        when(mediaAssetRepository.findLiveByOwnerAndContentHashes(any(), any())).thenReturn(List.of(stored));
+        when(mediaStorage.stat("listings/new/front.jpg")).thenReturn(new MediaStorage.StoredObject(
+                10, "image/jpeg", null, "sha256:" + ContentHash.toBase64(PHOTO_HASH)));
+
+        List<UUID> created = mediaAssetService.attachToListing(owner, listing,
+                List.of(requested("listings/new/front.jpg", PHOTO_HASH)), List.of(0));
+
+        assertThat(created).isEmpty();
+        assertThat(linkedMediaIds()).containsExactly(stored.getMediaId());
+        verify(mediaDeletionService).enqueue("listings/new/front.jpg");
+    }
+
+    @Test
+    void attachToListing_unverifiedClaim_createsNewAssetWithoutHash() {
+        MediaAsset stored = stored("listings/old/front.jpg");
+        when(mediaAssetRepository.findLiveByOwnerAndContentHashes(any(), any())).thenReturn(List.of(stored));
+        when(mediaStorage.stat("listings/new/other.jpg"))
+                .thenReturn(new MediaStorage.StoredObject(10, "image/jpeg", null, null));
+        MediaAsset claimed = requested("listings/new/other.jpg", PHOTO_HASH);
+        MediaAsset plain = requested("listings/new/plain.jpg", null);
+        when(mediaAssetRepository.saveAll(List.of(claimed, plain))).thenAnswer(invocation -> {
+            claimed.setMediaId(UUID.randomUUID());
+            plain.setMediaId(UUID.randomUUID());
+            return List.of(claimed, plain);
+        });
+
+        List<UUID> created = mediaAssetService.attachToListing(owner, listing, List.of(claimed, plain), List.of(0, 1));
+
+        assertThat(created).containsExactly(claimed.getMediaId(), plain.getMediaId());
+        assertThat(claimed.getContentHash()).isNull();
+        assertThat(claimed.getOwnerUser()).isSameAs(owner);
+        assertThat(linkedMediaIds()).containsExactly(claimed.getMediaId(), plain.getMediaId());
+        verifyNoInteractions(mediaDeletionService);
+    }
+
+    @Test
+    void attachToListing_sameContentTwice_linksItOnce() {
+        MediaAsset stored = stored("listings/old/front.jpg");
+        when(mediaAssetRepository.findLiveByOwnerAndContentHashes(any(), any())).thenReturn(List.of(stored));
+
+        mediaAssetService.attachToListing(owner, listing, List.of(
+                requested("listings/old/front.jpg", PHOTO_HASH),
+                requested("listings/old/front.jpg", PHOTO_HASH)), List.of(0, 1));
+
+        assertThat(linkedMediaIds()).containsExactly(stored.getMediaId());
+    }
+
+    @Test
+    void mergeDuplicate_movesLinksDropsObjectAndRepublishesListings() {
+        MediaAsset duplicate = stored("listings/new/front.jpg");
+        String variantKey = "listings/new/derivatives/front.jpg/small.jpg";
+        duplicate.setMetadata("{\"derivatives\": " + MediaDerivatives.ready(640, 480, null,
+                Map.of(MediaSize.small, new MediaDerivatives.Variant(variantKey, 320, 240, 100))).toJson() + "}");
+        UUID survivorId = UUID.randomUUID();
+        UUID listingId = UUID.randomUUID();
+        when(mediaAssetRepository.findById(duplicate.getMediaId())).thenReturn(Optional.of(duplicate));
+        when(listingMediaRepository.findListingIdsByMediaId(duplicate.getMediaId())).thenReturn(List.of(listingId));
+
+        mediaAssetService.mergeDuplicate(duplicate.getMediaId(), survivorId);
+
+        var order = inOrder(mediaAssetRepository);
+        order.verify(mediaAssetRepository).moveLinks(duplicate.getMediaId(), survivorId);
+        order.verify(mediaAssetRepository).delete(duplicate);
+        order.verify(mediaAssetRepository).refreshRefCounts(List.of(survivorId));
+        verify(mediaDeletionService).enqueue("listings/new/front.jpg");
+        verify(mediaDeletionService).enqueue(variantKey);
+        verify(listingRepository).touchUpdatedAt(eq(List.of(listingId)), any());
+        verify(eventPublisher).publishEvent(new ListingChangedEvent(listingId));
+    }
+
+    @Test
+    void mergeDuplicate_sharedKey_keepsObject() {
+        MediaAsset duplicate = stored("listings/old/front.jpg");
+        when(mediaAssetRepository.findById(duplicate.getMediaId())).thenReturn(Optional.of(duplicate));
+        when(mediaAssetRepository.existsByS3LocationAndMediaIdNot("listings/old/front.jpg", duplicate.getMediaId()))
+                .thenReturn(true);
+
+        mediaAssetService.mergeDuplicate(duplicate.getMediaId(), UUID.randomUUID());
+
+        verify(mediaAssetRepository).delete(duplicate);
+        verify(mediaDeletionService, never()).enqueue(anyString());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void findStoredKeys_mapsHashesToKeys() {
+        when(mediaAssetRepository.findLiveByOwnerFirebaseIdAndContentHashes("uid", List.of(PHOTO_HASH)))
+                .thenReturn(List.of(stored("listings/old/front.jpg")));
+
+        assertThat(mediaAssetService.findStoredKeys("uid", List.of(PHOTO_HASH)))
+                .isEqualTo(Map.of(PHOTO_HASH, "listings/old/front.jpg"));
+        assertThat(meterRegistry.get("media.duplicates").tag("stage", "upload").counter().count()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UUID> linkedMediaIds() {
+        ArgumentCaptor<List<ListingMedia>> links = ArgumentCaptor.forClass(List.class);
+        verify(listingMediaRepository).saveAllAndFlush(links.capture());
+        return links.getValue().stream().map(link -> link.getMediaAsset().getMediaId()).toList();
+    }
+
+    private MediaAsset stored(String key) {
+        MediaAsset asset = requested(key, PHOTO_HASH);
+        asset.setMediaId(UUID.randomUUID());
+        asset.setOwnerUser(owner);
+        return asset;
+    }
+
+    private static MediaAsset requested(String key, String contentHash) {
+        MediaAsset asset = new MediaAsset();
+        asset.setS3Location(key);
+        asset.setContentType("image/jpeg");
+        asset.setContentHash(contentHash);
+        return asset;
+    }
+}
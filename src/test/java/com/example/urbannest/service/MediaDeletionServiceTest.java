@@ -0,0 +1,122 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.media.MediaStorage;
+import com.example.urbannest.model.MediaDeletion;
+import com.example.urbannest.repository.MediaAssetRepository;
+import com.example.urbannest.repository.MediaDeletionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDeletionServiceTest {
+
+    @Mock private MediaDeletionRepository mediaDeletionRepository;
+    @Mock private MediaAssetRepository mediaAssetRepository;
+    @Mock private MediaStorage mediaStorage;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaDeletionService mediaDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        mediaDeletionService = new MediaDeletionService(mediaDeletionRepository, mediaAssetRepository, mediaStorage,
+                meterRegistry, 2, Duration.ofMinutes(1), Duration.ofHours(6), Duration.ofDays(7));
+    }
+
+    @Test
+    void backoff_doublesUpToTheCap() {
+        assertThat(mediaDeletionService.backoff(1)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(mediaDeletionService.backoff(4)).isEqualTo(Duration.ofMinutes(8));
+        assertThat(mediaDeletionService.backoff(12)).isEqualTo(Duration.ofHours(6));
+        assertThat(mediaDeletionService.backoff(500)).isEqualTo(Duration.ofHours(6));
+    }
+
+    @Test
+    void drain_deletesInBatchesAndForgetsDeletedKeys() {
+        when(mediaDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any(Limit.class)))
+                .thenReturn(List.of(deletion("a"), deletion("b")), List.of(deletion("c")));
+        when(mediaStorage.delete(any())).thenReturn(Map.of());
+
+        mediaDeletionService.drain();
+
+        verify(mediaStorage).delete(List.of("a", "b"));
+        verify(mediaStorage).delete(List.of("c"));
+        verify(mediaDeletionRepository).deleteAllByIdInBatch(List.of("a", "b"));
+        verify(mediaDeletionRepository).deleteAllByIdInBatch(List.of("c"));
+        assertThat(meterRegistry.get("media.deletions").tag("result", "deleted").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void drain_failedKeys_stayQueuedWithBackoff() {
+        MediaDeletion failing = deletion("b");
+        failing.setAttempts(2);
+        when(mediaDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any(Limit.class)))
+                .thenReturn(List.of(deletion("a"), failing), List.of());
+        when(mediaStorage.delete(any())).thenReturn(Map.of("b", "AccessDenied"));
+        OffsetDateTime before = OffsetDateTime.now();
+
+        mediaDeletionService.drain();
+
+        verify(mediaDeletionRepository).deleteAllByIdInBatch(List.of("a"));
+        verify(mediaDeletionRepository).saveAll(List.of(failing));
+        assertThat(failing.getAttempts()).isEqualTo(3);
+        assertThat(failing.getLastError()).isEqualTo("AccessDenied");
+        assertThat(failing.getNextAttemptAt()).isAfterOrEqualTo(before.plusMinutes(4));
+        assertThat(meterRegistry.get("media.deletions").tag("result", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void drain_storageUnreachable_backsOffWholeBatchAndStops() {
+        List<MediaDeletion> due = List.of(deletion("a"), deletion("b"));
+        when(mediaDeletionRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any(Limit.class)))
+                .thenReturn(due);
+        when(mediaStorage.delete(any())).thenThrow(SdkClientException.create("unreachable"));
+
+        mediaDeletionService.drain();
+
+        verify(mediaDeletionRepository, times(1)).findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(), any(Limit.class));
+        verify(mediaDeletionRepository).deleteAllByIdInBatch(List.of());
+        ArgumentCaptor<List<MediaDeletion>> saved = ArgumentCaptor.captor();
+        verify(mediaDeletionRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(MediaDeletion::getLastError).containsOnly("unreachable");
+        assertThat(saved.getValue()).extracting(MediaDeletion::getAttempts).containsOnly(1);
+    }
+
+    @Test
+    void sweepOrphans_repeatsWhileChunksComeBackFull() {
+        when(mediaAssetRepository.sweepOrphans(any(), anyInt())).thenReturn(500, 500, 12);
+        OffsetDateTime before = OffsetDateTime.now();
+
+        mediaDeletionService.sweepOrphans();
+
+        ArgumentCaptor<OffsetDateTime> cutoff = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(mediaAssetRepository, times(3)).sweepOrphans(cutoff.capture(), eq(500));
+        assertThat(cutoff.getValue()).isBefore(before.minusDays(6));
+        assertThat(meterRegistry.get("media.orphans.swept").counter().count()).isEqualTo(1012);
+    }
+
+    private static MediaDeletion deletion(String key) {
+        MediaDeletion deletion = new MediaDeletion();
+        deletion.setS3Key(key);
+        deletion.setNextAttemptAt(OffsetDateTime.now().minusMinutes(1));
+        return deletion;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.urbannest.service;
+
+import com.example.urbannest.dto.Requests.MediaUploadRequest;
+import com.example.urbannest.dto.Responses.MultipartPartUrlResponse;
+import com.example.urbannest.dto.Responses.MultipartUploadResponse;
+import com.example.urbannest.exception.InvalidRequestException;
+import com.example.urbannest.exception.UnauthorizedAccessException;
+import com.example.urbannest.media.MediaUploadPolicy;
+import com.example.urbannest.model.MultipartUpload;
+import com.example.urbannest.model.User;
+import com.example.urbannest.repository.MultipartUploadRepository;
+import com.example.urbannest.repository.UserRepository;
+import com.google.firebase.auth.FirebaseToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MultipartUploadServiceTest {
+
+    private static final String FIREBASE_UID = "test-firebase-uid";
+    private static final long MIB = 1024 * 1024;
+
+    @Mock private MultipartUploadRepository multipartUploadRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private S3Service s3Service;
+    @Mock private FirebaseToken token;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MultipartUploadService multipartUploadService;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        MediaUploadPolicy policy = new MediaUploadPolicy(List.of("image/jpeg", "video/mp4"),
+                DataSize.ofMegabytes(25), 30, DataSize.ofGigabytes(5));
+        multipartUploadService = new MultipartUploadService(multipartUploadRepository, userRepository, s3Service,
+                policy, meterRegistry, Duration.ofHours(24));
+        owner = new User();
+        owner.setFirebaseId(FIREBASE_UID);
+        lenient().when(token.getUid()).thenReturn(FIREBASE_UID);
+    }
+
+    @Test
+    void partSizeFor_keepsEightMibUntilThePartLimitForcesLarger() {
+        assertThat(MultipartUploadService.partSizeFor(1_000)).isEqualTo(8 * MIB);
+        assertThat(MultipartUploadService.partSizeFor(5L * 1024 * MIB)).isEqualTo(8 * MIB);
+        assertThat(MultipartUploadService.partSizeFor(100L * 1024 * MIB)).isEqualTo(11 * MIB);
+    }
+
+    @Test
+    void initiate_recordsUploadWithPartLayout() {
+        when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(owner));
+        when(s3Service.createMultipartUpload(anyString(), eq("video/mp4"))).thenReturn("upload-1");
+
+        MultipartUploadResponse response = multipartUploadService.initiate(token, request(20 * MIB + 5));
+
+        ArgumentCaptor<MultipartUpload> saved = ArgumentCaptor.forClass(MultipartUpload.class);
+        verify(multipartUploadRepository).saveAndFlush(saved.capture());
+        assertThat(saved.getValue().getOwnerUser()).isSameAs(owner);
+        assertThat(response.getUploadId()).isEqualTo("upload-1");
+        assertThat(response.getKey()).startsWith("listings/").endsWith("/tour.mp4");
+        assertThat(response.getPartSize()).isEqualTo(8 * MIB);
+        assertThat(response.getPartCount()).isEqualTo(3);
+        assertThat(response.getUploadedParts()).isEmpty();
+    }
+
+    @Test
+    void initiate_saveFails_abortsS3Upload() {
+        when(userRepository.findByFirebaseId(FIREBASE_UID)).thenReturn(Optional.of(owner));
+        when(s3Service.createMultipartUpload(anyString(), anyString())).thenReturn("upload-1");
+        when(multipartUploadRepository.saveAndFlush(any())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> multipartUploadService.initiate(token, request(20 * MIB)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(s3Service).abortMultipartUpload(anyString(), eq("upload-1"));
+    }
+
+    @Test
+    void presignParts_signsExactPartLengths() {
+        givenUpload(20 * MIB + 5);
+        when(s3Service.generateUploadPartUrl(eq("listings/x/tour.mp4"), eq("upload-1"), anyInt(), anyLong()))
+                .thenAnswer(invocation -> "https://s3/part/" + invocation.getArgument(2));
+
+        List<MultipartPartUrlResponse> parts = multipartUploadService.presignParts(token, "upload-1", List.of(3, 1));
+
+        assertThat(parts).extracting(MultipartPartUrlResponse::getPartNumber).containsExactly(3, 1);
+        assertThat(parts).extracting(MultipartPartUrlResponse::getContentLength).containsExactly(4 * MIB + 5, 8 * MIB);
+        assertThat(parts.get(0).getUploadUrl()).isEqualTo("https://s3/part/3");
+    }
+
+    @Test
+    void presignParts_beyondLastPart_throws400() {
+        givenUpload(20 * MIB);
+
+        assertThatThrownBy(() -> multipartUploadService.presignParts(token, "upload-1", List.of(4)))
+                .isInstanceOf(InvalidRequestException.class);
+        verify(s3Service, never()).generateUploadPartUrl(any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void presignParts_notOwner_throws403() {
+        givenUpload(20 * MIB);
+        when(token.getUid()).thenReturn("someone-else");
+
+        assertThatThrownBy(() -> multipartUploadService.presignParts(token, "upload-1", List.of(1)))
+                .isInstanceOf(UnauthorizedAccessException.class);
+    }
+
+    @Test
+    void getStatus_reportsUploadedPartsForResume() {
+        givenUpload(20 * MIB);
+        when(s3Service.listUploadedParts("listings/x/tour.mp4", "upload-1")).thenReturn(List.of(
+                new S3Service.UploadedPart(3, "\"c\"", 4 * MIB),
+                new S3Service.UploadedPart(1, "\"a\"", 8 * MIB)));
+
+        MultipartUploadResponse status = multipartUploadService.getStatus(token, "upload-1");
+
+        assertThat(status.getUploadedParts()).containsExactly(1, 3);
+    }
+
+    @Test
+    void complete_missingOrShortParts_throws400() {
+        givenUpload(20 * MIB);
+        when(s3Service.listUploadedParts("listings/x/tour.mp4", "upload-1")).thenReturn(List.of(
+                new S3Service.UploadedPart(1, "\"a\"", 8 * MIB),
+                new S3Service.UploadedPart(2, "\"b\"", 5 * MIB)));
+
+        assertThatThrownBy(() -> multipartUploadService.complete(token, "upload-1"))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessageContaining("[2, 3]");
+        verify(s3Service, never()).completeMultipartUpload(any(), any(), any());
+        verify(multipartUploadRepository, never()).delete(any());
+    }
+
+    @Test
+    void complete_allParts_completesAndForgetsUpload() {
+        MultipartUpload upload = givenUpload(20 * MIB);
+        List<S3Service.UploadedPart> parts = List.of(
+                new S3Service.UploadedPart(1, "\"a\"", 8 * MIB),
+                new S3Service.UploadedPart(2, "\"b\"", 8 * MIB),
+                new S3Service.UploadedPart(3, "\"c\"", 4 * MIB));
+        when(s3Service.listUploadedParts("listings/x/tour.mp4", "upload-1")).thenReturn(parts);
+
+        MultipartUploadResponse response = multipartUploadService.complete(token, "upload-1");
+
+        verify(s3Service).completeMultipartUpload(eq("listings/x/tour.mp4"), eq("upload-1"), any());
+        verify(multipartUploadRepository).delete(upload);
+        assertThat(response.getUploadedParts()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void abort_abortsAndForgetsUpload() {
+        MultipartUpload upload = givenUpload(20 * MIB);
+
+        multipartUploadService.abort(token, "upload-1");
+
+        verify(s3Service).abortMultipartUpload("listings/x/tour.mp4", "upload-1");
+        verify(multipartUploadRepository).delete(upload);
+    }
+
+    @Test
+    void sweepAbandoned_abortsOldUploadsAndCountsThem() {
+        MultipartUpload first = upload("old-1", 10 * MIB);
+        MultipartUpload second = upload("old-2", 10 * MIB);
+        second.setOwnerUser(null);
+        when(multipartUploadRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(any(), any(Limit.class)))
+                .thenReturn(List.of(first, second));
+
+        multipartUploadService.sweepAbandoned();
+
+        verify(s3Service).abortMultipartUpload("listings/x/tour.mp4", "old-1");
+        verify(s3Service).abortMultipartUpload("listings/x/tour.mp4", "old-2");
+        verify(multipartUploadRepository).delete(first);
+        verify(multipartUploadRepository).delete(second);
+        assertThat(meterRegistry.get("s3.multipart.abandoned").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void sweepAbandoned_s3Failure_keepsRowsForNextRun() {
+        MultipartUpload first = upload("old-1", 10 * MIB);
+        when(multipartUploadRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(any(), any(Limit.class)))
+                .thenReturn(List.of(first, upload("old-2", 10 * MIB)));
+        doThrow(SdkClientException.create("unreachable")).when(s3Service).abortMultipartUpload(any(), eq("old-1"));
+
+        multipartUploadService.sweepAbandoned();
+
+        verify(s3Service, never()).abortMultipartUpload(any(), eq("old-2"));
+        verify(multipartUploadRepository, never()).delete(any());
+    }
+
+    private MultipartUpload givenUpload(long contentLength) {
+        MultipartUpload upload = upload("upload-1", contentLength);
+        when(multipartUploadRepository.findById("upload-1")).thenReturn(Optional.of(upload));
+        return upload;
+    }
+
+    private MultipartUpload upload(String uploadId, long contentLength) {
+        MultipartUpload upload = new MultipartUpload();
+        upload.setUploadId(uploadId);
+        upload.setOwnerUser(owner);
+        upload.setS3Key("listings/x/tour.mp4");
+        upload.setContentType("video/mp4");
+        upload.setContentLength(contentLength);
+        upload.setPartSize(MultipartUploadService.partSizeFor(contentLength));
+        upload.setCreatedAt(OffsetDateTime.now().minusDays(2));
+        return upload;
+    }
+
+    private static MediaUploadRequest request(Long contentLength) {
+        MediaUploadRequest request = new MediaUploadRequest();
+        request.setFileName("tour.mp4");
+        request.setContentType("video/mp4");
+        request.setCategory("listings");
+        request.setContentLength(contentLength);
+        return request;
+    }
+}
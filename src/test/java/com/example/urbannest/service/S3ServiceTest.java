@@ -1,14 +1,22 @@
 package com.example.urbannest.service;
 
+import com.example.urbannest.media.MediaStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
@@ -16,10 +24,16 @@ import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequ
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,11 +46,13 @@ class S3ServiceTest {
     @Mock
     private S3Presigner s3Presigner;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private S3Service s3Service;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        s3Service = new S3Service(s3Client, s3Presigner, meterRegistry, Duration.ofMinutes(40), Duration.ofMinutes(10), 100);
         ReflectionTestUtils.setField(s3Service, "s3Bucket", "test-bucket");
     }
 
@@ -46,11 +62,42 @@ class S3ServiceTest {
         when(mockPresigned.url()).thenReturn(URI.create("https://s3.example.com/upload").toURL());
         when(s3Presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(mockPresigned);
 
-        String url = s3Service.generateUploadUrl("listings/photo.jpg", "image/jpeg");
+        String url = s3Service.generateUploadUrl("listings/photo.jpg", "image/jpeg", null);
 
         assertThat(url).isEqualTo("https://s3.example.com/upload");
     }
 
+    @Test
+    void generateUploadUrls_largeBatch_keepsOrderAndSignsLength() {
+        when(s3Presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenAnswer(invocation -> {
+            PutObjectPresignRequest request = invocation.getArgument(0);
+            PresignedPutObjectRequest presigned = mock(PresignedPutObjectRequest.class);
+            when(presigned.url()).thenReturn(URI.create("https://s3.example.com/"
+                    + request.putObjectRequest().key() + "?len=" + request.putObjectRequest().contentLength()).toURL());
+            return presigned;
+        });
+        List<MediaStorage.UploadTarget> targets = IntStream.range(0, 25)
+                .mapToObj(i -> new MediaStorage.UploadTarget("listings/" + i + ".jpg", "image/jpeg", 1000L + i, null))
+                .toList();
+
+        List<String> urls = s3Service.generateUploadUrls(targets);
+
+        assertThat(urls).hasSize(25);
+        for (int i = 0; i < 25; i++) {
+            assertThat(urls.get(i)).isEqualTo("https://s3.example.com/listings/" + i + ".jpg?len=" + (1000 + i));
+        }
+    }
+
+    @Test
+    void abortMultipartUpload_alreadyGone_isIgnored() {
+        when(s3Client.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+                .thenThrow(NoSuchUploadException.builder().message("gone").build());
+
+        s3Service.abortMultipartUpload("listings/tour.mp4", "upload-1");
+
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    }
+
     @Test
     void generateDownloadUrl_returnsPresignedUrl() throws Exception {
         PresignedGetObjectRequest mockPresigned = mock(PresignedGetObjectRequest.class);
@@ -62,10 +109,77 @@ class S3ServiceTest {
         assertThat(url).isEqualTo("https://s3.example.com/download");
     }
 
+    @Test
+    void generateDownloadUrl_sameKey_signsOnceAndRecordsHits() throws Exception {
+        PresignedGetObjectRequest mockPresigned = mock(PresignedGetObjectRequest.class);
+        when(mockPresigned.url()).thenReturn(URI.create("https://s3.example.com/download").toURL());
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(mockPresigned);
+
+        s3Service.generateDownloadUrl("listings/photo.jpg");
+        String second = s3Service.generateDownloadUrl("listings/photo.jpg");
+
+        assertThat(second).isEqualTo("https://s3.example.com/download");
+        verify(s3Presigner, times(1)).presignGetObject(any(GetObjectPresignRequest.class));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "s3.download-urls").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void deleteObject_dropsCachedDownloadUrl() throws Exception {
+        PresignedGetObjectRequest mockPresigned = mock(PresignedGetObjectRequest.class);
+        when(mockPresigned.url()).thenReturn(URI.create("https://s3.example.com/download").toURL());
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenReturn(mockPresigned);
+
+        s3Service.generateDownloadUrl("listings/photo.jpg");
+        s3Service.deleteObject("listings/photo.jpg");
+        s3Service.generateDownloadUrl("listings/photo.jpg");
+
+        verify(s3Presigner, times(2)).presignGetObject(any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    void constructor_marginNotShorterThanUrlLifetime_isRejected() {
+        assertThatThrownBy(() -> new S3Service(s3Client, s3Presigner, meterRegistry, Duration.ofMinutes(60),
+                Duration.ofMinutes(10), 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void constructor_marginShorterThanDetailCacheAndValidatorWindow_isRejected() {
+        assertThatThrownBy(() -> new S3Service(s3Client, s3Presigner, meterRegistry, Duration.ofMinutes(40),
+                Duration.ofMinutes(15), 100))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("aws.s3.presign-cache.safety-margin");
+    }
+
     @Test
     void deleteObject_callsS3Client() {
         s3Service.deleteObject("listings/photo.jpg");
 
         verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
     }
+
+    @Test
+    void deleteObjects_chunksByThousandAndReportsFailedKeys() {
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(invocation -> {
+            DeleteObjectsRequest request = invocation.getArgument(0);
+            List<ObjectIdentifier> objects = request.delete().objects();
+            return DeleteObjectsResponse.builder()
+                    .errors(objects.stream()
+                            .filter(object -> object.key().equals("listings/1500.jpg"))
+                            .map(object -> S3Error.builder().key(object.key()).code("AccessDenied").build())
+                            .toList())
+                    .build();
+        });
+        List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "listings/" + i + ".jpg").toList();
+
+        Map<String, String> failed = s3Service.deleteObjects(keys);
+
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(3)).deleteObjects(requests.capture());
+        assertThat(requests.getAllValues()).extracting(request -> request.delete().objects().size())
+                .containsExactly(1000, 1000, 500);
+        assertThat(requests.getAllValues()).allMatch(request -> request.delete().quiet());
+        assertThat(failed).containsExactly(Map.entry("listings/1500.jpg", "AccessDenied"));
+    }
 }
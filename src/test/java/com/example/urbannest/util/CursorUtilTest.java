@@ -0,0 +1,37 @@
+package com.example.urbannest.util;
+
+import com.example.urbannest.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    @Test
+    void encodeAndDecode_roundTrips() {
+        OffsetDateTime createdAt = OffsetDateTime.of(2025, 3, 1, 10, 15, 30, 123456000, ZoneOffset.ofHours(6));
+        UUID id = UUID.randomUUID();
+
+        CursorUtil.Cursor cursor = CursorUtil.decode(CursorUtil.encode(createdAt, id));
+
+        assertThat(cursor.createdAt().isEqual(createdAt)).isTrue();
+        assertThat(cursor.id()).isEqualTo(id);
+    }
+
+    @Test
+    void decode_blankToken_returnsNull() {
+        assertThat(CursorUtil.decode(null)).isNull();
+        assertThat(CursorUtil.decode("")).isNull();
+    }
+
+    @Test
+    void decode_malformedToken_throws400() {
+        assertThatThrownBy(() -> CursorUtil.decode("not-a-cursor"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.urbannest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagUtilTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T10:40:00Z");
+
+    @Test
+    void strongETag_sameInputsWithinWindow_isStable() {
+        String first = ETagUtil.strongETag(NOW, "a", 1);
+        String second = ETagUtil.strongETag(NOW.plusSeconds(60), "a", 1);
+
+        assertThat(first).isEqualTo(second).matches("[A-Za-z0-9_-]{22}");
+    }
+
+    @Test
+    void strongETag_changesWithPartsAndUrlWindow() {
+        String base = ETagUtil.strongETag(NOW, "a", 1);
+
+        assertThat(ETagUtil.strongETag(NOW, "a", 2)).isNotEqualTo(base);
+        assertThat(ETagUtil.strongETag(NOW.plus(ETagUtil.URL_WINDOW), "a", 1)).isNotEqualTo(base);
+    }
+
+    @Test
+    void lastModified_isLaterOfUpdateAndWindowStart() {
+        OffsetDateTime old = OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime recent = OffsetDateTime.of(2025, 6, 1, 10, 35, 12, 500_000_000, ZoneOffset.UTC);
+
+        assertThat(ETagUtil.lastModified(old, NOW)).isEqualTo(Instant.parse("2025-06-01T10:30:00Z").toEpochMilli());
+        assertThat(ETagUtil.lastModified(recent, NOW)).isEqualTo(Instant.parse("2025-06-01T10:35:12Z").toEpochMilli());
+    }
+
+    @Test
+    void requireUrlsOutlive_needsDetailCacheTtlPlusUrlWindow() {
+        assertThatCode(() -> ETagUtil.requireUrlsOutlive(Duration.ofMinutes(40), Duration.ofMinutes(10), "test"))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> ETagUtil.requireUrlsOutlive(Duration.ofMinutes(39), Duration.ofMinutes(10), "test"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("(test)");
+    }
+}
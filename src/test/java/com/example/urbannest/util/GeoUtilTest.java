@@ -0,0 +1,35 @@
+package com.example.urbannest.util;
+
+import com.example.urbannest.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeoUtilTest {
+
+    @Test
+    void toPolygonLiteral_swapsToLngLatOrder() {
+        String literal = GeoUtil.toPolygonLiteral("23.8,90.4; 23.8,90.43; 23.77,90.43");
+
+        assertThat(literal).isEqualTo("((90.4,23.8),(90.43,23.8),(90.43,23.77))");
+    }
+
+    @Test
+    void toPolygonLiteral_tooFewVertices_throws400() {
+        assertThatThrownBy(() -> GeoUtil.toPolygonLiteral("23.8,90.4;23.8,90.43"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void toPolygonLiteral_outOfRangeLatitude_throws400() {
+        assertThatThrownBy(() -> GeoUtil.toPolygonLiteral("91,90.4;23.8,90.43;23.77,90.43"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void toPolygonLiteral_malformedVertex_throws400() {
+        assertThatThrownBy(() -> GeoUtil.toPolygonLiteral("23.8;23.8,90.43;23.77,90.43"))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+}